@@ -52,16 +52,18 @@ public class Archive extends Representation {
 	private static final String REGISTRY_TAG = "registry";
 	private static final String ZIPFILE_TAG = "zipfile";
 
-	private String[] NEW_ATTRIBUTES = { CREATED_AT_TAG, DONE_TAG };
-	private String[] NEW_RESOURCES = { ZIPFILE_TAG, REGISTRY_TAG, DESTROY_TAG };
+	private static final String[] NEW_ATTRIBUTES = { CREATED_AT_TAG, DONE_TAG };
+	private static final String[] NEW_RESOURCES = { ZIPFILE_TAG, REGISTRY_TAG, DESTROY_TAG };
+
+	private static final Schema SCHEMA = Schema.of(Archive.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
 
 	/**
 	 * Instantiates a new archive.
 	 */
 	public Archive() {
-		super();
-		addNewAttributeList(NEW_ATTRIBUTES);
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
 	}
 
 	/**
@@ -0,0 +1,156 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class AsyncVerbsTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+	private static final String URI = "https://chemcaster.com/registries/1";
+	private static final String EXECUTOR_THREAD = "AsyncVerbsTest-executor";
+
+	private volatile int status = 200;
+	// requests run on the executor thread, counted
+	private final AtomicInteger onExecutor = new AtomicInteger();
+	private final AtomicInteger executed = new AtomicInteger();
+	private ChemcasterClient client;
+
+	@Override
+	protected void setUp() throws IOException {
+		Transport transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation)
+							throws IOException {
+						if (EXECUTOR_THREAD.equals(Thread.currentThread()
+								.getName())) {
+							onExecutor.incrementAndGet();
+						}
+						TransportResponse response = mock(TransportResponse.class);
+						when(response.getStatusCode()).thenReturn(status);
+						when(response.getStatusLine()).thenReturn(
+								"HTTP/1.1 " + status);
+						when(response.getContent()).thenReturn(
+								new ByteArrayInputStream(
+										"{\"registry\":{\"name\":\"r1\"}}"
+												.getBytes()));
+						return response;
+					}
+				});
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setExecutor(new Executor() {
+			public void execute(Runnable command) {
+				executed.incrementAndGet();
+				Thread thread = new Thread(command, EXECUTOR_THREAD);
+				thread.start();
+			}
+		});
+		client = new ChemcasterClient(configuration, transport);
+	}
+
+	@Override
+	protected void tearDown() {
+		client.shutdown();
+	}
+
+	private Link link() {
+		return Link.create(REGISTRY_TYPE, URI, new UsernamePasswordCredentials(
+				"alice", "a"));
+	}
+
+	public void testGetAsync() throws Exception {
+		Registry registry = client.<Registry> getAsync(link()).get();
+		assertEquals("r1", registry.getName());
+	}
+
+	public void testRunsOnConfiguredExecutor() throws Exception {
+		client.<Registry> getAsync(link()).get();
+		assertEquals(1, executed.get());
+		assertEquals(1, onExecutor.get());
+		assertSame(client.getExecutor(), client.getConfiguration()
+				.getExecutor());
+	}
+
+	public void testFailureIsClientException() throws Exception {
+		status = 404;
+		CompletableFuture<Registry> future = client.<Registry> getAsync(link());
+		try {
+			future.join();
+			fail("expected a CompletionException");
+		} catch (CompletionException ce) {
+			assertTrue(ce.getCause() instanceof ClientException);
+		}
+		try {
+			future.get();
+			fail("expected an ExecutionException");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof ClientException);
+		}
+	}
+
+	public void testDeleteAsync() throws Exception {
+		Registry deleted = client.<Registry> deleteAsync(link()).get();
+		assertEquals("r1", deleted.getName());
+		assertEquals(1, onExecutor.get());
+	}
+
+	public void testAsyncLinkFailureIsNotThrown() throws Exception {
+		Query query = mock(Query.class);
+		when(query.getExecutionsLink()).thenThrow(
+				new ClientException("No executions link"));
+		CompletableFuture<SimpleExecution> future = new SimpleQuery(client,
+				query).getSimpleExecutionAsync(10);
+		try {
+			future.get();
+			fail("expected an ExecutionException");
+		} catch (ExecutionException ee) {
+			assertTrue(ee.getCause() instanceof ClientException);
+		}
+	}
+}
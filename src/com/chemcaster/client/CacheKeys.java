@@ -0,0 +1,166 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/**
+ * The Class CacheKeys. Builds the keys a client's caches file
+ * representations under: the media type, the user, and the URI, in that
+ * order so the URI can be matched as a suffix.
+ * <p>
+ * In memory the user is an HMAC of the name and password under a random
+ * secret drawn for each client, so a caller with the wrong password is never
+ * answered from a cache, and the id cannot be tested against guessed
+ * passwords. The secret is never written anywhere. The disk cache outlives
+ * the client, so its keys carry only the user name, and a record read from
+ * disk is only trusted once the server has accepted the credentials in this
+ * client, by answering a request or a conditional GET for the record.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+class CacheKeys {
+
+	private static final char KEY_SEPARATOR = ' ';
+	private static final String ID_ALGORITHM = "HmacSHA256";
+	private static final int SECRET_BYTES = 32;
+	private static final int ID_BYTES = 16;
+
+	private final Mac mac;
+	// ids of the credentials the server has accepted
+	private final Set<String> verified = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Instantiates new cache keys with a fresh random secret.
+	 */
+	CacheKeys() {
+		byte[] secret = new byte[SECRET_BYTES];
+		new SecureRandom().nextBytes(secret);
+		try {
+			mac = Mac.getInstance(ID_ALGORITHM);
+			mac.init(new SecretKeySpec(secret, ID_ALGORITHM));
+		} catch (GeneralSecurityException gse) {
+			throw new ClientRuntimeException(gse.getMessage());
+		}
+	}
+
+	/**
+	 * The in-memory key of a link.
+	 * 
+	 * @param aLink
+	 *            the link
+	 * 
+	 * @return the key
+	 */
+	String key(Link aLink) {
+		return aLink.getMediaTypeString() + KEY_SEPARATOR
+				+ id(aLink.getAuthentication()) + KEY_SEPARATOR
+				+ aLink.getURI();
+	}
+
+	/**
+	 * The disk cache key of a link, which holds nothing derived from the
+	 * password.
+	 * 
+	 * @param aLink
+	 *            the link
+	 * 
+	 * @return the key
+	 */
+	String diskKey(Link aLink) {
+		UsernamePasswordCredentials credentials = aLink.getAuthentication();
+		String user = credentials == null ? "" : credentials.getUserName();
+		return aLink.getMediaTypeString() + KEY_SEPARATOR + user
+				+ KEY_SEPARATOR + aLink.getURI();
+	}
+
+	/**
+	 * Record that the server accepted the credentials of a link.
+	 * 
+	 * @param aLink
+	 *            the link
+	 */
+	void verified(Link aLink) {
+		if (aLink.getAuthentication() != null) {
+			verified.add(id(aLink.getAuthentication()));
+		}
+	}
+
+	/**
+	 * Checks if the server has accepted the credentials of a link, so a disk
+	 * record filed under its user name may be handed to it.
+	 * 
+	 * @param aLink
+	 *            the link
+	 * 
+	 * @return true, if verified or the link has no credentials
+	 */
+	boolean isVerified(Link aLink) {
+		return aLink.getAuthentication() == null
+				|| verified.contains(id(aLink.getAuthentication()));
+	}
+
+	/**
+	 * Checks if a key, of this class or built on one, is for a URI.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param uri
+	 *            the uri
+	 * 
+	 * @return true, if the key ends with the URI
+	 */
+	static boolean isKeyFor(String key, String uri) {
+		return key.endsWith(KEY_SEPARATOR + uri);
+	}
+
+	private String id(UsernamePasswordCredentials credentials) {
+		if (credentials == null) {
+			return "";
+		}
+		byte[] hash;
+		synchronized (mac) {
+			hash = mac.doFinal((credentials.getUserName() + ':' + credentials
+					.getPassword()).getBytes(StandardCharsets.UTF_8));
+		}
+		StringBuilder hex = new StringBuilder(ID_BYTES * 2);
+		for (int i = 0; i < ID_BYTES; i++) {
+			hex.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+			hex.append(Character.forDigit(hash[i] & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -0,0 +1,71 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class CacheKeysTest extends TestCase {
+
+	private static final String URI = "https://chemcaster.com/registries/1";
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+
+	private Link link(String password) {
+		return Link.create(REGISTRY_TYPE, URI, new UsernamePasswordCredentials(
+				"alice", password));
+	}
+
+	public void testKeyPerPasswordAndClient() {
+		CacheKeys keys = new CacheKeys();
+		assertEquals(keys.key(link("a")), keys.key(link("a")));
+		assertFalse(keys.key(link("a")).equals(keys.key(link("wrong"))));
+		assertFalse(keys.key(link("a")).equals(new CacheKeys().key(link("a"))));
+		assertTrue(CacheKeys.isKeyFor(keys.key(link("a")), URI));
+		assertFalse(CacheKeys.isKeyFor(keys.key(link("a")), URI + "/queries"));
+	}
+
+	public void testDiskKeyHoldsNoPassword() {
+		CacheKeys keys = new CacheKeys();
+		assertEquals(REGISTRY_TYPE + " alice " + URI, keys.diskKey(link("a")));
+		assertEquals(keys.diskKey(link("a")), new CacheKeys().diskKey(link("b")));
+	}
+
+	public void testVerified() {
+		CacheKeys keys = new CacheKeys();
+		assertFalse(keys.isVerified(link("a")));
+		keys.verified(link("a"));
+		assertTrue(keys.isVerified(link("a")));
+		assertFalse(keys.isVerified(link("wrong")));
+		assertTrue(keys.isVerified(Link.create(REGISTRY_TYPE, URI, null)));
+	}
+}
@@ -0,0 +1,1856 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * The Class ChemcasterClient. A client instance owns its transport: the
+ * connection pool, timeouts, async executor and authentication state. Simple
+ * classes created from a client make all of their requests through it, so
+ * separate workloads in one JVM (an interactive UI and a nightly bulk load,
+ * say) can each have their own performance profile. ClientHttp forwards to a
+ * shared default client.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class ChemcasterClient {
+
+	private static final String ERROR_ACCESS_RESPONSE = "Unable to access response to request: ";
+	private static final String ERROR_CANNOT_PROCESS = "The request was well-formed but was unable to be followed due to semantic errors. ";
+	private static final String ERROR_INTERRUPTED = "Interrupted while waiting to retry: ";
+	private static final String ERROR_INTERRUPTED_SHARED = "Interrupted while waiting for a shared request to: ";
+	private static final String ERROR_SHARED_EXPIRED = "Deadline expired waiting for a shared request to: ";
+	private static final String ERROR_INTERNAL_SERVER = "The server encountered an unexpected condition which prevented it from fulfilling the request. ";
+	private static final String ERROR_NOT_ACCEPTABLE = "The resource identified by this request is not capable of generating a representation corresponding to one of the media types in the Accept header of the request. ";
+	private static final String ERROR_NOT_ALLOWED = "The HTTP verb specified in the request (DELETE, GET, HEAD, POST, PUT) is not supported for this request URI. ";
+	private static final String ERROR_NO_CLIENT = "Client cannot be null.";
+	private static final String ERROR_NO_POOLED_TRANSPORT = "The transport of this client has no connection pool.";
+	private static final String ERROR_NO_TRANSPORT = "Transport cannot be null.";
+	private static final String ERROR_NOT_FOUND = "The request specified a URI of a resource that does not exist. ";
+	private static final String ERROR_NO_JSON_OBJECT_FROM_RESPONSE = "Unable to create JSONObject from response. ";
+	private static final String ERROR_UNAUTHORIZED = "The authentication credentials included with this request are missing or invalid.";
+	private static final String ERROR_UNEXPECTED = "Unexpected status: ";
+
+	// HTTP codes 200,201,202
+	private static final HashSet<Integer> GOOD_STATUS = new HashSet<Integer>() {
+		private static final long serialVersionUID = 1L;
+		{
+			add(HttpStatus.SC_OK);
+			add(HttpStatus.SC_CREATED);
+			add(HttpStatus.SC_ACCEPTED);
+		}
+	};
+
+	private static final String ACCEPT_HEADER = "Accept";
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String ETAG_HEADER = "ETag";
+	private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+	private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+	private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+	private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+	private static final String DEFAULT_PREEMPTIVE_HOST = "chemcaster.com";
+
+	private static final String ASYNC_THREAD_PREFIX = "ChemcasterClient-async-";
+	private static final String HEDGE_THREAD_PREFIX = "ChemcasterClient-hedge-";
+
+	// HttpClient's default for responses that name no charset
+	private static final String DEFAULT_CONTENT_CHARSET = "ISO-8859-1";
+	private static final int READ_CHAR_BUFFER_SIZE = 4096;
+
+	private static ChemcasterClient defaultClient;
+
+	private final ClientConfiguration configuration;
+	private final Executor executor;
+	private final ExecutorService ownedExecutor;
+	private final Transport transport;
+	private final LinkCache linkCache;
+	private final CacheKeys cacheKeys = new CacheKeys();
+	private final RepresentationCache representationCache;
+	private final DiskCache diskCache;
+	private final QueryCache queryCache;
+	private final ExecutionCache executionCache;
+
+	private volatile boolean preemptiveAuthentication;
+	private final Set<String> preemptiveHosts = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final AtomicLong challengesAvoided = new AtomicLong();
+	private final AtomicLong requestAttempts = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong retryGiveUps = new AtomicLong();
+
+	private final HedgePolicy hedgePolicy;
+	private final HedgePolicy.LatencyWindow hedgeWindow;
+	private ExecutorService hedgeExecutor;
+	private final AtomicLong hedgeableRequests = new AtomicLong();
+	private final AtomicLong hedgesSent = new AtomicLong();
+	private final AtomicLong hedgeWins = new AtomicLong();
+
+	private final boolean coalesceGets;
+	private final ConcurrentHashMap<String, Flight> inFlightGets = new ConcurrentHashMap<String, Flight>();
+	private final AtomicLong coalescedGets = new AtomicLong();
+
+	/**
+	 * Instantiates a new client with the default configuration.
+	 */
+	public ChemcasterClient() {
+		this(new ClientConfiguration());
+	}
+
+	/**
+	 * Instantiates a new client on the default HttpClient 4 transport.
+	 * 
+	 * @param newConfiguration
+	 *            the configuration of this client's transport
+	 */
+	public ChemcasterClient(ClientConfiguration newConfiguration) {
+		this(newConfiguration, new HttpClient4Transport(new ConnectionPool(
+				newConfiguration)));
+	}
+
+	/**
+	 * Instantiates a new client on a given transport, for example a
+	 * JdkHttpTransport for HTTP/2.
+	 * 
+	 * @param newConfiguration
+	 *            the configuration of this client
+	 * @param newTransport
+	 *            the transport that carries the requests
+	 */
+	public ChemcasterClient(ClientConfiguration newConfiguration,
+			Transport newTransport) {
+		if (newTransport == null) {
+			throw new ClientRuntimeException(ERROR_NO_TRANSPORT);
+		}
+		configuration = newConfiguration;
+		transport = newTransport;
+		preemptiveAuthentication = configuration.isPreemptiveAuthentication();
+		preemptiveHosts.add(DEFAULT_PREEMPTIVE_HOST);
+		linkCache = new LinkCache(configuration.getLinkCacheTTLMillis());
+		representationCache = new RepresentationCache(configuration,
+				cacheKeys);
+		coalesceGets = configuration.isCoalesceGets();
+		hedgePolicy = configuration.getHedgePolicy();
+		hedgeWindow = hedgePolicy == null ? null
+				: new HedgePolicy.LatencyWindow(hedgePolicy.getWindowSize());
+		diskCache = configuration.getDiskCacheDirectory() == null ? null
+				: new DiskCache(configuration.getDiskCacheDirectory(),
+						configuration.getDiskCacheMaxBytes());
+
+		if (configuration.getExecutor() != null) {
+			ownedExecutor = null;
+			executor = configuration.getExecutor();
+		} else {
+			ownedExecutor = Executors.newFixedThreadPool(configuration
+					.getAsyncThreads(), new DaemonThreadFactory(
+					ASYNC_THREAD_PREFIX));
+			executor = ownedExecutor;
+		}
+		queryCache = new QueryCache(this, configuration, cacheKeys);
+		executionCache = new ExecutionCache(this, configuration, cacheKeys);
+	}
+
+	/**
+	 * Gets the default client, used by ClientHttp and by Simple classes
+	 * created without a client.
+	 * 
+	 * @return the default client
+	 */
+	public static synchronized ChemcasterClient getDefaultClient() {
+		if (defaultClient == null) {
+			defaultClient = new ChemcasterClient();
+		}
+		return defaultClient;
+	}
+
+	/**
+	 * Replace the default client. The previous default client is not shut
+	 * down.
+	 * 
+	 * @param newDefault
+	 *            the new default client
+	 */
+	public static synchronized void setDefaultClient(ChemcasterClient newDefault) {
+		if (newDefault == null) {
+			throw new ClientRuntimeException(ERROR_NO_CLIENT);
+		}
+		defaultClient = newDefault;
+	}
+
+	/**
+	 * Gets the configuration this client was created with. The settings read
+	 * each time they are used, such as the retry policy, can still be changed
+	 * through it.
+	 * 
+	 * @return the configuration
+	 */
+	public ClientConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Connect to the service at the default URI.
+	 * 
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @return the SimpleService
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleService newSimpleService(String username, String password)
+			throws ClientException {
+		return new SimpleService(this, username, password);
+	}
+
+	/**
+	 * Connect to the service at a user supplied URI.
+	 * 
+	 * @param userURI
+	 *            the service uri
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @return the SimpleService
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleService newSimpleService(String userURI, String username,
+			String password) throws ClientException {
+		return new SimpleService(this, userURI, username, password);
+	}
+
+	/**
+	 * Gets an existing registry by its URI.
+	 * 
+	 * @param registryURI
+	 *            the registry uri
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @return the SimpleRegistry
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleRegistry newSimpleRegistry(String registryURI,
+			String username, String password) throws ClientException {
+		return new SimpleRegistry(this, registryURI, username, password);
+	}
+
+	/**
+	 * Gets the transport that carries this client's requests.
+	 * 
+	 * @return the transport
+	 */
+	public Transport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Gets the connection pool used by this client.
+	 * 
+	 * @return the connection pool, or null if the transport is not pooled
+	 */
+	public ConnectionPool getConnectionPool() {
+		if (transport instanceof HttpClient4Transport) {
+			return ((HttpClient4Transport) transport).getConnectionPool();
+		}
+		return null;
+	}
+
+	/**
+	 * Replace the connection pool, for example to change the connection
+	 * limits. The previous pool is shut down.
+	 * 
+	 * @param newPool
+	 *            the new connection pool
+	 */
+	public void setConnectionPool(ConnectionPool newPool) {
+		if (!(transport instanceof HttpClient4Transport)) {
+			throw new ClientRuntimeException(ERROR_NO_POOLED_TRANSPORT);
+		}
+		((HttpClient4Transport) transport).setConnectionPool(newPool);
+	}
+
+	/**
+	 * Gets the executor that runs the async requests.
+	 * 
+	 * @return the executor
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Turn preemptive Basic authentication on or off. When on (the default),
+	 * requests to a known host carry credentials up front instead of waiting
+	 * for a 401 challenge. Hosts become known when they are added explicitly,
+	 * or after they challenge a request for Basic credentials.
+	 * 
+	 * @param preemptive
+	 *            true to send credentials preemptively
+	 */
+	public void setPreemptiveAuthentication(boolean preemptive) {
+		preemptiveAuthentication = preemptive;
+	}
+
+	/**
+	 * Checks if preemptive Basic authentication is on.
+	 * 
+	 * @return true, if preemptive
+	 */
+	public boolean isPreemptiveAuthentication() {
+		return preemptiveAuthentication;
+	}
+
+	/**
+	 * Add a host that is sent credentials preemptively.
+	 * 
+	 * @param host
+	 *            the host name, as returned by Link.getURIHost()
+	 */
+	public void addPreemptiveHost(String host) {
+		preemptiveHosts.add(host);
+	}
+
+	/**
+	 * Gets the number of 401 challenge round trips avoided by preemptive
+	 * authentication.
+	 * 
+	 * @return the number of challenges avoided
+	 */
+	public long getChallengesAvoided() {
+		return challengesAvoided.get();
+	}
+
+	/**
+	 * Gets the number of requests sent to the transport, counting each retry.
+	 * 
+	 * @return the number of attempts
+	 */
+	public long getRequestAttempts() {
+		return requestAttempts.get();
+	}
+
+	/**
+	 * Gets the number of retries made by the retry policy.
+	 * 
+	 * @return the number of retries
+	 */
+	public long getRetries() {
+		return retries.get();
+	}
+
+	/**
+	 * Gets the number of retryable requests that still failed, having used
+	 * all of their attempts or been asked to wait longer than the policy
+	 * allows.
+	 * 
+	 * @return the number of give-ups
+	 */
+	public long getRetryGiveUps() {
+		return retryGiveUps.get();
+	}
+
+	/**
+	 * Gets the number of GETs answered by sharing an identical GET already in
+	 * flight.
+	 * 
+	 * @return the number of coalesced GETs
+	 */
+	public long getCoalescedGets() {
+		return coalescedGets.get();
+	}
+
+	/**
+	 * Gets the number of GETs sent while hedging was on.
+	 * 
+	 * @return the number of hedgeable requests
+	 */
+	public long getHedgeableRequests() {
+		return hedgeableRequests.get();
+	}
+
+	/**
+	 * Gets the number of duplicate GETs sent because the first was slow.
+	 * 
+	 * @return the number of hedges
+	 */
+	public long getHedgesSent() {
+		return hedgesSent.get();
+	}
+
+	/**
+	 * Gets the number of hedges that answered before the request they
+	 * duplicated.
+	 * 
+	 * @return the number of hedge wins
+	 */
+	public long getHedgeWins() {
+		return hedgeWins.get();
+	}
+
+	/**
+	 * Gets the share of hedgeable GETs that were hedged.
+	 * 
+	 * @return the hedge rate, from 0 to 1
+	 */
+	public double getHedgeRate() {
+		long requests = hedgeableRequests.get();
+		return requests == 0 ? 0 : (double) hedgesSent.get() / requests;
+	}
+
+	/**
+	 * Shut down this client's transport, its disk cache, its query sweep and
+	 * log check, and its executor if the client created it. The client cannot
+	 * be used afterwards.
+	 */
+	public void shutdown() {
+		queryCache.close();
+		executionCache.close();
+		transport.shutdown();
+		if (diskCache != null) {
+			diskCache.close();
+		}
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdown();
+		}
+		synchronized (this) {
+			if (hedgeExecutor != null) {
+				hedgeExecutor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * REST GET. With the representation cache or the disk cache on, a fresh
+	 * cached representation is returned without a request, and an expired one
+	 * is revalidated with a conditional GET. Concurrent GETs of the same link
+	 * by the same user share one request, unless coalescing is turned off.
+	 * Every caller gets a representation of its own: a cached or shared one
+	 * is copied, so changes to it are not seen by other callers.
+	 * 
+	 * @param aLink
+	 *            the link from a get
+	 * 
+	 * @return the specific subclass of Representation
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Representation> T get(Link aLink) throws ClientException {
+		if (!coalesceGets) {
+			return (T) fetch(aLink);
+		}
+
+		String key = cacheKeys.key(aLink);
+		Flight flight = new Flight();
+		Flight leader;
+		while ((leader = inFlightGets.putIfAbsent(key, flight)) != null) {
+			if (leader.join()) {
+				coalescedGets.incrementAndGet();
+				return (T) awaitShared(leader.result, aLink).copy();
+			}
+			// landed, but not yet removed by its caller
+			inFlightGets.remove(key, leader);
+		}
+		try {
+			Representation representation = fetch(aLink);
+			// with followers, the fetched representation is only read from
+			boolean shared = flight.land();
+			flight.result.complete(representation);
+			return (T) (shared ? representation.copy() : representation);
+		} catch (Throwable t) {
+			flight.land();
+			flight.result.completeExceptionally(t);
+			throw t;
+		} finally {
+			inFlightGets.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Wait for the result of an identical GET made by another caller, within
+	 * the deadline of this one.
+	 */
+	private Representation awaitShared(
+			CompletableFuture<Representation> leader, Link aLink)
+			throws ClientException {
+		Deadline deadline = Deadline.current();
+		try {
+			if (deadline == null) {
+				return leader.get();
+			}
+			return leader.get(deadline.getRemainingMillis(),
+					TimeUnit.MILLISECONDS);
+		} catch (TimeoutException te) {
+			throw new ClientException(ERROR_SHARED_EXPIRED + aLink.getURI());
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new ClientException(ERROR_INTERRUPTED_SHARED
+					+ aLink.getURI());
+		} catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if (cause instanceof ClientException) {
+				throw (ClientException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ClientException(cause.getMessage());
+		}
+	}
+
+	/**
+	 * GET through the representation and disk caches. The representation
+	 * returned is the caller's own; a cached one is copied.
+	 */
+	private Representation fetch(Link aLink) throws ClientException {
+		RepresentationCache.CachedRepresentation cached = representationCache
+				.lookup(aLink);
+		boolean fromDisk = false;
+		if (cached == null && diskCache != null) {
+			cached = readDisk(aLink);
+			fromDisk = cached != null;
+		}
+		// a disk record is filed under the user name alone, so it is only
+		// trusted once the server has accepted the password
+		if (cached != null && cached.isFresh()
+				&& (!fromDisk || cacheKeys.isVerified(aLink))) {
+			if (fromDisk) {
+				representationCache.put(aLink, cached.representation,
+						cached.eTag, cached.lastModified);
+			}
+			return cached.representation.copy();
+		}
+
+		aLink.validateInstanceVars();
+		TransportRequest request = newRequest(TransportRequest.GET, aLink,
+				null);
+		if (cached != null) {
+			if (cached.eTag != null) {
+				request.setHeader(IF_NONE_MATCH_HEADER, cached.eTag);
+			}
+			if (cached.lastModified != null) {
+				request.setHeader(IF_MODIFIED_SINCE_HEADER,
+						cached.lastModified);
+			}
+		}
+		TransportResponse response = clientResponse(request);
+
+		if (cached != null
+				&& response.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+			response.release();
+			cacheKeys.verified(aLink);
+			representationCache.revalidated(aLink, cached);
+			if (fromDisk) {
+				representationCache.put(aLink, cached.representation,
+						cached.eTag, cached.lastModified);
+			}
+			writeDisk(aLink, cached.representation, cached.eTag,
+					cached.lastModified);
+			return cached.representation.copy();
+		}
+
+		String eTag = response.getHeader(ETAG_HEADER);
+		String lastModified = response.getHeader(LAST_MODIFIED_HEADER);
+		Representation representation = handleResponse(response, aLink);
+		writeDisk(aLink, representation, eTag, lastModified);
+		if (representationCache.put(aLink, representation, eTag,
+				lastModified)) {
+			return representation.copy();
+		}
+		return representation;
+	}
+
+	/**
+	 * REST PUT, with no attributes.
+	 * 
+	 * @param aLink
+	 *            the link for putting
+	 * 
+	 * @return the specific subclass of Representation
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Representation> T put(Link aLink) throws ClientException {
+		TransportResponse response = createResponse(TransportRequest.PUT,
+				aLink, null);
+		return (T) handleWriteResponse(response, aLink);
+	}
+
+	/**
+	 * REST PUT, with attributes.
+	 * 
+	 * @param attributes
+	 *            the attributes of the put as an AttributeHash
+	 * @param aLink
+	 *            the link for putting
+	 * 
+	 * @return the specific subclass of Representation
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Representation> T put(Link aLink,
+			AttributeHash attributes) throws ClientException {
+		TransportResponse response = createResponse(TransportRequest.PUT,
+				aLink, attributes);
+		return (T) handleWriteResponse(response, aLink);
+	}
+
+	/**
+	 * REST POST, with no attributes.
+	 * 
+	 * @param aLink
+	 *            the link for posting
+	 * 
+	 * @return the specific subclass of Representation
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Representation> T post(Link aLink)
+			throws ClientException {
+		TransportResponse response = createResponse(TransportRequest.POST,
+				aLink, null);
+		return (T) handleWriteResponse(response, aLink);
+	}
+
+	/**
+	 * REST POST, with attributes.
+	 * 
+	 * @param attributes
+	 *            the attributes of the post as an AttributeHash
+	 * @param aLink
+	 *            the link for posting
+	 * 
+	 * @return the specific subclass of Representation
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Representation> T post(Link aLink,
+			AttributeHash attributes) throws ClientException {
+		TransportResponse response = createResponse(TransportRequest.POST,
+				aLink, attributes);
+		return (T) handleWriteResponse(response, aLink);
+	}
+
+	/**
+	 * REST DELETE.
+	 * 
+	 * @param aLink
+	 *            the link for resource deletion
+	 * 
+	 * @return the specific subclass of Representation
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Representation> T delete(Link aLink)
+			throws ClientException {
+		TransportResponse response = createResponse(TransportRequest.DELETE,
+				aLink);
+		return (T) handleWriteResponse(response, aLink);
+	}
+
+	/**
+	 * Asynchronous REST GET. A failed request completes the future
+	 * exceptionally with the ClientException.
+	 * 
+	 * @param aLink
+	 *            the link from a get
+	 * 
+	 * @return a future for the specific subclass of Representation
+	 */
+	public <T extends Representation> CompletableFuture<T> getAsync(Link aLink) {
+		return supplyAsync(() -> this.<T> get(aLink));
+	}
+
+	/**
+	 * Asynchronous REST PUT, with no attributes.
+	 * 
+	 * @param aLink
+	 *            the link for putting
+	 * 
+	 * @return a future for the specific subclass of Representation
+	 */
+	public <T extends Representation> CompletableFuture<T> putAsync(Link aLink) {
+		return supplyAsync(() -> this.<T> put(aLink));
+	}
+
+	/**
+	 * Asynchronous REST PUT, with attributes.
+	 * 
+	 * @param aLink
+	 *            the link for putting
+	 * @param attributes
+	 *            the attributes of the put as an AttributeHash
+	 * 
+	 * @return a future for the specific subclass of Representation
+	 */
+	public <T extends Representation> CompletableFuture<T> putAsync(
+			Link aLink, AttributeHash attributes) {
+		return supplyAsync(() -> this.<T> put(aLink, attributes));
+	}
+
+	/**
+	 * Asynchronous REST POST, with no attributes.
+	 * 
+	 * @param aLink
+	 *            the link for posting
+	 * 
+	 * @return a future for the specific subclass of Representation
+	 */
+	public <T extends Representation> CompletableFuture<T> postAsync(Link aLink) {
+		return supplyAsync(() -> this.<T> post(aLink));
+	}
+
+	/**
+	 * Asynchronous REST POST, with attributes.
+	 * 
+	 * @param aLink
+	 *            the link for posting
+	 * @param attributes
+	 *            the attributes of the post as an AttributeHash
+	 * 
+	 * @return a future for the specific subclass of Representation
+	 */
+	public <T extends Representation> CompletableFuture<T> postAsync(
+			Link aLink, AttributeHash attributes) {
+		return supplyAsync(() -> this.<T> post(aLink, attributes));
+	}
+
+	/**
+	 * Asynchronous REST DELETE.
+	 * 
+	 * @param aLink
+	 *            the link for resource deletion
+	 * 
+	 * @return a future for the specific subclass of Representation
+	 */
+	public <T extends Representation> CompletableFuture<T> deleteAsync(
+			Link aLink) {
+		return supplyAsync(() -> this.<T> delete(aLink));
+	}
+
+	/**
+	 * A lazy view of every page of an index, fetching pages ahead as set by
+	 * the configured page read-ahead.
+	 * 
+	 * @param indexLink
+	 *            the link to the first page of the index
+	 * 
+	 * @return the item links of all pages
+	 */
+	public IndexPages getPages(Link indexLink) {
+		return new IndexPages(this, indexLink, configuration
+				.getPageReadAhead());
+	}
+
+	/**
+	 * A lazy view of every hit of a query execution, following next_cursor
+	 * from the given page and posting for pages ahead as set by the
+	 * configured page read-ahead.
+	 * 
+	 * @param execution
+	 *            the first page of results
+	 * 
+	 * @return the substance links of all pages
+	 */
+	public ExecutionResults getResults(Execution execution) {
+		return new ExecutionResults(this, execution, configuration
+				.getPageReadAhead());
+	}
+
+	/**
+	 * A search of several registries at once, their hits merged as they
+	 * arrive. Pages are fetched ahead as set by the configured page
+	 * read-ahead.
+	 * 
+	 * @param registries
+	 *            the registries to search
+	 * @param mode
+	 *            the mode (type) of the query
+	 * @param serialization
+	 *            the serialized version the query, typically molfile format
+	 * @param maximumResults
+	 *            the maximum results per page
+	 * @param limit
+	 *            the hits over all registries after which the search stops,
+	 *            FederatedQuery.NO_LIMIT for all
+	 * 
+	 * @return the hits of all registries
+	 */
+	public FederatedQuery getFederatedQuery(List<SimpleRegistry> registries,
+			String mode, String serialization, Number maximumResults, int limit) {
+		return new FederatedQuery(this, registries, mode, serialization,
+				maximumResults, limit, configuration.getPageReadAhead());
+	}
+
+	/**
+	 * Gets the cache of create and parent links discovered on indexes.
+	 * 
+	 * @return the link cache
+	 */
+	public LinkCache getLinkCache() {
+		return linkCache;
+	}
+
+	/**
+	 * Gets the cache of the queries this client has created.
+	 * 
+	 * @return the query cache
+	 */
+	public QueryCache getQueryCache() {
+		return queryCache;
+	}
+
+	/**
+	 * Create a query in a registry, or reuse the one created earlier for the
+	 * same mode and serialization while it is in the query cache.
+	 * 
+	 * @param registry
+	 *            the registry to query
+	 * @param mode
+	 *            the mode (type) of the query
+	 * @param serialization
+	 *            the serialized version the query, typically molfile format
+	 * 
+	 * @return the query
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public Query createQuery(Registry registry, String mode,
+			String serialization) throws ClientException {
+		Query cached = queryCache.get(registry, mode, serialization);
+		if (cached != null) {
+			return cached;
+		}
+		Query query = post(getCreateLink(registry.getQueriesLink()),
+				queryAttributes(mode, serialization));
+		queryCache.put(registry, mode, serialization, query);
+		return query;
+	}
+
+	/**
+	 * Asynchronous createQuery. A cached query completes the future at once.
+	 * 
+	 * @param registry
+	 *            the registry to query
+	 * @param mode
+	 *            the mode (type) of the query
+	 * @param serialization
+	 *            the serialized version the query, typically molfile format
+	 * 
+	 * @return a future for the query
+	 */
+	public CompletableFuture<Query> createQueryAsync(Registry registry,
+			String mode, String serialization) {
+		Query cached = queryCache.get(registry, mode, serialization);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		try {
+			return getCreateLinkAsync(registry.getQueriesLink()).thenCompose(
+					createLink -> this.<Query> postAsync(createLink,
+							queryAttributes(mode, serialization))).thenApply(
+					query -> {
+						queryCache.put(registry, mode, serialization, query);
+						return query;
+					});
+		} catch (ClientException ce) {
+			return CompletableFuture.<Query> failedFuture(ce);
+		}
+	}
+
+	/**
+	 * Gets the cache of query execution pages.
+	 * 
+	 * @return the execution cache
+	 */
+	public ExecutionCache getExecutionCache() {
+		return executionCache;
+	}
+
+	/**
+	 * Execute a query, POSTing a new execution for a page of results, or
+	 * returning the same page from the execution cache.
+	 * 
+	 * @param executionsLink
+	 *            the executions link of the query
+	 * @param cursor
+	 *            the cursor, or null for the first page
+	 * @param reverse
+	 *            the reverse flag, or null
+	 * @param maximumResults
+	 *            the maximum results
+	 * 
+	 * @return the execution page
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public Execution executeQuery(Link executionsLink, String cursor,
+			Boolean reverse, Number maximumResults) throws ClientException {
+		Execution cached = executionCache.get(executionsLink, cursor,
+				reverse, maximumResults);
+		if (cached != null) {
+			return cached;
+		}
+		Execution page = post(getCreateLink(executionsLink),
+				executionAttributes(cursor, reverse, maximumResults));
+		executionCache.put(executionsLink, cursor, reverse, maximumResults,
+				page);
+		return page;
+	}
+
+	/**
+	 * Asynchronous executeQuery. A cached page completes the future at once.
+	 * 
+	 * @param executionsLink
+	 *            the executions link of the query
+	 * @param cursor
+	 *            the cursor, or null for the first page
+	 * @param reverse
+	 *            the reverse flag, or null
+	 * @param maximumResults
+	 *            the maximum results
+	 * 
+	 * @return a future for the execution page
+	 */
+	public CompletableFuture<Execution> executeQueryAsync(Link executionsLink,
+			String cursor, Boolean reverse, Number maximumResults) {
+		Execution cached = executionCache.get(executionsLink, cursor,
+				reverse, maximumResults);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		return getCreateLinkAsync(executionsLink).thenCompose(
+				createLink -> this.<Execution> postAsync(createLink,
+						executionAttributes(cursor, reverse, maximumResults)))
+				.thenApply(
+						page -> {
+							executionCache.put(executionsLink, cursor,
+									reverse, maximumResults, page);
+							return page;
+						});
+	}
+
+	private static AttributeHash executionAttributes(String cursor,
+			Boolean reverse, Number maximumResults) {
+		AttributeHash executionAttribs = new AttributeHash();
+		executionAttribs.put(ExecutionResults.MAXIMUM_RESULTS_TAG,
+				maximumResults);
+		if (cursor != null) {
+			executionAttribs.put(ExecutionResults.CURSOR_TAG, cursor);
+		}
+		if (reverse != null) {
+			executionAttribs.put(ExecutionResults.REVERSE_TAG, reverse);
+		}
+		return executionAttribs;
+	}
+
+	private static AttributeHash queryAttributes(String mode,
+			String serialization) {
+		AttributeHash queryAttribs = new AttributeHash();
+		queryAttribs.put("mode", mode);
+		queryAttribs.put("serialization", serialization);
+		return queryAttribs;
+	}
+
+	/**
+	 * Gets the create link of an index, from the link cache when it has been
+	 * seen before, so creating a resource takes one round trip instead of
+	 * two.
+	 * 
+	 * @param indexLink
+	 *            the link to the index
+	 * 
+	 * @return the create link
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public Link getCreateLink(Link indexLink) throws ClientException {
+		return getIndexLink(indexLink, LinkCache.CREATE);
+	}
+
+	/**
+	 * Asynchronous getCreateLink. A cached link completes the future at once.
+	 * 
+	 * @param indexLink
+	 *            the link to the index
+	 * 
+	 * @return a future for the create link
+	 */
+	public CompletableFuture<Link> getCreateLinkAsync(Link indexLink) {
+		Link cached = linkCache.get(indexLink, LinkCache.CREATE);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		return supplyAsync(() -> getCreateLink(indexLink));
+	}
+
+	/**
+	 * Gets the parent link of an index, from the link cache when it has been
+	 * seen before.
+	 * 
+	 * @param indexLink
+	 *            the link to the index
+	 * 
+	 * @return the parent link
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public Link getParentLink(Link indexLink) throws ClientException {
+		return getIndexLink(indexLink, LinkCache.PARENT);
+	}
+
+	/**
+	 * Look up a link of an index in the link cache, or GET the index and
+	 * cache both its create and parent links.
+	 */
+	private Link getIndexLink(Link indexLink, String rel)
+			throws ClientException {
+		Link cached = linkCache.get(indexLink, rel);
+		if (cached != null) {
+			return cached;
+		}
+		Index index = get(indexLink);
+		Link create = index.create();
+		Link parent = index.getParent();
+		linkCache.put(indexLink, LinkCache.CREATE, create);
+		linkCache.put(indexLink, LinkCache.PARENT, parent);
+		return LinkCache.CREATE.equals(rel) ? create : parent;
+	}
+
+	/**
+	 * Gets the cache of representations read by GET. The cache is off unless
+	 * the configuration gives it a size.
+	 * 
+	 * @return the representation cache
+	 */
+	public RepresentationCache getRepresentationCache() {
+		return representationCache;
+	}
+
+	/**
+	 * Gets the persistent response cache.
+	 * 
+	 * @return the disk cache, or null if none is configured
+	 */
+	public DiskCache getDiskCache() {
+		return diskCache;
+	}
+
+	/**
+	 * Run a call under a deadline. Every request the call makes, on this
+	 * thread or through the async methods, shares the deadline: each is sent
+	 * with at most the remaining time as its total timeout, retries stop once
+	 * they cannot finish in time, and a request that would start after the
+	 * deadline fails at once. A deadline inside another never extends it.
+	 * For example:
+	 * 
+	 * <pre>
+	 * SimpleRegistry r = client.withDeadline(Deadline.after(2000),
+	 * 		() -&gt; service.getSimpleRegistryWithName(&quot;Main&quot;));
+	 * </pre>
+	 * 
+	 * @param deadline
+	 *            the deadline
+	 * @param call
+	 *            the call
+	 * 
+	 * @return the result of the call
+	 * 
+	 * @throws ClientException
+	 *             the client exception, including an expired deadline
+	 */
+	public <T> T withDeadline(Deadline deadline, ClientCall<T> call)
+			throws ClientException {
+		Deadline previous = Deadline.bind(deadline.min(Deadline.current()));
+		try {
+			return call.call();
+		} finally {
+			Deadline.bind(previous);
+		}
+	}
+
+	/**
+	 * Run a blocking call on this client's executor.
+	 * 
+	 * @param call
+	 *            the call
+	 * 
+	 * @return a future completed with the result of the call, or
+	 *         exceptionally with whatever it threw
+	 */
+	<T> CompletableFuture<T> supplyAsync(ClientCall<T> call) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		Deadline deadline = Deadline.current();
+		try {
+			executor.execute(() -> {
+				Deadline previous = Deadline.bind(deadline);
+				try {
+					future.complete(call.call());
+				} catch (Throwable t) {
+					future.completeExceptionally(t);
+				} finally {
+					Deadline.bind(previous);
+				}
+			});
+		} catch (RejectedExecutionException ree) {
+			future.completeExceptionally(ree);
+		}
+		return future;
+	}
+
+	/**
+	 * Creates the response from GET and DELETE - with no additional passed
+	 * params.
+	 * 
+	 * @param method
+	 *            the rest action (GET, DELETE)
+	 * @param aLink
+	 *            the link for GET or DELETE action
+	 * 
+	 * @return the response from GET or DELETE
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	protected TransportResponse createResponse(String method, Link aLink)
+			throws ClientException {
+
+		aLink.validateInstanceVars();
+
+		return clientResponse(newRequest(method, aLink, null));
+	}
+
+	/**
+	 * Creates the response from PUT and POST - with possible additional passed
+	 * params in an AttributeHash
+	 * 
+	 * @param method
+	 *            the rest action (PUT, POST)
+	 * @param aLink
+	 *            the link for PUT or POST action
+	 * @param attributes
+	 *            the attributes as an AttributeHash (or null)
+	 * 
+	 * @return the response from PUT or POST
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	protected TransportResponse createResponse(String method, Link aLink,
+			AttributeHash attributes) throws ClientException {
+
+		aLink.validateInstanceVars();
+
+		String body = null;
+		if (attributes != null) {
+
+			String requestName = LocalMediaType.generateHashKey(aLink
+					.getMediaTypeString());
+			AttributeHash finalHash = new AttributeHash();
+			finalHash.put(requestName, attributes);
+			JSONObject requestBlock = new JSONObject(finalHash);
+			body = requestBlock.toString();
+		}
+
+		return clientResponse(newRequest(method, aLink, body));
+	}
+
+	/**
+	 * Handle response from the createResponse methods, returning a
+	 * populatedRepresentation subclass.
+	 * 
+	 * @param response
+	 *            a previously generated TransportResponse
+	 * @param aLink
+	 *            the link where the action occurred
+	 * 
+	 * @return the Representation (actually a subclass, but returned as the
+	 *         generic parent)
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	protected Representation handleResponse(TransportResponse response,
+			Link aLink) throws ClientException {
+		try {
+			int statusCode = response.getStatusCode();
+			String responseStatus = response.getStatusLine();
+
+			if (GOOD_STATUS.contains(statusCode)) {
+				cacheKeys.verified(aLink);
+				return decodeResponse(response, aLink);
+			}
+
+			if (statusCode >= HttpStatus.SC_BAD_REQUEST
+					&& statusCode < HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+				// a cached link or query to or from here may be stale
+				linkCache.invalidate(aLink.getURI());
+				queryCache.invalidateFailed(aLink.getURI());
+				executionCache.invalidate(aLink.getURI());
+			}
+
+			if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+				// 401
+				throw new ClientException(ERROR_UNAUTHORIZED + responseStatus);
+			} else if (statusCode == HttpStatus.SC_NOT_FOUND) {
+				// 404
+				throw new ClientException(ERROR_NOT_FOUND + responseStatus);
+			} else if (statusCode == HttpStatus.SC_METHOD_NOT_ALLOWED) {
+				// 405
+				throw new ClientException(ERROR_NOT_ALLOWED + responseStatus);
+			} else if (statusCode == HttpStatus.SC_NOT_ACCEPTABLE) {
+				// 406
+				throw new ClientException(ERROR_NOT_ACCEPTABLE + responseStatus);
+			} else if (statusCode == HttpStatus.SC_UNPROCESSABLE_ENTITY) {
+				// 422
+				throw new ClientException(ERROR_CANNOT_PROCESS + responseStatus);
+			} else if (statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+				// 500
+				throw new ClientException(ERROR_INTERNAL_SERVER
+						+ responseStatus);
+			} else {
+				throw new ClientException(ERROR_UNEXPECTED + responseStatus);
+			}
+		} finally {
+			response.release();
+		}
+	}
+
+	/**
+	 * Handle the response to a PUT, POST or DELETE, dropping any cached
+	 * representations of the URI written to and of the resource returned.
+	 */
+	private Representation handleWriteResponse(TransportResponse response,
+			Link aLink) throws ClientException {
+		invalidateCaches(aLink.getURI());
+		Representation representation = handleResponse(response, aLink);
+		Link self = representation.getLinkToSelf();
+		if (self != null) {
+			invalidateCaches(self.getURI());
+		}
+		return representation;
+	}
+
+	private void invalidateCaches(String uri) {
+		// GETs already in flight may return the old state; later ones must
+		// not join them
+		if (!inFlightGets.isEmpty()) {
+			inFlightGets.keySet().removeIf(
+					key -> CacheKeys.isKeyFor(key, uri));
+		}
+		representationCache.invalidate(uri);
+		queryCache.invalidate(uri);
+		executionCache.invalidate(uri);
+		if (diskCache != null) {
+			diskCache.invalidate(uri);
+		}
+	}
+
+	/**
+	 * Read a cached response from the disk cache and decode it, as if it had
+	 * just been received.
+	 * 
+	 * @return the representation with its validators, or null
+	 */
+	private RepresentationCache.CachedRepresentation readDisk(Link aLink) {
+		DiskCache.Entry entry = diskCache.get(cacheKeys.diskKey(aLink),
+				aLink.getURI());
+		if (entry == null
+				|| (entry.expiresAt <= System.currentTimeMillis()
+						&& entry.eTag == null && entry.lastModified == null)) {
+			return null;
+		}
+		try {
+			Representation representation = LocalMediaType
+					.createRepresentationInstance(aLink.getMediaTypeString());
+			representation.populate(aLink, new JSONObject(entry.body));
+			representation.contentBytes = entry.body.length();
+			return new RepresentationCache.CachedRepresentation(
+					representation, representation.contentBytes,
+					entry.expiresAt, entry.eTag, entry.lastModified);
+		} catch (ClientException ce) {
+			return null;
+		} catch (JSONException je) {
+			return null;
+		}
+	}
+
+	/**
+	 * Write a JSON representation through to the disk cache, under the same
+	 * rules as the representation cache.
+	 */
+	private void writeDisk(Link aLink, Representation representation,
+			String eTag, String lastModified) {
+		if (diskCache == null || representation.contentBytes <= 0
+				|| representation.restContent == null) {
+			return;
+		}
+		long ttl = configuration.getRepresentationCacheTTLMillis(aLink
+				.getMediaTypeString());
+		if (ttl <= 0 && eTag == null && lastModified == null) {
+			return;
+		}
+		diskCache.put(cacheKeys.diskKey(aLink), aLink.getURI(),
+				representation.restContent.toString(), eTag, lastModified,
+				System.currentTimeMillis() + Math.max(ttl, 0));
+	}
+
+	/**
+	 * Creates the request for an action on a link, sending credentials
+	 * preemptively if the host is known.
+	 * 
+	 * @param method
+	 *            the rest action
+	 * @param aLink
+	 *            the a link
+	 * @param body
+	 *            the JSON body, or null
+	 * 
+	 * @return the transport request
+	 */
+	private TransportRequest newRequest(String method, Link aLink, String body) {
+		boolean preemptive = preemptiveAuthentication
+				&& preemptiveHosts.contains(aLink.getURIHost());
+		return new TransportRequest(method, aLink, body, preemptive);
+	}
+
+	/**
+	 * Client response from a http request, retrying IOExceptions and
+	 * transient statuses as the configured retry policy allows, within the
+	 * deadline of the current thread.
+	 * 
+	 * @param request
+	 *            the request
+	 * 
+	 * @return the transport response
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	private TransportResponse clientResponse(TransportRequest request)
+			throws ClientException {
+
+		if (configuration.isRequestDebug()) {
+			dumpRequest(request);
+		}
+
+		RetryPolicy policy = configuration.getRetryPolicy();
+		boolean retryable = policy.isRetryable(request.getMethod());
+		Deadline deadline = Deadline.current();
+		for (int attempt = 1;; attempt++) {
+			if (deadline != null) {
+				deadline.check(request.getURI());
+			}
+			// each attempt has its own request, since a lost hedge race or a
+			// timeout aborts the request of that attempt for good
+			TransportRequest attemptRequest = new TransportRequest(request);
+			attemptRequest.setTimeoutMillis(attemptTimeout(deadline));
+			requestAttempts.incrementAndGet();
+			boolean lastAttempt = !retryable
+					|| attempt >= policy.getMaxAttempts();
+			long waitMillis;
+			try {
+				TransportResponse response = execute(attemptRequest);
+				recordAuthentication(request.getHost(),
+						request.isPreemptive(), response);
+				int statusCode = response.getStatusCode();
+				if (!retryable || !policy.isRetryableStatus(statusCode)) {
+					return response;
+				}
+				if (lastAttempt) {
+					retryGiveUps.incrementAndGet();
+					return response;
+				}
+				waitMillis = policy.backoffMillis(attempt);
+				if (policy.honorsRetryAfter(statusCode)) {
+					long retryAfter = RetryPolicy.retryAfterMillis(response
+							.getHeader(RETRY_AFTER_HEADER), System
+							.currentTimeMillis());
+					if (retryAfter > policy.getMaxBackoffMillis()) {
+						retryGiveUps.incrementAndGet();
+						return response;
+					}
+					waitMillis = Math.max(waitMillis, retryAfter);
+				}
+				if (!canWait(deadline, waitMillis)) {
+					retryGiveUps.incrementAndGet();
+					return response;
+				}
+				response.release();
+			} catch (IOException e) {
+				if (lastAttempt) {
+					if (retryable) {
+						retryGiveUps.incrementAndGet();
+					}
+					throw new ClientException(e.getMessage());
+				}
+				waitMillis = policy.backoffMillis(attempt);
+				if (!canWait(deadline, waitMillis)) {
+					retryGiveUps.incrementAndGet();
+					deadline.check(request.getURI());
+					throw new ClientException(e.getMessage());
+				}
+			}
+
+			retries.incrementAndGet();
+			try {
+				Thread.sleep(waitMillis);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new ClientException(ERROR_INTERRUPTED + request.getURI());
+			}
+		}
+	}
+
+	/**
+	 * Execute a request on the transport, hedging it if it is a GET and the
+	 * configuration has a hedge policy.
+	 */
+	private TransportResponse execute(TransportRequest request)
+			throws IOException {
+		if (hedgePolicy == null
+				|| !TransportRequest.GET.equals(request.getMethod())) {
+			return transport.execute(request);
+		}
+
+		hedgeableRequests.incrementAndGet();
+		CompletableFuture<TransportResponse> primary = startAttempt(request);
+		long delayMillis = hedgeWindow.delayMillis(hedgePolicy);
+		try {
+			return primary.get(delayMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException te) {
+			// slow: send the hedge below
+		} catch (ExecutionException ee) {
+			throw attemptFailure(ee.getCause());
+		} catch (InterruptedException ie) {
+			abandon(request, primary);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ie.getMessage());
+		}
+
+		hedgesSent.incrementAndGet();
+		TransportRequest hedgeRequest = new TransportRequest(request);
+		CompletableFuture<TransportResponse> hedge = startAttempt(hedgeRequest);
+		CompletableFuture<TransportResponse> winner = new CompletableFuture<TransportResponse>();
+		AtomicInteger failures = new AtomicInteger();
+		race(primary, hedgeRequest, winner, failures, false);
+		race(hedge, request, winner, failures, true);
+		try {
+			return winner.get();
+		} catch (ExecutionException ee) {
+			throw attemptFailure(ee.getCause());
+		} catch (InterruptedException ie) {
+			abandon(hedgeRequest, hedge);
+			abandon(request, primary);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ie.getMessage());
+		}
+	}
+
+	/**
+	 * Abort an attempt nobody is waiting for, releasing its response should
+	 * it still arrive.
+	 */
+	private static void abandon(TransportRequest request,
+			CompletableFuture<TransportResponse> attempt) {
+		request.abort();
+		attempt.thenAccept(response -> response.release());
+	}
+
+	/**
+	 * Send one attempt of a hedged GET, recording its latency.
+	 */
+	private CompletableFuture<TransportResponse> startAttempt(
+			TransportRequest request) {
+		return CompletableFuture.supplyAsync(() -> {
+			long start = System.nanoTime();
+			try {
+				TransportResponse response = transport.execute(request);
+				hedgeWindow.record((System.nanoTime() - start) / 1000000L);
+				return response;
+			} catch (IOException ioe) {
+				throw new CompletionException(ioe);
+			}
+		}, getHedgeExecutor());
+	}
+
+	/**
+	 * Complete the winner with the first attempt to answer, aborting the
+	 * other; a late answer is released. The winner fails only if both
+	 * attempts do.
+	 */
+	private void race(CompletableFuture<TransportResponse> attempt,
+			TransportRequest other, CompletableFuture<TransportResponse> winner,
+			AtomicInteger failures, boolean isHedge) {
+		attempt.whenComplete((response, failure) -> {
+			if (failure == null) {
+				boolean won = false;
+				// count the win before the caller can see the response
+				synchronized (winner) {
+					if (!winner.isDone()) {
+						if (isHedge) {
+							hedgeWins.incrementAndGet();
+						}
+						won = winner.complete(response);
+					}
+				}
+				if (won) {
+					other.abort();
+				} else {
+					response.release();
+				}
+			} else if (failures.incrementAndGet() == 2) {
+				winner.completeExceptionally(failure);
+			}
+		});
+	}
+
+	private static IOException attemptFailure(Throwable failure) {
+		if (failure instanceof CompletionException
+				&& failure.getCause() != null) {
+			failure = failure.getCause();
+		}
+		if (failure instanceof IOException) {
+			return (IOException) failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		return new IOException(failure);
+	}
+
+	private synchronized ExecutorService getHedgeExecutor() {
+		if (hedgeExecutor == null) {
+			hedgeExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory(
+					HEDGE_THREAD_PREFIX));
+		}
+		return hedgeExecutor;
+	}
+
+	/**
+	 * The total timeout of the next attempt: the configured total timeout,
+	 * or the time left before the deadline if shorter.
+	 */
+	private int attemptTimeout(Deadline deadline) {
+		int timeout = configuration.getTotalTimeoutMillis();
+		if (deadline == null) {
+			return timeout;
+		}
+		long remaining = Math.min(deadline.getRemainingMillis(),
+				Integer.MAX_VALUE);
+		if (timeout == ClientConfiguration.NO_TIMEOUT || remaining < timeout) {
+			return (int) Math.max(1, remaining);
+		}
+		return timeout;
+	}
+
+	/**
+	 * Checks if a retry could still start before the deadline.
+	 */
+	private static boolean canWait(Deadline deadline, long waitMillis) {
+		return deadline == null || waitMillis < deadline.getRemainingMillis();
+	}
+
+	/**
+	 * Track preemptive authentication: count the challenges it avoided, and
+	 * remember hosts that challenged for Basic credentials.
+	 * 
+	 * @param host
+	 *            the request host
+	 * @param preemptive
+	 *            whether credentials were sent preemptively
+	 * @param response
+	 *            the final response
+	 */
+	private void recordAuthentication(String host, boolean preemptive,
+			TransportResponse response) {
+		if (preemptive) {
+			if (response.getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
+				challengesAvoided.incrementAndGet();
+			}
+		} else if (response.isBasicChallenged()) {
+			preemptiveHosts.add(host);
+		}
+	}
+
+	/**
+	 * Return a valid Representation of the response from the HTTP action.
+	 * 
+	 * @param response
+	 *            the HTTP call response
+	 * @param aLink
+	 *            the link originating the response
+	 * 
+	 * @return a populated Representation subclass, as determined by the media
+	 *         type.
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+
+	private Representation decodeResponse(TransportResponse response,
+			Link aLink) throws ClientException {
+		try {
+			String mediaType = aLink.getMediaTypeString();
+
+			Representation instanceRepresentation = LocalMediaType
+					.createRepresentationInstance(mediaType);
+
+			if (mediaType.equals("application/zip")) {
+
+				// Stream the body we already have; the connection is released
+				// once the stream is closed. A response without a body leaves
+				// the Zip without data.
+				try (InputStream zipStream = response.getContent()) {
+					if (zipStream != null) {
+						((Zip) instanceRepresentation).setData(zipStream);
+					}
+				}
+
+			} else if (mediaType.matches(".*json$")) {
+				Link instanceLink = aLink;
+				String location = response.getHeader("Location");
+				if (location != null) {
+					instanceLink = Link.create(mediaType, location, aLink
+							.getAuthentication());
+				}
+
+				InputStream content = response.getContent();
+				CountingInputStream counted = content == null ? null
+						: new CountingInputStream(content);
+				JSONObject responseObject = readJSON(counted, response
+						.getContentCharset());
+				instanceRepresentation.populate(instanceLink, responseObject);
+				if (counted != null) {
+					instanceRepresentation.contentBytes = counted.getCount();
+				}
+			} else {
+				throw new ClientRuntimeException();
+			}
+
+			return instanceRepresentation;
+		} catch (IOException ioException) {
+			throw new ClientException(ERROR_ACCESS_RESPONSE
+					+ ioException.getMessage());
+		} catch (JSONException je) {
+			throw new ClientRuntimeException(ERROR_NO_JSON_OBJECT_FROM_RESPONSE
+					+ je.getMessage());
+		}
+	}
+
+	/**
+	 * Parse the response content as JSON, straight from the content stream in
+	 * the charset of the response. The body is never held as a String, so
+	 * large index pages and event lists are only in memory once, as the
+	 * parsed JSONObject.
+	 */
+	private JSONObject readJSON(InputStream content, String charset)
+			throws IOException, JSONException {
+		if (content == null) {
+			return new JSONObject(new JSONTokener(""));
+		}
+		Reader reader = new BufferedReader(new InputStreamReader(content,
+				charset == null ? DEFAULT_CONTENT_CHARSET : charset),
+				READ_CHAR_BUFFER_SIZE);
+		try {
+			return new JSONObject(new JSONTokener(reader));
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void dumpRequest(TransportRequest request) {
+		System.out.print("URI: " + request.getURI());
+		System.out.print(" METHOD: " + request.getMethod());
+		System.out.println(" PROTOCOL: HTTP");
+		System.out.println("***Headers***");
+		System.out.println(ACCEPT_HEADER + " : " + request.getMediaType());
+		if (request.hasContent()) {
+			System.out.println(CONTENT_TYPE + " : " + request.getMediaType());
+		}
+		for (Map.Entry<String, String> header : request.getHeaders()
+				.entrySet()) {
+			System.out.println(header.getKey() + " : " + header.getValue());
+		}
+		System.out.println("***End Headers***");
+		if (request.hasContent()) {
+			System.out.println("***Entity***");
+			if (request.getBody() != null) {
+				System.out.print(request.getBody());
+			}
+			System.out.println("\n***End Entity***");
+		}
+	}
+
+	/**
+	 * Counts the bytes read through it, giving the size of a JSON body
+	 * without holding it.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * A GET in flight, which identical GETs of other callers can join until
+	 * it lands.
+	 */
+	private static class Flight {
+		final CompletableFuture<Representation> result = new CompletableFuture<Representation>();
+		private int followers;
+		private boolean landed;
+
+		/**
+		 * Join this flight.
+		 * 
+		 * @return false, if it has already landed
+		 */
+		synchronized boolean join() {
+			if (landed) {
+				return false;
+			}
+			followers++;
+			return true;
+		}
+
+		/**
+		 * Land this flight, so no more callers join it.
+		 * 
+		 * @return true, if any caller joined it
+		 */
+		synchronized boolean land() {
+			landed = true;
+			return followers > 0;
+		}
+	}
+
+	/**
+	 * Creates named daemon threads, so idle async workers never keep the JVM
+	 * alive.
+	 */
+	static class DaemonThreadFactory implements ThreadFactory {
+		private final String prefix;
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		DaemonThreadFactory(String threadPrefix) {
+			prefix = threadPrefix;
+		}
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class ChemcasterClientTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+	private static final String URI = "https://chemcaster.com/registries/1";
+	private static final int CALLERS = 8;
+
+	private ChemcasterClient client;
+	private Transport transport;
+	private volatile int status = 200;
+	private volatile boolean holdForCallers = true;
+
+	@Override
+	protected void setUp() throws IOException {
+		transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation)
+							throws Exception {
+						// hold the request until every other caller has
+						// joined it
+						for (int i = 0; holdForCallers && i < 200
+								&& client.getCoalescedGets() < CALLERS - 1; i++) {
+							Thread.sleep(10);
+						}
+						TransportResponse response = mock(TransportResponse.class);
+						when(response.getStatusCode()).thenReturn(status);
+						when(response.getStatusLine()).thenReturn(
+								"HTTP/1.1 " + status);
+						when(response.getContent()).thenReturn(
+								new ByteArrayInputStream("{}".getBytes()));
+						return response;
+					}
+				});
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setAsyncThreads(CALLERS);
+		client = new ChemcasterClient(configuration, transport);
+	}
+
+	@Override
+	protected void tearDown() {
+		client.shutdown();
+	}
+
+	private ArrayList<CompletableFuture<Registry>> getConcurrently(
+			String password) {
+		ArrayList<CompletableFuture<Registry>> futures = new ArrayList<CompletableFuture<Registry>>();
+		for (int i = 0; i < CALLERS; i++) {
+			futures.add(client.<Registry> getAsync(Link.create(REGISTRY_TYPE,
+					URI, new UsernamePasswordCredentials("alice", password))));
+		}
+		return futures;
+	}
+
+	public void testConcurrentGetsShareOneRequest() throws Exception {
+		ArrayList<CompletableFuture<Registry>> futures = getConcurrently("a");
+		Registry first = futures.get(0).get();
+		first.restContent.put("changed", true);
+		for (int i = 1; i < CALLERS; i++) {
+			// every caller gets a representation of its own
+			Registry other = futures.get(i).get();
+			assertNotSame(first, other);
+			assertFalse(other.restContent.has("changed"));
+		}
+		verify(transport, times(1)).execute(any(TransportRequest.class));
+		assertEquals(CALLERS - 1, client.getCoalescedGets());
+	}
+
+	public void testFailureShared() throws Exception {
+		status = 404;
+		ArrayList<CompletableFuture<Registry>> futures = getConcurrently("a");
+		for (CompletableFuture<Registry> future : futures) {
+			try {
+				future.get();
+				fail();
+			} catch (ExecutionException ee) {
+				assertTrue(ee.getCause() instanceof ClientException);
+			}
+		}
+		verify(transport, times(1)).execute(any(TransportRequest.class));
+	}
+
+	public void testUsersNotShared() throws Exception {
+		holdForCallers = false;
+		Registry a = client.<Registry> getAsync(
+				Link.create(REGISTRY_TYPE, URI, new UsernamePasswordCredentials(
+						"alice", "a"))).get();
+		Registry b = client.<Registry> getAsync(
+				Link.create(REGISTRY_TYPE, URI, new UsernamePasswordCredentials(
+						"bob", "b"))).get();
+		assertNotSame(a, b);
+		verify(transport, times(2)).execute(any(TransportRequest.class));
+	}
+}
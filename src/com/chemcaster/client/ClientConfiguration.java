@@ -0,0 +1,638 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * The Class ClientConfiguration. The tunable transport settings of a
+ * ChemcasterClient: connection pool sizing, keep-alive, timeouts, the async
+ * executor, caching, retries, and authentication behavior. Most settings are
+ * read when the client is created, and later changes do not affect existing
+ * clients. The retry policy, total timeout, request debugging, page read
+ * ahead and representation cache times to live are read each time they are
+ * used, so changing them changes the clients already using the
+ * configuration; they are safe to change while requests are running.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class ClientConfiguration {
+
+	public static final int NO_TIMEOUT = 0;
+	public static final int DEFAULT_PAGE_READ_AHEAD = 1;
+	public static final long DEFAULT_LINK_CACHE_TTL_MILLIS = 10 * 60 * 1000;
+	public static final long NO_REPRESENTATION_CACHE = 0;
+	public static final long DEFAULT_REPRESENTATION_CACHE_TTL_MILLIS = 60 * 1000;
+	public static final int NO_QUERY_CACHE = 0;
+	public static final long DEFAULT_QUERY_CACHE_TTL_MILLIS = 30 * 60 * 1000;
+	public static final long NO_QUERY_SWEEP = 0;
+	public static final int NO_EXECUTION_CACHE = 0;
+	public static final long DEFAULT_EXECUTION_CACHE_TTL_MILLIS = 30 * 1000;
+	public static final long DEFAULT_LOG_CHECK_INTERVAL_MILLIS = 10 * 1000;
+	public static final long NO_LOG_CHECK = 0;
+
+	private int maxTotalConnections = ConnectionPool.DEFAULT_MAX_TOTAL_CONNECTIONS;
+	private int maxConnectionsPerRoute = ConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	private long keepAliveMillis = ConnectionPool.DEFAULT_KEEP_ALIVE_MILLIS;
+	private long idleTimeoutMillis = ConnectionPool.DEFAULT_IDLE_TIMEOUT_MILLIS;
+	private int connectTimeoutMillis = NO_TIMEOUT;
+	private int socketTimeoutMillis = NO_TIMEOUT;
+	private volatile int totalTimeoutMillis = NO_TIMEOUT;
+	private int asyncThreads = ConnectionPool.DEFAULT_MAX_TOTAL_CONNECTIONS;
+	private Executor executor;
+	private volatile int pageReadAhead = DEFAULT_PAGE_READ_AHEAD;
+	private long linkCacheTTLMillis = DEFAULT_LINK_CACHE_TTL_MILLIS;
+	private long representationCacheMaxBytes = NO_REPRESENTATION_CACHE;
+	private volatile long representationCacheTTLMillis = DEFAULT_REPRESENTATION_CACHE_TTL_MILLIS;
+	private final ConcurrentHashMap<String, Long> representationCacheTTLs = new ConcurrentHashMap<String, Long>();
+	private File diskCacheDirectory;
+	private long diskCacheMaxBytes = DiskCache.DEFAULT_MAX_BYTES;
+	private int queryCacheMaxEntries = NO_QUERY_CACHE;
+	private long queryCacheTTLMillis = DEFAULT_QUERY_CACHE_TTL_MILLIS;
+	private long querySweepIntervalMillis = NO_QUERY_SWEEP;
+	private int executionCacheMaxPages = NO_EXECUTION_CACHE;
+	private long executionCacheTTLMillis = DEFAULT_EXECUTION_CACHE_TTL_MILLIS;
+	private long logCheckIntervalMillis = DEFAULT_LOG_CHECK_INTERVAL_MILLIS;
+	private volatile RetryPolicy retryPolicy = new RetryPolicy();
+	private HedgePolicy hedgePolicy;
+	private boolean coalesceGets = true;
+	private boolean preemptiveAuthentication = true;
+	private volatile boolean requestDebug = false;
+
+	/**
+	 * Gets the maximum number of open connections, over all hosts.
+	 * 
+	 * @return the max total connections
+	 */
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	/**
+	 * Sets the maximum number of open connections, over all hosts.
+	 * 
+	 * @param max
+	 *            the max total connections
+	 */
+	public void setMaxTotalConnections(int max) {
+		maxTotalConnections = max;
+	}
+
+	/**
+	 * Gets the maximum number of open connections to a single host.
+	 * 
+	 * @return the max connections per route
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Sets the maximum number of open connections to a single host.
+	 * 
+	 * @param max
+	 *            the max connections per route
+	 */
+	public void setMaxConnectionsPerRoute(int max) {
+		maxConnectionsPerRoute = max;
+	}
+
+	/**
+	 * Gets the keep-alive time used when the server does not send one.
+	 * 
+	 * @return the keep-alive time in milliseconds
+	 */
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	/**
+	 * Sets the keep-alive time used when the server does not send one.
+	 * 
+	 * @param millis
+	 *            the keep-alive time in milliseconds
+	 */
+	public void setKeepAliveMillis(long millis) {
+		keepAliveMillis = millis;
+	}
+
+	/**
+	 * Gets the time an unused pooled connection is kept before it is closed.
+	 * 
+	 * @return the idle timeout in milliseconds
+	 */
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	/**
+	 * Sets the time an unused pooled connection is kept before it is closed.
+	 * 
+	 * @param millis
+	 *            the idle timeout in milliseconds
+	 */
+	public void setIdleTimeoutMillis(long millis) {
+		idleTimeoutMillis = millis;
+	}
+
+	/**
+	 * Gets the connect timeout.
+	 * 
+	 * @return the connect timeout in milliseconds, or NO_TIMEOUT
+	 */
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	/**
+	 * Sets the connect timeout.
+	 * 
+	 * @param millis
+	 *            the connect timeout in milliseconds, or NO_TIMEOUT
+	 */
+	public void setConnectTimeoutMillis(int millis) {
+		connectTimeoutMillis = millis;
+	}
+
+	/**
+	 * Gets the socket (read) timeout.
+	 * 
+	 * @return the socket timeout in milliseconds, or NO_TIMEOUT
+	 */
+	public int getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	/**
+	 * Sets the socket (read) timeout.
+	 * 
+	 * @param millis
+	 *            the socket timeout in milliseconds, or NO_TIMEOUT
+	 */
+	public void setSocketTimeoutMillis(int millis) {
+		socketTimeoutMillis = millis;
+	}
+
+	/**
+	 * Gets the total timeout of a request, from sending it to reading the
+	 * last byte of the response.
+	 * 
+	 * @return the total timeout in milliseconds, or NO_TIMEOUT
+	 */
+	public int getTotalTimeoutMillis() {
+		return totalTimeoutMillis;
+	}
+
+	/**
+	 * Sets the total timeout of a request, from sending it to reading the
+	 * last byte of the response. Each retry has its own total timeout; use a
+	 * Deadline to bound a whole operation.
+	 * 
+	 * @param millis
+	 *            the total timeout in milliseconds, or NO_TIMEOUT
+	 */
+	public void setTotalTimeoutMillis(int millis) {
+		totalTimeoutMillis = millis;
+	}
+
+	/**
+	 * Gets the number of threads the client starts for async requests when
+	 * no executor is supplied.
+	 * 
+	 * @return the async thread count
+	 */
+	public int getAsyncThreads() {
+		return asyncThreads;
+	}
+
+	/**
+	 * Sets the number of threads the client starts for async requests when
+	 * no executor is supplied.
+	 * 
+	 * @param threads
+	 *            the async thread count
+	 */
+	public void setAsyncThreads(int threads) {
+		asyncThreads = threads;
+	}
+
+	/**
+	 * Gets the executor for async requests.
+	 * 
+	 * @return the executor, or null if the client creates its own
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Sets the executor for async requests. A supplied executor is not shut
+	 * down when the client is.
+	 * 
+	 * @param newExecutor
+	 *            the executor, or null to let the client create its own
+	 */
+	public void setExecutor(Executor newExecutor) {
+		executor = newExecutor;
+	}
+
+	/**
+	 * Gets the number of index or execution pages fetched ahead of a paging
+	 * caller.
+	 * 
+	 * @return the page read-ahead
+	 */
+	public int getPageReadAhead() {
+		return pageReadAhead;
+	}
+
+	/**
+	 * Sets the number of index or execution pages fetched ahead of a paging
+	 * caller, 0 to fetch each page only when it is reached.
+	 * 
+	 * @param pages
+	 *            the page read-ahead
+	 */
+	public void setPageReadAhead(int pages) {
+		pageReadAhead = pages;
+	}
+
+	/**
+	 * Gets the time a discovered create or parent link is cached.
+	 * 
+	 * @return the link cache time to live in milliseconds
+	 */
+	public long getLinkCacheTTLMillis() {
+		return linkCacheTTLMillis;
+	}
+
+	/**
+	 * Sets the time a discovered create or parent link is cached, 0 to look
+	 * the links up on their index every time.
+	 * 
+	 * @param millis
+	 *            the link cache time to live in milliseconds
+	 */
+	public void setLinkCacheTTLMillis(long millis) {
+		linkCacheTTLMillis = millis;
+	}
+
+	/**
+	 * Gets the size of the representation cache.
+	 * 
+	 * @return the maximum bytes of cached JSON, or NO_REPRESENTATION_CACHE
+	 */
+	public long getRepresentationCacheMaxBytes() {
+		return representationCacheMaxBytes;
+	}
+
+	/**
+	 * Sets the size of the representation cache. The cache is off by default.
+	 * 
+	 * @param maxBytes
+	 *            the maximum bytes of cached JSON, or NO_REPRESENTATION_CACHE
+	 */
+	public void setRepresentationCacheMaxBytes(long maxBytes) {
+		representationCacheMaxBytes = maxBytes;
+	}
+
+	/**
+	 * Gets the time a cached representation is used for, unless its media
+	 * type has a time of its own.
+	 * 
+	 * @return the default time to live in milliseconds
+	 */
+	public long getRepresentationCacheTTLMillis() {
+		return representationCacheTTLMillis;
+	}
+
+	/**
+	 * Sets the time a cached representation is used for, unless its media
+	 * type has a time of its own.
+	 * 
+	 * @param millis
+	 *            the default time to live in milliseconds
+	 */
+	public void setRepresentationCacheTTLMillis(long millis) {
+		representationCacheTTLMillis = millis;
+	}
+
+	/**
+	 * Gets the time a cached representation of a media type is used for.
+	 * 
+	 * @param mediaType
+	 *            the media type
+	 * 
+	 * @return the time to live in milliseconds
+	 */
+	public long getRepresentationCacheTTLMillis(String mediaType) {
+		Long millis = representationCacheTTLs.get(mediaType);
+		return millis == null ? representationCacheTTLMillis : millis;
+	}
+
+	/**
+	 * Sets the time a cached representation of a media type is used for, for
+	 * example a short time for indexes that change as items are created. At
+	 * 0, representations of the type are revalidated with the server on
+	 * every read, and only cached if they carry an ETag or Last-Modified
+	 * validator.
+	 * 
+	 * @param mediaType
+	 *            the media type
+	 * @param millis
+	 *            the time to live in milliseconds
+	 */
+	public void setRepresentationCacheTTLMillis(String mediaType, long millis) {
+		representationCacheTTLs.put(mediaType, millis);
+	}
+
+	/**
+	 * Gets the directory of the persistent response cache.
+	 * 
+	 * @return the directory, or null if there is no disk cache
+	 */
+	public File getDiskCacheDirectory() {
+		return diskCacheDirectory;
+	}
+
+	/**
+	 * Sets the directory of the persistent response cache. The disk cache
+	 * sits under the representation cache and uses its times to live; it is
+	 * off by default. Only one client at a time may use a directory.
+	 * 
+	 * @param directory
+	 *            the directory, or null for no disk cache
+	 */
+	public void setDiskCacheDirectory(File directory) {
+		diskCacheDirectory = directory;
+	}
+
+	/**
+	 * Gets the size cap of the disk cache.
+	 * 
+	 * @return the maximum bytes on disk
+	 */
+	public long getDiskCacheMaxBytes() {
+		return diskCacheMaxBytes;
+	}
+
+	/**
+	 * Sets the size cap of the disk cache.
+	 * 
+	 * @param maxBytes
+	 *            the maximum bytes on disk
+	 */
+	public void setDiskCacheMaxBytes(long maxBytes) {
+		diskCacheMaxBytes = maxBytes;
+	}
+
+	/**
+	 * Gets the size of the query cache.
+	 * 
+	 * @return the maximum number of cached queries, or NO_QUERY_CACHE
+	 */
+	public int getQueryCacheMaxEntries() {
+		return queryCacheMaxEntries;
+	}
+
+	/**
+	 * Sets the size of the query cache, which reuses the queries created for
+	 * the same registry, mode and serialization. The cache is off by default.
+	 * 
+	 * @param maxEntries
+	 *            the maximum number of cached queries, or NO_QUERY_CACHE
+	 */
+	public void setQueryCacheMaxEntries(int maxEntries) {
+		queryCacheMaxEntries = maxEntries;
+	}
+
+	/**
+	 * Gets the time a created query is reused for.
+	 * 
+	 * @return the query cache time to live in milliseconds
+	 */
+	public long getQueryCacheTTLMillis() {
+		return queryCacheTTLMillis;
+	}
+
+	/**
+	 * Sets the time a created query is reused for. The sweep deletes a
+	 * dropped query from the server only once this time has passed.
+	 * 
+	 * @param millis
+	 *            the query cache time to live in milliseconds
+	 */
+	public void setQueryCacheTTLMillis(long millis) {
+		queryCacheTTLMillis = millis;
+	}
+
+	/**
+	 * Gets the interval of the background sweep that deletes expired queries.
+	 * 
+	 * @return the sweep interval in milliseconds, or NO_QUERY_SWEEP
+	 */
+	public long getQuerySweepIntervalMillis() {
+		return querySweepIntervalMillis;
+	}
+
+	/**
+	 * Sets the interval of the background sweep that deletes expired and
+	 * evicted queries from the server. There is no sweep by default, leaving
+	 * the queries on the server as if there were no cache.
+	 * 
+	 * @param millis
+	 *            the sweep interval in milliseconds, or NO_QUERY_SWEEP
+	 */
+	public void setQuerySweepIntervalMillis(long millis) {
+		querySweepIntervalMillis = millis;
+	}
+
+	/**
+	 * Gets the size of the execution cache.
+	 * 
+	 * @return the maximum number of cached execution pages, or
+	 *         NO_EXECUTION_CACHE
+	 */
+	public int getExecutionCacheMaxPages() {
+		return executionCacheMaxPages;
+	}
+
+	/**
+	 * Sets the size of the execution cache, which answers repeated query
+	 * executions with the same cursor from memory. The cache is off by
+	 * default.
+	 * 
+	 * @param maxPages
+	 *            the maximum number of cached execution pages, or
+	 *            NO_EXECUTION_CACHE
+	 */
+	public void setExecutionCacheMaxPages(int maxPages) {
+		executionCacheMaxPages = maxPages;
+	}
+
+	/**
+	 * Gets the time a cached execution page is used for.
+	 * 
+	 * @return the execution cache time to live in milliseconds
+	 */
+	public long getExecutionCacheTTLMillis() {
+		return executionCacheTTLMillis;
+	}
+
+	/**
+	 * Sets the time a cached execution page is used for.
+	 * 
+	 * @param millis
+	 *            the execution cache time to live in milliseconds
+	 */
+	public void setExecutionCacheTTLMillis(long millis) {
+		executionCacheTTLMillis = millis;
+	}
+
+	/**
+	 * Gets the interval at which the logs of registries with cached execution
+	 * pages are checked for changed registrations.
+	 * 
+	 * @return the log check interval in milliseconds, or NO_LOG_CHECK
+	 */
+	public long getLogCheckIntervalMillis() {
+		return logCheckIntervalMillis;
+	}
+
+	/**
+	 * Sets the interval at which the logs of registries with cached execution
+	 * pages are checked for changed registrations, NO_LOG_CHECK to rely on
+	 * the time to live alone. The check only runs with the execution cache
+	 * on.
+	 * 
+	 * @param millis
+	 *            the log check interval in milliseconds, or NO_LOG_CHECK
+	 */
+	public void setLogCheckIntervalMillis(long millis) {
+		logCheckIntervalMillis = millis;
+	}
+
+	/**
+	 * Gets the retry policy.
+	 * 
+	 * @return the retry policy
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Sets the retry policy. The default retries GET, PUT and DELETE up to
+	 * RetryPolicy.DEFAULT_MAX_ATTEMPTS times; new RetryPolicy(1) turns
+	 * retries off.
+	 * 
+	 * @param policy
+	 *            the retry policy
+	 */
+	public void setRetryPolicy(RetryPolicy policy) {
+		retryPolicy = policy;
+	}
+
+	/**
+	 * Gets the hedge policy.
+	 * 
+	 * @return the hedge policy, or null if GETs are not hedged
+	 */
+	public HedgePolicy getHedgePolicy() {
+		return hedgePolicy;
+	}
+
+	/**
+	 * Sets the hedge policy. GETs are not hedged by default.
+	 * 
+	 * @param policy
+	 *            the hedge policy, or null to turn hedging off
+	 */
+	public void setHedgePolicy(HedgePolicy policy) {
+		hedgePolicy = policy;
+	}
+
+	/**
+	 * Checks if concurrent identical GETs share one request.
+	 * 
+	 * @return true, if coalescing GETs
+	 */
+	public boolean isCoalesceGets() {
+		return coalesceGets;
+	}
+
+	/**
+	 * Sets whether concurrent GETs of the same link by the same user share
+	 * one request and one parsed representation.
+	 * 
+	 * @param coalesce
+	 *            true to coalesce GETs
+	 */
+	public void setCoalesceGets(boolean coalesce) {
+		coalesceGets = coalesce;
+	}
+
+	/**
+	 * Checks if credentials are sent preemptively to known hosts.
+	 * 
+	 * @return true, if preemptive
+	 */
+	public boolean isPreemptiveAuthentication() {
+		return preemptiveAuthentication;
+	}
+
+	/**
+	 * Sets whether credentials are sent preemptively to known hosts.
+	 * 
+	 * @param preemptive
+	 *            true to send credentials preemptively
+	 */
+	public void setPreemptiveAuthentication(boolean preemptive) {
+		preemptiveAuthentication = preemptive;
+	}
+
+	/**
+	 * Checks if requests are dumped to System.out.
+	 * 
+	 * @return true, if debugging requests
+	 */
+	public boolean isRequestDebug() {
+		return requestDebug;
+	}
+
+	/**
+	 * Sets whether requests are dumped to System.out.
+	 * 
+	 * @param debug
+	 *            true to dump requests
+	 */
+	public void setRequestDebug(boolean debug) {
+		requestDebug = debug;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class ClientConfigurationTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+	private static final String URI = "https://chemcaster.com/registries/1";
+
+	private final ArrayList<ChemcasterClient> clients = new ArrayList<ChemcasterClient>();
+
+	@Override
+	protected void tearDown() {
+		for (ChemcasterClient client : clients) {
+			client.shutdown();
+		}
+	}
+
+	/**
+	 * A client whose transport records the timeout of every request.
+	 */
+	private ChemcasterClient client(ClientConfiguration configuration,
+			final ArrayList<Integer> timeouts) throws IOException {
+		Transport transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation)
+							throws IOException {
+						TransportRequest request = (TransportRequest) invocation
+								.getArguments()[0];
+						synchronized (timeouts) {
+							timeouts.add(request.getTimeoutMillis());
+						}
+						TransportResponse response = mock(TransportResponse.class);
+						when(response.getStatusCode()).thenReturn(200);
+						when(response.getStatusLine()).thenReturn(
+								"HTTP/1.1 200 OK");
+						when(response.getContent()).thenReturn(
+								new ByteArrayInputStream("{}".getBytes()));
+						return response;
+					}
+				});
+		ChemcasterClient client = new ChemcasterClient(configuration,
+				transport);
+		clients.add(client);
+		return client;
+	}
+
+	private static Link link() {
+		return Link.create(REGISTRY_TYPE, URI, new UsernamePasswordCredentials(
+				"alice", "a"));
+	}
+
+	public void testClientsAreIndependent() throws Exception {
+		ClientConfiguration bounded = new ClientConfiguration();
+		bounded.setTotalTimeoutMillis(500);
+		bounded.setPreemptiveAuthentication(false);
+		ArrayList<Integer> boundedTimeouts = new ArrayList<Integer>();
+		ChemcasterClient boundedClient = client(bounded, boundedTimeouts);
+		ArrayList<Integer> defaultTimeouts = new ArrayList<Integer>();
+		ChemcasterClient defaultClient = client(new ClientConfiguration(),
+				defaultTimeouts);
+
+		boundedClient.get(link());
+		defaultClient.get(link());
+		assertEquals(Integer.valueOf(500), boundedTimeouts.get(0));
+		assertEquals(Integer.valueOf(ClientConfiguration.NO_TIMEOUT),
+				defaultTimeouts.get(0));
+		assertFalse(boundedClient.isPreemptiveAuthentication());
+		assertTrue(defaultClient.isPreemptiveAuthentication());
+		assertSame(bounded, boundedClient.getConfiguration());
+	}
+
+	public void testLiveSettingChangesRunningClient() throws Exception {
+		ClientConfiguration configuration = new ClientConfiguration();
+		ArrayList<Integer> timeouts = new ArrayList<Integer>();
+		ChemcasterClient client = client(configuration, timeouts);
+		client.get(link());
+
+		// changed from another thread while the client is in use
+		Thread changer = new Thread(() -> configuration
+				.setTotalTimeoutMillis(700));
+		changer.start();
+		changer.join();
+		client.get(link());
+		assertEquals(Integer.valueOf(ClientConfiguration.NO_TIMEOUT),
+				timeouts.get(0));
+		assertEquals(Integer.valueOf(700), timeouts.get(1));
+	}
+
+	public void testPerTypeTTL() {
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setRepresentationCacheTTLMillis(REGISTRY_TYPE, 5000);
+		assertEquals(5000, configuration
+				.getRepresentationCacheTTLMillis(REGISTRY_TYPE));
+		assertEquals(
+				ClientConfiguration.DEFAULT_REPRESENTATION_CACHE_TTL_MILLIS,
+				configuration.getRepresentationCacheTTLMillis("text/plain"));
+	}
+}
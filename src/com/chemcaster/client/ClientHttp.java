@@ -26,64 +26,87 @@
 
 package com.chemcaster.client;
 
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.HashSet;
-
-import org.apache.http.Header;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.HttpStatus;
-import org.apache.http.RequestLine;
-import org.apache.http.StatusLine;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.methods.HttpDelete;
-import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpPut;
-import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.protocol.HTTP;
-import org.apache.http.util.EntityUtils;
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
- * The ClientHttp is a utility class for http/https access.
+ * The ClientHttp is a utility class for http/https access. It forwards every
+ * call to the default ChemcasterClient, so all requests made through it share
+ * one ConnectionPool. Create a ChemcasterClient directly for a workload that
+ * needs its own pool sizes, timeouts or executor.
  * 
  * @author John Jaeger <jj4395722_at_yahoo_dot_com>
  */
 public final class ClientHttp {
 
-	private static final Boolean HTTP_REQUEST_DEBUG = false;
+	/**
+	 * Gets the executor that runs the async requests of the default client.
+	 * 
+	 * @return the executor
+	 */
+	public static Executor getExecutor() {
+		return ChemcasterClient.getDefaultClient().getExecutor();
+	}
 
-	private static final String ERROR_ACCESS_RESPONSE = "Unable to access response to request: ";
-	private static final String ERROR_CANNOT_PROCESS = "The request was well-formed but was unable to be followed due to semantic errors. ";
-	private static final String ERROR_INTERNAL_SERVER = "The server encountered an unexpected condition which prevented it from fulfilling the request. ";
-	private static final String ERROR_NOT_ACCEPTABLE = "The resource identified by this request is not capable of generating a representation corresponding to one of the media types in the Accept header of the request. ";
-	private static final String ERROR_NOT_ALLOWED = "The HTTP verb specified in the request (DELETE, GET, HEAD, POST, PUT) is not supported for this request URI. ";
-	private static final String ERROR_NOT_FOUND = "The request specified a URI of a resource that does not exist. ";
-	private static final String ERROR_NO_JSON_OBJECT_FROM_RESPONSE = "Unable to create JSONObject from response. ";
-	private static final String ERROR_UNAUTHORIZED = "The authentication credentials included with this request are missing or invalid.";
-	private static final String ERROR_UNEXPECTED = "Unexpected status: ";
+	/**
+	 * Gets the connection pool of the default client.
+	 * 
+	 * @return the connection pool
+	 */
+	public static ConnectionPool getConnectionPool() {
+		return ChemcasterClient.getDefaultClient().getConnectionPool();
+	}
 
-	// HTTP codes 200,201,202
-	private static final HashSet<Integer> GOOD_STATUS = new HashSet<Integer>() {
-		private static final long serialVersionUID = 1L;
-		{
-			add(HttpStatus.SC_OK);
-			add(HttpStatus.SC_CREATED);
-			add(HttpStatus.SC_ACCEPTED);
-		}
-	};
+	/**
+	 * Replace the connection pool of the default client. The previous pool is
+	 * shut down.
+	 * 
+	 * @param newPool
+	 *            the new connection pool
+	 */
+	public static void setConnectionPool(ConnectionPool newPool) {
+		ChemcasterClient.getDefaultClient().setConnectionPool(newPool);
+	}
 
-	private static final String ACCEPT_HEADER = "Accept";
-	private static final String CONTENT_TYPE = "Content-Type";
+	/**
+	 * Turn preemptive Basic authentication on or off for the default client.
+	 * 
+	 * @param preemptive
+	 *            true to send credentials preemptively
+	 */
+	public static void setPreemptiveAuthentication(boolean preemptive) {
+		ChemcasterClient.getDefaultClient().setPreemptiveAuthentication(
+				preemptive);
+	}
 
-	private static final int SSH_PORT = 443;
+	/**
+	 * Checks if preemptive Basic authentication is on for the default client.
+	 * 
+	 * @return true, if preemptive
+	 */
+	public static boolean isPreemptiveAuthentication() {
+		return ChemcasterClient.getDefaultClient().isPreemptiveAuthentication();
+	}
+
+	/**
+	 * Add a host that the default client sends credentials preemptively.
+	 * 
+	 * @param host
+	 *            the host name, as returned by Link.getURIHost()
+	 */
+	public static void addPreemptiveHost(String host) {
+		ChemcasterClient.getDefaultClient().addPreemptiveHost(host);
+	}
+
+	/**
+	 * Gets the number of 401 challenge round trips the default client avoided
+	 * by preemptive authentication.
+	 * 
+	 * @return the number of challenges avoided
+	 */
+	public static long getChallengesAvoided() {
+		return ChemcasterClient.getDefaultClient().getChallengesAvoided();
+	}
 
 	/**
 	 * REST GET.
@@ -96,12 +119,9 @@ public final class ClientHttp {
 	 * @throws ClientException
 	 *             the client exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Representation> T get(Link aLink)
 			throws ClientException {
-		HttpResponse response = createResponse(new HttpGet(aLink.getURI()),
-				aLink);
-		return (T) handleResponse(response, aLink);
+		return ChemcasterClient.getDefaultClient().<T> get(aLink);
 	}
 
 	/**
@@ -115,12 +135,9 @@ public final class ClientHttp {
 	 * @throws ClientException
 	 *             the client exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Representation> T put(Link aLink)
 			throws ClientException {
-		HttpResponse response = createResponse(new HttpPut(aLink.getURI()),
-				aLink, null);
-		return (T) handleResponse(response, aLink);
+		return ChemcasterClient.getDefaultClient().<T> put(aLink);
 	}
 
 	/**
@@ -136,12 +153,9 @@ public final class ClientHttp {
 	 * @throws ClientException
 	 *             the client exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Representation> T put(Link aLink,
 			AttributeHash attributes) throws ClientException {
-		HttpResponse response = createResponse(new HttpPut(aLink.getURI()),
-				aLink, attributes);
-		return (T) handleResponse(response, aLink);
+		return ChemcasterClient.getDefaultClient().<T> put(aLink, attributes);
 	}
 
 	/**
@@ -155,12 +169,9 @@ public final class ClientHttp {
 	 * @throws ClientException
 	 *             the client exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Representation> T post(Link aLink)
 			throws ClientException {
-		HttpResponse response = createResponse(new HttpPost(aLink.getURI()),
-				aLink, null);
-		return (T) handleResponse(response, aLink);
+		return ChemcasterClient.getDefaultClient().<T> post(aLink);
 	}
 
 	/**
@@ -176,12 +187,9 @@ public final class ClientHttp {
 	 * @throws ClientException
 	 *             the client exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Representation> T post(Link aLink,
 			AttributeHash attributes) throws ClientException {
-		HttpResponse response = createResponse(new HttpPost(aLink.getURI()),
-				aLink, attributes);
-		return (T) handleResponse(response, aLink);
+		return ChemcasterClient.getDefaultClient().<T> post(aLink, attributes);
 	}
 
 	/**
@@ -195,273 +203,94 @@ public final class ClientHttp {
 	 * @throws ClientException
 	 *             the client exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Representation> T delete(Link aLink)
 			throws ClientException {
-		HttpResponse response = createResponse(new HttpDelete(aLink.getURI()),
-				aLink);
-		return (T) handleResponse(response, aLink);
+		return ChemcasterClient.getDefaultClient().<T> delete(aLink);
 	}
 
 	/**
-	 * Creates the response from GET and DELETE - with no additional passed
-	 * params.
+	 * Asynchronous REST GET. A failed request completes the future
+	 * exceptionally with the ClientException.
 	 * 
-	 * @param restAction
-	 *            the rest action (GET, DELETE)
 	 * @param aLink
-	 *            the link for GET or DELETE action
-	 * 
-	 * @return the response from GET or DELETE
+	 *            the link from a get
 	 * 
-	 * @throws ClientException
-	 *             the client exception
+	 * @return a future for the specific subclass of Representation
 	 */
-	protected static HttpResponse createResponse(HttpRequestBase restAction,
-			Link aLink) throws ClientException {
-
-		aLink.validateInstanceVars();
-
-		try {
-			return clientResponse(restAction, aLink);
-		} catch (ClientException ce) {
-			throw ce;
-		}
+	public static <T extends Representation> CompletableFuture<T> getAsync(
+			Link aLink) {
+		return ChemcasterClient.getDefaultClient().<T> getAsync(aLink);
 	}
 
 	/**
-	 * Creates the response from PUT and POST - with possible additional passed
-	 * params in an AttributeHash
+	 * Asynchronous REST PUT, with no attributes.
 	 * 
-	 * @param restAction
-	 *            the rest action (PUT, POST)
 	 * @param aLink
-	 *            the link for PUT or POST action
-	 * @param attributes
-	 *            the attributes as an AttributeHash (or null)
-	 * 
-	 * @return the response from PUT or POST
+	 *            the link for putting
 	 * 
-	 * @throws ClientException
-	 *             the client exception
+	 * @return a future for the specific subclass of Representation
 	 */
-	protected static HttpResponse createResponse(
-			HttpEntityEnclosingRequestBase restAction, Link aLink,
-			AttributeHash attributes) throws ClientException {
-
-		aLink.validateInstanceVars();
-
-		if (attributes != null) {
-
-			String requestName = LocalMediaType.generateHashKey(aLink
-					.getMediaTypeString());
-			AttributeHash finalHash = new AttributeHash();
-			finalHash.put(requestName, attributes);
-			JSONObject requestBlock = new JSONObject(finalHash);
-			StringEntity stringEntity;
-
-			try {
-				stringEntity = new StringEntity(requestBlock.toString(),
-						HTTP.UTF_8);
-				stringEntity.setContentType(aLink.getMediaTypeString());
-			} catch (UnsupportedEncodingException e) {
-				throw new ClientRuntimeException(e.getMessage());
-			}
-
-			restAction.setEntity(stringEntity);
-		}
-		try {
-			return clientResponse(restAction, aLink);
-		} catch (ClientException ce) {
-			throw ce;
-		}
+	public static <T extends Representation> CompletableFuture<T> putAsync(
+			Link aLink) {
+		return ChemcasterClient.getDefaultClient().<T> putAsync(aLink);
 	}
 
 	/**
-	 * Handle response from the createResponse methods, returning a
-	 * populatedRepresentation subclass.
+	 * Asynchronous REST PUT, with attributes.
 	 * 
-	 * @param response
-	 *            a previously generated HttpResponse
 	 * @param aLink
-	 *            the link where the action occurred
-	 * 
-	 * @return the Representation (actually a subclass, but returned as the
-	 *         generic parent)
+	 *            the link for putting
+	 * @param attributes
+	 *            the attributes of the put as an AttributeHash
 	 * 
-	 * @throws ClientException
-	 *             the client exception
+	 * @return a future for the specific subclass of Representation
 	 */
-	protected static Representation handleResponse(HttpResponse response,
-			Link aLink) throws ClientException {
-		try {
-			StatusLine responseStatus = response.getStatusLine();
-
-			if (GOOD_STATUS.contains(responseStatus.getStatusCode())) {
-				Representation decodedResponse = decodeResponse(response, aLink);
-				response = null;
-				return decodedResponse;
-			} else if (responseStatus.getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
-				// 401
-				throw new ClientException(ERROR_UNAUTHORIZED + responseStatus);
-			} else if (responseStatus.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
-				// 404
-				throw new ClientException(ERROR_NOT_FOUND + responseStatus);
-			} else if (responseStatus.getStatusCode() == HttpStatus.SC_METHOD_NOT_ALLOWED) {
-				// 405
-				throw new ClientException(ERROR_NOT_ALLOWED + responseStatus);
-			} else if (responseStatus.getStatusCode() == HttpStatus.SC_NOT_ACCEPTABLE) {
-				// 406
-				throw new ClientException(ERROR_NOT_ACCEPTABLE + responseStatus);
-			} else if (responseStatus.getStatusCode() == HttpStatus.SC_UNPROCESSABLE_ENTITY) {
-				// 422
-				throw new ClientException(ERROR_CANNOT_PROCESS + responseStatus);
-			} else if (responseStatus.getStatusCode() == HttpStatus.SC_INTERNAL_SERVER_ERROR) {
-				// 500
-				throw new ClientException(ERROR_INTERNAL_SERVER
-						+ responseStatus);
-			} else {
-				throw new ClientException(ERROR_UNEXPECTED + responseStatus);
-			}
-		} catch (ClientException ce) {
-			throw ce;
-		} finally {
-			response = null;
-		}
+	public static <T extends Representation> CompletableFuture<T> putAsync(
+			Link aLink, AttributeHash attributes) {
+		return ChemcasterClient.getDefaultClient().<T> putAsync(aLink,
+				attributes);
 	}
 
 	/**
-	 * Client response from a http request.
+	 * Asynchronous REST POST, with no attributes.
 	 * 
-	 * @param restAction
-	 *            the rest action
 	 * @param aLink
-	 *            the a link
-	 * 
-	 * @return the http response
+	 *            the link for posting
 	 * 
-	 * @throws ClientException
-	 *             the client exception
+	 * @return a future for the specific subclass of Representation
 	 */
-	private static HttpResponse clientResponse(HttpRequestBase restAction,
-			Link aLink) throws ClientException {
-
-		restAction.setHeader(ACCEPT_HEADER, aLink.getMediaTypeString());
-
-		// This is probably redundant, as Content-Type is also set in the string
-		// representation.
-		if (restAction.getMethod().equals("PUT")
-				|| restAction.getMethod().equals("POST")) {
-			restAction.setHeader(CONTENT_TYPE, aLink.getMediaTypeString());
-		}
-
-		DefaultHttpClient httpClient = new DefaultHttpClient();
-
-		httpClient.getCredentialsProvider().setCredentials(
-				new AuthScope(aLink.getURIHost(), SSH_PORT),
-				aLink.getAuthentication());
-
-		if (HTTP_REQUEST_DEBUG) {
-			dumpRequest(restAction);
-			if (restAction.getMethod().equals("PUT")
-					|| restAction.getMethod().equals("POST")) {
-				dumpRequestEntity((HttpEntityEnclosingRequestBase) restAction);
-			}
-
-		}
-
-		try {
-			return httpClient.execute(restAction);
-		} catch (ClientProtocolException e) {
-			throw new ClientException(e.getMessage());
-		} catch (IOException e) {
-			throw new ClientException(e.getMessage());
-		} finally {
-			// ?? httpClient.getConnectionManager().shutdown();
-		}
+	public static <T extends Representation> CompletableFuture<T> postAsync(
+			Link aLink) {
+		return ChemcasterClient.getDefaultClient().<T> postAsync(aLink);
 	}
 
 	/**
-	 * Return a valid Representation of the response from the HTTP action.
+	 * Asynchronous REST POST, with attributes.
 	 * 
-	 * @param response
-	 *            the HTTP call response
 	 * @param aLink
-	 *            the link originating the response
-	 * 
-	 * @return a populated Representation subclass, as determined by the media
-	 *         type.
+	 *            the link for posting
+	 * @param attributes
+	 *            the attributes of the post as an AttributeHash
 	 * 
-	 * @throws ClientException
-	 *             the client exception
+	 * @return a future for the specific subclass of Representation
 	 */
-
-	private static Representation decodeResponse(HttpResponse response,
-			Link aLink) throws ClientException {
-		try {
-			String mediaType = aLink.getMediaTypeString();
-
-			Representation instanceRepresentation = LocalMediaType
-					.createRepresentationInstance(mediaType);
-
-			if (mediaType.equals("application/zip")) {
-
-				HttpResponse r = clientResponse(new HttpGet(aLink.getURI()),
-						aLink);
-
-				HttpEntity returnedEntity = r.getEntity();
-
-				((Zip) instanceRepresentation).setData(returnedEntity
-						.getContent());
-
-			} else if (mediaType.matches(".*json$")) {
-				Link instanceLink = aLink;
-				if (response.containsHeader("Location")) {
-					Header location = response.getFirstHeader("Location");
-					instanceLink = Link.create(mediaType, location.getValue(),
-							aLink.getAuthentication());
-				}
-
-				String content = EntityUtils.toString(response.getEntity());
-				JSONObject responseObject = new JSONObject(content);
-				instanceRepresentation.populate(instanceLink, responseObject);
-			} else {
-				throw new ClientRuntimeException();
-			}
-
-			return instanceRepresentation;
-		} catch (IOException ioException) {
-			throw new ClientException(ERROR_ACCESS_RESPONSE
-					+ ioException.getMessage());
-		} catch (JSONException je) {
-			throw new ClientRuntimeException(ERROR_NO_JSON_OBJECT_FROM_RESPONSE
-					+ je.getMessage());
-		}
+	public static <T extends Representation> CompletableFuture<T> postAsync(
+			Link aLink, AttributeHash attributes) {
+		return ChemcasterClient.getDefaultClient().<T> postAsync(aLink,
+				attributes);
 	}
 
-	private static void dumpRequest(HttpRequestBase request) {
-		RequestLine rl = request.getRequestLine();
-		System.out.print("URI: " + rl.getUri());
-		System.out.print(" METHOD: " + rl.getMethod());
-		System.out.println(" PROTOCOL: "
-				+ rl.getProtocolVersion().getProtocol());
-		System.out.println("***Headers***");
-		Header[] heads = request.getAllHeaders();
-		for (int hpt = 0; hpt < heads.length; hpt++) {
-			System.out.println(heads[hpt].getName() + " : "
-					+ heads[hpt].getValue());
-		}
-		System.out.println("***End Headers***");
-	}
-
-	private static void dumpRequestEntity(HttpEntityEnclosingRequestBase request) {
-		System.out.println("***Entity***");
-		try {
-			request.getEntity().writeTo(System.out);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		System.out.println("\n***End Entity***");
+	/**
+	 * Asynchronous REST DELETE.
+	 * 
+	 * @param aLink
+	 *            the link for resource deletion
+	 * 
+	 * @return a future for the specific subclass of Representation
+	 */
+	public static <T extends Representation> CompletableFuture<T> deleteAsync(
+			Link aLink) {
+		return ChemcasterClient.getDefaultClient().<T> deleteAsync(aLink);
 	}
 
 }
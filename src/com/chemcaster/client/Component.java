@@ -41,16 +41,18 @@ public class Component extends Representation {
 	private static final String STRUCTURE_TAG = "structure";
 	private static final String SUBSTANCE_TAG = "substance";
 
-	private String[] NEW_ATTRIBUTES = { MULTIPLIER_TAG };
-	private String[] NEW_RESOURCES = { STRUCTURE_TAG, SUBSTANCE_TAG };
+	private static final String[] NEW_ATTRIBUTES = { MULTIPLIER_TAG };
+	private static final String[] NEW_RESOURCES = { STRUCTURE_TAG, SUBSTANCE_TAG };
+
+	private static final Schema SCHEMA = Schema.of(Component.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
 
 	/**
 	 * Instantiates a new component.
 	 */
 	public Component() {
-		super();
-		addNewAttributeList(NEW_ATTRIBUTES);
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
 	}
 
 	/**
@@ -0,0 +1,282 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * The Class ConnectionPool. A thread-safe pool of persistent HTTP connections,
+ * shared by every request made through a ChemcasterClient. Connections are
+ * kept alive between requests, limited per route and in total, and closed by
+ * a background evictor once they have been idle for too long.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class ConnectionPool {
+
+	public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+	public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000L;
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000L;
+
+	private static final long EVICTION_INTERVAL_MILLIS = 5000L;
+	private static final String EVICTOR_THREAD_NAME = "ChemcasterClient-idle-connection-evictor";
+	private static final String KEEP_ALIVE_TIMEOUT_PARAM = "timeout";
+
+	private static final int HTTP_PORT = 80;
+	private static final int HTTPS_PORT = 443;
+
+	private final ThreadSafeClientConnManager connectionManager;
+	private final DefaultHttpClient httpClient;
+	private final IdleConnectionEvictor evictor;
+
+	private volatile long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+	private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+	/**
+	 * Instantiates a new connection pool with the default limits.
+	 */
+	public ConnectionPool() {
+		this(DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+	}
+
+	/**
+	 * Instantiates a new connection pool.
+	 * 
+	 * @param maxTotalConnections
+	 *            the maximum number of open connections, over all hosts
+	 * @param maxConnectionsPerRoute
+	 *            the maximum number of open connections to a single host
+	 */
+	public ConnectionPool(int maxTotalConnections, int maxConnectionsPerRoute) {
+		this(poolConfiguration(maxTotalConnections, maxConnectionsPerRoute));
+	}
+
+	/**
+	 * Instantiates a new connection pool from the limits, keep-alive and
+	 * timeouts of a ClientConfiguration.
+	 * 
+	 * @param configuration
+	 *            the client configuration
+	 */
+	public ConnectionPool(ClientConfiguration configuration) {
+		HttpParams params = new BasicHttpParams();
+		ConnManagerParams.setMaxTotalConnections(params, configuration
+				.getMaxTotalConnections());
+		ConnManagerParams.setMaxConnectionsPerRoute(params,
+				new ConnPerRouteBean(configuration.getMaxConnectionsPerRoute()));
+		HttpConnectionParams.setConnectionTimeout(params, configuration
+				.getConnectTimeoutMillis());
+		HttpConnectionParams.setSoTimeout(params, configuration
+				.getSocketTimeoutMillis());
+		HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
+		HttpProtocolParams.setContentCharset(params, HTTP.UTF_8);
+		// Chemcaster bodies are small JSON documents; waiting for a
+		// 100-continue costs a round trip on every PUT and POST.
+		HttpProtocolParams.setUseExpectContinue(params, false);
+
+		SchemeRegistry schemeRegistry = new SchemeRegistry();
+		schemeRegistry.register(new Scheme("http", PlainSocketFactory
+				.getSocketFactory(), HTTP_PORT));
+		schemeRegistry.register(new Scheme("https", SSLSocketFactory
+				.getSocketFactory(), HTTPS_PORT));
+
+		connectionManager = new ThreadSafeClientConnManager(params,
+				schemeRegistry);
+		httpClient = new DefaultHttpClient(connectionManager, params);
+		httpClient.setKeepAliveStrategy(new KeepAliveStrategy());
+		httpClient.addRequestInterceptor(new PreemptiveAuthInterceptor(), 0);
+
+		keepAliveMillis = configuration.getKeepAliveMillis();
+		idleTimeoutMillis = configuration.getIdleTimeoutMillis();
+
+		evictor = new IdleConnectionEvictor();
+		evictor.start();
+	}
+
+	/**
+	 * A default configuration with the given connection limits.
+	 */
+	private static ClientConfiguration poolConfiguration(
+			int maxTotalConnections, int maxConnectionsPerRoute) {
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setMaxTotalConnections(maxTotalConnections);
+		configuration.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+		return configuration;
+	}
+
+	/**
+	 * Gets the shared http client. The client is safe for use by many threads
+	 * at once, provided every response entity is consumed or released.
+	 * 
+	 * @return the http client
+	 */
+	public DefaultHttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * Gets the number of open connections currently held by the pool.
+	 * 
+	 * @return the connection count
+	 */
+	public int getConnectionsInPool() {
+		return connectionManager.getConnectionsInPool();
+	}
+
+	/**
+	 * Sets how long a connection is kept alive when the server does not
+	 * specify a Keep-Alive timeout.
+	 * 
+	 * @param millis
+	 *            the keep-alive time in milliseconds
+	 */
+	public void setKeepAliveMillis(long millis) {
+		keepAliveMillis = millis;
+	}
+
+	/**
+	 * Gets the default keep-alive time.
+	 * 
+	 * @return the keep-alive time in milliseconds
+	 */
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	/**
+	 * Sets how long an unused connection may sit in the pool before it is
+	 * closed by the evictor.
+	 * 
+	 * @param millis
+	 *            the idle timeout in milliseconds
+	 */
+	public void setIdleTimeoutMillis(long millis) {
+		idleTimeoutMillis = millis;
+	}
+
+	/**
+	 * Gets the idle timeout.
+	 * 
+	 * @return the idle timeout in milliseconds
+	 */
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	/**
+	 * Close expired and idle connections now.
+	 */
+	public void closeIdleConnections() {
+		connectionManager.closeExpiredConnections();
+		connectionManager.closeIdleConnections(idleTimeoutMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Shut down the pool, closing all connections and stopping the evictor.
+	 * The pool cannot be used afterwards.
+	 */
+	public void shutdown() {
+		evictor.interrupt();
+		connectionManager.shutdown();
+	}
+
+	/**
+	 * Checks if the idle connection evictor is still running.
+	 * 
+	 * @return true, if running
+	 */
+	boolean isEvictorRunning() {
+		return evictor.isAlive();
+	}
+
+	/**
+	 * Honors the server's Keep-Alive timeout, falling back to the pool
+	 * default rather than keeping the connection forever.
+	 */
+	private class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+		public long getKeepAliveDuration(HttpResponse response,
+				HttpContext context) {
+			HeaderElementIterator it = new BasicHeaderElementIterator(response
+					.headerIterator(HTTP.CONN_KEEP_ALIVE));
+			while (it.hasNext()) {
+				HeaderElement element = it.nextElement();
+				if (KEEP_ALIVE_TIMEOUT_PARAM.equalsIgnoreCase(element
+						.getName())
+						&& element.getValue() != null) {
+					try {
+						return Long.parseLong(element.getValue()) * 1000L;
+					} catch (NumberFormatException nfe) {
+					}
+				}
+			}
+			return keepAliveMillis;
+		}
+	}
+
+	/**
+	 * Periodically closes connections that have expired or sat idle.
+	 */
+	private class IdleConnectionEvictor extends Thread {
+		IdleConnectionEvictor() {
+			super(EVICTOR_THREAD_NAME);
+			setDaemon(true);
+		}
+
+		public void run() {
+			try {
+				while (!isInterrupted()) {
+					Thread.sleep(EVICTION_INTERVAL_MILLIS);
+					closeIdleConnections();
+				}
+			} catch (InterruptedException ie) {
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.params.ConnManagerPNames;
+import org.apache.http.util.EntityUtils;
+
+import com.sun.net.httpserver.HttpServer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class ConnectionPoolTest extends TestCase {
+
+	private HttpServer server;
+	private ExecutorService handlers;
+	// the client ports the server has seen, one per connection
+	private final Set<Integer> clientPorts = Collections
+			.synchronizedSet(new HashSet<Integer>());
+
+	@Override
+	protected void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		handlers = Executors.newCachedThreadPool();
+		server.setExecutor(handlers);
+		server.createContext("/", exchange -> {
+			clientPorts.add(exchange.getRemoteAddress().getPort());
+			byte[] body = "{}".getBytes();
+			exchange.sendResponseHeaders(200, body.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@Override
+	protected void tearDown() {
+		server.stop(0);
+		handlers.shutdownNow();
+	}
+
+	private String uri(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	public void testConnectionReused() throws Exception {
+		ConnectionPool pool = new ConnectionPool();
+		try {
+			for (int i = 0; i < 3; i++) {
+				HttpResponse response = pool.getHttpClient().execute(
+						new HttpGet(uri("/registries/" + i)));
+				assertEquals(200, response.getStatusLine().getStatusCode());
+				EntityUtils.toString(response.getEntity());
+			}
+			assertEquals(1, clientPorts.size());
+			assertEquals(1, pool.getConnectionsInPool());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public void testPerRouteLimit() throws Exception {
+		ConnectionPool pool = new ConnectionPool(4, 2);
+		try {
+			// two responses left unconsumed hold both connections of the
+			// route
+			pool.getHttpClient().execute(new HttpGet(uri("/1")));
+			pool.getHttpClient().execute(new HttpGet(uri("/2")));
+			HttpGet third = new HttpGet(uri("/3"));
+			third.getParams().setLongParameter(ConnManagerPNames.TIMEOUT, 100);
+			try {
+				pool.getHttpClient().execute(third);
+				fail("expected a ConnectionPoolTimeoutException");
+			} catch (ConnectionPoolTimeoutException cpte) {
+			}
+			assertEquals(2, pool.getConnectionsInPool());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public void testDefaultClientShared() {
+		assertSame(ChemcasterClient.getDefaultClient(), ChemcasterClient
+				.getDefaultClient());
+		assertSame(ClientHttp.getConnectionPool(), ClientHttp
+				.getConnectionPool());
+		assertSame(ClientHttp.getConnectionPool().getHttpClient(), ClientHttp
+				.getConnectionPool().getHttpClient());
+	}
+
+	public void testShutdownStopsEvictor() throws Exception {
+		ConnectionPool pool = new ConnectionPool();
+		assertTrue(pool.isEvictorRunning());
+		pool.shutdown();
+		for (int i = 0; i < 100 && pool.isEvictorRunning(); i++) {
+			Thread.sleep(50);
+		}
+		assertFalse(pool.isEvictorRunning());
+	}
+}
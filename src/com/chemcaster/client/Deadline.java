@@ -0,0 +1,138 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+/**
+ * The Class Deadline. A point in time by which a caller needs an answer. A
+ * deadline passed to ChemcasterClient.withDeadline is shared by every request
+ * the call makes, including async ones, so a multi-hop operation such as
+ * SimpleService.getSimpleRegistryWithName (an index GET, then a registry
+ * GET) has one budget, and fails fast once it is spent.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public final class Deadline {
+
+	private static final String ERROR_EXPIRED = "Deadline expired before request to: ";
+
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+	private final long deadlineNanos;
+
+	private Deadline(long newDeadlineNanos) {
+		deadlineNanos = newDeadlineNanos;
+	}
+
+	/**
+	 * A deadline some time from now.
+	 * 
+	 * @param millis
+	 *            the budget in milliseconds
+	 * 
+	 * @return the deadline
+	 */
+	public static Deadline after(long millis) {
+		return new Deadline(System.nanoTime() + millis * 1000000L);
+	}
+
+	/**
+	 * Gets the time left.
+	 * 
+	 * @return the remaining milliseconds, 0 once expired
+	 */
+	public long getRemainingMillis() {
+		long remaining = deadlineNanos - System.nanoTime();
+		return remaining <= 0 ? 0 : Math.max(1, remaining / 1000000L);
+	}
+
+	/**
+	 * Checks if the deadline has passed.
+	 * 
+	 * @return true, if expired
+	 */
+	public boolean isExpired() {
+		return deadlineNanos - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * The earlier of this deadline and another, so a nested deadline can
+	 * never extend the one around it.
+	 * 
+	 * @param other
+	 *            another deadline, or null
+	 * 
+	 * @return the earlier deadline
+	 */
+	public Deadline min(Deadline other) {
+		if (other == null || deadlineNanos - other.deadlineNanos <= 0) {
+			return this;
+		}
+		return other;
+	}
+
+	/**
+	 * Throw if the deadline has passed.
+	 * 
+	 * @param uri
+	 *            the URI about to be requested
+	 * 
+	 * @throws ClientException
+	 *             if expired
+	 */
+	void check(String uri) throws ClientException {
+		if (isExpired()) {
+			throw new ClientException(ERROR_EXPIRED + uri);
+		}
+	}
+
+	/**
+	 * Gets the deadline of the current thread.
+	 * 
+	 * @return the deadline, or null
+	 */
+	static Deadline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Make a deadline the current thread's.
+	 * 
+	 * @param deadline
+	 *            the deadline, or null for none
+	 * 
+	 * @return the previous deadline, to restore afterwards
+	 */
+	static Deadline bind(Deadline deadline) {
+		Deadline previous = CURRENT.get();
+		if (deadline == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(deadline);
+		}
+		return previous;
+	}
+}
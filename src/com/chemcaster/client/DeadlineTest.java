@@ -0,0 +1,152 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class DeadlineTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+
+	private final Link aLink = Link.create(REGISTRY_TYPE,
+			"https://chemcaster.com/registries/1",
+			new UsernamePasswordCredentials("alice", "a"));
+	private final ArrayList<TransportRequest> requests = new ArrayList<TransportRequest>();
+	private Transport transport;
+	private ChemcasterClient client;
+
+	@Override
+	protected void setUp() throws IOException {
+		transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation)
+							throws IOException {
+						requests.add((TransportRequest) invocation
+								.getArguments()[0]);
+						TransportResponse response = mock(TransportResponse.class);
+						when(response.getStatusCode()).thenReturn(200);
+						when(response.getContent()).thenReturn(
+								new ByteArrayInputStream("{}".getBytes()));
+						return response;
+					}
+				});
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setTotalTimeoutMillis(60000);
+		client = new ChemcasterClient(configuration, transport);
+	}
+
+	@Override
+	protected void tearDown() {
+		client.shutdown();
+	}
+
+	public void testMin() {
+		Deadline soon = Deadline.after(10);
+		Deadline later = Deadline.after(10000);
+		assertSame(soon, soon.min(later));
+		assertSame(soon, later.min(soon));
+		assertSame(later, later.min(null));
+	}
+
+	public void testExpiry() throws InterruptedException {
+		Deadline deadline = Deadline.after(1);
+		Thread.sleep(5);
+		assertTrue(deadline.isExpired());
+		assertEquals(0, deadline.getRemainingMillis());
+		assertFalse(Deadline.after(10000).isExpired());
+	}
+
+	public void testTotalTimeoutWithoutDeadline() throws ClientException {
+		client.get(aLink);
+		assertEquals(60000, requests.get(0).getTimeoutMillis());
+	}
+
+	public void testRequestsShareBudget() throws Exception {
+		client.withDeadline(Deadline.after(5000), () -> {
+			client.get(aLink);
+			return client.getAsync(aLink).join();
+		});
+		assertEquals(2, requests.size());
+		for (TransportRequest request : requests) {
+			assertTrue(request.getTimeoutMillis() <= 5000);
+		}
+		assertNull(Deadline.current());
+	}
+
+	public void testExpiredFailsFast() throws Exception {
+		Deadline deadline = Deadline.after(1);
+		Thread.sleep(5);
+		try {
+			client.withDeadline(deadline, () -> client.get(aLink));
+			fail();
+		} catch (ClientException ce) {
+		}
+		verify(transport, never()).execute(any(TransportRequest.class));
+	}
+
+	public void testNoRetryPastDeadline() throws Exception {
+		doThrow(new IOException("reset")).when(transport).execute(
+				any(TransportRequest.class));
+		client.getConfiguration().getRetryPolicy().setInitialBackoffMillis(
+				60000);
+		client.getConfiguration().getRetryPolicy().setMaxBackoffMillis(
+				60000);
+		// the jittered wait may be short, so try until one is too long
+		for (int i = 0; i < 20 && client.getRetryGiveUps() == 0; i++) {
+			try {
+				client.withDeadline(Deadline.after(50), () -> client
+						.get(aLink));
+				fail();
+			} catch (ClientException ce) {
+			}
+		}
+		assertEquals(1, client.getRetryGiveUps());
+		verify(transport, times((int) client.getRequestAttempts())).execute(
+				any(TransportRequest.class));
+	}
+}
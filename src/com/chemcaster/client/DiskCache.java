@@ -0,0 +1,626 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * The Class DiskCache. A persistent cache of JSON responses, kept under a
+ * directory so a restarted client can serve reads from local disk. Records
+ * are appended to segment files, which are dropped oldest first once the
+ * cache grows past its size cap. A memory-mapped index of fixed slots maps
+ * the hash of each URI to its latest records. Each record keeps the cache
+ * key, the ETag and Last-Modified validators and the expiry time, so an
+ * expired record can still be revalidated with a conditional GET.
+ * <p>
+ * The cache never fails a request: a record that cannot be read, for
+ * example one torn by a crash, is treated as a miss.
+ * <p>
+ * Reads share a lock over the index and read their records outside it, since
+ * a record is never changed once appended; writes take the lock alone. Only
+ * one client at a time may use a directory, which holds a lock on the index
+ * file until the cache is closed.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class DiskCache {
+
+	public static final long DEFAULT_MAX_BYTES = 256 * 1024 * 1024;
+
+	private static final String ERROR_OPEN = "Unable to open the disk cache in ";
+	private static final String ERROR_LOCKED = "The disk cache is in use by another client: ";
+
+	private static final String INDEX_FILE = "index.dat";
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".dat";
+
+	private static final int INDEX_MAGIC = 0x43434958; // "CCIX"
+	private static final int RECORD_MAGIC = 0x43435245; // "CCRE"
+	private static final int INDEX_HEADER_BYTES = 16;
+	private static final int SLOT_BYTES = 24;
+	private static final int SLOT_COUNT = 1 << 16;
+	private static final int MAX_PROBES = 16;
+	private static final int SEGMENT_COUNT = 4;
+	private static final int RECORD_HEADER_BYTES = 8;
+
+	private static final long EMPTY_SLOT = 0;
+	private static final int DEAD_SEGMENT = -1;
+
+	private final File directory;
+	private final long maxBytes;
+	private final long segmentMaxBytes;
+	private final MappedByteBuffer index;
+	private final RandomAccessFile indexFile;
+	private final FileLock directoryLock;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final TreeMap<Integer, FileChannel> segments = new TreeMap<Integer, FileChannel>();
+	private long totalBytes;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Opens, or creates, a disk cache.
+	 * 
+	 * @param newDirectory
+	 *            the directory holding the cache files
+	 * @param newMaxBytes
+	 *            the size cap of the segment files
+	 */
+	DiskCache(File newDirectory, long newMaxBytes) {
+		directory = newDirectory;
+		maxBytes = newMaxBytes;
+		segmentMaxBytes = Math.max(1, maxBytes / SEGMENT_COUNT);
+		try {
+			directory.mkdirs();
+			indexFile = new RandomAccessFile(new File(directory, INDEX_FILE),
+					"rw");
+			directoryLock = lockDirectory(indexFile, directory);
+			long indexBytes = INDEX_HEADER_BYTES + (long) SLOT_COUNT
+					* SLOT_BYTES;
+			boolean fresh = indexFile.length() != indexBytes;
+			indexFile.setLength(indexBytes);
+			index = indexFile.getChannel().map(FileChannel.MapMode.READ_WRITE,
+					0, indexBytes);
+			if (fresh || index.getInt(0) != INDEX_MAGIC
+					|| index.getInt(4) != SLOT_COUNT) {
+				deleteSegmentFiles();
+				resetIndex();
+			}
+			openSegments();
+		} catch (IOException ioe) {
+			throw new ClientRuntimeException(ERROR_OPEN + directory + ": "
+					+ ioe.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the latest record for a key.
+	 * 
+	 * @param key
+	 *            the cache key
+	 * @param uri
+	 *            the URI the key is for
+	 * 
+	 * @return the record, fresh or not, or null
+	 */
+	Entry get(String key, String uri) {
+		long hash = uriHash(uri);
+		int home = home(hash);
+		List<RecordLocation> candidates = new ArrayList<RecordLocation>(1);
+		lock.readLock().lock();
+		try {
+			for (int probe = 0; probe < MAX_PROBES; probe++) {
+				int slot = (home + probe) & (SLOT_COUNT - 1);
+				long slotHash = slotHash(slot);
+				if (slotHash == EMPTY_SLOT) {
+					break;
+				}
+				if (slotHash == hash && isLive(slot)) {
+					candidates.add(locate(slot));
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		// records are never changed once written, so they are read without
+		// the lock; one whose segment has since been dropped is a miss
+		for (RecordLocation candidate : candidates) {
+			Entry entry = readRecord(candidate);
+			if (entry != null && entry.key.equals(key)) {
+				hits.incrementAndGet();
+				return entry;
+			}
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Append a record, replacing any earlier record for the key. Records
+	 * larger than a segment are not stored.
+	 * 
+	 * @param key
+	 *            the cache key
+	 * @param uri
+	 *            the URI the key is for
+	 * @param body
+	 *            the JSON body
+	 * @param eTag
+	 *            the ETag, or null
+	 * @param lastModified
+	 *            the Last-Modified date, or null
+	 * @param expiresAt
+	 *            the expiry time, in milliseconds since the epoch
+	 */
+	void put(String key, String uri, String body, String eTag,
+			String lastModified, long expiresAt) {
+		byte[] record;
+		try {
+			record = encodeRecord(key, body, eTag, lastModified, expiresAt);
+		} catch (IOException ioe) {
+			return;
+		}
+		if (record.length > segmentMaxBytes) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			int segment = segmentFor(record.length);
+			FileChannel channel = segments.get(segment);
+			long offset = channel.size();
+			channel.write(ByteBuffer.wrap(record), offset);
+			totalBytes += record.length;
+			writeSlot(findSlot(uriHash(uri), key), uriHash(uri), segment,
+					record.length, offset);
+			dropOldSegments();
+		} catch (IOException ioe) {
+			// a cache write that fails is only a later miss
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Drop every record for a URI.
+	 * 
+	 * @param uri
+	 *            the uri
+	 */
+	public void invalidate(String uri) {
+		long hash = uriHash(uri);
+		int home = home(hash);
+		lock.writeLock().lock();
+		try {
+			for (int probe = 0; probe < MAX_PROBES; probe++) {
+				int slot = (home + probe) & (SLOT_COUNT - 1);
+				long slotHash = slotHash(slot);
+				if (slotHash == EMPTY_SLOT) {
+					break;
+				}
+				if (slotHash == hash) {
+					index.putInt(slotOffset(slot) + 8, DEAD_SEGMENT);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Drop every record and delete the segment files.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			closeSegments();
+			deleteSegmentFiles();
+			resetIndex();
+			openSegments();
+		} catch (IOException ioe) {
+			throw new ClientRuntimeException(ERROR_OPEN + directory + ": "
+					+ ioe.getMessage());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Write the index to disk and close the files, releasing the directory
+	 * to another client. The cache cannot be used afterwards.
+	 */
+	public void close() {
+		lock.writeLock().lock();
+		try {
+			index.force();
+			closeSegments();
+			try {
+				directoryLock.release();
+			} catch (IOException ioe) {
+			}
+			try {
+				indexFile.close();
+			} catch (IOException ioe) {
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the directory holding the cache files.
+	 * 
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Gets the size of the segment files, including replaced records not yet
+	 * dropped with their segment.
+	 * 
+	 * @return the size in bytes
+	 */
+	public long getSize() {
+		lock.readLock().lock();
+		try {
+			return totalBytes;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of reads answered from disk.
+	 * 
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of reads not found on disk.
+	 * 
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * The slot to write a key into: its own slot, else the first free or dead
+	 * slot along the probe sequence, else its home slot.
+	 */
+	private int findSlot(long hash, String key) {
+		int home = home(hash);
+		int free = -1;
+		for (int probe = 0; probe < MAX_PROBES; probe++) {
+			int slot = (home + probe) & (SLOT_COUNT - 1);
+			long slotHash = slotHash(slot);
+			if (slotHash == EMPTY_SLOT) {
+				return free >= 0 ? free : slot;
+			}
+			if (!isLive(slot)) {
+				if (free < 0) {
+					free = slot;
+				}
+			} else if (slotHash == hash) {
+				Entry entry = readRecord(locate(slot));
+				if (entry == null || entry.key.equals(key)) {
+					return slot;
+				}
+			}
+		}
+		return free >= 0 ? free : home;
+	}
+
+	/**
+	 * The segment to append a record to, starting a new one when the newest
+	 * is full.
+	 */
+	private int segmentFor(int recordBytes) throws IOException {
+		int newest = segments.lastKey();
+		if (segments.get(newest).size() + recordBytes > segmentMaxBytes) {
+			newest++;
+			segments.put(newest, openSegment(newest));
+		}
+		return newest;
+	}
+
+	private void dropOldSegments() {
+		while (totalBytes > maxBytes && segments.size() > 1) {
+			Map.Entry<Integer, FileChannel> oldest = segments.pollFirstEntry();
+			try {
+				totalBytes -= oldest.getValue().size();
+				oldest.getValue().close();
+			} catch (IOException ioe) {
+			}
+			segmentFile(oldest.getKey()).delete();
+		}
+	}
+
+	private boolean isLive(int slot) {
+		int segment = index.getInt(slotOffset(slot) + 8);
+		return segment != DEAD_SEGMENT && segments.containsKey(segment);
+	}
+
+	/**
+	 * Where the record of a live slot is, with the segment it is in.
+	 */
+	private RecordLocation locate(int slot) {
+		int base = slotOffset(slot);
+		return new RecordLocation(segments.get(index.getInt(base + 8)), index
+				.getInt(base + 12), index.getLong(base + 16));
+	}
+
+	/**
+	 * Read a record with positional reads, which need no lock.
+	 */
+	private Entry readRecord(RecordLocation location) {
+		int length = location.length;
+		if (location.channel == null || length <= RECORD_HEADER_BYTES
+				|| length > segmentMaxBytes) {
+			return null;
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			while (buffer.hasRemaining()) {
+				if (location.channel.read(buffer, location.offset
+						+ buffer.position()) < 0) {
+					return null;
+				}
+			}
+			return decodeRecord(buffer.array());
+		} catch (IOException ioe) {
+			// including a segment dropped while it was read
+			return null;
+		}
+	}
+
+	private static byte[] encodeRecord(String key, String body, String eTag,
+			String lastModified, long expiresAt) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(RECORD_MAGIC);
+		out.writeInt(0); // CRC, filled in below
+		out.writeUTF(key);
+		out.writeUTF(eTag == null ? "" : eTag);
+		out.writeUTF(lastModified == null ? "" : lastModified);
+		out.writeLong(expiresAt);
+		byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bodyBytes.length);
+		out.write(bodyBytes);
+		out.flush();
+
+		byte[] record = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(record, RECORD_HEADER_BYTES, record.length
+				- RECORD_HEADER_BYTES);
+		ByteBuffer.wrap(record).putInt(4, (int) crc.getValue());
+		return record;
+	}
+
+	private static Entry decodeRecord(byte[] record) throws IOException {
+		ByteBuffer header = ByteBuffer.wrap(record);
+		if (record.length < RECORD_HEADER_BYTES
+				|| header.getInt(0) != RECORD_MAGIC) {
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(record, RECORD_HEADER_BYTES, record.length
+				- RECORD_HEADER_BYTES);
+		if (header.getInt(4) != (int) crc.getValue()) {
+			return null;
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				record, RECORD_HEADER_BYTES, record.length
+						- RECORD_HEADER_BYTES));
+		String key = in.readUTF();
+		String eTag = in.readUTF();
+		String lastModified = in.readUTF();
+		long expiresAt = in.readLong();
+		byte[] body = new byte[in.readInt()];
+		in.readFully(body);
+		return new Entry(key, new String(body, StandardCharsets.UTF_8),
+				eTag.isEmpty() ? null : eTag, lastModified.isEmpty() ? null
+						: lastModified, expiresAt);
+	}
+
+	private void writeSlot(int slot, long hash, int segment, int length,
+			long offset) {
+		int base = slotOffset(slot);
+		index.putLong(base, hash);
+		index.putInt(base + 8, segment);
+		index.putInt(base + 12, length);
+		index.putLong(base + 16, offset);
+	}
+
+	private long slotHash(int slot) {
+		return index.getLong(slotOffset(slot));
+	}
+
+	private static int slotOffset(int slot) {
+		return INDEX_HEADER_BYTES + slot * SLOT_BYTES;
+	}
+
+	private static int home(long hash) {
+		return (int) (hash ^ (hash >>> 32)) & (SLOT_COUNT - 1);
+	}
+
+	/**
+	 * 64 bit FNV-1a hash of a URI, never EMPTY_SLOT.
+	 */
+	private static long uriHash(String uri) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < uri.length(); i++) {
+			hash ^= uri.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash == EMPTY_SLOT ? 1 : hash;
+	}
+
+	private void resetIndex() {
+		for (int i = 0; i < index.capacity(); i += 8) {
+			index.putLong(i, 0);
+		}
+		index.putInt(0, INDEX_MAGIC);
+		index.putInt(4, SLOT_COUNT);
+	}
+
+	private void openSegments() throws IOException {
+		String[] names = directory.list();
+		if (names != null) {
+			for (String name : names) {
+				if (name.startsWith(SEGMENT_PREFIX)
+						&& name.endsWith(SEGMENT_SUFFIX)) {
+					try {
+						int id = Integer.parseInt(name.substring(
+								SEGMENT_PREFIX.length(), name.length()
+										- SEGMENT_SUFFIX.length()));
+						FileChannel channel = openSegment(id);
+						segments.put(id, channel);
+						totalBytes += channel.size();
+					} catch (NumberFormatException nfe) {
+					}
+				}
+			}
+		}
+		if (segments.isEmpty()) {
+			segments.put(0, openSegment(0));
+		}
+	}
+
+	/**
+	 * Lock the index file, so no other client, in this process or another,
+	 * uses the directory at the same time.
+	 */
+	private static FileLock lockDirectory(RandomAccessFile indexFile,
+			File directory) {
+		FileLock fileLock;
+		try {
+			fileLock = indexFile.getChannel().tryLock();
+		} catch (OverlappingFileLockException ofle) {
+			fileLock = null;
+		} catch (IOException ioe) {
+			fileLock = null;
+		}
+		if (fileLock == null) {
+			try {
+				indexFile.close();
+			} catch (IOException ioe) {
+			}
+			throw new ClientRuntimeException(ERROR_LOCKED + directory);
+		}
+		return fileLock;
+	}
+
+	private FileChannel openSegment(int id) throws IOException {
+		return new RandomAccessFile(segmentFile(id), "rw").getChannel();
+	}
+
+	private File segmentFile(int id) {
+		return new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+	}
+
+	private void closeSegments() {
+		for (FileChannel channel : segments.values()) {
+			try {
+				channel.close();
+			} catch (IOException ioe) {
+			}
+		}
+		segments.clear();
+		totalBytes = 0;
+	}
+
+	private void deleteSegmentFiles() {
+		String[] names = directory.list();
+		if (names != null) {
+			for (String name : names) {
+				if (name.startsWith(SEGMENT_PREFIX)
+						&& name.endsWith(SEGMENT_SUFFIX)) {
+					new File(directory, name).delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The place of a record in a segment.
+	 */
+	private static class RecordLocation {
+		final FileChannel channel;
+		final int length;
+		final long offset;
+
+		RecordLocation(FileChannel newChannel, int newLength, long newOffset) {
+			channel = newChannel;
+			length = newLength;
+			offset = newOffset;
+		}
+	}
+
+	/**
+	 * A cached response read back from disk.
+	 */
+	static class Entry {
+		final String key;
+		final String body;
+		final String eTag;
+		final String lastModified;
+		final long expiresAt;
+
+		Entry(String newKey, String newBody, String newETag,
+				String newLastModified, long newExpiresAt) {
+			key = newKey;
+			body = newBody;
+			eTag = newETag;
+			lastModified = newLastModified;
+			expiresAt = newExpiresAt;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class DiskCacheTest extends TestCase {
+
+	private static final String URI = "https://chemcaster.com/registries/1";
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("CCDiskCacheTest", null);
+		directory.delete();
+	}
+
+	@Override
+	protected void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	public void testSurvivesReopen() {
+		DiskCache cache = new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+		cache.put("k1", URI, "{\"a\":1}", "\"v1\"", null, 42);
+		cache.put("k1", URI, "{\"a\":2}", "\"v2\"", null, 43);
+		cache.put("k2", URI, "{\"b\":1}", null, "yesterday", 44);
+		cache.close();
+
+		cache = new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+		DiskCache.Entry entry = cache.get("k1", URI);
+		assertEquals("{\"a\":2}", entry.body);
+		assertEquals("\"v2\"", entry.eTag);
+		assertNull(entry.lastModified);
+		assertEquals(43, entry.expiresAt);
+		assertEquals("yesterday", cache.get("k2", URI).lastModified);
+		assertNull(cache.get("k3", URI));
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		cache.close();
+	}
+
+	public void testInvalidate() {
+		DiskCache cache = new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+		cache.put("k1", URI, "{}", null, null, 1);
+		cache.put("k2", URI, "{}", null, null, 1);
+		cache.put("k3", URI + "/queries", "{}", null, null, 1);
+		cache.invalidate(URI);
+		assertNull(cache.get("k1", URI));
+		assertNull(cache.get("k2", URI));
+		assertNotNull(cache.get("k3", URI + "/queries"));
+		cache.close();
+	}
+
+	public void testSizeCapDropsOldest() {
+		DiskCache cache = new DiskCache(directory, 4000);
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 400; i++) {
+			body.append('x');
+		}
+		for (int i = 0; i < 20; i++) {
+			cache.put("k" + i, URI + i, body.toString(), null, null, 1);
+		}
+		assertTrue(cache.getSize() <= 4000);
+		assertNull(cache.get("k0", URI + 0));
+		assertNotNull(cache.get("k19", URI + 19));
+		cache.close();
+	}
+
+	public void testTornRecordIsMiss() throws Exception {
+		DiskCache cache = new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+		cache.put("k1", URI, "{\"a\":1}", null, null, 1);
+		cache.close();
+
+		RandomAccessFile segment = new RandomAccessFile(new File(directory,
+				"segment-0.dat"), "rw");
+		segment.setLength(segment.length() - 2);
+		segment.close();
+
+		cache = new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+		assertNull(cache.get("k1", URI));
+		cache.close();
+	}
+
+	public void testOneClientAtATime() {
+		DiskCache cache = new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+		try {
+			new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES);
+			fail("expected a ClientRuntimeException");
+		} catch (ClientRuntimeException cre) {
+			assertTrue(cre.getMessage().contains("in use"));
+		}
+		cache.close();
+		new DiskCache(directory, DiskCache.DEFAULT_MAX_BYTES).close();
+	}
+
+	public void testConcurrentReadsAndWrites() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 4000);
+		Thread[] threads = new Thread[4];
+		final AtomicInteger wrongBodies = new AtomicInteger();
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 200; i++) {
+					String uri = URI + (i % 10);
+					String body = "{\"t\":" + id + "}";
+					cache.put("k" + id, uri, body, null, null, 1);
+					DiskCache.Entry entry = cache.get("k" + id, uri);
+					if (entry != null && !entry.body.equals(body)) {
+						wrongBodies.incrementAndGet();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, wrongBodies.get());
+		assertTrue(cache.getSize() <= 4000);
+		cache.close();
+	}
+
+	public void testWarmRestartServesFromDisk() throws Exception {
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setDiskCacheDirectory(directory);
+		Link aLink = Link.create(REGISTRY_TYPE, URI,
+				new UsernamePasswordCredentials("alice", "a"));
+
+		TransportResponse response = response(200);
+		when(response.getHeader("ETag")).thenReturn("\"v1\"");
+		when(response.getContent()).thenReturn(
+				new ByteArrayInputStream("{\"registry\":{\"name\":\"r\"}}"
+						.getBytes()));
+		Transport transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenReturn(
+				response);
+		ChemcasterClient client = new ChemcasterClient(configuration,
+				transport);
+		Registry first = client.get(aLink);
+		client.shutdown();
+
+		// the record is filed under the user name alone, so the restarted
+		// client has the server accept the password before trusting it
+		final ArrayList<TransportRequest> requests = new ArrayList<TransportRequest>();
+		final TransportResponse[] answers = { response(304), response(401) };
+		Transport restarted = mock(Transport.class);
+		when(restarted.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation) {
+						TransportRequest request = (TransportRequest) invocation
+								.getArguments()[0];
+						requests.add(request);
+						return answers[requests.size() - 1];
+					}
+				});
+		client = new ChemcasterClient(configuration, restarted);
+		Registry second = client.get(aLink);
+		assertEquals(1, requests.size());
+		assertEquals("\"v1\"", requests.get(0).getHeaders().get(
+				"If-None-Match"));
+		assertEquals("r", first.getName());
+		assertEquals("r", second.getName());
+
+		// once accepted, the record is served without a request
+		assertEquals("r", ((Registry) client.get(aLink)).getName());
+		assertEquals(1, requests.size());
+		assertEquals(2, client.getDiskCache().getHits());
+
+		// and never to a caller with the wrong password
+		try {
+			client.get(Link.create(REGISTRY_TYPE, URI,
+					new UsernamePasswordCredentials("alice", "wrong")));
+			fail();
+		} catch (ClientException ce) {
+		}
+		assertEquals(2, requests.size());
+		client.shutdown();
+	}
+
+	private static TransportResponse response(int statusCode) {
+		TransportResponse response = mock(TransportResponse.class);
+		when(response.getStatusCode()).thenReturn(statusCode);
+		return response;
+	}
+}
@@ -45,7 +45,10 @@ public class Event extends Representation {
 	private static final String LOGGED_AT_TAG = "logged_at";
 	private static final String RESOURCE_TAG = "resource";
 
-	private String[] NEW_RESOURCES = { RESOURCE_TAG, LOGGED_AT_TAG };
+	private static final String[] NEW_RESOURCES = { RESOURCE_TAG, LOGGED_AT_TAG };
+
+	private static final Schema SCHEMA = Schema.of(Event.class)
+			.withResources(NEW_RESOURCES);
 
 	/**
 	 * Instantiates a new event.
@@ -54,9 +57,9 @@ public class Event extends Representation {
 	 *            the jo
 	 */
 	public Event(JSONObject jo, UsernamePasswordCredentials cred) {
+		super(SCHEMA);
 		restContent = jo;
 		credentials = cred;
-		addNewResourceList(NEW_RESOURCES);
 	}
 
 	/**
@@ -53,17 +53,19 @@ public class Execution extends Item {
 	private static final String REVERSE_TAG = "reverse";
 	private static final String SUBSTANCES_TAG = "substances";
 	private static final String URI_TAG = "uri";
-	private String[] NEW_ATTRIBUTES = { CURSOR_TAG, REVERSE_TAG,
+	private static final String[] NEW_ATTRIBUTES = { CURSOR_TAG, REVERSE_TAG,
 			NEXT_CURSOR_TAG, PREVIOUS_CURSOR_TAG, MAXIMUM_RESULTS_TAG };
-	private String[] NEW_RESOURCES = { EXECUTABLE_TAG, SUBSTANCES_TAG };
+	private static final String[] NEW_RESOURCES = { EXECUTABLE_TAG, SUBSTANCES_TAG };
+
+	private static final Schema SCHEMA = Item.itemSchema(Execution.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
 
 	/**
 	 * Instantiates a new execution.
 	 */
 	public Execution() {
-		super();
-		addNewAttributeList(NEW_ATTRIBUTES);
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
 	}
 	
 	/**
@@ -0,0 +1,461 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class ExecutionCache. An optional in-memory cache of query execution
+ * pages, keyed by the executions link of the query, the cursor, the reverse
+ * flag, the maximum results and the user, so a repeated search, or paging
+ * back and forth over the same cursors, is answered without a new POST. The
+ * cache holds a bounded number of pages, evicting the least recently used
+ * first, and a page is used for a time to live.
+ * <p>
+ * Results go stale when registrations are added to or removed from the
+ * registry. With a log check interval set, a background check reads the logs
+ * of every registry with cached pages and drops those pages as soon as the
+ * registration events in the logs change. Logs whose interval has ended do
+ * not change, so each is read only once. checkLogs() runs the same check on
+ * demand. A PUT, POST or DELETE to a query or its registry, or a 4xx status
+ * from either, drops its pages too.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class ExecutionCache {
+
+	private static final char KEY_SEPARATOR = ' ';
+	private static final String CHECK_THREAD_PREFIX = "ChemcasterClient-log-check-";
+
+	// a log is taken as closed only this long after its interval has ended
+	private static final long LOG_CLOSE_MARGIN_MILLIS = 60 * 1000;
+	private static final long MILLIS_PER_SECOND = 1000;
+
+	private final ChemcasterClient client;
+	private final CacheKeys keys;
+	private final int maxPages;
+	private final long ttlMillis;
+	private final ScheduledExecutorService checker;
+
+	// access ordered, so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, CachedPage> entries = new LinkedHashMap<String, CachedPage>(
+			16, 0.75f, true);
+	// the registry URI of each query seen, once looked up
+	private final HashMap<String, String> queryRegistries = new HashMap<String, String>();
+	private final HashMap<String, RegistryWatch> watches = new HashMap<String, RegistryWatch>();
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long logInvalidations;
+
+	/**
+	 * Instantiates a new execution cache with the size, time to live and log
+	 * check interval of a configuration.
+	 * 
+	 * @param newClient
+	 *            the client that reads the logs
+	 * @param configuration
+	 *            the client configuration
+	 * @param newKeys
+	 *            the keys of the client
+	 */
+	ExecutionCache(ChemcasterClient newClient,
+			ClientConfiguration configuration, CacheKeys newKeys) {
+		client = newClient;
+		keys = newKeys;
+		maxPages = configuration.getExecutionCacheMaxPages();
+		ttlMillis = configuration.getExecutionCacheTTLMillis();
+		long interval = configuration.getLogCheckIntervalMillis();
+		if (isEnabled() && interval > 0) {
+			checker = Executors
+					.newSingleThreadScheduledExecutor(new ChemcasterClient.DaemonThreadFactory(
+							CHECK_THREAD_PREFIX));
+			checker.scheduleWithFixedDelay(this::backgroundCheck, interval,
+					interval, TimeUnit.MILLISECONDS);
+		} else {
+			checker = null;
+		}
+	}
+
+	/**
+	 * Checks if this cache keeps pages at all.
+	 * 
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled() {
+		return maxPages > 0 && ttlMillis > 0;
+	}
+
+	/**
+	 * Gets a cached page that has not expired.
+	 * 
+	 * @param executionsLink
+	 *            the executions link of the query
+	 * @param cursor
+	 *            the cursor, or null for the first page
+	 * @param reverse
+	 *            the reverse flag, or null
+	 * @param maximumResults
+	 *            the maximum results
+	 * 
+	 * @return the execution page, or null
+	 */
+	synchronized Execution get(Link executionsLink, String cursor,
+			Boolean reverse, Number maximumResults) {
+		if (!isEnabled()) {
+			return null;
+		}
+		String key = key(executionsLink, cursor, reverse, maximumResults);
+		CachedPage cached = entries.get(key);
+		if (cached == null) {
+			misses++;
+			return null;
+		}
+		if (cached.expiresAt <= System.currentTimeMillis()) {
+			entries.remove(key);
+			misses++;
+			return null;
+		}
+		hits++;
+		return cached.page;
+	}
+
+	/**
+	 * Cache an execution page, evicting the least recently used pages past
+	 * the size of the cache.
+	 * 
+	 * @param executionsLink
+	 *            the executions link of the query
+	 * @param cursor
+	 *            the cursor, or null for the first page
+	 * @param reverse
+	 *            the reverse flag, or null
+	 * @param maximumResults
+	 *            the maximum results
+	 * @param page
+	 *            the execution page
+	 */
+	synchronized void put(Link executionsLink, String cursor, Boolean reverse,
+			Number maximumResults, Execution page) {
+		if (!isEnabled() || page == null) {
+			return;
+		}
+		Link queryLink;
+		try {
+			queryLink = page.getExecutableLink();
+		} catch (ClientException ce) {
+			queryLink = null;
+		}
+		entries.put(key(executionsLink, cursor, reverse, maximumResults),
+				new CachedPage(page, queryLink, System.currentTimeMillis()
+						+ ttlMillis));
+		Iterator<CachedPage> lru = entries.values().iterator();
+		while (entries.size() > maxPages && lru.hasNext()) {
+			lru.next();
+			lru.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Drop every page of a query at a URI, or of the queries of a registry at
+	 * it.
+	 * 
+	 * @param uri
+	 *            the uri
+	 */
+	public synchronized void invalidate(String uri) {
+		if (uri == null || entries.isEmpty()) {
+			return;
+		}
+		entries.values().removeIf(
+				cached -> uri.equals(cached.queryURI())
+						|| uri.equals(queryRegistries.get(cached.queryURI())));
+	}
+
+	/**
+	 * Drop every page.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Read the logs of every registry with cached pages, and drop the pages
+	 * of each registry whose registration events have changed since the last
+	 * check. The first check of a registry only records its events. A
+	 * registry whose logs cannot be read is checked again next time. Queries
+	 * and registries no cached page refers to any more are forgotten first.
+	 * 
+	 * @return the number of registries whose pages were dropped
+	 */
+	public int checkLogs() {
+		List<Link> unresolved = new ArrayList<Link>();
+		synchronized (this) {
+			HashMap<String, Link> seen = new HashMap<String, Link>();
+			for (CachedPage cached : entries.values()) {
+				String queryURI = cached.queryURI();
+				if (queryURI != null) {
+					seen.put(queryURI, cached.queryLink);
+				}
+			}
+			queryRegistries.keySet().retainAll(seen.keySet());
+			watches.keySet().retainAll(queryRegistries.values());
+			seen.keySet().removeAll(queryRegistries.keySet());
+			unresolved.addAll(seen.values());
+		}
+		for (Link queryLink : unresolved) {
+			try {
+				Query query = client.get(queryLink);
+				Link registryLink = query.getRegistryLink();
+				synchronized (this) {
+					queryRegistries.put(queryLink.getURI(), registryLink
+							.getURI());
+					if (!watches.containsKey(registryLink.getURI())) {
+						watches.put(registryLink.getURI(), new RegistryWatch(
+								registryLink));
+					}
+				}
+			} catch (ClientException ce) {
+				// resolved on a later check
+			} catch (RuntimeException re) {
+				// resolved on a later check
+			}
+		}
+
+		List<RegistryWatch> watched;
+		synchronized (this) {
+			watched = new ArrayList<RegistryWatch>(watches.values());
+		}
+		int changed = 0;
+		for (RegistryWatch watch : watched) {
+			boolean hasChanged;
+			try {
+				hasChanged = watch.check();
+			} catch (ClientException ce) {
+				continue;
+			} catch (RuntimeException re) {
+				continue;
+			}
+			if (hasChanged) {
+				String registryURI = watch.registryLink.getURI();
+				synchronized (this) {
+					entries.values().removeIf(
+							cached -> registryURI.equals(queryRegistries
+									.get(cached.queryURI())));
+					logInvalidations++;
+				}
+				changed++;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Stop the background log check.
+	 */
+	public void close() {
+		if (checker != null) {
+			checker.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the number of cached pages, including any expired but not yet
+	 * dropped.
+	 * 
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the number of lookups answered from the cache.
+	 * 
+	 * @return the hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that had to go to the server.
+	 * 
+	 * @return the misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of pages evicted to keep the cache within its size.
+	 * 
+	 * @return the evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the number of times a registry's pages were dropped because its
+	 * logs showed changed registrations.
+	 * 
+	 * @return the log invalidations
+	 */
+	public synchronized long getLogInvalidations() {
+		return logInvalidations;
+	}
+
+	/**
+	 * Run a scheduled check. A failure is left for the next check, since an
+	 * exception would cancel the schedule.
+	 */
+	private void backgroundCheck() {
+		try {
+			checkLogs();
+		} catch (RuntimeException re) {
+		}
+	}
+
+	/**
+	 * The key of a page: the page parameters, then the cache key of the
+	 * executions link.
+	 */
+	private String key(Link executionsLink, String cursor,
+			Boolean reverse, Number maximumResults) {
+		return cursor + KEY_SEPARATOR + reverse + KEY_SEPARATOR
+				+ maximumResults + KEY_SEPARATOR
+				+ keys.key(executionsLink);
+	}
+
+	private static class CachedPage {
+		final Execution page;
+		final Link queryLink;
+		final long expiresAt;
+
+		CachedPage(Execution newPage, Link newQueryLink, long newExpiresAt) {
+			page = newPage;
+			queryLink = newQueryLink;
+			expiresAt = newExpiresAt;
+		}
+
+		String queryURI() {
+			return queryLink == null ? null : queryLink.getURI();
+		}
+	}
+
+	/**
+	 * The registration events seen in the logs of one registry. The
+	 * background and on-demand checks may read a registry at once, so a
+	 * check holds the lock of its watch.
+	 */
+	private class RegistryWatch {
+		final Link registryLink;
+		// fingerprints of the logs whose interval has ended, by URI
+		final HashMap<String, Integer> closedLogs = new HashMap<String, Integer>();
+		String lastFingerprint;
+
+		RegistryWatch(Link newRegistryLink) {
+			registryLink = newRegistryLink;
+		}
+
+		/**
+		 * Read the logs again, and record their events.
+		 * 
+		 * @return true, if the events changed since the last check
+		 */
+		synchronized boolean check() throws ClientException {
+			String fingerprint = fingerprint();
+			boolean changed = lastFingerprint != null
+					&& !lastFingerprint.equals(fingerprint);
+			lastFingerprint = fingerprint;
+			return changed;
+		}
+
+		/**
+		 * Combine the registration events of every log of the registry,
+		 * reading only the logs that are new or still open.
+		 */
+		private String fingerprint() throws ClientException {
+			Registry registry = client.get(registryLink);
+			int logs = 0;
+			long combined = 0;
+			for (Link logLink : client.getPages(registry.getLogsLink())) {
+				Integer logFingerprint = closedLogs.get(logLink.getURI());
+				if (logFingerprint == null) {
+					Log log = client.get(logLink);
+					logFingerprint = registrationFingerprint(log);
+					if (isClosed(log)) {
+						closedLogs.put(logLink.getURI(), logFingerprint);
+					}
+				}
+				combined = 31 * combined + logLink.getURI().hashCode() * 17
+						+ logFingerprint;
+				logs++;
+			}
+			return logs + ":" + combined;
+		}
+	}
+
+	private static int registrationFingerprint(Log log) {
+		int fingerprint = 0;
+		for (Event event : log.getEventsList()) {
+			try {
+				Link resource = event.getResource();
+				if (Registration.REGISTRATION_MEDIA_TYPE.equals(resource
+						.getMediaTypeString())) {
+					fingerprint = 31 * fingerprint + resource.getURI().hashCode();
+				}
+			} catch (ClientException e) {
+				// if it can't be converted to a link, ignore it
+			}
+		}
+		return fingerprint;
+	}
+
+	private static boolean isClosed(Log log) {
+		try {
+			Date createdAt = log.getCreatedAt();
+			Number interval = log.getInterval();
+			return createdAt != null && interval != null
+					&& createdAt.getTime() + interval.longValue()
+							* MILLIS_PER_SECOND + LOG_CLOSE_MARGIN_MILLIS < System
+							.currentTimeMillis();
+		} catch (ClientRuntimeException cre) {
+			return false;
+		}
+	}
+}
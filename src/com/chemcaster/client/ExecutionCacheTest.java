@@ -0,0 +1,217 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class ExecutionCacheTest extends TestCase {
+
+	private static final String REGISTRY_URI = "https://chemcaster.com/registries/1";
+	private static final String QUERY_URI = "https://chemcaster.com/queries/1";
+
+	private ChemcasterClient client;
+	private final CacheKeys keys = new CacheKeys();
+	private ClientConfiguration configuration;
+	private Link executionsLink;
+	private Link queryLink;
+	private Link openLogLink;
+	private Link closedLogLink;
+	private Log openLog;
+
+	@Override
+	protected void setUp() throws ClientException {
+		client = mock(ChemcasterClient.class);
+		configuration = new ClientConfiguration();
+		configuration.setExecutionCacheMaxPages(2);
+		configuration.setLogCheckIntervalMillis(ClientConfiguration.NO_LOG_CHECK);
+		executionsLink = link(QUERY_URI + "/executions");
+		queryLink = link(QUERY_URI);
+
+		Query query = mock(Query.class);
+		Link registryLink = link(REGISTRY_URI);
+		when(query.getRegistryLink()).thenReturn(registryLink);
+		when(client.<Query> get(queryLink)).thenReturn(query);
+		Registry registry = mock(Registry.class);
+		Link logsLink = link(REGISTRY_URI + "/logs");
+		when(registry.getLogsLink()).thenReturn(logsLink);
+		when(client.<Registry> get(registryLink)).thenReturn(registry);
+
+		closedLogLink = link(REGISTRY_URI + "/logs/1");
+		Log closedLog = mock(Log.class);
+		when(closedLog.getCreatedAt()).thenReturn(new Date(0));
+		when(closedLog.getInterval()).thenReturn(3600);
+		ArrayList<Event> closedEvents = events(REGISTRY_URI
+				+ "/registrations/1");
+		when(closedLog.getEventsList()).thenReturn(closedEvents);
+		when(client.<Log> get(closedLogLink)).thenReturn(closedLog);
+
+		openLogLink = link(REGISTRY_URI + "/logs/2");
+		openLog = mock(Log.class);
+		when(openLog.getCreatedAt()).thenReturn(new Date());
+		when(openLog.getInterval()).thenReturn(3600);
+		when(openLog.getEventsList()).thenReturn(new ArrayList<Event>());
+		when(client.<Log> get(openLogLink)).thenReturn(openLog);
+
+		IndexPages logs = mock(IndexPages.class);
+		when(logs.iterator()).thenAnswer(
+				invocation -> Arrays.asList(closedLogLink, openLogLink)
+						.iterator());
+		when(client.getPages(logsLink)).thenReturn(logs);
+	}
+
+	private static Link link(String uri) {
+		Link link = mock(Link.class);
+		when(link.getURI()).thenReturn(uri);
+		return link;
+	}
+
+	private static ArrayList<Event> events(String... registrationURIs)
+			throws ClientException {
+		ArrayList<Event> events = new ArrayList<Event>();
+		for (String uri : registrationURIs) {
+			Link resource = link(uri);
+			when(resource.getMediaTypeString()).thenReturn(
+					Registration.REGISTRATION_MEDIA_TYPE);
+			Event event = mock(Event.class);
+			when(event.getResource()).thenReturn(resource);
+			events.add(event);
+		}
+		return events;
+	}
+
+	private Execution page() throws ClientException {
+		Execution page = mock(Execution.class);
+		when(page.getExecutableLink()).thenReturn(queryLink);
+		return page;
+	}
+
+	public void testKeyedByCursor() throws ClientException {
+		ExecutionCache cache = new ExecutionCache(client, configuration, keys);
+		Execution first = page();
+		Execution second = page();
+		cache.put(executionsLink, null, null, 10, first);
+		cache.put(executionsLink, "c1", false, 10, second);
+		assertSame(first, cache.get(executionsLink, null, null, 10));
+		assertSame(second, cache.get(executionsLink, "c1", false, 10));
+		assertNull(cache.get(executionsLink, "c1", true, 10));
+		assertNull(cache.get(executionsLink, "c1", false, 20));
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	public void testDisabledByDefault() throws ClientException {
+		ExecutionCache cache = new ExecutionCache(client,
+				new ClientConfiguration(), keys);
+		assertFalse(cache.isEnabled());
+		cache.put(executionsLink, null, null, 10, page());
+		assertNull(cache.get(executionsLink, null, null, 10));
+	}
+
+	public void testExpires() throws Exception {
+		configuration.setExecutionCacheTTLMillis(1);
+		ExecutionCache cache = new ExecutionCache(client, configuration, keys);
+		cache.put(executionsLink, null, null, 10, page());
+		Thread.sleep(5);
+		assertNull(cache.get(executionsLink, null, null, 10));
+		assertEquals(0, cache.size());
+	}
+
+	public void testEvictsLeastRecentlyUsed() throws ClientException {
+		ExecutionCache cache = new ExecutionCache(client, configuration, keys);
+		cache.put(executionsLink, "c1", null, 10, page());
+		cache.put(executionsLink, "c2", null, 10, page());
+		cache.get(executionsLink, "c1", null, 10);
+		cache.put(executionsLink, "c3", null, 10, page());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get(executionsLink, "c2", null, 10));
+		assertNotNull(cache.get(executionsLink, "c1", null, 10));
+	}
+
+	public void testInvalidateQuery() throws ClientException {
+		ExecutionCache cache = new ExecutionCache(client, configuration, keys);
+		cache.put(executionsLink, null, null, 10, page());
+		// executing the query again is not a change to it
+		cache.invalidate(QUERY_URI + "/executions");
+		assertEquals(1, cache.size());
+		cache.invalidate(QUERY_URI);
+		assertEquals(0, cache.size());
+	}
+
+	public void testNewRegistrationInLog() throws ClientException {
+		ExecutionCache cache = new ExecutionCache(client, configuration, keys);
+		cache.put(executionsLink, null, null, 10, page());
+		assertEquals(0, cache.checkLogs());
+		assertEquals(0, cache.checkLogs());
+		assertEquals(1, cache.size());
+
+		ArrayList<Event> newEvents = events(REGISTRY_URI + "/registrations/2");
+		when(openLog.getEventsList()).thenReturn(newEvents);
+		assertEquals(1, cache.checkLogs());
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getLogInvalidations());
+
+		// the closed log is read once, the open one on every check
+		verify(client, times(1)).get(closedLogLink);
+		verify(client, times(3)).get(openLogLink);
+
+		// once resolved, the registry of a query is known
+		cache.put(executionsLink, null, null, 10, page());
+		cache.invalidate(REGISTRY_URI);
+		assertEquals(0, cache.size());
+	}
+
+	public void testForgetsUnreferencedRegistries() throws ClientException {
+		ExecutionCache cache = new ExecutionCache(client, configuration, keys);
+		cache.put(executionsLink, null, null, 10, page());
+		assertEquals(0, cache.checkLogs());
+		cache.clear();
+
+		// no cached page refers to the registry, so its logs are not read
+		assertEquals(0, cache.checkLogs());
+		verify(client, times(1)).get(openLogLink);
+
+		// and its query is looked up again once a page refers to it
+		cache.put(executionsLink, null, null, 10, page());
+		assertEquals(0, cache.checkLogs());
+		verify(client, times(2)).get(queryLink);
+		verify(client, times(2)).get(openLogLink);
+	}
+}
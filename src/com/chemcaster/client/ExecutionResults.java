@@ -0,0 +1,260 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The Class ExecutionResults. An Iterable over the substance links of every
+ * page of a query execution, following next_cursor. As soon as a page arrives
+ * its next_cursor is used to POST for the following page, so up to readAhead
+ * pages are on the wire while the caller works through the current one.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class ExecutionResults implements Iterable<Link> {
+
+	private static final String ERROR_PAGE = "Unable to fetch execution page: ";
+
+	static final String MAXIMUM_RESULTS_TAG = "maximum_results";
+	static final String CURSOR_TAG = "cursor";
+	static final String REVERSE_TAG = "reverse";
+
+	private final ChemcasterClient client;
+	private final Execution firstPage;
+	private final int readAhead;
+
+	/**
+	 * Instantiates a new view of all pages of an execution, starting with the
+	 * hits of the given page.
+	 * 
+	 * @param newClient
+	 *            the client that posts for the pages
+	 * @param execution
+	 *            the first page of results
+	 * @param pagesAhead
+	 *            the number of pages to fetch ahead of the caller, 0 for none
+	 */
+	public ExecutionResults(ChemcasterClient newClient, Execution execution,
+			int pagesAhead) {
+		client = newClient;
+		firstPage = execution;
+		readAhead = pagesAhead;
+	}
+
+	/**
+	 * Iterate over the substance links of all pages. Where a hit matches
+	 * several substances related through a structure, the first one is
+	 * returned, as in Execution.getSubstances(). A page that cannot be fetched
+	 * throws a ClientRuntimeException; asking again posts for it again.
+	 * 
+	 * @return the iterator
+	 */
+	public Iterator<Link> iterator() {
+		return new CursorIterator();
+	}
+
+	/**
+	 * A sequential stream of the substance links of all pages.
+	 * 
+	 * @return the stream
+	 */
+	public Stream<Link> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Read every page into a NameURI.
+	 * 
+	 * @return the names and URIs of all hits
+	 */
+	public NameURI toNameURI() {
+		NameURI hits = new NameURI();
+		for (Link hit : this) {
+			hits.add(hit.getName(), hit.getURI());
+		}
+		return hits;
+	}
+
+	/**
+	 * Gets the first page of an iteration.
+	 * 
+	 * @return a future for the first page, completing with null if there are
+	 *         no results
+	 */
+	CompletableFuture<Execution> firstPage() {
+		return CompletableFuture.completedFuture(firstPage);
+	}
+
+	/**
+	 * Called once the caller has been handed every hit of a page, before the
+	 * iteration moves past it.
+	 * 
+	 * @param page
+	 *            the consumed page
+	 */
+	void pageConsumed(Execution page) {
+	}
+
+	/**
+	 * Asynchronously post for the page after an execution page.
+	 * 
+	 * @param client
+	 *            the client that posts for the page
+	 * @param page
+	 *            the current page, or null once the results are exhausted
+	 * 
+	 * @return a future for the next page, completing with null if there is none
+	 */
+	static CompletableFuture<Execution> nextPage(ChemcasterClient client,
+			Execution page) {
+		if (page == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		String cursor = page.getNextCursor();
+		if (cursor == null || cursor.length() == 0) {
+			return CompletableFuture.completedFuture(null);
+		}
+		try {
+			return client.executeQueryAsync(page.getIndexLink(), cursor, page
+					.isReverse(), page.getMaximumResults());
+		} catch (ClientException ce) {
+			return CompletableFuture.<Execution> failedFuture(ce);
+		}
+	}
+
+	/**
+	 * Gets the hits of an execution page, the first substance of each group.
+	 * 
+	 * @param page
+	 *            the execution page
+	 * 
+	 * @return the substance links
+	 */
+	static List<Link> hitsOf(Execution page) {
+		try {
+			ArrayList<ArrayList<Link>> groups = page.getSubstancesLinks();
+			ArrayList<Link> links = new ArrayList<Link>(groups.size());
+			for (ArrayList<Link> group : groups) {
+				if (!group.isEmpty()) {
+					links.add(group.get(0));
+				}
+			}
+			return links;
+		} catch (ClientException ce) {
+			throw new ClientRuntimeException(ERROR_PAGE + ce.getMessage());
+		}
+	}
+
+	private class CursorIterator implements Iterator<Link> {
+		// pages already requested beyond the current one, in order
+		private final ArrayDeque<CompletableFuture<Execution>> pending = new ArrayDeque<CompletableFuture<Execution>>();
+		private Execution current;
+		// pageConsumed has run for the current page
+		private boolean consumed;
+		private boolean done;
+		private List<Link> hits;
+		private int position;
+
+		public boolean hasNext() {
+			while (hits == null || position >= hits.size()) {
+				if (done) {
+					return false;
+				}
+				CompletableFuture<Execution> nextFetch;
+				if (current == null) {
+					nextFetch = firstPage();
+				} else {
+					if (!consumed) {
+						pageConsumed(current);
+						consumed = true;
+					}
+					nextFetch = pending.isEmpty() ? nextPage(client, current)
+							: pending.poll();
+				}
+				Execution page;
+				try {
+					page = join(nextFetch);
+				} catch (ClientRuntimeException cre) {
+					// pages read ahead follow the failed one, so ask again
+					pending.clear();
+					throw cre;
+				}
+				current = page;
+				consumed = false;
+				if (current == null) {
+					done = true;
+					pending.clear();
+					return false;
+				}
+				fetchAhead();
+				hits = hitsOf(current);
+				position = 0;
+			}
+			return true;
+		}
+
+		public Link next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return hits.get(position++);
+		}
+
+		/**
+		 * Keep readAhead pages in flight beyond the current page. Each POST
+		 * waits on its predecessor only for the next_cursor.
+		 */
+		private void fetchAhead() {
+			CompletableFuture<Execution> last = pending.isEmpty() ? CompletableFuture
+					.completedFuture(current)
+					: pending.peekLast();
+			while (pending.size() < readAhead) {
+				last = last.thenCompose(page -> nextPage(client, page));
+				pending.add(last);
+			}
+		}
+
+		private Execution join(CompletableFuture<Execution> page) {
+			try {
+				return page.join();
+			} catch (CompletionException ce) {
+				throw new ClientRuntimeException(ERROR_PAGE
+						+ ce.getCause().getMessage());
+			}
+		}
+	}
+
+}
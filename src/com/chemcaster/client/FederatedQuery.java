@@ -0,0 +1,311 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The Class FederatedQuery. One search run against several registries at
+ * once. Each iteration creates a query in every registry, or reuses one from
+ * the client's query cache, and executes it concurrently, then merges the
+ * hits of all executions in the order their pages arrive, each tagged with
+ * the registry it came from. Every registry keeps its next page in flight,
+ * and up to readAhead pages, while the caller works through the merged hits.
+ * <p>
+ * With a limit, the iteration stops after that many hits over all registries
+ * and stops issuing further pages. Requests already sent run to completion,
+ * and their pages are dropped. The iteration is driven from
+ * the caller's thread, so it never ties up the client's executor waiting for
+ * pages. A registry that fails ends the iteration with a
+ * ClientRuntimeException.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class FederatedQuery implements Iterable<FederatedQuery.Hit> {
+
+	/** No limit on the number of hits. */
+	public static final int NO_LIMIT = 0;
+
+	private static final String ERROR_REGISTRY = "Unable to query registry ";
+
+	private final ChemcasterClient client;
+	private final List<SimpleRegistry> registries;
+	private final String mode;
+	private final String serialization;
+	private final Number maximumResults;
+	private final int limit;
+	private final int readAhead;
+
+	/**
+	 * A hit from one of the registries.
+	 */
+	public static class Hit {
+		private final SimpleRegistry registry;
+		private final Query query;
+		private final Link substance;
+
+		Hit(SimpleRegistry sourceRegistry, Query sourceQuery, Link substanceLink) {
+			registry = sourceRegistry;
+			query = sourceQuery;
+			substance = substanceLink;
+		}
+
+		/**
+		 * Gets the registry the hit came from.
+		 * 
+		 * @return the registry
+		 */
+		public SimpleRegistry getRegistry() {
+			return registry;
+		}
+
+		/**
+		 * Gets the query created in the registry.
+		 * 
+		 * @return the query
+		 */
+		public Query getQuery() {
+			return query;
+		}
+
+		/**
+		 * Gets the link of the matching substance.
+		 * 
+		 * @return the substance link
+		 */
+		public Link getSubstance() {
+			return substance;
+		}
+	}
+
+	/**
+	 * Instantiates a new federated query.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param searched
+	 *            the registries to search
+	 * @param queryMode
+	 *            the mode (type) of the query
+	 * @param querySerialization
+	 *            the serialized version the query, typically molfile format
+	 * @param pageSize
+	 *            the maximum results per page
+	 * @param maximumHits
+	 *            the hits over all registries after which the search stops,
+	 *            NO_LIMIT for all
+	 * @param pagesAhead
+	 *            the number of pages per registry to fetch ahead of the
+	 *            caller beyond the next one
+	 */
+	public FederatedQuery(ChemcasterClient newClient,
+			List<SimpleRegistry> searched, String queryMode,
+			String querySerialization, Number pageSize, int maximumHits,
+			int pagesAhead) {
+		client = newClient;
+		registries = new ArrayList<SimpleRegistry>(searched);
+		mode = queryMode;
+		serialization = querySerialization;
+		maximumResults = pageSize;
+		limit = maximumHits;
+		readAhead = pagesAhead;
+	}
+
+	/**
+	 * Iterate over the merged hits of all registries. Each iteration executes
+	 * the queries again.
+	 * 
+	 * @return the iterator
+	 */
+	public MergeIterator iterator() {
+		return new MergeIterator();
+	}
+
+	/**
+	 * A sequential stream of the merged hits of all registries. Closing the
+	 * stream early does not stop further pages being fetched; use a limit,
+	 * or the iterator's cancel, for that.
+	 * 
+	 * @return the stream
+	 */
+	public Stream<Hit> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * The pages of one registry, the next ones in flight.
+	 */
+	private class Source {
+		private final SimpleRegistry registry;
+		private final ArrayDeque<CompletableFuture<Execution>> pending = new ArrayDeque<CompletableFuture<Execution>>();
+		private volatile Query query;
+
+		Source(SimpleRegistry searchedRegistry) {
+			registry = searchedRegistry;
+			pending.add(firstPage());
+		}
+
+		private CompletableFuture<Execution> firstPage() {
+			return client.createQueryAsync(registry.getRegistry(), mode,
+					serialization).thenCompose(q -> {
+				query = q;
+				try {
+					return client.executeQueryAsync(q.getExecutionsLink(),
+							null, null, maximumResults);
+				} catch (ClientException ce) {
+					throw new CompletionException(ce);
+				}
+			});
+		}
+
+		/**
+		 * Keep the next page, and readAhead more, in flight after a page.
+		 */
+		private void fetchAhead(Execution page) {
+			CompletableFuture<Execution> last = pending.isEmpty() ? CompletableFuture
+					.completedFuture(page)
+					: pending.peekLast();
+			while (pending.size() < Math.max(1, readAhead)) {
+				last = last.thenCompose(p -> ExecutionResults
+						.nextPage(client, p));
+				pending.add(last);
+			}
+		}
+
+		/**
+		 * Cancel the pages not yet arrived, so none after them is requested.
+		 * A request already sent is not aborted.
+		 */
+		private void cancel() {
+			for (CompletableFuture<Execution> page : pending) {
+				page.cancel(false);
+			}
+			pending.clear();
+		}
+	}
+
+	/**
+	 * The iterator over the merged hits.
+	 */
+	public class MergeIterator implements Iterator<Hit> {
+		private final ArrayList<Source> sources = new ArrayList<Source>();
+		private final ArrayDeque<Hit> hits = new ArrayDeque<Hit>();
+		private int returned;
+		private boolean done;
+
+		MergeIterator() {
+			for (SimpleRegistry registry : registries) {
+				sources.add(new Source(registry));
+			}
+		}
+
+		public boolean hasNext() {
+			while (hits.isEmpty()) {
+				if (done || sources.isEmpty()) {
+					cancel();
+					return false;
+				}
+				Source source = nextArrival();
+				Execution page;
+				try {
+					page = source.pending.poll().join();
+				} catch (CompletionException ce) {
+					cancel();
+					throw new ClientRuntimeException(ERROR_REGISTRY
+							+ source.registry.getURI() + ": "
+							+ ce.getCause().getMessage());
+				}
+				if (page == null) {
+					source.cancel();
+					sources.remove(source);
+					continue;
+				}
+				source.fetchAhead(page);
+				for (Link substance : ExecutionResults.hitsOf(page)) {
+					hits.add(new Hit(source.registry, source.query, substance));
+				}
+			}
+			return true;
+		}
+
+		public Hit next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Hit hit = hits.poll();
+			if (limit > 0 && ++returned >= limit) {
+				cancel();
+			}
+			return hit;
+		}
+
+		/**
+		 * Stop the search, so no registry is asked for further pages. Requests
+		 * already sent run to completion and their pages are dropped, as are
+		 * the hits already received.
+		 */
+		public void cancel() {
+			done = true;
+			hits.clear();
+			for (Source source : sources) {
+				source.cancel();
+			}
+			sources.clear();
+		}
+
+		/**
+		 * Wait for the first registry whose next page has arrived, taking the
+		 * registries in order when several have.
+		 */
+		private Source nextArrival() {
+			CompletableFuture<?>[] heads = new CompletableFuture<?>[sources
+					.size()];
+			for (int i = 0; i < heads.length; i++) {
+				heads[i] = sources.get(i).pending.peek();
+			}
+			try {
+				CompletableFuture.anyOf(heads).join();
+			} catch (CompletionException ce) {
+				// the failed page is reported when its source is read
+			}
+			for (Source source : sources) {
+				if (source.pending.peek().isDone()) {
+					return source;
+				}
+			}
+			throw new IllegalStateException();
+		}
+	}
+}
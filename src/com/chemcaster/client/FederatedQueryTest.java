@@ -0,0 +1,131 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import junit.framework.TestCase;
+
+import com.chemcaster.client.test.MockPages;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class FederatedQueryTest extends TestCase {
+
+	private ChemcasterClient client;
+	private SimpleRegistry first;
+	private SimpleRegistry second;
+	// the first page of the second registry, completed by the tests
+	private CompletableFuture<Execution> secondPage;
+
+	@Override
+	protected void setUp() throws ClientException {
+		client = mock(ChemcasterClient.class);
+		first = registry("a", 2, CompletableFuture
+				.completedFuture((Execution) null));
+		secondPage = new CompletableFuture<Execution>();
+		second = registry("b", 1, secondPage);
+	}
+
+	/**
+	 * Mock a registry whose query has the given number of pages of two hits,
+	 * its first page arriving with firstPage.
+	 */
+	private SimpleRegistry registry(String name, int pageCount,
+			CompletableFuture<Execution> firstPage) throws ClientException {
+		SimpleRegistry simpleRegistry = mock(SimpleRegistry.class);
+		Registry registry = mock(Registry.class);
+		when(simpleRegistry.getRegistry()).thenReturn(registry);
+		when(simpleRegistry.getURI()).thenReturn("https://a.org/" + name);
+		Query query = mock(Query.class);
+		when(client.createQueryAsync(registry, "substructure", "molfile"))
+				.thenReturn(CompletableFuture.completedFuture(query));
+		Link executionsLink = mock(Link.class);
+		when(query.getExecutionsLink()).thenReturn(executionsLink);
+		new MockPages(client, executionsLink, name, pageCount, 2)
+				.holdFirstPage(firstPage);
+		return simpleRegistry;
+	}
+
+	private List<SimpleRegistry> both() {
+		return Arrays.asList(first, second);
+	}
+
+	public void testMergesInArrivalOrder() {
+		FederatedQuery.MergeIterator hits = new FederatedQuery(client, both(),
+				"substructure", "molfile", 2, FederatedQuery.NO_LIMIT, 1)
+				.iterator();
+		for (int i = 0; i < 4; i++) {
+			FederatedQuery.Hit hit = hits.next();
+			assertSame(first, hit.getRegistry());
+			assertEquals("a" + (i / 2) + (i % 2), hit.getSubstance().getName());
+		}
+		secondPage.complete(null);
+		FederatedQuery.Hit hit = hits.next();
+		assertSame(second, hit.getRegistry());
+		assertEquals("b00", hit.getSubstance().getName());
+		assertNotNull(hit.getQuery());
+		assertTrue(hits.hasNext());
+		hits.next();
+		assertFalse(hits.hasNext());
+	}
+
+	public void testLimitStopsFurtherPages() {
+		FederatedQuery search = new FederatedQuery(client, both(),
+				"substructure", "molfile", 2, 3, 1);
+		// the slow registry never answers, so only the limit ends the stream
+		assertEquals(3, search.stream().count());
+		FederatedQuery.MergeIterator hits = search.iterator();
+		hits.next();
+		hits.cancel();
+		assertFalse(hits.hasNext());
+	}
+
+	public void testFailedRegistry() {
+		FederatedQuery.MergeIterator hits = new FederatedQuery(client, both(),
+				"substructure", "molfile", 2, FederatedQuery.NO_LIMIT, 0)
+				.iterator();
+		for (int i = 0; i < 4; i++) {
+			hits.next();
+		}
+		secondPage.completeExceptionally(new ClientException("Unexpected status"));
+		try {
+			hits.hasNext();
+			fail("expected a ClientRuntimeException");
+		} catch (ClientRuntimeException cre) {
+			assertTrue(cre.getMessage().contains("https://a.org/b"));
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.Arrays;
+
+/**
+ * The Class HedgePolicy. Opt-in hedging of GET requests: when a GET has no
+ * response after a delay, a duplicate is sent and whichever answers first is
+ * used, the other being aborted and released. The delay is a percentile of
+ * recent GET latencies, so only the slowest requests are hedged; until
+ * enough latencies are known a fixed initial delay is used.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class HedgePolicy {
+
+	public static final double DEFAULT_PERCENTILE = 95.0;
+	public static final long DEFAULT_INITIAL_DELAY_MILLIS = 200;
+	public static final long DEFAULT_MIN_DELAY_MILLIS = 5;
+	public static final int DEFAULT_WINDOW_SIZE = 256;
+
+	private static final int MIN_SAMPLES = 20;
+
+	private double percentile = DEFAULT_PERCENTILE;
+	private long initialDelayMillis = DEFAULT_INITIAL_DELAY_MILLIS;
+	private long minDelayMillis = DEFAULT_MIN_DELAY_MILLIS;
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+
+	/**
+	 * Gets the latency percentile after which a GET is hedged.
+	 * 
+	 * @return the percentile, from 0 to 100
+	 */
+	public double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * Sets the latency percentile after which a GET is hedged. At 95, about
+	 * one GET in twenty is hedged.
+	 * 
+	 * @param newPercentile
+	 *            the percentile, from 0 to 100
+	 */
+	public void setPercentile(double newPercentile) {
+		percentile = newPercentile;
+	}
+
+	/**
+	 * Gets the delay used before enough latencies are known.
+	 * 
+	 * @return the initial delay in milliseconds
+	 */
+	public long getInitialDelayMillis() {
+		return initialDelayMillis;
+	}
+
+	/**
+	 * Sets the delay used before enough latencies are known.
+	 * 
+	 * @param millis
+	 *            the initial delay in milliseconds
+	 */
+	public void setInitialDelayMillis(long millis) {
+		initialDelayMillis = millis;
+	}
+
+	/**
+	 * Gets the shortest delay before a hedge.
+	 * 
+	 * @return the min delay in milliseconds
+	 */
+	public long getMinDelayMillis() {
+		return minDelayMillis;
+	}
+
+	/**
+	 * Sets the shortest delay before a hedge, so a run of fast responses
+	 * cannot make every GET a double request.
+	 * 
+	 * @param millis
+	 *            the min delay in milliseconds
+	 */
+	public void setMinDelayMillis(long millis) {
+		minDelayMillis = millis;
+	}
+
+	/**
+	 * Gets the number of recent latencies the percentile is taken over.
+	 * 
+	 * @return the window size
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * Sets the number of recent latencies the percentile is taken over.
+	 * 
+	 * @param size
+	 *            the window size
+	 */
+	public void setWindowSize(int size) {
+		windowSize = size;
+	}
+
+	/**
+	 * A window of recent latencies, kept by each client that hedges.
+	 */
+	static class LatencyWindow {
+		private final long[] samples;
+		private int next;
+		private int count;
+
+		LatencyWindow(int size) {
+			samples = new long[Math.max(1, size)];
+		}
+
+		synchronized void record(long millis) {
+			samples[next] = millis;
+			next = (next + 1) % samples.length;
+			if (count < samples.length) {
+				count++;
+			}
+		}
+
+		/**
+		 * The hedge delay of a policy over this window.
+		 */
+		long delayMillis(HedgePolicy policy) {
+			long[] sorted;
+			synchronized (this) {
+				if (count < Math.min(MIN_SAMPLES, samples.length)) {
+					return Math.max(policy.getMinDelayMillis(), policy
+							.getInitialDelayMillis());
+				}
+				sorted = Arrays.copyOf(samples, count);
+			}
+			Arrays.sort(sorted);
+			int rank = (int) Math.ceil(policy.getPercentile() / 100.0
+					* sorted.length) - 1;
+			rank = Math.max(0, Math.min(sorted.length - 1, rank));
+			return Math.max(policy.getMinDelayMillis(), sorted[rank]);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class HedgePolicyTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+
+	private final Link aLink = Link.create(REGISTRY_TYPE,
+			"https://chemcaster.com/registries/1",
+			new UsernamePasswordCredentials("alice", "a"));
+
+	public void testInitialDelay() {
+		HedgePolicy policy = new HedgePolicy();
+		HedgePolicy.LatencyWindow window = new HedgePolicy.LatencyWindow(100);
+		assertEquals(HedgePolicy.DEFAULT_INITIAL_DELAY_MILLIS, window
+				.delayMillis(policy));
+	}
+
+	public void testPercentileDelay() {
+		HedgePolicy policy = new HedgePolicy();
+		policy.setPercentile(90);
+		HedgePolicy.LatencyWindow window = new HedgePolicy.LatencyWindow(100);
+		for (int i = 1; i <= 100; i++) {
+			window.record(i);
+		}
+		assertEquals(90, window.delayMillis(policy));
+
+		policy.setMinDelayMillis(500);
+		assertEquals(500, window.delayMillis(policy));
+	}
+
+	public void testWindowKeepsRecent() {
+		HedgePolicy policy = new HedgePolicy();
+		policy.setPercentile(100);
+		policy.setMinDelayMillis(0);
+		HedgePolicy.LatencyWindow window = new HedgePolicy.LatencyWindow(20);
+		for (int i = 0; i < 20; i++) {
+			window.record(1000);
+		}
+		for (int i = 0; i < 20; i++) {
+			window.record(10);
+		}
+		assertEquals(10, window.delayMillis(policy));
+	}
+
+	public void testFastResponseNotHedged() throws Exception {
+		Transport transport = mock(Transport.class);
+		TransportResponse ok = response(200);
+		when(transport.execute(any(TransportRequest.class))).thenReturn(ok);
+		ChemcasterClient client = hedgingClient(transport);
+
+		client.get(aLink);
+		assertEquals(1, client.getHedgeableRequests());
+		assertEquals(0, client.getHedgesSent());
+		assertEquals(0.0, client.getHedgeRate());
+		client.shutdown();
+	}
+
+	public void testSlowResponseHedged() throws Exception {
+		TransportResponse fast = response(200);
+		StubTransport transport = new StubTransport(fast);
+		ChemcasterClient client = hedgingClient(transport);
+
+		assertNotNull(client.get(aLink));
+		assertEquals(1, client.getHedgesSent());
+		assertEquals(1, client.getHedgeWins());
+		assertEquals(1.0, client.getHedgeRate());
+		verify(fast).release();
+
+		// the slow primary lost, so it is aborted
+		assertTrue(transport.primaryAborted.await(2, TimeUnit.SECONDS));
+		client.shutdown();
+	}
+
+	public void testRetryAfterHedgeWinsWithRetryableStatus() throws Exception {
+		StubTransport transport = new StubTransport(response(503),
+				response(200));
+		ClientConfiguration configuration = hedgingConfiguration();
+		configuration.getRetryPolicy().setInitialBackoffMillis(1);
+		ChemcasterClient client = new ChemcasterClient(configuration, transport);
+
+		// the hedge wins with a 503 and aborts the primary; the retry must
+		// not inherit that abort
+		assertNotNull(client.get(aLink));
+		assertEquals(1, client.getHedgeWins());
+		assertEquals(1, client.getRetries());
+		client.shutdown();
+	}
+
+	private static ChemcasterClient hedgingClient(Transport transport) {
+		return new ChemcasterClient(hedgingConfiguration(), transport);
+	}
+
+	private static ClientConfiguration hedgingConfiguration() {
+		HedgePolicy policy = new HedgePolicy();
+		policy.setInitialDelayMillis(20);
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setHedgePolicy(policy);
+		return configuration;
+	}
+
+	private static TransportResponse response(int statusCode)
+			throws IOException {
+		TransportResponse response = mock(TransportResponse.class);
+		when(response.getStatusCode()).thenReturn(statusCode);
+		when(response.getContent()).thenReturn(
+				new ByteArrayInputStream("{}".getBytes()));
+		return response;
+	}
+
+	/**
+	 * A transport whose first request hangs until it is aborted, and whose
+	 * later requests answer at once with the given responses in turn. Like
+	 * the real transports, it refuses a request that was aborted before it
+	 * was sent.
+	 */
+	private static class StubTransport implements Transport {
+		private final TransportResponse[] answers;
+		private final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch primaryAborted = new CountDownLatch(1);
+
+		StubTransport(TransportResponse... laterAnswers) {
+			answers = laterAnswers;
+		}
+
+		public TransportResponse execute(TransportRequest request)
+				throws IOException {
+			int call = calls.incrementAndGet();
+			if (call == 1) {
+				request.setAbortAction(primaryAborted::countDown);
+				try {
+					primaryAborted.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				throw new IOException("Request aborted");
+			}
+			AtomicBoolean abortedBeforeSending = new AtomicBoolean();
+			request.setAbortAction(() -> abortedBeforeSending.set(true));
+			if (abortedBeforeSending.get()) {
+				throw new IOException("Request already aborted");
+			}
+			return answers[Math.min(call - 2, answers.length - 1)];
+		}
+
+		public void shutdown() {
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.AuthState;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * The Class HttpClient4Transport. The default Transport, executing requests
+ * on the pooled HttpClient 4 of a ConnectionPool. A request with a total
+ * timeout is aborted if its response has not been released by then.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class HttpClient4Transport implements Transport {
+
+	private static final String ERROR_NO_CONNECTION_POOL = "Connection pool cannot be null.";
+	private static final String ERROR_UNKNOWN_METHOD = "Unsupported HTTP method: ";
+
+	private static final String ACCEPT_HEADER = "Accept";
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String BASIC_SCHEME_NAME = "basic";
+	private static final String TIMEOUT_THREAD_PREFIX = "HttpClient4Transport-timeout-";
+
+	private ConnectionPool connectionPool;
+	private ScheduledExecutorService abortTimer;
+
+	/**
+	 * Instantiates a new transport on a connection pool.
+	 * 
+	 * @param newPool
+	 *            the connection pool
+	 */
+	public HttpClient4Transport(ConnectionPool newPool) {
+		if (newPool == null) {
+			throw new ClientRuntimeException(ERROR_NO_CONNECTION_POOL);
+		}
+		connectionPool = newPool;
+	}
+
+	/**
+	 * Gets the connection pool.
+	 * 
+	 * @return the connection pool
+	 */
+	public synchronized ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	/**
+	 * Replace the connection pool, for example to change the connection
+	 * limits. The previous pool is shut down.
+	 * 
+	 * @param newPool
+	 *            the new connection pool
+	 */
+	public synchronized void setConnectionPool(ConnectionPool newPool) {
+		if (newPool == null) {
+			throw new ClientRuntimeException(ERROR_NO_CONNECTION_POOL);
+		}
+		ConnectionPool oldPool = connectionPool;
+		connectionPool = newPool;
+		if (oldPool != newPool) {
+			oldPool.shutdown();
+		}
+	}
+
+	public TransportResponse execute(TransportRequest request)
+			throws IOException {
+		HttpRequestBase restAction = createRequest(request);
+
+		restAction.setHeader(ACCEPT_HEADER, request.getMediaType());
+		if (request.hasContent()) {
+			restAction.setHeader(CONTENT_TYPE, request.getMediaType());
+		}
+		for (Map.Entry<String, String> header : request.getHeaders()
+				.entrySet()) {
+			restAction.setHeader(header.getKey(), header.getValue());
+		}
+
+		request.setAbortAction(() -> restAction.abort());
+
+		ScheduledFuture<?> abortTask = null;
+		if (request.getTimeoutMillis() != ClientConfiguration.NO_TIMEOUT) {
+			applyTimeouts(restAction, request);
+			abortTask = getAbortTimer().schedule(() -> restAction.abort(),
+					request.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		// Credentials belong to the link, not the shared client, so they are
+		// handed over in a per-request context.
+		CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+		credentialsProvider.setCredentials(new AuthScope(request.getHost(),
+				AuthScope.ANY_PORT), request.getCredentials());
+		HttpContext context = new BasicHttpContext();
+		context.setAttribute(ClientContext.CREDS_PROVIDER, credentialsProvider);
+		if (request.isPreemptive()) {
+			context.setAttribute(
+					PreemptiveAuthInterceptor.PREEMPTIVE_CREDENTIALS, request
+							.getCredentials());
+		}
+
+		try {
+			HttpResponse response = getConnectionPool().getHttpClient()
+					.execute(restAction, context);
+			return new HttpClient4Response(response, !request.isPreemptive()
+					&& isBasicChallenged(context), abortTask);
+		} catch (IOException e) {
+			if (abortTask != null) {
+				abortTask.cancel(false);
+			}
+			restAction.abort();
+			throw e;
+		}
+	}
+
+	public void shutdown() {
+		getConnectionPool().shutdown();
+		synchronized (this) {
+			if (abortTimer != null) {
+				abortTimer.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Cap the connect and socket timeouts of one request at its total
+	 * timeout.
+	 */
+	private void applyTimeouts(HttpRequestBase restAction,
+			TransportRequest request) {
+		HttpParams clientParams = getConnectionPool().getHttpClient()
+				.getParams();
+		HttpParams requestParams = restAction.getParams();
+		HttpConnectionParams.setConnectionTimeout(requestParams, request
+				.effectiveTimeout(HttpConnectionParams
+						.getConnectionTimeout(clientParams)));
+		HttpConnectionParams.setSoTimeout(requestParams, request
+				.effectiveTimeout(HttpConnectionParams
+						.getSoTimeout(clientParams)));
+	}
+
+	private synchronized ScheduledExecutorService getAbortTimer() {
+		if (abortTimer == null) {
+			abortTimer = Executors.newSingleThreadScheduledExecutor(
+					new ChemcasterClient.DaemonThreadFactory(
+							TIMEOUT_THREAD_PREFIX));
+		}
+		return abortTimer;
+	}
+
+	private HttpRequestBase createRequest(TransportRequest request) {
+		String method = request.getMethod();
+		if (method.equals(TransportRequest.GET)) {
+			return new HttpGet(request.getURI());
+		} else if (method.equals(TransportRequest.DELETE)) {
+			return new HttpDelete(request.getURI());
+		}
+
+		HttpEntityEnclosingRequestBase restAction;
+		if (method.equals(TransportRequest.PUT)) {
+			restAction = new HttpPut(request.getURI());
+		} else if (method.equals(TransportRequest.POST)) {
+			restAction = new HttpPost(request.getURI());
+		} else {
+			throw new ClientRuntimeException(ERROR_UNKNOWN_METHOD + method);
+		}
+
+		if (request.getBody() != null) {
+			StringEntity stringEntity;
+			try {
+				stringEntity = new StringEntity(request.getBody(), HTTP.UTF_8);
+				stringEntity.setContentType(request.getMediaType());
+			} catch (UnsupportedEncodingException e) {
+				throw new ClientRuntimeException(e.getMessage());
+			}
+			restAction.setEntity(stringEntity);
+		}
+		return restAction;
+	}
+
+	private boolean isBasicChallenged(HttpContext context) {
+		AuthState authState = (AuthState) context
+				.getAttribute(ClientContext.TARGET_AUTH_STATE);
+		return authState != null
+				&& authState.getAuthScheme() != null
+				&& BASIC_SCHEME_NAME.equalsIgnoreCase(authState.getAuthScheme()
+						.getSchemeName());
+	}
+
+	/**
+	 * A TransportResponse over an HttpClient 4 response.
+	 */
+	private static class HttpClient4Response implements TransportResponse {
+		private final HttpResponse response;
+		private final boolean basicChallenged;
+		private final ScheduledFuture<?> abortTask;
+
+		HttpClient4Response(HttpResponse newResponse, boolean challenged,
+				ScheduledFuture<?> newAbortTask) {
+			response = newResponse;
+			basicChallenged = challenged;
+			abortTask = newAbortTask;
+		}
+
+		public int getStatusCode() {
+			return response.getStatusLine().getStatusCode();
+		}
+
+		public String getStatusLine() {
+			return response.getStatusLine().toString();
+		}
+
+		public String getHeader(String name) {
+			Header header = response.getFirstHeader(name);
+			return header == null ? null : header.getValue();
+		}
+
+		public String getContentCharset() {
+			HttpEntity entity = response.getEntity();
+			return entity == null ? null : EntityUtils.getContentCharSet(entity);
+		}
+
+		public InputStream getContent() throws IOException {
+			HttpEntity entity = response.getEntity();
+			return entity == null ? null : entity.getContent();
+		}
+
+		public boolean isBasicChallenged() {
+			return basicChallenged;
+		}
+
+		public void release() {
+			try {
+				if (response.getEntity() != null) {
+					response.getEntity().consumeContent();
+				}
+			} catch (IOException e) {
+				// the connection is discarded rather than reused
+			} finally {
+				if (abortTask != null) {
+					abortTask.cancel(false);
+				}
+			}
+		}
+	}
+
+}
@@ -50,17 +50,19 @@ public class Image extends Item {
 	private static final String IMAGEABLE_TAG = "imageable";
 	private static final String WIDTH_TAG = "width";
 
-	private String[] NEW_ATTRIBUTES = { WIDTH_TAG, HEIGHT_TAG, DATA_TAG,
+	private static final String[] NEW_ATTRIBUTES = { WIDTH_TAG, HEIGHT_TAG, DATA_TAG,
 			FORMAT_TAG };
-	private String[] NEW_RESOURCES = { IMAGEABLE_TAG };
+	private static final String[] NEW_RESOURCES = { IMAGEABLE_TAG };
+
+	private static final Schema SCHEMA = Item.itemSchema(Image.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
 
 	/**
 	 * Instantiates a new image.
 	 */
 	public Image() {
-		super();
-		addNewAttributeList(NEW_ATTRIBUTES);
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
 	}
 
 	/**
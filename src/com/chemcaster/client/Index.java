@@ -27,6 +27,7 @@
 package com.chemcaster.client;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -49,15 +50,26 @@ public class Index extends Representation {
 	protected static final String ITEMS_TAG = "items";
 	protected static final String PARENT_TAG = "parent";
 	protected static final String NEXTPAGE_TAG = "next_page";
-	protected String[] NEW_RESOURCES = { ITEMS_TAG, CREATE_TAG, PARENT_TAG,
+	protected static final String[] NEW_RESOURCES = { ITEMS_TAG, CREATE_TAG, PARENT_TAG,
 			NEXTPAGE_TAG };
 
+	private static final Schema SCHEMA = Schema.of(Index.class)
+			.withResources(NEW_RESOURCES);
+
+	// item positions by name, built on the first lookup
+	private HashMap<String, Integer> itemPositions;
+
 	/**
 	 * Instantiates a new index.
 	 */
 	public Index() {
-		super();
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
+	}
+
+	@Override
+	public void populate(Link newLink, JSONObject newRestContent) {
+		super.populate(newLink, newRestContent);
+		itemPositions = null;
 	}
 
 	/**
@@ -97,7 +109,9 @@ public class Index extends Representation {
 	}
 
 	/**
-	 * Gets the link of the item whose name is in targetName.
+	 * Gets the link of the item whose name is in targetName. The first lookup
+	 * indexes the items by name; later lookups are hash lookups. If several
+	 * items share a name, the first one is returned.
 	 * 
 	 * @param targetName the name of the item 
 	 * 
@@ -107,12 +121,31 @@ public class Index extends Representation {
 	 */
 	public Link getItemNamed(String targetName) throws ClientException {
 		JSONArray links = getResource(ITEMS_TAG);
-		for (int i = 0; i < links.length(); i++) {
-			if (targetName.equals(getLinkName(links, i))) {
-				return getLink(links, i);
+		Integer position = getItemPositions(links).get(targetName);
+		if (position == null) {
+			return null;
+		}
+		return getLink(links, position);
+	}
+
+	/**
+	 * Gets the item positions by name, indexing the items on first use.
+	 * 
+	 * @param links the items JSON array
+	 * 
+	 * @return the item positions
+	 */
+	private synchronized HashMap<String, Integer> getItemPositions(
+			JSONArray links) {
+		if (itemPositions == null) {
+			HashMap<String, Integer> positions = new HashMap<String, Integer>(
+					links.length() * 2);
+			for (int i = 0; i < links.length(); i++) {
+				positions.putIfAbsent(getLinkName(links, i), i);
 			}
+			itemPositions = positions;
 		}
-		return null;
+		return itemPositions;
 	}
 	
 	/**
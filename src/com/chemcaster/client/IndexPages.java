@@ -0,0 +1,214 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The Class IndexPages. An Iterable over the item links of every page of an
+ * Index, following next_page links lazily. While the caller works through one
+ * page, up to readAhead further pages are already being fetched, so a long
+ * listing runs at network speed.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class IndexPages implements Iterable<Link> {
+
+	private static final String ERROR_PAGE = "Unable to fetch index page: ";
+
+	private final ChemcasterClient client;
+	private final Link firstPage;
+	private final int readAhead;
+
+	// item links by name over all pages, built on the first lookup
+	private HashMap<String, Link> itemsByName;
+
+	/**
+	 * Instantiates a new paged view of an index.
+	 * 
+	 * @param newClient
+	 *            the client that fetches the pages
+	 * @param indexLink
+	 *            the link to the first page of the index
+	 * @param pagesAhead
+	 *            the number of pages to fetch ahead of the caller, 0 for none
+	 */
+	public IndexPages(ChemcasterClient newClient, Link indexLink,
+			int pagesAhead) {
+		client = newClient;
+		firstPage = indexLink;
+		readAhead = pagesAhead;
+	}
+
+	/**
+	 * Iterate over the item links of all pages. A page that cannot be fetched
+	 * ends the iteration with a ClientRuntimeException.
+	 * 
+	 * @return the iterator
+	 */
+	public Iterator<Link> iterator() {
+		return new PageIterator();
+	}
+
+	/**
+	 * A sequential stream of the item links of all pages.
+	 * 
+	 * @return the stream
+	 */
+	public Stream<Link> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Read every page into a NameURI.
+	 * 
+	 * @return the names and URIs of all items
+	 */
+	public NameURI toNameURI() {
+		NameURI items = new NameURI();
+		for (Link item : this) {
+			items.add(item.getName(), item.getURI());
+		}
+		return items;
+	}
+
+	/**
+	 * Gets the link of the item with a name, on any page. The first lookup
+	 * reads every page and indexes the items by name; later lookups are hash
+	 * lookups. If several items share a name, the first one is returned.
+	 * 
+	 * @param targetName
+	 *            the name of the item
+	 * 
+	 * @return the Link instance of the item, or null if there is none
+	 */
+	public synchronized Link getItemNamed(String targetName) {
+		if (itemsByName == null) {
+			HashMap<String, Link> links = new HashMap<String, Link>();
+			for (Link item : this) {
+				links.putIfAbsent(item.getName(), item);
+			}
+			itemsByName = links;
+		}
+		return itemsByName.get(targetName);
+	}
+
+	private class PageIterator implements Iterator<Link> {
+		// pages already requested beyond the current one, in order
+		private final ArrayDeque<CompletableFuture<Index>> pending = new ArrayDeque<CompletableFuture<Index>>();
+		private Index current;
+		private boolean done;
+		private List<Link> items;
+		private int position;
+
+		public boolean hasNext() {
+			while (items == null || position >= items.size()) {
+				if (done) {
+					return false;
+				}
+				CompletableFuture<Index> nextFetch;
+				if (!pending.isEmpty()) {
+					nextFetch = pending.poll();
+				} else if (current == null) {
+					nextFetch = client.<Index> getAsync(firstPage);
+				} else {
+					nextFetch = nextPage(current);
+				}
+
+				current = join(nextFetch);
+				if (current == null) {
+					done = true;
+					pending.clear();
+					return false;
+				}
+				fetchAhead();
+				try {
+					items = current.getItemLinksList();
+				} catch (ClientException ce) {
+					throw new ClientRuntimeException(ERROR_PAGE
+							+ ce.getMessage());
+				}
+				position = 0;
+			}
+			return true;
+		}
+
+		public Link next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return items.get(position++);
+		}
+
+		/**
+		 * Keep readAhead pages in flight beyond the current page. Each fetch
+		 * waits on its predecessor for the next_page link.
+		 */
+		private void fetchAhead() {
+			CompletableFuture<Index> last = pending.isEmpty() ? CompletableFuture
+					.completedFuture(current)
+					: pending.peekLast();
+			while (pending.size() < readAhead) {
+				last = last.thenCompose(this::nextPage);
+				pending.add(last);
+			}
+		}
+
+		private CompletableFuture<Index> nextPage(Index page) {
+			if (page == null) {
+				return CompletableFuture.completedFuture(null);
+			}
+			try {
+				Link next = page.getNextPage();
+				if (next == null) {
+					return CompletableFuture.completedFuture(null);
+				}
+				return client.<Index> getAsync(next);
+			} catch (ClientException ce) {
+				return CompletableFuture.<Index> failedFuture(ce);
+			}
+		}
+
+		private Index join(CompletableFuture<Index> page) {
+			try {
+				return page.join();
+			} catch (CompletionException ce) {
+				throw new ClientRuntimeException(ERROR_PAGE
+						+ ce.getCause().getMessage());
+			}
+		}
+	}
+
+}
@@ -37,7 +37,7 @@ public abstract class Item extends Representation {
 	private static final String DESTROY_TAG = "destroy";
 	private static final String UPDATE_TAG = "update";
 
-	protected String[] NEW_RESOURCES = { UPDATE_TAG, DESTROY_TAG };
+	protected static final String[] NEW_RESOURCES = { UPDATE_TAG, DESTROY_TAG };
 
 	/**
 	 * Instantiates a new Item.
@@ -47,6 +47,28 @@ public abstract class Item extends Representation {
 		addNewResourceList(NEW_RESOURCES);
 	}
 
+	/**
+	 * Instantiates a new Item with the shared schema of its class.
+	 * 
+	 * @param classSchema
+	 *            the schema, built on itemSchema
+	 */
+	Item(Schema classSchema) {
+		super(classSchema);
+	}
+
+	/**
+	 * The schema of an Item class, with the update and destroy resources.
+	 * 
+	 * @param type
+	 *            the Item class
+	 * 
+	 * @return the schema
+	 */
+	static Schema itemSchema(Class<? extends Item> type) {
+		return Schema.of(type).withResources(NEW_RESOURCES);
+	}
+
 	/**
 	 * Update.
 	 * 
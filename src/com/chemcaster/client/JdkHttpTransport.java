@@ -0,0 +1,310 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/**
+ * The Class JdkHttpTransport. A Transport on java.net.http.HttpClient that
+ * negotiates HTTP/2, so concurrent requests to one host are multiplexed over
+ * a single connection instead of each holding a pooled connection of its
+ * own. Hosts that only speak HTTP/1.1 are still served, over HTTP/1.1.
+ * <p>
+ * A request is sent asynchronously and waited for, so an abort, or the socket
+ * timeout, releases the caller at once. The socket timeout only bounds the
+ * wait for the response headers; a request with a total timeout is also
+ * aborted if its response has not been released by then, which closes the
+ * body being read. An abandoned exchange is not torn down before its headers
+ * arrive, but its body is closed as soon as they do.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class JdkHttpTransport implements Transport {
+
+	private static final String ERROR_INTERRUPTED = "Interrupted while waiting for response: ";
+	private static final String ERROR_TIMEOUT = "Timed out waiting for response: ";
+	private static final String ERROR_ABORTED = "Request aborted: ";
+
+	private static final String ACCEPT_HEADER = "Accept";
+	private static final String AUTHORIZATION_HEADER = "Authorization";
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String WWW_AUTHENTICATE_HEADER = "WWW-Authenticate";
+	private static final String BASIC_SCHEME_PREFIX = "basic";
+	private static final String TIMEOUT_THREAD_PREFIX = "JdkHttpTransport-timeout-";
+
+	private static final Pattern CHARSET_PARAMETER = Pattern.compile(
+			";\\s*charset=\"?([^\";\\s]+)", Pattern.CASE_INSENSITIVE);
+
+	private final HttpClient httpClient;
+	private final int socketTimeoutMillis;
+	private ScheduledExecutorService abortTimer;
+
+	/**
+	 * Instantiates a new transport with the default configuration.
+	 */
+	public JdkHttpTransport() {
+		this(new ClientConfiguration());
+	}
+
+	/**
+	 * Instantiates a new transport with the connect and socket timeouts of a
+	 * configuration. The socket timeout, or the total timeout of a request if
+	 * shorter, bounds the wait for the headers of each response.
+	 * 
+	 * @param configuration
+	 *            the client configuration
+	 */
+	public JdkHttpTransport(ClientConfiguration configuration) {
+		HttpClient.Builder builder = HttpClient.newBuilder().version(
+				HttpClient.Version.HTTP_2);
+		if (configuration.getConnectTimeoutMillis() != ClientConfiguration.NO_TIMEOUT) {
+			builder.connectTimeout(Duration.ofMillis(configuration
+					.getConnectTimeoutMillis()));
+		}
+		httpClient = builder.build();
+		socketTimeoutMillis = configuration.getSocketTimeoutMillis();
+	}
+
+	public TransportResponse execute(TransportRequest request)
+			throws IOException {
+		ScheduledFuture<?> abortTask = null;
+		if (request.getTimeoutMillis() != ClientConfiguration.NO_TIMEOUT) {
+			abortTask = getAbortTimer().schedule(() -> request.abort(),
+					request.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+		}
+		try {
+			HttpResponse<InputStream> response = send(request, request
+					.isPreemptive());
+			if (request.isPreemptive() || response.statusCode() != 401
+					|| request.getCredentials() == null
+					|| !isBasicChallenge(response)) {
+				return new JdkResponse(response, false, abortTask);
+			}
+
+			// answer the Basic challenge, as HttpClient 4 does
+			response.body().close();
+			return new JdkResponse(send(request, true), true, abortTask);
+		} catch (IOException e) {
+			if (abortTask != null) {
+				abortTask.cancel(false);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Stop the timer of total timeouts. The JDK client keeps no pool that
+	 * needs closing; its connections are dropped once idle.
+	 */
+	public synchronized void shutdown() {
+		if (abortTimer != null) {
+			abortTimer.shutdownNow();
+		}
+	}
+
+	private HttpResponse<InputStream> send(TransportRequest request,
+			boolean withCredentials) throws IOException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(
+				URI.create(request.getURI())).header(ACCEPT_HEADER,
+				request.getMediaType());
+		for (Map.Entry<String, String> header : request.getHeaders()
+				.entrySet()) {
+			builder.header(header.getKey(), header.getValue());
+		}
+		if (withCredentials && request.getCredentials() != null) {
+			builder.header(AUTHORIZATION_HEADER, basicAuthorization(request
+					.getCredentials()));
+		}
+		if (request.hasContent()) {
+			builder.header(CONTENT_TYPE, request.getMediaType());
+			builder.method(request.getMethod(), request.getBody() == null
+					? HttpRequest.BodyPublishers.noBody()
+					: HttpRequest.BodyPublishers.ofString(request.getBody(),
+							StandardCharsets.UTF_8));
+		} else {
+			builder.method(request.getMethod(), HttpRequest.BodyPublishers
+					.noBody());
+		}
+
+		CompletableFuture<HttpResponse<InputStream>> exchange = httpClient
+				.sendAsync(builder.build(), HttpResponse.BodyHandlers
+						.ofInputStream());
+		CompletableFuture<HttpResponse<InputStream>> waiting = exchange
+				.thenApply(response -> response);
+		request.setAbortAction(() -> abandon(exchange, waiting));
+
+		int timeoutMillis = request.effectiveTimeout(socketTimeoutMillis);
+		try {
+			if (timeoutMillis == ClientConfiguration.NO_TIMEOUT) {
+				return waiting.get();
+			}
+			return waiting.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException te) {
+			abandon(exchange, waiting);
+			throw new HttpTimeoutException(ERROR_TIMEOUT + request.getURI());
+		} catch (CancellationException ce) {
+			throw new IOException(ERROR_ABORTED + request.getURI());
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof IOException) {
+				throw (IOException) ee.getCause();
+			}
+			throw new IOException(ee.getCause());
+		} catch (InterruptedException ie) {
+			abandon(exchange, waiting);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ERROR_INTERRUPTED
+					+ request.getURI());
+		}
+	}
+
+	/**
+	 * Release the caller waiting on an exchange, and close the body of its
+	 * response, now or once it arrives.
+	 */
+	private static void abandon(
+			CompletableFuture<HttpResponse<InputStream>> exchange,
+			CompletableFuture<HttpResponse<InputStream>> waiting) {
+		waiting.cancel(false);
+		exchange.thenAccept(response -> {
+			try {
+				response.body().close();
+			} catch (IOException e) {
+				// the connection is discarded rather than reused
+			}
+		});
+	}
+
+	private synchronized ScheduledExecutorService getAbortTimer() {
+		if (abortTimer == null) {
+			abortTimer = Executors.newSingleThreadScheduledExecutor(
+					new ChemcasterClient.DaemonThreadFactory(
+							TIMEOUT_THREAD_PREFIX));
+		}
+		return abortTimer;
+	}
+
+	private static boolean isBasicChallenge(HttpResponse<?> response) {
+		for (String challenge : response.headers().allValues(
+				WWW_AUTHENTICATE_HEADER)) {
+			if (challenge.toLowerCase().startsWith(BASIC_SCHEME_PREFIX)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String basicAuthorization(
+			UsernamePasswordCredentials credentials) {
+		String userPass = credentials.getUserName() + ":"
+				+ credentials.getPassword();
+		return "Basic "
+				+ Base64.getEncoder().encodeToString(
+						userPass.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * A TransportResponse over a java.net.http response.
+	 */
+	private static class JdkResponse implements TransportResponse {
+		private final HttpResponse<InputStream> response;
+		private final boolean basicChallenged;
+		private final ScheduledFuture<?> abortTask;
+
+		JdkResponse(HttpResponse<InputStream> newResponse, boolean challenged,
+				ScheduledFuture<?> newAbortTask) {
+			response = newResponse;
+			basicChallenged = challenged;
+			abortTask = newAbortTask;
+		}
+
+		public int getStatusCode() {
+			return response.statusCode();
+		}
+
+		public String getStatusLine() {
+			String version = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2"
+					: "HTTP/1.1";
+			return version + " " + response.statusCode();
+		}
+
+		public String getHeader(String name) {
+			return response.headers().firstValue(name).orElse(null);
+		}
+
+		public String getContentCharset() {
+			String contentType = getHeader(CONTENT_TYPE);
+			if (contentType == null) {
+				return null;
+			}
+			Matcher m = CHARSET_PARAMETER.matcher(contentType);
+			return m.find() ? m.group(1) : null;
+		}
+
+		public InputStream getContent() {
+			return response.body();
+		}
+
+		public boolean isBasicChallenged() {
+			return basicChallenged;
+		}
+
+		public void release() {
+			if (abortTask != null) {
+				abortTask.cancel(false);
+			}
+			try {
+				response.body().close();
+			} catch (IOException e) {
+				// the connection is discarded rather than reused
+			}
+		}
+	}
+
+}
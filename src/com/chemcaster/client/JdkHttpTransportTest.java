@@ -0,0 +1,258 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class JdkHttpTransportTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+	private static final String AUTHORIZATION = "Basic "
+			+ Base64.getEncoder().encodeToString("alice:a".getBytes());
+
+	private HttpServer server;
+	private ExecutorService handlers;
+	// released when a test is done, so stalled handlers finish
+	private final CountDownLatch done = new CountDownLatch(1);
+	// the headers of every request the server has seen, in order
+	private final List<Headers> seen = new ArrayList<Headers>();
+	private volatile String seenMethod;
+	private volatile String seenBody;
+
+	@Override
+	protected void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		handlers = Executors.newCachedThreadPool();
+		server.setExecutor(handlers);
+		// no headers until the test is done
+		server.createContext("/stalled", exchange -> {
+			await();
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		// headers and part of the body, then nothing until the test is done
+		server.createContext("/trickle", exchange -> {
+			exchange.sendResponseHeaders(200, 0);
+			OutputStream body = exchange.getResponseBody();
+			body.write("{\"registry\":".getBytes());
+			body.flush();
+			await();
+			exchange.close();
+		});
+		// a 401 Basic challenge until the request carries credentials
+		server.createContext("/secure", exchange -> {
+			record(exchange);
+			if (!AUTHORIZATION.equals(exchange.getRequestHeaders().getFirst(
+					"Authorization"))) {
+				exchange.getResponseHeaders().add("WWW-Authenticate",
+						"Basic realm=\"chemcaster\"");
+				exchange.sendResponseHeaders(401, -1);
+			} else {
+				exchange.sendResponseHeaders(200, -1);
+			}
+			exchange.close();
+		});
+		// the request is answered with a created resource
+		server.createContext("/echo", exchange -> {
+			record(exchange);
+			seenBody = new String(exchange.getRequestBody().readAllBytes(),
+					StandardCharsets.UTF_8);
+			byte[] body = "{\"registry\":{}}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type",
+					"application/json; charset=UTF-8");
+			exchange.getResponseHeaders().add("Location",
+					"http://127.0.0.1/registries/2");
+			exchange.sendResponseHeaders(201, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	private void record(HttpExchange exchange) {
+		synchronized (seen) {
+			seen.add(exchange.getRequestHeaders());
+		}
+		seenMethod = exchange.getRequestMethod();
+	}
+
+	@Override
+	protected void tearDown() {
+		done.countDown();
+		server.stop(0);
+		handlers.shutdownNow();
+	}
+
+	private void await() {
+		try {
+			done.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private TransportRequest request(String path) {
+		return request(TransportRequest.GET, path, null, true);
+	}
+
+	private TransportRequest request(String method, String path, String body,
+			boolean preemptive) {
+		return new TransportRequest(method, Link.create(REGISTRY_TYPE,
+				"http://127.0.0.1:" + server.getAddress().getPort() + path,
+				new UsernamePasswordCredentials("alice", "a")), body,
+				preemptive);
+	}
+
+	public void testAnswersBasicChallenge() throws IOException {
+		JdkHttpTransport transport = new JdkHttpTransport();
+		TransportResponse response = transport.execute(request(
+				TransportRequest.GET, "/secure", null, false));
+		assertEquals(200, response.getStatusCode());
+		assertTrue(response.isBasicChallenged());
+		response.release();
+		assertEquals(2, seen.size());
+		assertNull(seen.get(0).getFirst("Authorization"));
+		assertEquals(AUTHORIZATION, seen.get(1).getFirst("Authorization"));
+		transport.shutdown();
+	}
+
+	public void testPreemptiveSkipsChallenge() throws IOException {
+		JdkHttpTransport transport = new JdkHttpTransport();
+		TransportResponse response = transport.execute(request("/secure"));
+		assertEquals(200, response.getStatusCode());
+		assertFalse(response.isBasicChallenged());
+		response.release();
+		assertEquals(1, seen.size());
+		transport.shutdown();
+	}
+
+	public void testRequestAndResponseMapping() throws IOException {
+		JdkHttpTransport transport = new JdkHttpTransport();
+		TransportRequest request = request(TransportRequest.POST, "/echo",
+				"{\"registry\":{\"name\":\"caf\u00e9\"}}", true);
+		request.setHeader("If-None-Match", "\"v1\"");
+		TransportResponse response = transport.execute(request);
+
+		assertEquals("POST", seenMethod);
+		Headers headers = seen.get(0);
+		assertEquals(REGISTRY_TYPE, headers.getFirst("Accept"));
+		assertEquals(REGISTRY_TYPE, headers.getFirst("Content-Type"));
+		assertEquals("\"v1\"", headers.getFirst("If-None-Match"));
+		assertEquals(AUTHORIZATION, headers.getFirst("Authorization"));
+		assertEquals("{\"registry\":{\"name\":\"caf\u00e9\"}}", seenBody);
+
+		assertEquals(201, response.getStatusCode());
+		assertTrue(response.getStatusLine().endsWith(" 201"));
+		assertEquals("http://127.0.0.1/registries/2", response
+				.getHeader("Location"));
+		assertEquals("UTF-8", response.getContentCharset());
+		assertNull(response.getHeader("X-Missing"));
+		assertEquals("{\"registry\":{}}", new String(response.getContent()
+				.readAllBytes(), StandardCharsets.UTF_8));
+		response.release();
+		transport.shutdown();
+	}
+
+	public void testSocketTimeoutBoundsHeaders() {
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setSocketTimeoutMillis(100);
+		JdkHttpTransport transport = new JdkHttpTransport(configuration);
+		long start = System.nanoTime();
+		try {
+			transport.execute(request("/stalled"));
+			fail("expected an HttpTimeoutException");
+		} catch (HttpTimeoutException hte) {
+		} catch (IOException ioe) {
+			fail(ioe.toString());
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		transport.shutdown();
+	}
+
+	public void testAbortReleasesCaller() throws Exception {
+		JdkHttpTransport transport = new JdkHttpTransport();
+		TransportRequest request = request("/stalled");
+		ScheduledExecutorService timer = Executors
+				.newSingleThreadScheduledExecutor();
+		timer.schedule(() -> request.abort(), 100, TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+		try {
+			transport.execute(request);
+			fail("expected an IOException");
+		} catch (IOException ioe) {
+			assertTrue(ioe.getMessage().startsWith("Request aborted"));
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		timer.shutdown();
+		transport.shutdown();
+	}
+
+	public void testTotalTimeoutClosesBody() throws Exception {
+		JdkHttpTransport transport = new JdkHttpTransport();
+		TransportRequest request = request("/trickle");
+		// long enough for the headers to arrive on a fresh connection
+		request.setTimeoutMillis(1000);
+		TransportResponse response = transport.execute(request);
+		long start = System.nanoTime();
+		InputStream body = response.getContent();
+		try {
+			while (body.read() >= 0) {
+			}
+		} catch (IOException ioe) {
+			// the body was closed under the reader
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		response.release();
+		transport.shutdown();
+	}
+}
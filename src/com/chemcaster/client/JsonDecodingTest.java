@@ -0,0 +1,100 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class JsonDecodingTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+	private static final String URI = "https://chemcaster.com/registries/1";
+	private static final String NAME = "caf\u00e9 \u03b1-pinene";
+	private static final String LATIN_NAME = "caf\u00e9";
+
+	private ChemcasterClient client;
+
+	@Override
+	protected void tearDown() {
+		if (client != null) {
+			client.shutdown();
+		}
+	}
+
+	private Registry decode(String name, String encoding, String charset)
+			throws IOException, ClientException {
+		byte[] body = ("{\"registry\":{\"name\":\"" + name + "\"}}")
+				.getBytes(encoding);
+		TransportResponse response = mock(TransportResponse.class);
+		when(response.getStatusCode()).thenReturn(200);
+		when(response.getStatusLine()).thenReturn("HTTP/1.1 200 OK");
+		when(response.getContentCharset()).thenReturn(charset);
+		when(response.getContent()).thenReturn(new ByteArrayInputStream(body));
+		Transport transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenReturn(
+				response);
+		client = new ChemcasterClient(new ClientConfiguration(), transport);
+		return client.get(Link.create(REGISTRY_TYPE, URI,
+				new UsernamePasswordCredentials("alice", "a")));
+	}
+
+	public void testExplicitUTF8() throws Exception {
+		Registry registry = decode(NAME, "UTF-8", "UTF-8");
+		assertEquals(NAME, registry.getName());
+	}
+
+	public void testDefaultsToISO88591() throws Exception {
+		Registry registry = decode(LATIN_NAME, "ISO-8859-1", null);
+		assertEquals(LATIN_NAME, registry.getName());
+	}
+
+	public void testUTF8WithoutCharsetReadAsISO88591() throws Exception {
+		// without a charset parameter, each UTF-8 byte is one character
+		Registry registry = decode(LATIN_NAME, "UTF-8", null);
+		assertEquals(new String(LATIN_NAME.getBytes("UTF-8"), "ISO-8859-1"),
+				registry.getName());
+	}
+
+	public void testCountsContentBytes() throws Exception {
+		Registry registry = decode(NAME, "UTF-8", "UTF-8");
+		assertEquals(("{\"registry\":{\"name\":\"" + NAME + "\"}}")
+				.getBytes("UTF-8").length, registry.contentBytes);
+	}
+}
@@ -0,0 +1,208 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/**
+ * The Class LinkCache. Remembers the hypermedia links a client discovers on
+ * index pages (the create and parent links), keyed by the index URI, so a
+ * create operation does not need to GET the index again each time. Entries
+ * expire after a time to live, and are dropped when a request to either URI
+ * fails with a 4xx status. Entries are kept per user, and the cached links
+ * are handed back with the credentials of the caller.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class LinkCache {
+
+	public static final String CREATE = "create";
+	public static final String PARENT = "parent";
+
+	private static final char KEY_SEPARATOR = ' ';
+
+	private final long ttlMillis;
+	private final ConcurrentHashMap<String, CachedLink> links = new ConcurrentHashMap<String, CachedLink>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Instantiates a new link cache.
+	 * 
+	 * @param newTTLMillis
+	 *            the time an entry is kept, in milliseconds; 0 or less turns
+	 *            caching off
+	 */
+	LinkCache(long newTTLMillis) {
+		ttlMillis = newTTLMillis;
+	}
+
+	/**
+	 * Checks if this cache keeps links at all.
+	 * 
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled() {
+		return ttlMillis > 0;
+	}
+
+	/**
+	 * Gets a cached link.
+	 * 
+	 * @param resourceLink
+	 *            the link to the resource the link was discovered on
+	 * @param rel
+	 *            the kind of link, CREATE or PARENT
+	 * 
+	 * @return the link with the credentials of resourceLink, or null if none
+	 *         is cached
+	 */
+	Link get(Link resourceLink, String rel) {
+		if (!isEnabled()) {
+			return null;
+		}
+		String key = key(resourceLink, rel);
+		CachedLink cached = links.get(key);
+		if (cached == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		if (cached.expiresAt <= System.currentTimeMillis()) {
+			links.remove(key, cached);
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return Link.create(cached.mediaType, cached.uri, resourceLink
+				.getAuthentication());
+	}
+
+	/**
+	 * Cache a link. Null links are not cached.
+	 * 
+	 * @param resourceLink
+	 *            the link to the resource the link was discovered on
+	 * @param rel
+	 *            the kind of link, CREATE or PARENT
+	 * @param target
+	 *            the discovered link
+	 */
+	void put(Link resourceLink, String rel, Link target) {
+		if (!isEnabled() || target == null) {
+			return;
+		}
+		links.put(key(resourceLink, rel), new CachedLink(target
+				.getMediaTypeString(), target.getURI(), System
+				.currentTimeMillis()
+				+ ttlMillis));
+	}
+
+	/**
+	 * Drop every entry discovered on, or pointing to, a URI.
+	 * 
+	 * @param uri
+	 *            the uri
+	 */
+	public void invalidate(String uri) {
+		if (uri == null || links.isEmpty()) {
+			return;
+		}
+		Iterator<Map.Entry<String, CachedLink>> entries = links.entrySet()
+				.iterator();
+		while (entries.hasNext()) {
+			Map.Entry<String, CachedLink> entry = entries.next();
+			if (uri.equals(entry.getValue().uri)
+					|| entry.getKey().endsWith(KEY_SEPARATOR + uri)) {
+				entries.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drop every entry.
+	 */
+	public void clear() {
+		links.clear();
+	}
+
+	/**
+	 * Gets the number of cached links, including any expired but not yet
+	 * dropped.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		return links.size();
+	}
+
+	/**
+	 * Gets the number of lookups answered from the cache.
+	 * 
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of lookups that had to go to the server.
+	 * 
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * The key of a link: the kind of link, the user, and the resource URI, in
+	 * that order so the URI can be matched as a suffix.
+	 */
+	private static String key(Link resourceLink, String rel) {
+		UsernamePasswordCredentials credentials = resourceLink
+				.getAuthentication();
+		String user = credentials == null ? "" : credentials.getUserName();
+		return rel + KEY_SEPARATOR + user + KEY_SEPARATOR
+				+ resourceLink.getURI();
+	}
+
+	private static class CachedLink {
+		final String mediaType;
+		final String uri;
+		final long expiresAt;
+
+		CachedLink(String newMediaType, String newURI, long newExpiresAt) {
+			mediaType = newMediaType;
+			uri = newURI;
+			expiresAt = newExpiresAt;
+		}
+	}
+}
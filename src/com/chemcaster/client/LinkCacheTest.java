@@ -0,0 +1,98 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class LinkCacheTest extends TestCase {
+
+	private static final String MEDIA_TYPE = "application/vnd.com.chemcaster.Index+json";
+	private static final String INDEX_URI = "https://chemcaster.com/registries/1/queries";
+	private static final String CREATE_URI = "https://chemcaster.com/registries/1/queries/new";
+
+	private final UsernamePasswordCredentials alice = new UsernamePasswordCredentials(
+			"alice", "a");
+	private final Link indexLink = Link.create(MEDIA_TYPE, INDEX_URI, alice);
+	private final Link createLink = Link.create(MEDIA_TYPE, CREATE_URI, alice);
+
+	public void testHitCarriesCallerCredentials() {
+		LinkCache cache = new LinkCache(60000);
+		assertNull(cache.get(indexLink, LinkCache.CREATE));
+		cache.put(indexLink, LinkCache.CREATE, createLink);
+
+		UsernamePasswordCredentials other = new UsernamePasswordCredentials(
+				"alice", "changed");
+		Link hit = cache.get(Link.create(MEDIA_TYPE, INDEX_URI, other),
+				LinkCache.CREATE);
+		assertEquals(CREATE_URI, hit.getURI());
+		assertEquals(MEDIA_TYPE, hit.getMediaTypeString());
+		assertSame(other, hit.getAuthentication());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	public void testKeyedByUserAndRel() {
+		LinkCache cache = new LinkCache(60000);
+		cache.put(indexLink, LinkCache.CREATE, createLink);
+		assertNull(cache.get(indexLink, LinkCache.PARENT));
+		assertNull(cache.get(Link.create(MEDIA_TYPE, INDEX_URI,
+				new UsernamePasswordCredentials("bob", "b")), LinkCache.CREATE));
+	}
+
+	public void testInvalidateEitherEnd() {
+		LinkCache cache = new LinkCache(60000);
+		cache.put(indexLink, LinkCache.CREATE, createLink);
+		cache.invalidate(CREATE_URI);
+		assertEquals(0, cache.size());
+
+		cache.put(indexLink, LinkCache.CREATE, createLink);
+		cache.invalidate(INDEX_URI);
+		assertEquals(0, cache.size());
+	}
+
+	public void testExpiry() throws InterruptedException {
+		LinkCache cache = new LinkCache(1);
+		cache.put(indexLink, LinkCache.CREATE, createLink);
+		Thread.sleep(10);
+		assertNull(cache.get(indexLink, LinkCache.CREATE));
+		assertEquals(0, cache.size());
+	}
+
+	public void testDisabled() {
+		LinkCache cache = new LinkCache(0);
+		cache.put(indexLink, LinkCache.CREATE, createLink);
+		assertFalse(cache.isEnabled());
+		assertEquals(0, cache.size());
+		assertNull(cache.get(indexLink, LinkCache.CREATE));
+	}
+}
@@ -26,6 +26,10 @@
 
 package com.chemcaster.client;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,21 +37,70 @@ import java.util.regex.Pattern;
  * The Class LocalMediaType. LocalMediaType is an abstract factory (GOF) for
  * Representations, keyed off of the media_type_string. Decode the media_type
  * string of a response into a Representation class, fill with response data.
+ * Known media types are looked up in a table of factories; new Representation
+ * types are added with registerMediaType.
  * 
  * @author John Jaeger <jj4395722_at_yahoo_dot_com>
  */
 public class LocalMediaType {
 
-	private static final String ERROR_CANT_CREATE_INSTANCE = "Unable to create a class instance from media type: ";
 	private static final String ERROR_MEDIA_TYPE_FORMAT = "Bad format for media type: ";
 	private static final String ERROR_NO_EXISTING_MEDIA_TYPE = "No such media type exists ";
+	private static final String ERROR_NO_FACTORY = "Representation factory cannot be null.";
 
 	private static final String APPLICATION_ZIP = "application/zip";
 	private static final String MEDIA_CLASS_PREFIX = "com.chemcaster.client.";
-	private static final String URI_REGEXP = "application/vnd\\.com\\.chemcaster\\.(.*)\\+json";
+	private static final Pattern URI_PATTERN = Pattern
+			.compile("application/vnd\\.com\\.chemcaster\\.(.*)\\+json");
 
 	private static final String ZIP_CLASS_NAME = "Zip";
 
+	// Replaced whole on registration, so lookups never lock.
+	private static volatile Map<String, MediaTypeEntry> mediaTypes = Collections
+			.emptyMap();
+
+	static {
+		registerMediaType(Archive.ARCHIVE_MEDIA_TYPE, Archive::new);
+		registerMediaType(Component.COMPONENT_MEDIA_TYPE, Component::new);
+		registerMediaType(Execution.EXECUTION_MEDIA_TYPE, Execution::new);
+		registerMediaType(Image.IMAGE_MEDIA_TYPE, Image::new);
+		registerMediaType("application/vnd.com.chemcaster.Index+json",
+				Index::new);
+		registerMediaType(Log.LOG_MEDIA_TYPE, Log::new);
+		registerMediaType(Query.QUERY_MEDIA_TYPE, Query::new);
+		registerMediaType(Registration.REGISTRATION_MEDIA_TYPE,
+				Registration::new);
+		registerMediaType(Registry.REGISTRY_MEDIA_TYPE, Registry::new);
+		registerMediaType("application/vnd.com.chemcaster.Service+json",
+				Service::new);
+		registerMediaType(Structure.STRUCTURE_MEDIA_TYPE, Structure::new);
+		registerMediaType(Substance.SUBSTANCE_MEDIA_TYPE, Substance::new);
+		registerMediaType(APPLICATION_ZIP, Zip::new);
+	}
+
+	/**
+	 * Register the factory for a media type, replacing any earlier factory
+	 * for it.
+	 * 
+	 * @param mediaType
+	 *            the media type, application/zip or
+	 *            application/vnd.com.chemcaster.Name+json
+	 * @param factory
+	 *            creates an empty Representation for the media type
+	 */
+	public static synchronized void registerMediaType(String mediaType,
+			Supplier<? extends Representation> factory) {
+		if (factory == null) {
+			throw new ClientRuntimeException(ERROR_NO_FACTORY);
+		}
+		MediaTypeEntry entry = new MediaTypeEntry(simpleMediaClassName(
+				mediaType).toLowerCase(), factory);
+		Map<String, MediaTypeEntry> newMediaTypes = new HashMap<String, MediaTypeEntry>(
+				mediaTypes);
+		newMediaTypes.put(mediaType, entry);
+		mediaTypes = Collections.unmodifiableMap(newMediaTypes);
+	}
+
 	/**
 	 * Creates the representation instance based on the media_type string.
 	 * 
@@ -61,24 +114,19 @@ public class LocalMediaType {
 	 */
 	public static Representation createRepresentationInstance(
 			String mediaClassString) throws ClientException {
-		String mediaClassName = qualifiedMediaClassName(mediaClassString);
-
-		try {
-			// implementation from http://kickjava.com/1139.htm
-			return (Representation) Class.forName(mediaClassName, true,
-					ClassLoader.getSystemClassLoader()).newInstance();
-		} catch (ClassNotFoundException notFoundException) {
+		MediaTypeEntry entry = mediaTypes.get(mediaClassString);
+		if (entry == null) {
+			// throws for a malformed media type
+			simpleMediaClassName(mediaClassString);
 			throw new ClientException(ERROR_NO_EXISTING_MEDIA_TYPE
 					+ mediaClassString);
-		} catch (Exception e) {
-			throw new ClientException(ERROR_CANT_CREATE_INSTANCE
-					+ mediaClassString);
 		}
+		return entry.factory.get();
 	}
 
 	/**
-	 * Generate hash key based on the mime type. Validate the mime type by
-	 * trying to create a Representation instance.
+	 * Generate hash key based on the mime type. Only registered mime types
+	 * have a hash key.
 	 * 
 	 * @param fullMimeTypeName
 	 *            the full mime type name
@@ -86,12 +134,13 @@ public class LocalMediaType {
 	 * @return the hash key or null if the mime type cannot be decoded.
 	 */
 	public static String generateHashKey(String fullMimeTypeName) {
-		try {
-			createRepresentationInstance(fullMimeTypeName);
-			return simpleMediaClassName(fullMimeTypeName).toLowerCase();
-		} catch (ClientException ce) {
+		MediaTypeEntry entry = mediaTypes.get(fullMimeTypeName);
+		if (entry == null) {
+			// throws for a malformed media type
+			simpleMediaClassName(fullMimeTypeName);
 			return null;
 		}
+		return entry.hashKey;
 	}
 
 	/**
@@ -122,8 +171,7 @@ public class LocalMediaType {
 		if (fullMediaType.equals(APPLICATION_ZIP)) {
 			derivedClassName = ZIP_CLASS_NAME;
 		} else {
-			final Matcher uriMatch = Pattern.compile(URI_REGEXP).matcher(
-					fullMediaType);
+			final Matcher uriMatch = URI_PATTERN.matcher(fullMediaType);
 
 			if (uriMatch.find()) {
 				derivedClassName = uriMatch.group(1);
@@ -136,4 +184,18 @@ public class LocalMediaType {
 		return derivedClassName;
 	}
 
+	/**
+	 * The hash key and factory of a registered media type.
+	 */
+	private static class MediaTypeEntry {
+		private final String hashKey;
+		private final Supplier<? extends Representation> factory;
+
+		MediaTypeEntry(String newHashKey,
+				Supplier<? extends Representation> newFactory) {
+			hashKey = newHashKey;
+			factory = newFactory;
+		}
+	}
+
 }
@@ -94,4 +94,20 @@ public class LocalMediaTypeTest extends TestCase {
 		String badKey =  LocalMediaType.generateHashKey(BAD_MEDIA_TYPE_STRING);
 		assertNull(badKey);	
 	}
+
+	public void testZipHashKey() {
+		assertEquals("zip", LocalMediaType.generateHashKey(ZIP_MEDIA_TYPE_STRING));
+	}
+
+	public void testRegisterMediaType() {
+		String customType = "application/vnd.com.chemcaster.Custom+json";
+		assertNull(LocalMediaType.generateHashKey(customType));
+		LocalMediaType.registerMediaType(customType, Service::new);
+		assertEquals("custom", LocalMediaType.generateHashKey(customType));
+		try {
+			assertTrue(LocalMediaType.createRepresentationInstance(customType) instanceof Service);
+		} catch (ClientException clientException) {
+			fail(clientException.getMessage());
+		}
+	}
 }
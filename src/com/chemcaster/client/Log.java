@@ -56,16 +56,18 @@ public class Log extends Representation {
 	private static final String LOGS_TAG = "logs";
 	private static final String REGISTRY_TAG = "registry";
 
-	private String[] NEW_ATTRIBUTES = { CREATED_AT_TAG, INTERVAL_TAG };
-	private String[] NEW_RESOURCES = { EVENTS_TAG, INDEX_TAG, REGISTRY_TAG };
+	private static final String[] NEW_ATTRIBUTES = { CREATED_AT_TAG, INTERVAL_TAG };
+	private static final String[] NEW_RESOURCES = { EVENTS_TAG, INDEX_TAG, REGISTRY_TAG };
+
+	private static final Schema SCHEMA = Schema.of(Log.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
 
 	/**
 	 * Instantiates a new log.
 	 */
 	public Log() {
-		super();
-		addNewAttributeList(NEW_ATTRIBUTES);
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
 	}
 
 	/**
@@ -26,17 +26,82 @@
 
 package com.chemcaster.client;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
 /**
- * The Class NameURI.
+ * The Class NameURI. A list of name, URI pairs, stored compactly for listings
+ * of hundreds of thousands of items: names and URIs are packed as UTF-8 into
+ * one byte store, and the URI prefix up to the last '/' (usually the same
+ * collection URI for every item) is kept once in a prefix table. Once the
+ * byte store grows past the spill threshold it moves to a memory-mapped
+ * temporary file, which is deleted as soon as it is mapped, so its space is
+ * freed with the mapping.
  * 
  * @author John Jaeger <jj4395722_at_yahoo_dot_com>
  */
 
 public class NameURI {
 
-	ArrayList<String> names = new ArrayList<String>();
-	ArrayList<String> uris = new ArrayList<String>();
+	public static final int DEFAULT_SPILL_THRESHOLD = 64 * 1024 * 1024;
+
+	private static final String ERROR_SPILL = "Unable to spill name URI listing to a file: ";
+	private static final String SPILL_FILE_PREFIX = "CCNames";
+
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int INITIAL_BYTES = 1024;
+	private static final int NOT_FOUND = -1;
+
+	private static volatile int defaultSpillThreshold = DEFAULT_SPILL_THRESHOLD;
+
+	private final int spillThreshold;
+	private int count;
+	// entry i: name bytes [bounds[2i], bounds[2i+1]), URI suffix bytes
+	// [bounds[2i+1], bounds[2i+2])
+	private int[] bounds = new int[2 * INITIAL_CAPACITY + 1];
+	private int[] uriPrefixes = new int[INITIAL_CAPACITY];
+	private final ArrayList<String> prefixes = new ArrayList<String>();
+	private final HashMap<String, Integer> prefixIds = new HashMap<String, Integer>();
+	private ByteBuffer bytes = ByteBuffer.allocate(INITIAL_BYTES);
+	private boolean spilled;
+	// open addressing table of position + 1 by name hash, built on the first
+	// lookup
+	private int[] nameTable;
+
+	/**
+	 * Instantiates a new, empty NameURI with the default spill threshold.
+	 */
+	public NameURI() {
+		this(defaultSpillThreshold);
+	}
+
+	/**
+	 * Instantiates a new, empty NameURI.
+	 * 
+	 * @param spillBytes the size in bytes past which the packed names and
+	 *            URIs move to a memory-mapped file
+	 */
+	public NameURI(int spillBytes) {
+		spillThreshold = spillBytes;
+	}
+
+	/**
+	 * Sets the spill threshold of NameURIs created afterwards with the
+	 * default constructor, as listings from an Index are.
+	 * 
+	 * @param spillBytes the spill threshold in bytes
+	 */
+	public static void setDefaultSpillThreshold(int spillBytes) {
+		defaultSpillThreshold = spillBytes;
+	}
 
 	/**
 	 * Adds the correlated name, uri pair to the lists.
@@ -45,8 +110,68 @@ public class NameURI {
 	 * @param uri the uri
 	 */
 	public void add(String name, String uri) {
-		names.add(name);
-		uris.add(uri);
+		int split = uri.lastIndexOf('/') + 1;
+		String prefix = uri.substring(0, split);
+		Integer prefixId = prefixIds.get(prefix);
+		if (prefixId == null) {
+			prefixId = prefixes.size();
+			prefixes.add(prefix);
+			prefixIds.put(prefix, prefixId);
+		}
+
+		if (count == uriPrefixes.length) {
+			uriPrefixes = Arrays.copyOf(uriPrefixes, count * 2);
+			bounds = Arrays.copyOf(bounds, 4 * count + 1);
+		}
+		uriPrefixes[count] = prefixId;
+		append(name.getBytes(StandardCharsets.UTF_8));
+		bounds[2 * count + 1] = bytes.position();
+		append(uri.substring(split).getBytes(StandardCharsets.UTF_8));
+		bounds[2 * count + 2] = bytes.position();
+		count++;
+
+		if (nameTable != null) {
+			if (count * 2 > nameTable.length) {
+				nameTable = null;
+			} else {
+				insertName(name.hashCode(), count - 1);
+			}
+		}
+	}
+
+	/**
+	 * Gets the position of the first pair with a name. The first lookup
+	 * indexes the names; later lookups are hash lookups.
+	 * 
+	 * @param name the name
+	 * 
+	 * @return the position, or -1 if no pair has the name
+	 */
+	public int indexOfName(String name) {
+		if (nameTable == null) {
+			buildNameTable();
+		}
+		int mask = nameTable.length - 1;
+		for (int slot = name.hashCode() & mask; nameTable[slot] != 0; slot = (slot + 1)
+				& mask) {
+			int position = nameTable[slot] - 1;
+			if (getName(position).equals(name)) {
+				return position;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Gets the URI of the first pair with a name.
+	 * 
+	 * @param name the name
+	 * 
+	 * @return the URI, or null if no pair has the name
+	 */
+	public String getURINamed(String name) {
+		int position = indexOfName(name);
+		return position == NOT_FOUND ? null : getURI(position);
 	}
 
 	/**
@@ -56,8 +181,9 @@ public class NameURI {
 	 * 
 	 * @return the name
 	 */
-	public String getName(Integer i) {
-		return names.get(i);
+	public String getName(int i) {
+		checkPosition(i);
+		return decode(bounds[2 * i], bounds[2 * i + 1]);
 	}
 
 	/**
@@ -67,8 +193,10 @@ public class NameURI {
 	 * 
 	 * @return the URI
 	 */
-	public String getURI(Integer i) {
-		return uris.get(i);
+	public String getURI(int i) {
+		checkPosition(i);
+		return prefixes.get(uriPrefixes[i])
+				+ decode(bounds[2 * i + 1], bounds[2 * i + 2]);
 	}
 	
 	/**
@@ -77,6 +205,112 @@ public class NameURI {
 	 * @return the integer
 	 */
 	public int size() {
-		return names.size();
+		return count;
+	}
+
+	/**
+	 * Checks if the packed names and URIs have moved to a memory-mapped file.
+	 * 
+	 * @return true, if spilled
+	 */
+	public boolean isSpilled() {
+		return spilled;
+	}
+
+	private void checkPosition(int i) {
+		if (i < 0 || i >= count) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: "
+					+ count);
+		}
+	}
+
+	private String decode(int start, int end) {
+		byte[] encoded = new byte[end - start];
+		ByteBuffer view = bytes.duplicate();
+		view.position(start);
+		view.get(encoded);
+		return new String(encoded, StandardCharsets.UTF_8);
+	}
+
+	private void append(byte[] encoded) {
+		if (bytes.remaining() < encoded.length) {
+			grow(bytes.position() + encoded.length);
+		}
+		bytes.put(encoded);
+	}
+
+	/**
+	 * Grow the byte store to hold at least needed bytes, spilling it to a
+	 * memory-mapped file once it passes the spill threshold.
+	 */
+	private void grow(int needed) {
+		long capacity = Math.max((long) bytes.capacity() * 2, needed);
+		if (capacity > Integer.MAX_VALUE) {
+			capacity = Integer.MAX_VALUE;
+		}
+		ByteBuffer grown;
+		if (spilled || capacity > spillThreshold) {
+			grown = map((int) capacity);
+			spilled = true;
+		} else {
+			grown = ByteBuffer.allocate((int) capacity);
+		}
+		bytes.flip();
+		grown.put(bytes);
+		bytes = grown;
+	}
+
+	/**
+	 * Map a new temporary file, deleting it at once. The mapping stays valid
+	 * after the file is closed and deleted, and its space is freed when the
+	 * mapping is collected. Where a mapped file cannot be deleted, it is
+	 * deleted on exit.
+	 */
+	private MappedByteBuffer map(int capacity) {
+		try {
+			File spillFile = File.createTempFile(SPILL_FILE_PREFIX, null);
+			try {
+				RandomAccessFile file = new RandomAccessFile(spillFile, "rw");
+				try {
+					return file.getChannel().map(
+							FileChannel.MapMode.READ_WRITE, 0, capacity);
+				} finally {
+					file.close();
+				}
+			} finally {
+				if (!spillFile.delete()) {
+					spillFile.deleteOnExit();
+				}
+			}
+		} catch (IOException e) {
+			throw new ClientRuntimeException(ERROR_SPILL + e.getMessage());
+		}
+	}
+
+	private void buildNameTable() {
+		int tableSize = Integer.highestOneBit(Math.max(count, INITIAL_CAPACITY) * 2) * 2;
+		nameTable = new int[tableSize];
+		for (int i = 0; i < count; i++) {
+			insertName(getName(i).hashCode(), i);
+		}
+	}
+
+	/**
+	 * Add a position to the name table, unless an earlier pair has the same
+	 * name.
+	 */
+	private void insertName(int hash, int position) {
+		int mask = nameTable.length - 1;
+		String name = null;
+		int slot = hash & mask;
+		for (; nameTable[slot] != 0; slot = (slot + 1) & mask) {
+			if (name == null) {
+				name = getName(position);
+			}
+			if (getName(nameTable[slot] - 1).equals(name)) {
+				return;
+			}
+		}
+		nameTable[slot] = position + 1;
 	}
 }
@@ -0,0 +1,103 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class NameURITest extends TestCase {
+	private static final String PREFIX = "https://chemcaster.com/substances/";
+
+	public void testAddAndGet() {
+		NameURI items = new NameURI();
+		items.add("benzene", PREFIX + "1");
+		items.add("ph\u00e9nol", PREFIX + "2");
+		items.add("toluene", "https://other.org/3");
+		assertEquals(3, items.size());
+		assertEquals("benzene", items.getName(0));
+		assertEquals(PREFIX + "1", items.getURI(0));
+		assertEquals("ph\u00e9nol", items.getName(1));
+		assertEquals("https://other.org/3", items.getURI(2));
+	}
+
+	public void testOutOfBounds() {
+		NameURI items = new NameURI();
+		items.add("benzene", PREFIX + "1");
+		try {
+			items.getName(1);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	public void testNameLookup() {
+		NameURI items = new NameURI();
+		for (int i = 0; i < 100; i++) {
+			items.add("item" + i, PREFIX + i);
+		}
+		items.add("item5", PREFIX + "duplicate");
+		assertEquals(5, items.indexOfName("item5"));
+		assertEquals(PREFIX + "99", items.getURINamed("item99"));
+		items.add("late", PREFIX + "late");
+		assertEquals(101, items.indexOfName("late"));
+		assertEquals(-1, items.indexOfName("missing"));
+		assertNull(items.getURINamed("missing"));
+	}
+
+	public void testSpill() {
+		NameURI items = new NameURI(4096);
+		for (int i = 0; i < 5000; i++) {
+			items.add("item" + i, PREFIX + i);
+		}
+		assertTrue(items.isSpilled());
+		assertEquals("item0", items.getName(0));
+		assertEquals(PREFIX + "4999", items.getURI(4999));
+		assertEquals(1234, items.indexOfName("item1234"));
+	}
+
+	public void testSpillLeavesNoFiles() {
+		int before = spillFiles();
+		NameURI items = new NameURI(4096);
+		for (int i = 0; i < 5000; i++) {
+			items.add("item" + i, PREFIX + i);
+		}
+		assertTrue(items.isSpilled());
+		assertEquals(before, spillFiles());
+		assertEquals(PREFIX + "4999", items.getURI(4999));
+	}
+
+	private static int spillFiles() {
+		String[] names = new File(System.getProperty("java.io.tmpdir"))
+				.list((directory, name) -> name.startsWith("CCNames"));
+		return names == null ? 0 : names.length;
+	}
+}
@@ -0,0 +1,73 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.auth.AuthState;
+import org.apache.http.auth.Credentials;
+import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * The Class PreemptiveAuthInterceptor. When the request context carries
+ * preemptive credentials, primes the target AuthState with Basic
+ * authentication so the Authorization header goes out with the first request
+ * instead of after a 401 challenge.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+class PreemptiveAuthInterceptor implements HttpRequestInterceptor {
+
+	static final String PREEMPTIVE_CREDENTIALS = "com.chemcaster.client.preemptive-credentials";
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.apache.http.HttpRequestInterceptor#process(org.apache.http.HttpRequest,
+	 *      org.apache.http.protocol.HttpContext)
+	 */
+	public void process(HttpRequest request, HttpContext context)
+			throws HttpException, IOException {
+		Credentials credentials = (Credentials) context
+				.getAttribute(PREEMPTIVE_CREDENTIALS);
+		AuthState authState = (AuthState) context
+				.getAttribute(ClientContext.TARGET_AUTH_STATE);
+
+		if (credentials == null || authState == null
+				|| authState.getAuthScheme() != null) {
+			return;
+		}
+
+		authState.setAuthScheme(new BasicScheme());
+		authState.setCredentials(credentials);
+	}
+}
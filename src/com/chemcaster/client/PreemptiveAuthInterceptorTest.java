@@ -0,0 +1,165 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.AuthState;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class PreemptiveAuthInterceptorTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+
+	private final UsernamePasswordCredentials credentials = new UsernamePasswordCredentials(
+			"alice", "a");
+	// whether each request the transport saw was preemptive
+	private final ArrayList<Boolean> preemptive = new ArrayList<Boolean>();
+	private volatile boolean challenge;
+
+	private HttpContext context(boolean withCredentials) {
+		HttpContext context = new BasicHttpContext();
+		context.setAttribute(ClientContext.TARGET_AUTH_STATE, new AuthState());
+		if (withCredentials) {
+			context.setAttribute(
+					PreemptiveAuthInterceptor.PREEMPTIVE_CREDENTIALS,
+					credentials);
+		}
+		return context;
+	}
+
+	private static AuthState authState(HttpContext context) {
+		return (AuthState) context
+				.getAttribute(ClientContext.TARGET_AUTH_STATE);
+	}
+
+	public void testPrimesBasicScheme() throws Exception {
+		HttpContext context = context(true);
+		new PreemptiveAuthInterceptor().process(new BasicHttpRequest("GET",
+				"/registries"), context);
+		assertTrue(authState(context).getAuthScheme() instanceof BasicScheme);
+		assertSame(credentials, authState(context).getCredentials());
+	}
+
+	public void testLeavesOthersToChallenge() throws Exception {
+		HttpContext context = context(false);
+		new PreemptiveAuthInterceptor().process(new BasicHttpRequest("GET",
+				"/registries"), context);
+		assertNull(authState(context).getAuthScheme());
+		assertNull(authState(context).getCredentials());
+	}
+
+	private ChemcasterClient client() throws IOException {
+		Transport transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation)
+							throws IOException {
+						TransportRequest request = (TransportRequest) invocation
+								.getArguments()[0];
+						synchronized (preemptive) {
+							preemptive.add(request.isPreemptive());
+						}
+						TransportResponse response = mock(TransportResponse.class);
+						when(response.getStatusCode()).thenReturn(200);
+						when(response.getStatusLine()).thenReturn(
+								"HTTP/1.1 200 OK");
+						when(response.isBasicChallenged()).thenReturn(
+								challenge && !request.isPreemptive());
+						when(response.getContent()).thenReturn(
+								new ByteArrayInputStream("{}".getBytes()));
+						return response;
+					}
+				});
+		return new ChemcasterClient(new ClientConfiguration(), transport);
+	}
+
+	private Link link(String uri) {
+		return Link.create(REGISTRY_TYPE, uri, credentials);
+	}
+
+	public void testChemcasterHostSentCredentials() throws Exception {
+		ChemcasterClient client = client();
+		try {
+			client.get(link("https://chemcaster.com/registries/1"));
+			assertEquals(Boolean.TRUE, preemptive.get(0));
+			assertEquals(1, client.getChallengesAvoided());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	public void testOtherHostChallenged() throws Exception {
+		ChemcasterClient client = client();
+		try {
+			challenge = true;
+			client.get(link("https://other.org/registries/1"));
+			assertEquals(Boolean.FALSE, preemptive.get(0));
+			assertEquals(0, client.getChallengesAvoided());
+
+			// a host that challenged for Basic credentials is sent them
+			// from then on
+			client.get(link("https://other.org/registries/2"));
+			assertEquals(Boolean.TRUE, preemptive.get(1));
+			assertEquals(1, client.getChallengesAvoided());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	public void testPreemptiveOff() throws Exception {
+		ChemcasterClient client = client();
+		try {
+			client.setPreemptiveAuthentication(false);
+			client.get(link("https://chemcaster.com/registries/1"));
+			assertEquals(Boolean.FALSE, preemptive.get(0));
+			assertEquals(0, client.getChallengesAvoided());
+		} finally {
+			client.shutdown();
+		}
+	}
+}
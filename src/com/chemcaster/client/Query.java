@@ -43,17 +43,19 @@ public class Query extends Item {
 	private static final String SERIALIZATION_TAG = "serialization";
 
 
-	private String[] NEW_ATTRIBUTES = { SERIALIZATION_TAG, MODE_TAG };
-	private String[] NEW_RESOURCES = { IMAGES_TAG, INDEX_TAG, REGISTRY_TAG,
+	private static final String[] NEW_ATTRIBUTES = { SERIALIZATION_TAG, MODE_TAG };
+	private static final String[] NEW_RESOURCES = { IMAGES_TAG, INDEX_TAG, REGISTRY_TAG,
 			EXECUTIONS_TAG };
 
+	private static final Schema SCHEMA = Item.itemSchema(Query.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
+
 	/**
 	 * Instantiates a new query.
 	 */
 	public Query() {
-		super();
-		addNewAttributeList(NEW_ATTRIBUTES);
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
 	}
 
 	/**
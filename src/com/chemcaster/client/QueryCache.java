@@ -0,0 +1,471 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class QueryCache. Remembers the Query resources a client creates, keyed
+ * by registry URI, mode, normalized serialization and user, so asking for the
+ * same search again reuses the existing query and its executions link instead
+ * of POSTing a new one. The cache holds a bounded number of queries, evicting
+ * the least recently used first, and a query is reused for a time to live
+ * after its creation.
+ * <p>
+ * Expired and evicted queries still exist on the server. With a sweep
+ * interval set, a background sweep deletes them in one concurrent batch once
+ * a time to live has passed since they were last handed out, so a query
+ * handed out moments before its eviction or expiry is not deleted under its
+ * user. sweep() runs the same batch on demand; without a sweep interval,
+ * dropped queries are forgotten and sweep() only deletes the expired queries
+ * still cached that have not been handed out for a time to live.
+ * <p>
+ * A PUT, POST or DELETE to a query or its registry drops the cached queries
+ * concerned. Executing a query is not a change to it, so a POST to its
+ * executions keeps it cached; a 4xx status from the query or anything below
+ * it drops it, since the server may have removed it.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class QueryCache {
+
+	private static final char KEY_SEPARATOR = '\n';
+	private static final String SWEEP_THREAD_PREFIX = "ChemcasterClient-query-sweep-";
+
+	// a molfile's counts line, after its three header lines
+	private static final int MOLFILE_HEADER_LINES = 3;
+	private static final String MOLFILE_V2000 = "V2000";
+	private static final String MOLFILE_V3000 = "V3000";
+
+	private final ChemcasterClient client;
+	private final CacheKeys keys;
+	private final int maxEntries;
+	private final long ttlMillis;
+	private final ScheduledExecutorService sweeper;
+
+	// access ordered, so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, CachedQuery> entries = new LinkedHashMap<String, CachedQuery>(
+			16, 0.75f, true);
+	// dropped queries waiting for their time to live to pass, for the sweep
+	private final ArrayList<CachedQuery> retired = new ArrayList<CachedQuery>();
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long sweptQueries;
+
+	/**
+	 * Instantiates a new query cache with the size, time to live and sweep
+	 * interval of a configuration.
+	 * 
+	 * @param newClient
+	 *            the client that deletes swept queries
+	 * @param configuration
+	 *            the client configuration
+	 * @param newKeys
+	 *            the keys of the client
+	 */
+	QueryCache(ChemcasterClient newClient, ClientConfiguration configuration,
+			CacheKeys newKeys) {
+		client = newClient;
+		keys = newKeys;
+		maxEntries = configuration.getQueryCacheMaxEntries();
+		ttlMillis = configuration.getQueryCacheTTLMillis();
+		long interval = configuration.getQuerySweepIntervalMillis();
+		if (isEnabled() && interval > 0) {
+			sweeper = Executors
+					.newSingleThreadScheduledExecutor(new ChemcasterClient.DaemonThreadFactory(
+							SWEEP_THREAD_PREFIX));
+			sweeper.scheduleWithFixedDelay(this::backgroundSweep, interval,
+					interval, TimeUnit.MILLISECONDS);
+		} else {
+			sweeper = null;
+		}
+	}
+
+	/**
+	 * Checks if this cache keeps queries at all.
+	 * 
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled() {
+		return maxEntries > 0 && ttlMillis > 0;
+	}
+
+	/**
+	 * Gets a cached query that has not expired.
+	 * 
+	 * @param registry
+	 *            the registry the query belongs to
+	 * @param mode
+	 *            the mode (type) of the query
+	 * @param serialization
+	 *            the serialized version the query
+	 * 
+	 * @return the query, or null
+	 */
+	synchronized Query get(Registry registry, String mode,
+			String serialization) {
+		if (!isEnabled()) {
+			return null;
+		}
+		String key = key(registry, mode, serialization);
+		CachedQuery cached = entries.get(key);
+		if (cached == null) {
+			misses++;
+			return null;
+		}
+		if (cached.expiresAt <= System.currentTimeMillis()) {
+			retire(entries.remove(key));
+			misses++;
+			return null;
+		}
+		cached.handedOutAt = System.currentTimeMillis();
+		hits++;
+		return cached.query;
+	}
+
+	/**
+	 * Cache a newly created query, evicting the least recently used queries
+	 * past the size of the cache.
+	 * 
+	 * @param registry
+	 *            the registry the query belongs to
+	 * @param mode
+	 *            the mode (type) of the query
+	 * @param serialization
+	 *            the serialized version the query
+	 * @param query
+	 *            the query
+	 */
+	synchronized void put(Registry registry, String mode,
+			String serialization, Query query) {
+		// a created query's self link is the link it was POSTed to, so it is
+		// known by the link that deletes it
+		String uri = uriOf(query.getLinkToSelf());
+		String executionsURI = null;
+		try {
+			uri = uriOf(query.destroy(), uri);
+			executionsURI = uriOf(query.getExecutionsLink());
+		} catch (ClientException ce) {
+		}
+		if (!isEnabled() || uri == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		CachedQuery previous = entries.put(key(registry, mode, serialization),
+				new CachedQuery(registry.getLinkToSelf().getURI(), query, uri,
+						executionsURI, now + ttlMillis, now));
+		if (previous != null) {
+			retire(previous);
+		}
+		Iterator<CachedQuery> lru = entries.values().iterator();
+		while (entries.size() > maxEntries && lru.hasNext()) {
+			retire(lru.next());
+			lru.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Drop every query at a URI or belonging to a registry at it. Dropped
+	 * queries are forgotten, not deleted by the sweep, since the server has
+	 * usually deleted or changed them already.
+	 * 
+	 * @param uri
+	 *            the uri
+	 */
+	public synchronized void invalidate(String uri) {
+		if (uri == null) {
+			return;
+		}
+		entries.values().removeIf(cached -> cached.concerns(uri));
+		retired.removeIf(cached -> cached.concerns(uri));
+	}
+
+	/**
+	 * Drop every query at a URI that answered with a 4xx status, below it, or
+	 * belonging to a registry at it. A query whose executions cannot be read
+	 * or created may no longer exist.
+	 * 
+	 * @param uri
+	 *            the uri
+	 */
+	synchronized void invalidateFailed(String uri) {
+		if (uri == null) {
+			return;
+		}
+		entries.values().removeIf(cached -> cached.concernsFailure(uri));
+		retired.removeIf(cached -> cached.concernsFailure(uri));
+	}
+
+	/**
+	 * Drop every query. They are left to the sweep.
+	 */
+	public synchronized void clear() {
+		for (CachedQuery cached : entries.values()) {
+			retire(cached);
+		}
+		entries.clear();
+	}
+
+	/**
+	 * Drop any expired queries still cached, and delete from the server, in
+	 * one concurrent batch, every dropped query not handed out for a time to
+	 * live. Queries that cannot be deleted, for example ones the server has
+	 * already removed, are forgotten.
+	 * 
+	 * @return the number of queries deleted
+	 */
+	public int sweep() {
+		List<CachedQuery> due = new ArrayList<CachedQuery>();
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Iterator<CachedQuery> cached = entries.values().iterator();
+			while (cached.hasNext()) {
+				CachedQuery entry = cached.next();
+				if (entry.expiresAt <= now) {
+					retired.add(entry);
+					cached.remove();
+				}
+			}
+			Iterator<CachedQuery> dropped = retired.iterator();
+			while (dropped.hasNext()) {
+				CachedQuery entry = dropped.next();
+				if (entry.handedOutAt + ttlMillis <= now) {
+					due.add(entry);
+					dropped.remove();
+				}
+			}
+		}
+		if (due.isEmpty()) {
+			return 0;
+		}
+
+		ArrayList<CompletableFuture<Boolean>> deletes = new ArrayList<CompletableFuture<Boolean>>(
+				due.size());
+		for (CachedQuery entry : due) {
+			CompletableFuture<Boolean> delete;
+			try {
+				delete = client.deleteAsync(entry.query.destroy()).thenApply(
+						deleted -> Boolean.TRUE);
+			} catch (ClientException ce) {
+				delete = CompletableFuture.completedFuture(Boolean.FALSE);
+			}
+			deletes.add(delete.exceptionally(t -> Boolean.FALSE));
+		}
+		int deleted = 0;
+		for (CompletableFuture<Boolean> delete : deletes) {
+			try {
+				if (delete.join()) {
+					deleted++;
+				}
+			} catch (CompletionException ce) {
+			}
+		}
+		synchronized (this) {
+			sweptQueries += deleted;
+		}
+		return deleted;
+	}
+
+	/**
+	 * Stop the background sweep. Queries not yet swept are left on the
+	 * server.
+	 */
+	public void close() {
+		if (sweeper != null) {
+			sweeper.shutdownNow();
+		}
+	}
+
+	/**
+	 * Gets the number of cached queries, including any expired but not yet
+	 * dropped.
+	 * 
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the number of dropped queries waiting for the sweep.
+	 * 
+	 * @return the retired queries
+	 */
+	public synchronized int getRetired() {
+		return retired.size();
+	}
+
+	/**
+	 * Gets the number of lookups that reused a query.
+	 * 
+	 * @return the hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that had to create a query.
+	 * 
+	 * @return the misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of queries evicted to keep the cache within its size.
+	 * 
+	 * @return the evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the number of queries the sweep has deleted from the server.
+	 * 
+	 * @return the swept queries
+	 */
+	public synchronized long getSweptQueries() {
+		return sweptQueries;
+	}
+
+	/**
+	 * Normalize a query serialization, so the same structure written twice
+	 * gives the same key. Line endings become \n and trailing white space is
+	 * dropped from every line and from the end. In a molfile the three header
+	 * lines, which carry a name, program and time stamp, are dropped too.
+	 * 
+	 * @param serialization
+	 *            the serialized query
+	 * 
+	 * @return the normalized serialization
+	 */
+	static String normalize(String serialization) {
+		if (serialization == null) {
+			return "";
+		}
+		String[] lines = serialization.split("\r\n|\r|\n", -1);
+		int first = 0;
+		if (lines.length > MOLFILE_HEADER_LINES
+				&& (lines[MOLFILE_HEADER_LINES].contains(MOLFILE_V2000) || lines[MOLFILE_HEADER_LINES]
+						.contains(MOLFILE_V3000))) {
+			first = MOLFILE_HEADER_LINES;
+		}
+		StringBuilder normalized = new StringBuilder(serialization.length());
+		for (int i = first; i < lines.length; i++) {
+			String line = lines[i];
+			int end = line.length();
+			while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+				end--;
+			}
+			normalized.append(line, 0, end).append('\n');
+		}
+		int end = normalized.length();
+		while (end > 0 && normalized.charAt(end - 1) == '\n') {
+			end--;
+		}
+		normalized.setLength(end);
+		return normalized.toString();
+	}
+
+	/**
+	 * Run a scheduled sweep. A failure is left for the next sweep, since an
+	 * exception would cancel the schedule.
+	 */
+	private void backgroundSweep() {
+		try {
+			sweep();
+		} catch (RuntimeException re) {
+		}
+	}
+
+	/**
+	 * Keep a dropped query for the sweep, if there is one.
+	 */
+	private void retire(CachedQuery cached) {
+		if (sweeper != null && cached != null) {
+			retired.add(cached);
+		}
+	}
+
+	private static String uriOf(Link link) {
+		return uriOf(link, null);
+	}
+
+	private static String uriOf(Link link, String otherwise) {
+		return link == null || link.getURI() == null ? otherwise : link
+				.getURI();
+	}
+
+	private String key(Registry registry, String mode,
+			String serialization) {
+		return mode + KEY_SEPARATOR + normalize(serialization) + KEY_SEPARATOR
+				+ keys.key(registry.getLinkToSelf());
+	}
+
+	private static class CachedQuery {
+		final String registryURI;
+		final Query query;
+		final String uri;
+		final String executionsURI;
+		final long expiresAt;
+		// guarded by the cache
+		long handedOutAt;
+
+		CachedQuery(String newRegistryURI, Query newQuery, String newURI,
+				String newExecutionsURI, long newExpiresAt,
+				long newHandedOutAt) {
+			registryURI = newRegistryURI;
+			query = newQuery;
+			uri = newURI;
+			executionsURI = newExecutionsURI;
+			expiresAt = newExpiresAt;
+			handedOutAt = newHandedOutAt;
+		}
+
+		boolean concerns(String target) {
+			return target.equals(registryURI) || target.equals(uri);
+		}
+
+		boolean concernsFailure(String target) {
+			return concerns(target) || target.startsWith(uri + '/')
+					|| target.equals(executionsURI);
+		}
+	}
+}
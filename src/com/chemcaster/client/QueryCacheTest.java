@@ -0,0 +1,344 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.json.JSONObject;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class QueryCacheTest extends TestCase {
+
+	private static final String REGISTRY_URI = "https://chemcaster.com/registries/1";
+	private static final String QUERIES_URI = REGISTRY_URI + "/queries";
+	private static final String QUERY_URI = QUERIES_URI + "/1";
+	private static final String EXECUTIONS_URI = QUERY_URI + "/executions";
+	private static final String INDEX_TYPE = "application/vnd.com.chemcaster.Index+json";
+	private static final String QUERY_TYPE = "application/vnd.com.chemcaster.Query+json";
+	private static final String EXECUTION_TYPE = "application/vnd.com.chemcaster.Execution+json";
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+	private static final String MOLFILE = "benzene\r\n  -ISIS-  10171612002D\r\n\r\n"
+			+ "  6  6  0  0  0  0  0  0  0  0999 V2000  \r\nM  END\r\n";
+
+	private ChemcasterClient client;
+	private final CacheKeys keys = new CacheKeys();
+	private ClientConfiguration configuration;
+	private Registry registry;
+
+	@Override
+	protected void setUp() {
+		client = mock(ChemcasterClient.class);
+		configuration = new ClientConfiguration();
+		configuration.setQueryCacheMaxEntries(2);
+		registry = mock(Registry.class);
+		Link self = mock(Link.class);
+		when(self.getURI()).thenReturn(REGISTRY_URI);
+		when(registry.getLinkToSelf()).thenReturn(self);
+	}
+
+	private Query query(int id) throws ClientException {
+		// like a created query, its self link is the link it was POSTed to
+		Query query = mock(Query.class);
+		Link self = mock(Link.class);
+		when(self.getURI()).thenReturn(QUERIES_URI);
+		when(query.getLinkToSelf()).thenReturn(self);
+		Link destroy = mock(Link.class);
+		when(destroy.getURI()).thenReturn(QUERIES_URI + "/" + id);
+		when(query.destroy()).thenReturn(destroy);
+		Link executions = mock(Link.class);
+		when(executions.getURI()).thenReturn(
+				QUERIES_URI + "/" + id + "/executions");
+		when(query.getExecutionsLink()).thenReturn(executions);
+		when(client.deleteAsync(destroy)).thenReturn(
+				CompletableFuture.completedFuture(query));
+		return query;
+	}
+
+	public void testNormalize() {
+		assertEquals("  6  6  0  0  0  0  0  0  0  0999 V2000\nM  END",
+				QueryCache.normalize(MOLFILE));
+		assertEquals(QueryCache.normalize(MOLFILE), QueryCache
+				.normalize(MOLFILE.replace("benzene", "phenyl").replace("\r\n",
+						"\n")));
+		assertEquals("c1ccccc1", QueryCache.normalize("c1ccccc1 \n"));
+	}
+
+	public void testReuse() throws ClientException {
+		QueryCache cache = new QueryCache(client, configuration, keys);
+		assertNull(cache.get(registry, "substructure", MOLFILE));
+		Query query = query(1);
+		cache.put(registry, "substructure", MOLFILE, query);
+		assertSame(query, cache.get(registry, "substructure", MOLFILE
+				.replace("\r\n", "\n")));
+		assertNull(cache.get(registry, "exact", MOLFILE));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	public void testDisabledByDefault() throws ClientException {
+		QueryCache cache = new QueryCache(client, new ClientConfiguration(),
+				keys);
+		assertFalse(cache.isEnabled());
+		cache.put(registry, "substructure", MOLFILE, query(1));
+		assertNull(cache.get(registry, "substructure", MOLFILE));
+	}
+
+	public void testEvictsLeastRecentlyUsed() throws ClientException {
+		QueryCache cache = new QueryCache(client, configuration, keys);
+		cache.put(registry, "q1", MOLFILE, query(1));
+		cache.put(registry, "q2", MOLFILE, query(2));
+		cache.get(registry, "q1", MOLFILE);
+		cache.put(registry, "q3", MOLFILE, query(3));
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get(registry, "q2", MOLFILE));
+		assertNotNull(cache.get(registry, "q1", MOLFILE));
+	}
+
+	public void testInvalidate() throws ClientException {
+		QueryCache cache = new QueryCache(client, configuration, keys);
+		cache.put(registry, "q1", MOLFILE, query(1));
+		cache.put(registry, "q2", MOLFILE, query(2));
+		// creating another query or executing one changes neither
+		cache.invalidate(QUERIES_URI);
+		cache.invalidate(QUERIES_URI + "/1/executions");
+		assertEquals(2, cache.size());
+		cache.invalidate(QUERIES_URI + "/1");
+		assertNull(cache.get(registry, "q1", MOLFILE));
+		assertNotNull(cache.get(registry, "q2", MOLFILE));
+		cache.invalidate(REGISTRY_URI);
+		assertEquals(0, cache.size());
+	}
+
+	public void testInvalidateFailed() throws ClientException {
+		QueryCache cache = new QueryCache(client, configuration, keys);
+		cache.put(registry, "q1", MOLFILE, query(1));
+		cache.put(registry, "q2", MOLFILE, query(2));
+		cache.invalidateFailed(QUERIES_URI);
+		assertEquals(2, cache.size());
+		cache.invalidateFailed(QUERIES_URI + "/1/executions");
+		assertNull(cache.get(registry, "q1", MOLFILE));
+		assertNotNull(cache.get(registry, "q2", MOLFILE));
+	}
+
+	public void testExecutedQueryReused() throws Exception {
+		StubTransport transport = new StubTransport();
+		transport.answer("GET " + QUERIES_URI, "{\"create\":"
+				+ link("create", QUERIES_URI, QUERY_TYPE) + "}");
+		transport.answer("POST " + QUERIES_URI, "{\"query\":{\"mode\":"
+				+ "\"substructure\"},\"executions\":"
+				+ link("executions", EXECUTIONS_URI, INDEX_TYPE)
+				+ ",\"destroy\":" + link("destroy", QUERY_URI, QUERY_TYPE)
+				+ "}");
+		transport.answer("GET " + EXECUTIONS_URI, "{\"create\":"
+				+ link("create", EXECUTIONS_URI, EXECUTION_TYPE) + "}");
+		transport.answer("POST " + EXECUTIONS_URI,
+				"{\"execution\":{},\"substances\":[]}");
+		ChemcasterClient stubbed = new ChemcasterClient(configuration,
+				transport);
+		try {
+			UsernamePasswordCredentials credentials = new UsernamePasswordCredentials(
+					"alice", "a");
+			Registry aRegistry = new Registry();
+			aRegistry.populate(Link.create(REGISTRY_TYPE, REGISTRY_URI,
+					credentials), new JSONObject("{\"registry\":{},"
+					+ "\"queries\":" + link("queries", QUERIES_URI, INDEX_TYPE)
+					+ "}"));
+
+			Query query = stubbed.createQuery(aRegistry, "substructure",
+					MOLFILE);
+			assertNotNull(stubbed.executeQuery(query.getExecutionsLink(),
+					null, null, null));
+			assertSame(query, stubbed.createQuery(aRegistry, "substructure",
+					MOLFILE));
+			assertEquals(1, transport.count("POST " + QUERIES_URI));
+			assertEquals(1, transport.count("POST " + EXECUTIONS_URI));
+			assertEquals(1, stubbed.getQueryCache().getHits());
+		} finally {
+			stubbed.shutdown();
+		}
+	}
+
+	private static String link(String name, String uri, String mediaType) {
+		return "{\"name\":\"" + name + "\",\"uri\":\"" + uri
+				+ "\",\"media_type\":\"" + mediaType + "\"}";
+	}
+
+	/**
+	 * A transport answering each method and URI with a fixed JSON body, and
+	 * counting the requests it is sent.
+	 */
+	private static class StubTransport implements Transport {
+		private final HashMap<String, String> bodies = new HashMap<String, String>();
+		private final ConcurrentHashMap<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+
+		void answer(String request, String body) {
+			bodies.put(request, body);
+		}
+
+		int count(String request) {
+			AtomicInteger count = counts.get(request);
+			return count == null ? 0 : count.get();
+		}
+
+		public TransportResponse execute(TransportRequest request)
+				throws IOException {
+			String key = request.getMethod() + ' ' + request.getURI();
+			counts.computeIfAbsent(key, k -> new AtomicInteger())
+					.incrementAndGet();
+			String body = bodies.get(key);
+			if (body == null) {
+				throw new IOException("Unexpected request " + key);
+			}
+			return new StubResponse(body);
+		}
+
+		public void shutdown() {
+		}
+	}
+
+	private static class StubResponse implements TransportResponse {
+		private final String body;
+
+		StubResponse(String newBody) {
+			body = newBody;
+		}
+
+		public int getStatusCode() {
+			return 200;
+		}
+
+		public String getStatusLine() {
+			return "HTTP/1.1 200 OK";
+		}
+
+		public String getHeader(String name) {
+			return null;
+		}
+
+		public String getContentCharset() {
+			return "UTF-8";
+		}
+
+		public InputStream getContent() {
+			return new ByteArrayInputStream(body.getBytes());
+		}
+
+		public boolean isBasicChallenged() {
+			return false;
+		}
+
+		public void release() {
+		}
+	}
+
+	public void testSweepDeletesOnlyExpired() throws Exception {
+		configuration.setQueryCacheTTLMillis(100);
+		configuration.setQuerySweepIntervalMillis(60 * 60 * 1000);
+		QueryCache cache = new QueryCache(client, configuration, keys);
+		try {
+			Query evicted = query(1);
+			Link evictedDestroy = evicted.destroy();
+			cache.put(registry, "q1", MOLFILE, evicted);
+			cache.put(registry, "q2", MOLFILE, query(2));
+			cache.put(registry, "q3", MOLFILE, query(3));
+			assertEquals(1, cache.getRetired());
+
+			// an evicted query may still be in use until it expires
+			assertEquals(0, cache.sweep());
+			verify(client, never()).deleteAsync(evictedDestroy);
+
+			Thread.sleep(150);
+			assertEquals(3, cache.sweep());
+			verify(client).deleteAsync(evictedDestroy);
+			assertEquals(0, cache.size());
+			assertEquals(0, cache.getRetired());
+			assertEquals(3, cache.getSweptQueries());
+		} finally {
+			cache.close();
+		}
+	}
+
+	public void testSweepWaitsAfterLastHandOut() throws Exception {
+		configuration.setQueryCacheTTLMillis(200);
+		configuration.setQuerySweepIntervalMillis(60 * 60 * 1000);
+		QueryCache cache = new QueryCache(client, configuration, keys);
+		try {
+			Query reused = query(1);
+			Link reusedDestroy = reused.destroy();
+			cache.put(registry, "q1", MOLFILE, reused);
+			Thread.sleep(120);
+			assertSame(reused, cache.get(registry, "q1", MOLFILE));
+
+			// expired, but handed out less than a time to live ago
+			Thread.sleep(100);
+			assertEquals(0, cache.sweep());
+			assertEquals(0, cache.size());
+			assertEquals(1, cache.getRetired());
+			verify(client, never()).deleteAsync(reusedDestroy);
+
+			Thread.sleep(150);
+			assertEquals(1, cache.sweep());
+			verify(client).deleteAsync(reusedDestroy);
+			assertEquals(0, cache.getRetired());
+		} finally {
+			cache.close();
+		}
+	}
+
+	public void testSweepForgetsFailedDeletes() throws Exception {
+		configuration.setQueryCacheTTLMillis(1);
+		QueryCache cache = new QueryCache(client, configuration, keys);
+		Query gone = query(1);
+		CompletableFuture<Representation> failed = new CompletableFuture<Representation>();
+		failed.completeExceptionally(new ClientException("Not found"));
+		when(client.deleteAsync(gone.destroy())).thenReturn(failed);
+		cache.put(registry, "q1", MOLFILE, gone);
+		Thread.sleep(5);
+		assertEquals(0, cache.sweep());
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getRetired());
+	}
+}
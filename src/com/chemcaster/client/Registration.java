@@ -46,17 +46,19 @@ public class Registration extends Item {
 	private static final String SUBSTANCE_TAG = "substance";
 	private static final String TEMPLATES_TAG = "templates";
 
-	private final String[] myAttributes = { TEMPLATES_TAG };
-	private final String[] myResources = { INDEX_TAG, REGISTRY_TAG,
+	private static final String[] NEW_ATTRIBUTES = { TEMPLATES_TAG };
+	private static final String[] NEW_RESOURCES = { INDEX_TAG, REGISTRY_TAG,
 			SUBSTANCE_TAG };
 
+	private static final Schema SCHEMA = Item.itemSchema(Registration.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
+
 	/**
 	 * Instantiates a new registration.
 	 */
 	public Registration() {
-		super();
-		addNewAttributeList(myAttributes);
-		addNewResourceList(myResources);
+		super(SCHEMA);
 	}
 
 	/**
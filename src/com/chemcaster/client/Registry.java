@@ -47,18 +47,20 @@ public class Registry extends Item {
 	private static final String STRUCTURES_TAG = "structures";
 	private static final String SUBSTANCES_TAG = "substances";
 
-	private final String[] myAttributes = { NAME_TAG, DELETABLE_TAG };
-	private final String[] myResources = { SERVICE_TAG, QUERIES_TAG,
+	private static final String[] NEW_ATTRIBUTES = { NAME_TAG, DELETABLE_TAG };
+	private static final String[] NEW_RESOURCES = { SERVICE_TAG, QUERIES_TAG,
 			STRUCTURES_TAG, SUBSTANCES_TAG, ARCHIVES_TAG, REGISTRATIONS_TAG,
 			LOGS_TAG, INDEX_TAG };
 
+	private static final Schema SCHEMA = Item.itemSchema(Registry.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
+
 	/**
 	 * Instantiates a new registry.
 	 */
 	public Registry() {
-		super();
-		addNewAttributeList(myAttributes);
-		addNewResourceList(myResources);
+		super(SCHEMA);
 	}
 
 	/**
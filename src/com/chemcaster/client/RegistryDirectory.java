@@ -0,0 +1,111 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+/**
+ * The Class RegistryDirectory. Looks up registries by name on a registries
+ * index, keeping the index between lookups so repeated lookups do not re-fetch
+ * it. The kept index expires after the link cache time to live of the client,
+ * and is reloaded when a name is not found, when it is cleared after a
+ * registry changes, and when the registry a name resolved to cannot be read.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+final class RegistryDirectory {
+
+	private static final String ERROR_NO_REGISTRY = "No registry named: ";
+
+	private IndexPages registryPages;
+	private String registriesURI;
+	private long loadedAt;
+
+	/**
+	 * Gets the registry with a name.
+	 * 
+	 * @param client
+	 *            the client that makes the requests
+	 * @param registriesLink
+	 *            the link to the registries index
+	 * @param registryName
+	 *            the registry name
+	 * 
+	 * @return the registry
+	 * 
+	 * @throws ClientException
+	 *             if there is no registry with the name, or it cannot be read
+	 */
+	Registry getRegistryNamed(ChemcasterClient client, Link registriesLink,
+			String registryName) throws ClientException {
+		Link registryLink = linkNamed(client, registriesLink, registryName,
+				false);
+		try {
+			return client.get(registryLink);
+		} catch (ClientException ce) {
+			// the registry may have been renamed or deleted since the index
+			// was read
+			Link reloadedLink = linkNamed(client, registriesLink,
+					registryName, true);
+			if (reloadedLink.getURI().equals(registryLink.getURI())) {
+				throw ce;
+			}
+			return client.get(reloadedLink);
+		}
+	}
+
+	/**
+	 * Forget the kept index, so the next lookup reads it again.
+	 */
+	synchronized void clear() {
+		registryPages = null;
+	}
+
+	private synchronized Link linkNamed(ChemcasterClient client,
+			Link registriesLink, String registryName, boolean reload)
+			throws ClientException {
+		Link registryLink = null;
+		if (!reload && isFresh(client, registriesLink)) {
+			registryLink = registryPages.getItemNamed(registryName);
+		}
+		if (registryLink == null) {
+			registryPages = client.getPages(registriesLink);
+			registriesURI = registriesLink.getURI();
+			loadedAt = System.currentTimeMillis();
+			registryLink = registryPages.getItemNamed(registryName);
+		}
+		if (registryLink == null) {
+			throw new ClientException(ERROR_NO_REGISTRY + registryName);
+		}
+		return registryLink;
+	}
+
+	private boolean isFresh(ChemcasterClient client, Link registriesLink) {
+		long ttlMillis = client.getConfiguration().getLinkCacheTTLMillis();
+		return registryPages != null
+				&& registriesLink.getURI().equals(registriesURI)
+				&& loadedAt + ttlMillis > System.currentTimeMillis();
+	}
+}
@@ -0,0 +1,154 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import junit.framework.TestCase;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class RegistryDirectoryTest extends TestCase {
+
+	private static final String REGISTRIES_URI = "https://chemcaster.com/registries";
+
+	private ChemcasterClient client;
+	private ClientConfiguration configuration;
+	private Link registriesLink;
+	private RegistryDirectory directory;
+
+	@Override
+	protected void setUp() {
+		client = mock(ChemcasterClient.class);
+		configuration = new ClientConfiguration();
+		when(client.getConfiguration()).thenReturn(configuration);
+		registriesLink = link(REGISTRIES_URI);
+		directory = new RegistryDirectory();
+	}
+
+	private static Link link(String uri) {
+		Link link = mock(Link.class);
+		when(link.getURI()).thenReturn(uri);
+		return link;
+	}
+
+	private static IndexPages pages(String name, Link registryLink) {
+		IndexPages pages = mock(IndexPages.class);
+		when(pages.getItemNamed(name)).thenReturn(registryLink);
+		return pages;
+	}
+
+	public void testKeptBetweenLookups() throws ClientException {
+		Link first = link(REGISTRIES_URI + "/1");
+		Registry registry = new Registry();
+		IndexPages pages = pages("first", first);
+		when(client.getPages(registriesLink)).thenReturn(pages);
+		when(client.<Registry> get(first)).thenReturn(registry);
+
+		assertSame(registry, directory.getRegistryNamed(client,
+				registriesLink, "first"));
+		assertSame(registry, directory.getRegistryNamed(client,
+				registriesLink, "first"));
+		verify(client, times(1)).getPages(registriesLink);
+	}
+
+	public void testMissingName() {
+		IndexPages pages = pages("first", link(REGISTRIES_URI + "/1"));
+		when(client.getPages(registriesLink)).thenReturn(pages);
+		try {
+			directory.getRegistryNamed(client, registriesLink, "missing");
+			fail();
+		} catch (ClientException ce) {
+			assertEquals("No registry named: missing", ce.getMessage());
+		}
+	}
+
+	public void testClearReloads() throws ClientException {
+		Link first = link(REGISTRIES_URI + "/1");
+		IndexPages pages = pages("first", first);
+		when(client.getPages(registriesLink)).thenReturn(pages);
+		when(client.<Registry> get(first)).thenReturn(new Registry());
+
+		directory.getRegistryNamed(client, registriesLink, "first");
+		directory.clear();
+		directory.getRegistryNamed(client, registriesLink, "first");
+		verify(client, times(2)).getPages(registriesLink);
+	}
+
+	public void testExpires() throws Exception {
+		configuration.setLinkCacheTTLMillis(1);
+		Link first = link(REGISTRIES_URI + "/1");
+		IndexPages pages = pages("first", first);
+		when(client.getPages(registriesLink)).thenReturn(pages);
+		when(client.<Registry> get(first)).thenReturn(new Registry());
+
+		directory.getRegistryNamed(client, registriesLink, "first");
+		Thread.sleep(5);
+		directory.getRegistryNamed(client, registriesLink, "first");
+		verify(client, times(2)).getPages(registriesLink);
+	}
+
+	public void testFailedLookupReloads() throws ClientException {
+		Link stale = link(REGISTRIES_URI + "/1");
+		Link renamed = link(REGISTRIES_URI + "/2");
+		Registry registry = new Registry();
+		IndexPages stalePages = pages("first", stale);
+		IndexPages freshPages = pages("first", renamed);
+		when(client.getPages(registriesLink)).thenReturn(stalePages,
+				freshPages);
+		when(client.<Registry> get(stale)).thenThrow(
+				new ClientException("Not found: 404"));
+		when(client.<Registry> get(renamed)).thenReturn(registry);
+
+		assertSame(registry, directory.getRegistryNamed(client,
+				registriesLink, "first"));
+		verify(client, times(2)).getPages(registriesLink);
+	}
+
+	public void testDeletedRegistryNotFound() throws ClientException {
+		Link deleted = link(REGISTRIES_URI + "/1");
+		IndexPages stalePages = pages("first", deleted);
+		IndexPages freshPages = pages("other", link(REGISTRIES_URI + "/2"));
+		when(client.getPages(registriesLink)).thenReturn(stalePages,
+				freshPages);
+		when(client.<Registry> get(deleted)).thenThrow(
+				new ClientException("Not found: 404"));
+
+		try {
+			directory.getRegistryNamed(client, registriesLink, "first");
+			fail();
+		} catch (ClientException ce) {
+			assertEquals("No registry named: first", ce.getMessage());
+		}
+	}
+}
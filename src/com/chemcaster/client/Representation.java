@@ -45,6 +45,7 @@ public abstract class Representation {
 
 	private static final String MEDIA_TYPE_PREFIX = "application/vnd.com.chemcaster.";
 	private static final String MEDIA_TYPE_SUFFIX = "+json";
+	private static final String ERROR_COPY = "Unable to copy representation: ";
 
 	protected static final String CHEMCASTER_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss z";
 	protected static final String INDEX_TAG = "index";
@@ -54,15 +55,26 @@ public abstract class Representation {
 	Link selfLink;
 	UsernamePasswordCredentials credentials;
 	JSONObject restContent;
-	String myLowerCaseName;
-	HashSet<String> attributeSet = new HashSet<String>();
-	HashSet<String> resourceSet = new HashSet<String>();
+	Schema schema;
+
+	// size of the JSON this was decoded from, 0 if not decoded from a response
+	long contentBytes;
 
 	/**
-	 * Instantiates a new representation.
+	 * Instantiates a new representation, with no attribute or resource keys.
 	 */
 	public Representation() {
-		myLowerCaseName = simpleClassName().toLowerCase();
+		schema = Schema.of(getClass());
+	}
+
+	/**
+	 * Instantiates a new representation with the shared schema of its class.
+	 * 
+	 * @param classSchema
+	 *            the schema
+	 */
+	Representation(Schema classSchema) {
+		schema = classSchema;
 	}
 
 	/**
@@ -79,6 +91,30 @@ public abstract class Representation {
 		restContent = newRestContent;
 	}
 
+	/**
+	 * A copy of this representation, decoded again from its JSON, so changes
+	 * to one are not seen through the other. The client hands out copies of
+	 * the representations it caches or shares between callers.
+	 * 
+	 * @return the copy
+	 * 
+	 * @throws ClientException
+	 *             if the copy cannot be decoded
+	 */
+	Representation copy() throws ClientException {
+		Representation copy = LocalMediaType
+				.createRepresentationInstance(selfLink.getMediaTypeString());
+		try {
+			copy.populate(selfLink, restContent == null ? null
+					: new JSONObject(restContent.toString()));
+		} catch (JSONException je) {
+			throw new ClientException(ERROR_COPY + je.getMessage());
+		}
+		copy.schema = schema;
+		copy.contentBytes = contentBytes;
+		return copy;
+	}
+
 	/**
 	 * Gets this representation's original link.
 	 * 
@@ -114,15 +150,14 @@ public abstract class Representation {
 	}
 
 	/**
-	 * Adds the new attribute list.
+	 * Adds the new attribute list. The keys of a class belong in its shared
+	 * Schema; adding keys to an instance gives it a private copy.
 	 * 
 	 * @param keys
 	 *            the array of attribute keys
 	 */
 	protected void addNewAttributeList(String[] keys) {
-		for (String key : keys) {
-			attributeSet.add(key);
-		}
+		schema = schema.withAttributes(keys);
 	}
 
 	/**
@@ -132,7 +167,7 @@ public abstract class Representation {
 	 *            the attribute key
 	 */
 	protected void addNewAttribute(String key) {
-		attributeSet.add(key);
+		schema = schema.withAttributes(key);
 	}
 
 	/**
@@ -142,9 +177,7 @@ public abstract class Representation {
 	 *            the array of resource keys
 	 */
 	protected void addNewResourceList(String[] keys) {
-		for (String key : keys) {
-			resourceSet.add(key);
-		}
+		schema = schema.withResources(keys);
 	}
 
 	/**
@@ -154,7 +187,7 @@ public abstract class Representation {
 	 *            the resource key
 	 */
 	protected void addNewResource(String key) {
-		resourceSet.add(key);
+		schema = schema.withResources(key);
 	}
 
 	/**
@@ -184,9 +217,12 @@ public abstract class Representation {
 	 */
 	@SuppressWarnings("unchecked")
 	protected <T extends Object> T getAttribute(String key) {
+		if (!schema.isAttribute(key)) {
+			return null;
+		}
 		JSONObject attributes = (JSONObject) uncheckedGetObjectFromJSON(
-				myLowerCaseName, restContent);
-		return (T) getObjectFromJSON(key, attributes, attributeSet);
+				schema.getLowerCaseName(), restContent);
+		return (T) uncheckedGetObjectFromJSON(key, attributes);
 	}
 
 	/**
@@ -199,7 +235,10 @@ public abstract class Representation {
 	 */
 	@SuppressWarnings("unchecked")
 	protected <T extends Object> T getResource(String key) {
-		return (T) getObjectFromJSON(key, restContent, resourceSet);
+		if (!schema.isResource(key)) {
+			return null;
+		}
+		return (T) uncheckedGetObjectFromJSON(key, restContent);
 	}
 
 	/**
@@ -0,0 +1,313 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Class RepresentationCache. An optional in-memory cache of the
+ * representations a client GETs, keyed by URI, media type and user, so
+ * repeated reads of the same registry, query or substance are answered
+ * locally. The cache is bounded by the size of the JSON it holds, evicting
+ * the least recently used entries first, and each media type can have its
+ * own time to live. A PUT, POST or DELETE to a URI drops its entries.
+ * <p>
+ * Entries that came with an ETag or Last-Modified validator are kept once
+ * they expire, so the client can revalidate them with a conditional GET; a
+ * 304 Not Modified response then renews the entry without downloading or
+ * parsing the body again.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class RepresentationCache {
+
+	private final long maxBytes;
+	private final ClientConfiguration configuration;
+	private final CacheKeys keys;
+
+	// access ordered, so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, CachedRepresentation> entries = new LinkedHashMap<String, CachedRepresentation>(
+			16, 0.75f, true);
+	private long totalBytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long revalidations;
+
+	/**
+	 * Instantiates a new representation cache with the size and times to
+	 * live of a configuration.
+	 * 
+	 * @param newConfiguration
+	 *            the client configuration
+	 * @param newKeys
+	 *            the keys of the client
+	 */
+	RepresentationCache(ClientConfiguration newConfiguration,
+			CacheKeys newKeys) {
+		configuration = newConfiguration;
+		keys = newKeys;
+		maxBytes = configuration.getRepresentationCacheMaxBytes();
+	}
+
+	/**
+	 * Checks if this cache keeps representations at all.
+	 * 
+	 * @return true, if enabled
+	 */
+	public boolean isEnabled() {
+		return maxBytes > 0;
+	}
+
+	/**
+	 * Gets a cached representation that has not expired.
+	 * 
+	 * @param aLink
+	 *            the link the representation was read from
+	 * 
+	 * @return the representation, or null
+	 */
+	Representation get(Link aLink) {
+		CachedRepresentation cached = lookup(aLink);
+		return cached != null && cached.isFresh() ? cached.representation
+				: null;
+	}
+
+	/**
+	 * Look up a cached representation: a fresh one, or an expired one that
+	 * can be revalidated. Expired entries without validators are dropped.
+	 * 
+	 * @param aLink
+	 *            the link the representation was read from
+	 * 
+	 * @return the entry, or null
+	 */
+	synchronized CachedRepresentation lookup(Link aLink) {
+		if (!isEnabled()) {
+			return null;
+		}
+		String key = keys.key(aLink);
+		CachedRepresentation cached = entries.get(key);
+		if (cached == null) {
+			misses++;
+			return null;
+		}
+		if (cached.isFresh()) {
+			hits++;
+			return cached;
+		}
+		misses++;
+		if (!cached.hasValidators()) {
+			remove(key);
+			return null;
+		}
+		return cached;
+	}
+
+	/**
+	 * Renew an entry after the server answered its conditional GET with 304
+	 * Not Modified.
+	 * 
+	 * @param aLink
+	 *            the link the representation was read from
+	 * @param cached
+	 *            the entry that was revalidated
+	 */
+	synchronized void revalidated(Link aLink, CachedRepresentation cached) {
+		revalidations++;
+		if (entries.get(keys.key(aLink)) == cached) {
+			cached.expiresAt = System.currentTimeMillis()
+					+ configuration.getRepresentationCacheTTLMillis(aLink
+							.getMediaTypeString());
+		}
+	}
+
+	/**
+	 * Cache a representation, evicting the least recently used entries until
+	 * it fits. Representations without JSON content, or larger than the whole
+	 * cache are not cached, nor are those of a media type with no time to
+	 * live unless they can be revalidated.
+	 * 
+	 * @param aLink
+	 *            the link the representation was read from
+	 * @param representation
+	 *            the representation
+	 * @param eTag
+	 *            the ETag of the response, or null
+	 * @param lastModified
+	 *            the Last-Modified date of the response, or null
+	 * 
+	 * @return true, if the representation was cached
+	 */
+	synchronized boolean put(Link aLink, Representation representation,
+			String eTag, String lastModified) {
+		long bytes = representation.contentBytes;
+		if (!isEnabled() || bytes <= 0 || bytes > maxBytes) {
+			return false;
+		}
+		long ttl = configuration.getRepresentationCacheTTLMillis(aLink
+				.getMediaTypeString());
+		if (ttl <= 0 && eTag == null && lastModified == null) {
+			return false;
+		}
+		String key = keys.key(aLink);
+		remove(key);
+		while (totalBytes + bytes > maxBytes && !entries.isEmpty()) {
+			Iterator<CachedRepresentation> eldest = entries.values()
+					.iterator();
+			totalBytes -= eldest.next().bytes;
+			eldest.remove();
+			evictions++;
+		}
+		entries.put(key, new CachedRepresentation(representation, bytes,
+				System.currentTimeMillis() + ttl, eTag, lastModified));
+		totalBytes += bytes;
+		return true;
+	}
+
+	/**
+	 * Drop every entry for a URI, for all media types and users.
+	 * 
+	 * @param uri
+	 *            the uri
+	 */
+	public synchronized void invalidate(String uri) {
+		if (uri == null || entries.isEmpty()) {
+			return;
+		}
+		Iterator<Map.Entry<String, CachedRepresentation>> it = entries
+				.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, CachedRepresentation> entry = it.next();
+			if (CacheKeys.isKeyFor(entry.getKey(), uri)) {
+				totalBytes -= entry.getValue().bytes;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drop every entry. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		totalBytes = 0;
+	}
+
+	/**
+	 * Gets the number of cached representations.
+	 * 
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the total size of the cached JSON.
+	 * 
+	 * @return the weight in bytes
+	 */
+	public synchronized long getWeight() {
+		return totalBytes;
+	}
+
+	/**
+	 * Gets the number of GETs answered from the cache.
+	 * 
+	 * @return the hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of GETs that went to the server while the cache was
+	 * enabled, including those for expired entries.
+	 * 
+	 * @return the misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of expired entries renewed by a 304 Not Modified
+	 * response, each a body that did not need to be downloaded again.
+	 * 
+	 * @return the revalidations
+	 */
+	public synchronized long getRevalidations() {
+		return revalidations;
+	}
+
+	/**
+	 * Gets the number of entries evicted to make room for others.
+	 * 
+	 * @return the evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	private void remove(String key) {
+		CachedRepresentation removed = entries.remove(key);
+		if (removed != null) {
+			totalBytes -= removed.bytes;
+		}
+	}
+
+	/**
+	 * A cached representation with its validators.
+	 */
+	static class CachedRepresentation {
+		final Representation representation;
+		final long bytes;
+		final String eTag;
+		final String lastModified;
+		volatile long expiresAt;
+
+		CachedRepresentation(Representation newRepresentation, long newBytes,
+				long newExpiresAt, String newETag, String newLastModified) {
+			representation = newRepresentation;
+			bytes = newBytes;
+			expiresAt = newExpiresAt;
+			eTag = newETag;
+			lastModified = newLastModified;
+		}
+
+		boolean isFresh() {
+			return expiresAt > System.currentTimeMillis();
+		}
+
+		boolean hasValidators() {
+			return eTag != null || lastModified != null;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class RepresentationCacheTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+	private static final String INDEX_TYPE = "application/vnd.com.chemcaster.Index+json";
+	private static final String URI = "https://chemcaster.com/registries/";
+
+	private final UsernamePasswordCredentials alice = new UsernamePasswordCredentials(
+			"alice", "a");
+	private final CacheKeys keys = new CacheKeys();
+	private ClientConfiguration configuration;
+
+	@Override
+	protected void setUp() {
+		configuration = new ClientConfiguration();
+		configuration.setRepresentationCacheMaxBytes(100);
+	}
+
+	private Link link(String mediaType, int n, UsernamePasswordCredentials id) {
+		return Link.create(mediaType, URI + n, id);
+	}
+
+	private Representation registry(long bytes) {
+		Registry r = new Registry();
+		r.contentBytes = bytes;
+		return r;
+	}
+
+	public void testOffByDefault() {
+		RepresentationCache cache = new RepresentationCache(
+				new ClientConfiguration(), keys);
+		cache.put(link(REGISTRY_TYPE, 1, alice), registry(10), null, null);
+		assertFalse(cache.isEnabled());
+		assertEquals(0, cache.size());
+	}
+
+	public void testHitAndMiss() {
+		RepresentationCache cache = new RepresentationCache(configuration, keys);
+		Representation r = registry(10);
+		assertNull(cache.get(link(REGISTRY_TYPE, 1, alice)));
+		cache.put(link(REGISTRY_TYPE, 1, alice), r, null, null);
+		assertSame(r, cache.get(link(REGISTRY_TYPE, 1, alice)));
+		assertNull(cache.get(link(INDEX_TYPE, 1, alice)));
+		assertNull(cache.get(link(REGISTRY_TYPE, 1,
+				new UsernamePasswordCredentials("alice", "wrong"))));
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+	}
+
+	public void testLeastRecentlyUsedEvicted() {
+		RepresentationCache cache = new RepresentationCache(configuration, keys);
+		cache.put(link(REGISTRY_TYPE, 1, alice), registry(40), null, null);
+		cache.put(link(REGISTRY_TYPE, 2, alice), registry(40), null, null);
+		cache.get(link(REGISTRY_TYPE, 1, alice));
+		cache.put(link(REGISTRY_TYPE, 3, alice), registry(40), null, null);
+
+		assertEquals(2, cache.size());
+		assertEquals(80, cache.getWeight());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get(link(REGISTRY_TYPE, 2, alice)));
+		assertNotNull(cache.get(link(REGISTRY_TYPE, 1, alice)));
+	}
+
+	public void testTooLargeOrUndecodedNotCached() {
+		RepresentationCache cache = new RepresentationCache(configuration, keys);
+		cache.put(link(REGISTRY_TYPE, 1, alice), registry(101), null, null);
+		cache.put(link(REGISTRY_TYPE, 2, alice), registry(0), null, null);
+		assertEquals(0, cache.size());
+	}
+
+	public void testPerTypeTTL() throws InterruptedException {
+		configuration.setRepresentationCacheTTLMillis(INDEX_TYPE, 0);
+		configuration.setRepresentationCacheTTLMillis(REGISTRY_TYPE, 1);
+		RepresentationCache cache = new RepresentationCache(configuration, keys);
+		Index index = new Index();
+		index.contentBytes = 10;
+		cache.put(link(INDEX_TYPE, 1, alice), index, null, null);
+		assertEquals(0, cache.size());
+
+		cache.put(link(REGISTRY_TYPE, 1, alice), registry(10), null, null);
+		Thread.sleep(10);
+		assertNull(cache.get(link(REGISTRY_TYPE, 1, alice)));
+		assertEquals(0, cache.getWeight());
+	}
+
+	public void testInvalidate() {
+		RepresentationCache cache = new RepresentationCache(configuration, keys);
+		cache.put(link(REGISTRY_TYPE, 1, alice), registry(10), null, null);
+		cache.put(link(INDEX_TYPE, 1, alice), registry(10), null, null);
+		cache.put(link(REGISTRY_TYPE, 11, alice), registry(10), null, null);
+		cache.invalidate(URI + 1);
+		assertEquals(1, cache.size());
+		assertEquals(10, cache.getWeight());
+	}
+
+	public void testExpiredWithValidatorsKept() throws InterruptedException {
+		configuration.setRepresentationCacheTTLMillis(0);
+		RepresentationCache cache = new RepresentationCache(configuration, keys);
+		Link aLink = link(REGISTRY_TYPE, 1, alice);
+		cache.put(aLink, registry(10), "\"v1\"", null);
+		cache.put(link(REGISTRY_TYPE, 2, alice), registry(10), null, null);
+		assertEquals(1, cache.size());
+
+		RepresentationCache.CachedRepresentation stale = cache.lookup(aLink);
+		assertFalse(stale.isFresh());
+		assertNull(cache.get(aLink));
+
+		configuration.setRepresentationCacheTTLMillis(60000);
+		cache.revalidated(aLink, stale);
+		assertNotNull(cache.get(aLink));
+		assertEquals(1, cache.getRevalidations());
+	}
+
+	public void testNotModifiedReturnsCached() throws Exception {
+		configuration.setRepresentationCacheTTLMillis(REGISTRY_TYPE, 0);
+		final ArrayList<TransportRequest> requests = new ArrayList<TransportRequest>();
+		Transport transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation)
+							throws IOException {
+						requests.add((TransportRequest) invocation
+								.getArguments()[0]);
+						return requests.size() == 1 ? response(200)
+								: response(304);
+					}
+				});
+		ChemcasterClient client = new ChemcasterClient(configuration,
+				transport);
+		Link aLink = link(REGISTRY_TYPE, 1, alice);
+
+		Registry first = client.get(aLink);
+		Registry second = client.get(aLink);
+		assertNotSame(first, second);
+		assertEquals(first.restContent.toString(), second.restContent
+				.toString());
+		assertEquals(2, requests.size());
+		assertNull(requests.get(0).getHeaders().get("If-None-Match"));
+		assertEquals("\"v1\"", requests.get(1).getHeaders().get(
+				"If-None-Match"));
+		assertEquals(1, client.getRepresentationCache().getRevalidations());
+		client.shutdown();
+	}
+
+	public void testCallersGetOwnCopies() throws Exception {
+		configuration.setRepresentationCacheTTLMillis(60000);
+		final ArrayList<TransportRequest> requests = new ArrayList<TransportRequest>();
+		Transport transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenAnswer(
+				new Answer<TransportResponse>() {
+					public TransportResponse answer(InvocationOnMock invocation)
+							throws IOException {
+						requests.add((TransportRequest) invocation
+								.getArguments()[0]);
+						return response(200);
+					}
+				});
+		ChemcasterClient client = new ChemcasterClient(configuration,
+				transport);
+		Link aLink = link(REGISTRY_TYPE, 1, alice);
+
+		Registry first = client.get(aLink);
+		first.restContent.put("changed", true);
+		Registry second = client.get(aLink);
+		assertEquals(1, client.getRepresentationCache().getHits());
+		assertFalse(second.restContent.has("changed"));
+		second.populate(link(REGISTRY_TYPE, 2, alice), second.restContent);
+		Registry third = client.get(aLink);
+		assertEquals(aLink.getURI(), third.getLinkToSelf().getURI());
+		assertEquals(1, requests.size());
+		client.shutdown();
+	}
+
+	private static TransportResponse response(int status) throws IOException {
+		TransportResponse response = mock(TransportResponse.class);
+		when(response.getStatusCode()).thenReturn(status);
+		when(response.getStatusLine()).thenReturn("HTTP/1.1 " + status);
+		when(response.getHeader("ETag")).thenReturn("\"v1\"");
+		when(response.getContent()).thenReturn(
+				new ByteArrayInputStream("{\"registry\":{}}".getBytes()));
+		return response;
+	}
+}
@@ -0,0 +1,112 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Class ResumableScan. The hits of a query execution, page by page as in
+ * ExecutionResults, with progress committed to a ScanCheckpoint each time the
+ * caller has been handed every hit of a page. Iteration starts from the
+ * cursor of the last commit for the query, so a crashed or redeployed job
+ * continues where it stopped; a page in progress at the crash is returned
+ * again. A checkpoint of another query is overwritten by the first commit,
+ * and a completed scan returns no hits until the checkpoint is reset.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class ResumableScan extends ExecutionResults {
+
+	private static final String ERROR_COMMIT = "Unable to commit scan progress: ";
+
+	private final ChemcasterClient client;
+	private final Query query;
+	private final Number maximumResults;
+	private final ScanCheckpoint checkpoint;
+
+	/**
+	 * Instantiates a new resumable scan of a query.
+	 * 
+	 * @param newClient
+	 *            the client that posts for the pages
+	 * @param scannedQuery
+	 *            the query to execute
+	 * @param pageSize
+	 *            the maximum results per page
+	 * @param scanCheckpoint
+	 *            the checkpoint to resume from and commit to
+	 * @param pagesAhead
+	 *            the number of pages to fetch ahead of the caller, 0 for none
+	 */
+	public ResumableScan(ChemcasterClient newClient, Query scannedQuery,
+			Number pageSize, ScanCheckpoint scanCheckpoint, int pagesAhead) {
+		super(newClient, null, pagesAhead);
+		client = newClient;
+		query = scannedQuery;
+		maximumResults = pageSize;
+		checkpoint = scanCheckpoint;
+	}
+
+	/**
+	 * Gets the checkpoint.
+	 * 
+	 * @return the checkpoint
+	 */
+	public ScanCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
+
+	@Override
+	CompletableFuture<Execution> firstPage() {
+		String cursor = null;
+		if (checkpoint.isResumable(getQueryURI())) {
+			if (checkpoint.isComplete()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			cursor = checkpoint.getCursor();
+		}
+		try {
+			return client.executeQueryAsync(query.getExecutionsLink(), cursor,
+					null, maximumResults);
+		} catch (ClientException ce) {
+			return CompletableFuture.<Execution> failedFuture(ce);
+		}
+	}
+
+	@Override
+	void pageConsumed(Execution page) {
+		try {
+			checkpoint.commit(getQueryURI(), page.getNextCursor());
+		} catch (ClientException ce) {
+			throw new ClientRuntimeException(ERROR_COMMIT + ce.getMessage());
+		}
+	}
+
+	private String getQueryURI() {
+		return query.getLinkToSelf().getURI();
+	}
+}
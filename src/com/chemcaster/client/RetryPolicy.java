@@ -0,0 +1,243 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.http.HttpStatus;
+
+/**
+ * The Class RetryPolicy. When and how often a client retries a request that
+ * failed with an IOException or a transient status (429, 500, 502, 503,
+ * 504). GET, PUT and DELETE are retried by default; POST, which may create a
+ * resource twice, only when allowed. Retries wait a capped exponential
+ * backoff with full jitter, or as long as a Retry-After header asks on a 429
+ * or 503.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class RetryPolicy {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 200;
+	public static final long DEFAULT_MAX_BACKOFF_MILLIS = 10 * 1000;
+	public static final long NO_RETRY_AFTER = -1;
+
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+
+	private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private volatile long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+	private volatile long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+	private volatile boolean retryPost = false;
+
+	/**
+	 * Instantiates a new retry policy with the default attempts and backoff.
+	 */
+	public RetryPolicy() {
+	}
+
+	/**
+	 * Instantiates a new retry policy with the default backoff.
+	 * 
+	 * @param newMaxAttempts
+	 *            the number of attempts, including the first; 1 never retries
+	 */
+	public RetryPolicy(int newMaxAttempts) {
+		maxAttempts = newMaxAttempts;
+	}
+
+	/**
+	 * Gets the number of attempts, including the first.
+	 * 
+	 * @return the max attempts
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Sets the number of attempts, including the first.
+	 * 
+	 * @param attempts
+	 *            the max attempts; 1 never retries
+	 */
+	public void setMaxAttempts(int attempts) {
+		maxAttempts = attempts;
+	}
+
+	/**
+	 * Gets the backoff cap before the first retry.
+	 * 
+	 * @return the initial backoff in milliseconds
+	 */
+	public long getInitialBackoffMillis() {
+		return initialBackoffMillis;
+	}
+
+	/**
+	 * Sets the backoff cap before the first retry. The cap doubles for each
+	 * further retry.
+	 * 
+	 * @param millis
+	 *            the initial backoff in milliseconds
+	 */
+	public void setInitialBackoffMillis(long millis) {
+		initialBackoffMillis = millis;
+	}
+
+	/**
+	 * Gets the longest wait before a retry.
+	 * 
+	 * @return the max backoff in milliseconds
+	 */
+	public long getMaxBackoffMillis() {
+		return maxBackoffMillis;
+	}
+
+	/**
+	 * Sets the longest wait before a retry. A Retry-After asking for longer
+	 * gives up instead.
+	 * 
+	 * @param millis
+	 *            the max backoff in milliseconds
+	 */
+	public void setMaxBackoffMillis(long millis) {
+		maxBackoffMillis = millis;
+	}
+
+	/**
+	 * Checks if POST requests are retried.
+	 * 
+	 * @return true, if POST is retried
+	 */
+	public boolean isRetryPost() {
+		return retryPost;
+	}
+
+	/**
+	 * Sets whether POST requests are retried. Only allow this when creating a
+	 * resource twice does no harm.
+	 * 
+	 * @param retry
+	 *            true to retry POST
+	 */
+	public void setRetryPost(boolean retry) {
+		retryPost = retry;
+	}
+
+	/**
+	 * Checks if requests with a method may be retried.
+	 * 
+	 * @param method
+	 *            the HTTP verb
+	 * 
+	 * @return true, if retryable
+	 */
+	public boolean isRetryable(String method) {
+		return maxAttempts > 1
+				&& (!TransportRequest.POST.equals(method) || retryPost);
+	}
+
+	/**
+	 * Checks if a response status is transient, and worth a retry.
+	 * 
+	 * @param statusCode
+	 *            the status code
+	 * 
+	 * @return true, if retryable
+	 */
+	public boolean isRetryableStatus(int statusCode) {
+		return statusCode == SC_TOO_MANY_REQUESTS
+				|| statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR
+				|| statusCode == HttpStatus.SC_BAD_GATEWAY
+				|| statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
+				|| statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+	}
+
+	/**
+	 * Checks if a status may carry a Retry-After header.
+	 * 
+	 * @param statusCode
+	 *            the status code
+	 * 
+	 * @return true, for 429 and 503
+	 */
+	public boolean honorsRetryAfter(int statusCode) {
+		return statusCode == SC_TOO_MANY_REQUESTS
+				|| statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE;
+	}
+
+	/**
+	 * Gets a jittered wait before a retry: a random time up to the initial
+	 * backoff doubled for each earlier retry, capped at the max backoff.
+	 * 
+	 * @param retry
+	 *            the retry number, from 1
+	 * 
+	 * @return the wait in milliseconds
+	 */
+	public long backoffMillis(int retry) {
+		long cap = initialBackoffMillis;
+		for (int i = 1; i < retry && cap < maxBackoffMillis; i++) {
+			cap *= 2;
+		}
+		cap = Math.min(cap, maxBackoffMillis);
+		return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+	}
+
+	/**
+	 * Parse a Retry-After header, either delay seconds or an HTTP date.
+	 * 
+	 * @param header
+	 *            the header value, or null
+	 * @param nowMillis
+	 *            the current time, for HTTP dates
+	 * 
+	 * @return the wait in milliseconds, or NO_RETRY_AFTER
+	 */
+	static long retryAfterMillis(String header, long nowMillis) {
+		if (header == null) {
+			return NO_RETRY_AFTER;
+		}
+		String value = header.trim();
+		try {
+			return Math.max(0, Long.parseLong(value) * 1000);
+		} catch (NumberFormatException nfe) {
+		}
+		try {
+			long at = ZonedDateTime.parse(value,
+					DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+					.toEpochMilli();
+			return Math.max(0, at - nowMillis);
+		} catch (DateTimeParseException dtpe) {
+			return NO_RETRY_AFTER;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class RetryPolicyTest extends TestCase {
+
+	private static final String REGISTRY_TYPE = "application/vnd.com.chemcaster.Registry+json";
+
+	private final Link aLink = Link.create(REGISTRY_TYPE,
+			"https://chemcaster.com/registries/1",
+			new UsernamePasswordCredentials("alice", "a"));
+
+	public void testMethods() {
+		RetryPolicy policy = new RetryPolicy();
+		assertTrue(policy.isRetryable(TransportRequest.GET));
+		assertTrue(policy.isRetryable(TransportRequest.PUT));
+		assertTrue(policy.isRetryable(TransportRequest.DELETE));
+		assertFalse(policy.isRetryable(TransportRequest.POST));
+		policy.setRetryPost(true);
+		assertTrue(policy.isRetryable(TransportRequest.POST));
+		assertFalse(new RetryPolicy(1).isRetryable(TransportRequest.GET));
+	}
+
+	public void testStatuses() {
+		RetryPolicy policy = new RetryPolicy();
+		assertTrue(policy.isRetryableStatus(503));
+		assertTrue(policy.isRetryableStatus(429));
+		assertFalse(policy.isRetryableStatus(404));
+		assertFalse(policy.isRetryableStatus(200));
+	}
+
+	public void testBackoffCapped() {
+		RetryPolicy policy = new RetryPolicy();
+		policy.setInitialBackoffMillis(100);
+		policy.setMaxBackoffMillis(300);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(policy.backoffMillis(1) <= 100);
+			assertTrue(policy.backoffMillis(2) <= 200);
+			long wait = policy.backoffMillis(30);
+			assertTrue(wait >= 0 && wait <= 300);
+		}
+	}
+
+	public void testRetryAfter() {
+		assertEquals(RetryPolicy.NO_RETRY_AFTER, RetryPolicy.retryAfterMillis(
+				null, 0));
+		assertEquals(RetryPolicy.NO_RETRY_AFTER, RetryPolicy.retryAfterMillis(
+				"soon", 0));
+		assertEquals(5000, RetryPolicy.retryAfterMillis(" 5 ", 0));
+		long now = 784111777000L - 2000; // Sun, 06 Nov 1994 08:49:37 GMT
+		assertEquals(2000, RetryPolicy.retryAfterMillis(
+				"Sun, 06 Nov 1994 08:49:37 GMT", now));
+	}
+
+	public void testClientRetriesTransientFailures() throws Exception {
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.getRetryPolicy().setInitialBackoffMillis(1);
+		Transport transport = mock(Transport.class);
+		TransportResponse unavailable = response(503);
+		when(unavailable.getHeader("Retry-After")).thenReturn("0");
+		TransportResponse ok = response(200);
+		when(transport.execute(any(TransportRequest.class))).thenThrow(
+				new IOException("reset")).thenReturn(unavailable).thenReturn(
+				ok);
+		ChemcasterClient client = new ChemcasterClient(configuration,
+				transport);
+
+		Registry r = client.get(aLink);
+		assertNotNull(r);
+		verify(unavailable).release();
+		assertEquals(3, client.getRequestAttempts());
+		assertEquals(2, client.getRetries());
+		assertEquals(0, client.getRetryGiveUps());
+		client.shutdown();
+	}
+
+	public void testClientGivesUp() throws Exception {
+		ClientConfiguration configuration = new ClientConfiguration();
+		configuration.setRetryPolicy(new RetryPolicy(2));
+		configuration.getRetryPolicy().setInitialBackoffMillis(1);
+		Transport transport = mock(Transport.class);
+		TransportResponse serverError = response(500);
+		when(transport.execute(any(TransportRequest.class))).thenReturn(
+				serverError);
+		ChemcasterClient client = new ChemcasterClient(configuration,
+				transport);
+
+		try {
+			client.get(aLink);
+			fail();
+		} catch (ClientException ce) {
+		}
+		try {
+			client.post(aLink);
+			fail();
+		} catch (ClientException ce) {
+		}
+		verify(transport, times(3)).execute(any(TransportRequest.class));
+		assertEquals(1, client.getRetries());
+		assertEquals(1, client.getRetryGiveUps());
+		client.shutdown();
+	}
+
+	private static TransportResponse response(int status) throws IOException {
+		TransportResponse response = mock(TransportResponse.class);
+		when(response.getStatusCode()).thenReturn(status);
+		when(response.getStatusLine()).thenReturn("HTTP/1.1 " + status);
+		when(response.getContent()).thenReturn(
+				new ByteArrayInputStream("{\"registry\":{}}".getBytes()));
+		return response;
+	}
+}
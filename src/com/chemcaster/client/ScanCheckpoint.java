@@ -0,0 +1,253 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The Class ScanCheckpoint. The progress of an execution result scan, kept in
+ * a small local file so a restarted job can resume where it stopped. A commit
+ * records the query URI, the next_cursor of the last fully consumed page and
+ * the number of pages consumed so far.
+ * <p>
+ * Each commit writes a temporary file and renames it over the checkpoint, so
+ * the file always holds one complete commit. How often the file is forced to
+ * disk is set by the sync interval: every commit, every n-th commit, or never,
+ * leaving it to the operating system. A crash can lose the commits since the
+ * last sync, so the scan then repeats those pages.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class ScanCheckpoint {
+
+	/** Never force the checkpoint to disk. */
+	public static final int NO_SYNC = 0;
+
+	/** Force the checkpoint to disk on every commit. */
+	public static final int SYNC_EVERY_PAGE = 1;
+
+	private static final String ERROR_READ = "Unable to read the scan checkpoint ";
+	private static final String ERROR_WRITE = "Unable to write the scan checkpoint ";
+	private static final String ERROR_CORRUPT = "Corrupt scan checkpoint ";
+
+	private static final String QUERY_KEY = "query";
+	private static final String CURSOR_KEY = "cursor";
+	private static final String PAGES_KEY = "pages";
+	private static final String COMPLETE_KEY = "complete";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private final File file;
+	private final int syncInterval;
+
+	private String queryURI;
+	private String cursor;
+	private long pageCount;
+	private boolean complete;
+	private int unsyncedCommits;
+
+	/**
+	 * Opens a checkpoint file, reading the last commit if the file exists.
+	 * 
+	 * @param checkpointFile
+	 *            the checkpoint file
+	 * @param commitsPerSync
+	 *            force the file to disk every this many commits, NO_SYNC for
+	 *            never
+	 * 
+	 * @throws ClientException
+	 *             if an existing checkpoint cannot be read
+	 */
+	public ScanCheckpoint(File checkpointFile, int commitsPerSync)
+			throws ClientException {
+		file = checkpointFile;
+		syncInterval = commitsPerSync;
+		if (file.exists()) {
+			load();
+		}
+	}
+
+	/**
+	 * Gets the checkpoint file.
+	 * 
+	 * @return the file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the URI of the scanned query.
+	 * 
+	 * @return the query URI, or null if nothing has been committed
+	 */
+	public synchronized String getQueryURI() {
+		return queryURI;
+	}
+
+	/**
+	 * Gets the cursor the scan resumes from.
+	 * 
+	 * @return the next_cursor of the last consumed page, or null to start
+	 *         from the first page
+	 */
+	public synchronized String getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * Gets the number of pages consumed.
+	 * 
+	 * @return the page count
+	 */
+	public synchronized long getPageCount() {
+		return pageCount;
+	}
+
+	/**
+	 * Checks if the scan ran to the last page.
+	 * 
+	 * @return true if the scan is complete
+	 */
+	public synchronized boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Checks if the checkpoint holds progress of a query.
+	 * 
+	 * @param uri
+	 *            the URI of the query
+	 * 
+	 * @return true if a commit for the query exists
+	 */
+	public synchronized boolean isResumable(String uri) {
+		return queryURI != null && queryURI.equals(uri);
+	}
+
+	/**
+	 * Records a consumed page.
+	 * 
+	 * @param uri
+	 *            the URI of the scanned query
+	 * @param nextCursor
+	 *            the next_cursor of the page, null or empty on the last page
+	 * 
+	 * @throws ClientException
+	 *             if the checkpoint cannot be written
+	 */
+	public synchronized void commit(String uri, String nextCursor)
+			throws ClientException {
+		if (!isResumable(uri)) {
+			pageCount = 0;
+		}
+		queryURI = uri;
+		complete = nextCursor == null || nextCursor.length() == 0;
+		cursor = complete ? null : nextCursor;
+		pageCount++;
+		boolean sync = complete
+				|| (syncInterval > 0 && ++unsyncedCommits >= syncInterval);
+		write(sync);
+		if (sync) {
+			unsyncedCommits = 0;
+		}
+	}
+
+	/**
+	 * Forgets all progress and deletes the checkpoint file, so the next scan
+	 * starts from the first page.
+	 * 
+	 * @throws ClientException
+	 *             if the file cannot be deleted
+	 */
+	public synchronized void reset() throws ClientException {
+		queryURI = null;
+		cursor = null;
+		pageCount = 0;
+		complete = false;
+		unsyncedCommits = 0;
+		try {
+			Files.deleteIfExists(file.toPath());
+		} catch (IOException ioe) {
+			throw new ClientException(ERROR_WRITE + file + ": "
+					+ ioe.getMessage());
+		}
+	}
+
+	private void load() throws ClientException {
+		Properties commit = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			commit.load(in);
+		} catch (IOException ioe) {
+			throw new ClientException(ERROR_READ + file + ": "
+					+ ioe.getMessage());
+		}
+		queryURI = commit.getProperty(QUERY_KEY);
+		cursor = commit.getProperty(CURSOR_KEY);
+		complete = Boolean.parseBoolean(commit.getProperty(COMPLETE_KEY));
+		try {
+			pageCount = Long.parseLong(commit.getProperty(PAGES_KEY));
+		} catch (NumberFormatException nfe) {
+			throw new ClientException(ERROR_CORRUPT + file);
+		}
+		if (queryURI == null) {
+			throw new ClientException(ERROR_CORRUPT + file);
+		}
+	}
+
+	private void write(boolean sync) throws ClientException {
+		Properties commit = new Properties();
+		commit.setProperty(QUERY_KEY, queryURI);
+		if (cursor != null) {
+			commit.setProperty(CURSOR_KEY, cursor);
+		}
+		commit.setProperty(PAGES_KEY, Long.toString(pageCount));
+		commit.setProperty(COMPLETE_KEY, Boolean.toString(complete));
+
+		File temporary = new File(file.getPath() + TEMPORARY_SUFFIX);
+		try {
+			try (FileOutputStream out = new FileOutputStream(temporary)) {
+				commit.store(out, null);
+				if (sync) {
+					out.getFD().sync();
+				}
+			}
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ioe) {
+			throw new ClientException(ERROR_WRITE + file + ": "
+					+ ioe.getMessage());
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+import junit.framework.TestCase;
+
+import com.chemcaster.client.test.MockPages;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class ScanCheckpointTest extends TestCase {
+
+	private static final String QUERY_URI = "https://chemcaster.com/queries/1";
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		file = File.createTempFile("CCScanCheckpointTest", null);
+		file.delete();
+	}
+
+	@Override
+	protected void tearDown() {
+		file.delete();
+		new File(file.getPath() + ".tmp").delete();
+	}
+
+	public void testSurvivesReopen() throws ClientException {
+		ScanCheckpoint checkpoint = new ScanCheckpoint(file,
+				ScanCheckpoint.SYNC_EVERY_PAGE);
+		assertFalse(checkpoint.isResumable(QUERY_URI));
+		checkpoint.commit(QUERY_URI, "c1");
+		checkpoint.commit(QUERY_URI, "c2");
+
+		ScanCheckpoint reopened = new ScanCheckpoint(file,
+				ScanCheckpoint.NO_SYNC);
+		assertTrue(reopened.isResumable(QUERY_URI));
+		assertEquals("c2", reopened.getCursor());
+		assertEquals(2, reopened.getPageCount());
+		assertFalse(reopened.isComplete());
+	}
+
+	public void testLastPageCompletes() throws ClientException {
+		ScanCheckpoint checkpoint = new ScanCheckpoint(file, 10);
+		checkpoint.commit(QUERY_URI, "c1");
+		checkpoint.commit(QUERY_URI, null);
+		ScanCheckpoint reopened = new ScanCheckpoint(file, 10);
+		assertTrue(reopened.isComplete());
+		assertNull(reopened.getCursor());
+		assertEquals(2, reopened.getPageCount());
+	}
+
+	public void testOtherQueryRestartsCount() throws ClientException {
+		ScanCheckpoint checkpoint = new ScanCheckpoint(file,
+				ScanCheckpoint.NO_SYNC);
+		checkpoint.commit(QUERY_URI, "c1");
+		checkpoint.commit(QUERY_URI + "0", "d1");
+		assertFalse(checkpoint.isResumable(QUERY_URI));
+		assertEquals(1, checkpoint.getPageCount());
+	}
+
+	public void testReset() throws ClientException {
+		ScanCheckpoint checkpoint = new ScanCheckpoint(file,
+				ScanCheckpoint.NO_SYNC);
+		checkpoint.commit(QUERY_URI, "c1");
+		checkpoint.reset();
+		assertFalse(file.exists());
+		assertFalse(checkpoint.isResumable(QUERY_URI));
+		assertEquals(0, checkpoint.getPageCount());
+	}
+
+	public void testCorruptFile() throws IOException {
+		FileWriter writer = new FileWriter(file);
+		writer.write("pages=many\n");
+		writer.close();
+		try {
+			new ScanCheckpoint(file, ScanCheckpoint.NO_SYNC);
+			fail("expected a ClientException");
+		} catch (ClientException ce) {
+			assertTrue(ce.getMessage().startsWith("Corrupt"));
+		}
+	}
+
+	private Query query(Link executionsLink) throws ClientException {
+		Link selfLink = mock(Link.class);
+		when(selfLink.getURI()).thenReturn(QUERY_URI);
+		Query query = mock(Query.class);
+		when(query.getLinkToSelf()).thenReturn(selfLink);
+		when(query.getExecutionsLink()).thenReturn(executionsLink);
+		return query;
+	}
+
+	public void testScanResumesFromCommit() throws ClientException {
+		ChemcasterClient client = mock(ChemcasterClient.class);
+		Link executionsLink = mock(Link.class);
+		Query query = query(executionsLink);
+
+		// three pages of one hit each, reached with cursors null, c1 and c2
+		new MockPages(client, executionsLink, "hit", 3, 1);
+
+		ScanCheckpoint checkpoint = new ScanCheckpoint(file,
+				ScanCheckpoint.SYNC_EVERY_PAGE);
+		Iterator<Link> hits = new ResumableScan(client, query, 1, checkpoint,
+				0).iterator();
+		assertEquals("hit00", hits.next().getName());
+		assertEquals("hit10", hits.next().getName());
+		assertEquals(1, checkpoint.getPageCount());
+
+		// a new job resumes with the page that was in progress
+		ScanCheckpoint reopened = new ScanCheckpoint(file,
+				ScanCheckpoint.SYNC_EVERY_PAGE);
+		ResumableScan resumed = new ResumableScan(client, query, 1, reopened, 1);
+		hits = resumed.iterator();
+		assertEquals("hit10", hits.next().getName());
+		assertEquals("hit20", hits.next().getName());
+		assertFalse(hits.hasNext());
+		assertTrue(reopened.isComplete());
+		assertEquals(3, reopened.getPageCount());
+		assertEquals(0, resumed.stream().count());
+	}
+
+	public void testFailedPageCommittedOnce() throws ClientException {
+		ChemcasterClient client = mock(ChemcasterClient.class);
+		Link executionsLink = mock(Link.class);
+		Query query = query(executionsLink);
+		MockPages pages = new MockPages(client, executionsLink, "hit", 2, 1);
+
+		// the page read ahead for c1 fails once, then arrives
+		CompletableFuture<Execution> failed = new CompletableFuture<Execution>();
+		failed.completeExceptionally(new ClientException("Unexpected status"));
+		when(
+				client.executeQueryAsync(eq(executionsLink), eq("c1"),
+						any(Boolean.class), any(Number.class))).thenReturn(
+				failed, CompletableFuture.completedFuture(pages.getPage(1)));
+
+		ScanCheckpoint checkpoint = new ScanCheckpoint(file,
+				ScanCheckpoint.SYNC_EVERY_PAGE);
+		Iterator<Link> hits = new ResumableScan(client, query, 1, checkpoint,
+				1).iterator();
+		assertEquals("hit00", hits.next().getName());
+		try {
+			hits.hasNext();
+			fail("expected a ClientRuntimeException");
+		} catch (ClientRuntimeException cre) {
+			assertTrue(cre.getMessage().contains("Unexpected status"));
+		}
+		assertEquals(1, checkpoint.getPageCount());
+
+		// asking again commits nothing more and posts for the page again
+		assertEquals("hit10", hits.next().getName());
+		assertEquals(1, checkpoint.getPageCount());
+		assertFalse(hits.hasNext());
+		assertEquals(2, checkpoint.getPageCount());
+		assertTrue(checkpoint.isComplete());
+	}
+}
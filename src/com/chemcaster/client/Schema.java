@@ -0,0 +1,162 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The Class Schema. The immutable key metadata of a Representation class: the
+ * lower case class name that holds its attributes, and the valid attribute
+ * and resource keys. A class builds its schema once and every instance shares
+ * it.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+final class Schema {
+
+	private static final ClassValue<Schema> BASE_SCHEMAS = new ClassValue<Schema>() {
+		@Override
+		protected Schema computeValue(Class<?> type) {
+			String qualifiedName = type.getName();
+			String simpleName = qualifiedName.substring(qualifiedName
+					.lastIndexOf(".") + 1);
+			Set<String> noKeys = Collections.emptySet();
+			return new Schema(simpleName.toLowerCase(), noKeys, noKeys);
+		}
+	};
+
+	private final String lowerCaseName;
+	private final Set<String> attributeKeys;
+	private final Set<String> resourceKeys;
+
+	private Schema(String newLowerCaseName, Set<String> newAttributeKeys,
+			Set<String> newResourceKeys) {
+		lowerCaseName = newLowerCaseName;
+		attributeKeys = newAttributeKeys;
+		resourceKeys = newResourceKeys;
+	}
+
+	/**
+	 * Gets the schema of a class with no keys yet. The schema is created once
+	 * per class.
+	 * 
+	 * @param type
+	 *            the Representation class
+	 * 
+	 * @return the schema
+	 */
+	static Schema of(Class<?> type) {
+		return BASE_SCHEMAS.get(type);
+	}
+
+	/**
+	 * A copy of this schema with more attribute keys.
+	 * 
+	 * @param keys
+	 *            the attribute keys
+	 * 
+	 * @return the new schema
+	 */
+	Schema withAttributes(String... keys) {
+		return new Schema(lowerCaseName, addKeys(attributeKeys, keys),
+				resourceKeys);
+	}
+
+	/**
+	 * A copy of this schema with more resource keys.
+	 * 
+	 * @param keys
+	 *            the resource keys
+	 * 
+	 * @return the new schema
+	 */
+	Schema withResources(String... keys) {
+		return new Schema(lowerCaseName, attributeKeys, addKeys(resourceKeys,
+				keys));
+	}
+
+	/**
+	 * Gets the lower case class name, the key of the attribute block.
+	 * 
+	 * @return the lower case name
+	 */
+	String getLowerCaseName() {
+		return lowerCaseName;
+	}
+
+	/**
+	 * Checks if a key is an attribute key.
+	 * 
+	 * @param key
+	 *            the key
+	 * 
+	 * @return true, if an attribute
+	 */
+	boolean isAttribute(String key) {
+		return attributeKeys.contains(key);
+	}
+
+	/**
+	 * Checks if a key is a resource key.
+	 * 
+	 * @param key
+	 *            the key
+	 * 
+	 * @return true, if a resource
+	 */
+	boolean isResource(String key) {
+		return resourceKeys.contains(key);
+	}
+
+	/**
+	 * Gets the number of attribute keys.
+	 * 
+	 * @return the attribute count
+	 */
+	int getAttributeCount() {
+		return attributeKeys.size();
+	}
+
+	/**
+	 * Gets the number of resource keys.
+	 * 
+	 * @return the resource count
+	 */
+	int getResourceCount() {
+		return resourceKeys.size();
+	}
+
+	private static Set<String> addKeys(Set<String> keys, String[] newKeys) {
+		Set<String> allKeys = new HashSet<String>(keys);
+		allKeys.addAll(Arrays.asList(newKeys));
+		return Collections.unmodifiableSet(allKeys);
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import junit.framework.TestCase;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class SchemaTest extends TestCase {
+
+	public void testLowerCaseName() {
+		assertEquals("registry", Schema.of(Registry.class).getLowerCaseName());
+	}
+
+	public void testSharedPerClass() {
+		assertSame(Schema.of(Registry.class), Schema.of(Registry.class));
+		assertSame(new Registry().schema, new Registry().schema);
+	}
+
+	public void testKeys() {
+		Schema schema = Schema.of(Registry.class).withAttributes("name",
+				"deletable").withResources("index");
+		assertTrue(schema.isAttribute("name"));
+		assertTrue(schema.isAttribute("deletable"));
+		assertTrue(schema.isResource("index"));
+		assertFalse(schema.isAttribute("index"));
+		assertFalse(schema.isResource("name"));
+		assertEquals(2, schema.getAttributeCount());
+		assertEquals(1, schema.getResourceCount());
+	}
+
+	public void testWithAttributesCopies() {
+		Schema base = Schema.of(Registry.class);
+		Schema extended = base.withAttributes("name", "name");
+		assertEquals(0, base.getAttributeCount());
+		assertEquals(1, extended.getAttributeCount());
+	}
+
+	public void testItemSchema() {
+		Schema schema = new Registry().schema;
+		assertTrue(schema.isResource("update"));
+		assertTrue(schema.isResource("destroy"));
+		assertTrue(schema.isAttribute("name"));
+	}
+}
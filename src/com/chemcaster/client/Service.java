@@ -42,6 +42,9 @@ public class Service extends Representation {
 	private static final String VERSION = "version";
 	protected static final String DEFAULT_URI = "https://chemcaster.com/rest";
 
+	private static final Schema SCHEMA = Schema.of(Service.class)
+			.withAttributes(VERSION).withResources(REGISTRIES);
+
 	public static Link getServiceLink(UsernamePasswordCredentials userId) throws ClientException {
 		return getServiceLink(DEFAULT_URI, userId);
 	}
@@ -61,9 +64,7 @@ public class Service extends Representation {
 	 * Instantiates a new service.
 	 */
 	public Service() {
-		super();
-		addNewAttribute(VERSION);
-		addNewResource(REGISTRIES);
+		super(SCHEMA);
 	}
 
 	/**
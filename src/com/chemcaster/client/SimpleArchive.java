@@ -39,6 +39,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 public class SimpleArchive {
 
 	Archive archive;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new SimpleArchive from an Archive instance.
@@ -47,6 +48,19 @@ public class SimpleArchive {
 	 *            the new archive
 	 */
 	public SimpleArchive(Archive newArchive) {
+		this(ChemcasterClient.getDefaultClient(), newArchive);
+	}
+
+	/**
+	 * Instantiates a new SimpleArchive from an Archive instance.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newArchive
+	 *            the new archive
+	 */
+	public SimpleArchive(ChemcasterClient newClient, Archive newArchive) {
+		client = newClient;
 		archive = newArchive;
 	}
 
@@ -65,11 +79,33 @@ public class SimpleArchive {
 	 */
 	public SimpleArchive(String archiveURI, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), archiveURI, username,
+				password);
+	}
+
+	/**
+	 * Instantiates a new SimpleArchive from a URI, username, and password.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param archiveURI
+	 *            the existing archive URI
+	 * @param username
+	 *            valid username
+	 * @param password
+	 *            valid password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleArchive(ChemcasterClient newClient, String archiveURI,
+			String username, String password) throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link arcLink = Link
 				.create(Archive.ARCHIVE_MEDIA_TYPE, archiveURI, cred);
-		archive = ClientHttp.get(arcLink);
+		archive = client.get(arcLink);
 	}
 
 	/**
@@ -116,7 +152,7 @@ public class SimpleArchive {
 	 *             the client exception
 	 */
 	public void deleteArchive() throws ClientException {
-		Archive delArch = ClientHttp.delete(archive.getDestroyLink());
+		Archive delArch = client.delete(archive.getDestroyLink());
 		archive = delArch;
 	}
 
@@ -129,7 +165,7 @@ public class SimpleArchive {
 	 *             the client exception
 	 */
 	public InputStream getZipfile() throws ClientException {
-		Zip zip = ClientHttp.get(archive.getZipfileLink());
+		Zip zip = client.get(archive.getZipfileLink());
 		return zip.getDataStream();
 	}
 
@@ -142,8 +178,8 @@ public class SimpleArchive {
 	 *             the client exception
 	 */
 	public SimpleRegistry getSimpleRegistry() throws ClientException {
-		Registry r = ClientHttp.get(archive.getRegistryLink());
-		return new SimpleRegistry(r);
+		Registry r = client.get(archive.getRegistryLink());
+		return new SimpleRegistry(client, r);
 	}
 
 }
@@ -36,6 +36,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 public class SimpleComponent {
 
 	Component component;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new SimpleComponent.
@@ -43,6 +44,18 @@ public class SimpleComponent {
 	 * @param newComponent the Component instance
 	 */
 	public SimpleComponent(Component newComponent) {
+		this(ChemcasterClient.getDefaultClient(), newComponent);
+	}
+
+	/**
+	 * Instantiates a new SimpleComponent.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newComponent the Component instance
+	 */
+	public SimpleComponent(ChemcasterClient newClient, Component newComponent) {
+		client = newClient;
 		component = newComponent;
 	}
 
@@ -57,11 +70,29 @@ public class SimpleComponent {
 	 */
 	public SimpleComponent(String componentURI, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), componentURI, username,
+				password);
+	}
+
+	/**
+	 * Instantiates a new SimpleComponent from a URI.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param componentURI the component URI
+	 * @param username the username
+	 * @param password the password
+	 * 
+	 * @throws ClientException the client exception
+	 */
+	public SimpleComponent(ChemcasterClient newClient, String componentURI,
+			String username, String password) throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link cLink = Link.create(Component.COMPONENT_MEDIA_TYPE,
 				componentURI, cred);
-		component = ClientHttp.get(cLink);
+		component = client.get(cLink);
 	}
 	
 	/**
@@ -90,8 +121,8 @@ public class SimpleComponent {
 	 * @throws ClientException the client exception
 	 */
 	public SimpleStructure getSimpleStructure() throws ClientException {
-		Structure structure = ClientHttp.get(component.getStructureLink());
-		return new SimpleStructure(structure);
+		Structure structure = client.get(component.getStructureLink());
+		return new SimpleStructure(client, structure);
 	}
 
 	/**
@@ -102,8 +133,8 @@ public class SimpleComponent {
 	 * @throws ClientException the client exception
 	 */
 	public SimpleSubstance getSimpleSubstance() throws ClientException {
-		Substance substance = ClientHttp.get(component.getSubstanceLink());
-		return new SimpleSubstance(substance);
+		Substance substance = client.get(component.getSubstanceLink());
+		return new SimpleSubstance(client, substance);
 	}
 	
 	/**
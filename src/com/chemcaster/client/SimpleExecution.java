@@ -35,6 +35,7 @@ public class SimpleExecution {
 
 	/** The execution. */
 	Execution execution;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new SimpleExecution.
@@ -42,6 +43,18 @@ public class SimpleExecution {
 	 * @param newExecution the new execution
 	 */
 	public SimpleExecution(Execution newExecution) {
+		this(ChemcasterClient.getDefaultClient(), newExecution);
+	}
+
+	/**
+	 * Instantiates a new SimpleExecution.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newExecution the new execution
+	 */
+	public SimpleExecution(ChemcasterClient newClient, Execution newExecution) {
+		client = newClient;
 		execution = newExecution;
 	}
 
@@ -66,8 +79,8 @@ public class SimpleExecution {
 	 * @throws ClientException the client exception
 	 */
 	public SimpleQuery getSimpleQuery() throws ClientException {
-		Query q = ClientHttp.get(execution.getExecutableLink());
-		return new SimpleQuery(q);
+		Query q = client.get(execution.getExecutableLink());
+		return new SimpleQuery(client, q);
 	}
 
 	/**
@@ -133,8 +146,8 @@ public class SimpleExecution {
 	 * @throws ClientException the client exception
 	 */
 	public SimpleQuery getExecutable() throws ClientException {
-		Query q = ClientHttp.get(execution.getExecutableLink());
-		return new SimpleQuery(q);
+		Query q = client.get(execution.getExecutableLink());
+		return new SimpleQuery(client, q);
 	}
 
 	/**
@@ -150,14 +163,9 @@ public class SimpleExecution {
 	 */
 	public SimpleExecution nextResults(String cursor, Boolean reverse,
 			Number maximumResults) throws ClientException {
-		AttributeHash executionAttribs = new AttributeHash();
-		executionAttribs.put("maximum_results", maximumResults);
-		executionAttribs.put("cursor", cursor);
-		executionAttribs.put("reverse", reverse);
-
-		Index eIndex = ClientHttp.get(execution.getIndexLink());
-		Execution e = ClientHttp.post(eIndex.create(), executionAttribs);
-		return new SimpleExecution(e);
+		Execution e = client.executeQuery(execution.getIndexLink(), cursor,
+				reverse, maximumResults);
+		return new SimpleExecution(client, e);
 	}
 
 	/**
@@ -171,6 +179,17 @@ public class SimpleExecution {
 		return execution.getSubstances();
 	}
 
+	/**
+	 * Gets every hit from this page on, following next_cursor. The next page
+	 * is requested as soon as its cursor is known, while earlier hits are
+	 * still being consumed.
+	 * 
+	 * @return the substance links of this and all following pages
+	 */
+	public ExecutionResults getResults() {
+		return client.getResults(execution);
+	}
+
 	/**
 	 * Gets the SimpleSubstance from a URI.
 	 * 
@@ -184,7 +203,7 @@ public class SimpleExecution {
 			throws ClientException {
 		Link sLink = Link.create(Substance.SUBSTANCE_MEDIA_TYPE, substanceURI,
 				execution.getLinkToSelf().getAuthentication());
-		Substance s = ClientHttp.get(sLink);
-		return new SimpleSubstance(s);
+		Substance s = client.get(sLink);
+		return new SimpleSubstance(client, s);
 	}
 }
@@ -36,6 +36,7 @@ import java.awt.image.BufferedImage;
 public class SimpleImage {
 
 	Image image;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new SimpleImage.
@@ -44,6 +45,19 @@ public class SimpleImage {
 	 *            the new image
 	 */
 	public SimpleImage(Image newImage) {
+		this(ChemcasterClient.getDefaultClient(), newImage);
+	}
+
+	/**
+	 * Instantiates a new SimpleImage.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newImage
+	 *            the new image
+	 */
+	public SimpleImage(ChemcasterClient newClient, Image newImage) {
+		client = newClient;
 		image = newImage;
 	}
 
@@ -66,13 +80,34 @@ public class SimpleImage {
 	 */
 	public SimpleImage(Link imageLink, Number width, Number height,
 			String format) throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), imageLink, width, height,
+				format);
+	}
+
+	/**
+	 * Instantiates a new SimpleImage from an imageLink and image params.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param width
+	 *            the width
+	 * @param height
+	 *            the height
+	 * @param format
+	 *            the format
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleImage(ChemcasterClient newClient, Link imageLink,
+			Number width, Number height, String format) throws ClientException {
+		client = newClient;
 		AttributeHash imgAttribs = new AttributeHash();
 		imgAttribs.put("width", width);
 		imgAttribs.put("height", height);
 		imgAttribs.put("format", format);
 
-		Index imgIndex = ClientHttp.get(imageLink);
-		image = ClientHttp.post(imgIndex.create(), imgAttribs);
+		image = client.post(client.getCreateLink(imageLink), imgAttribs);
 	}
 
 	/**
@@ -141,8 +176,8 @@ public class SimpleImage {
 	public SimpleStructure getSimpleStructure() throws ClientException {
 		Link imgLink = image.getImageableLink();
 		if (imgLink.getName().equals("structure")) {
-			Structure str = ClientHttp.get(image.getImageableLink());
-			return new SimpleStructure(str);
+			Structure str = client.get(image.getImageableLink());
+			return new SimpleStructure(client, str);
 		} else {
 			return null;
 		}
@@ -159,8 +194,8 @@ public class SimpleImage {
 	public SimpleQuery getSimpleQuery() throws ClientException {
 		Link imgLink = image.getImageableLink();
 		if (imgLink.getName().equals("query")) {
-			Query query = ClientHttp.get(image.getImageableLink());
-			return new SimpleQuery(query);
+			Query query = client.get(image.getImageableLink());
+			return new SimpleQuery(client, query);
 		} else {
 			return null;
 		}
@@ -177,8 +212,8 @@ public class SimpleImage {
 	public SimpleSubstance getSimpleSubstance() throws ClientException {
 		Link imgLink = image.getImageableLink();
 		if (imgLink.getName().equals("substance")) {
-			Substance sub = ClientHttp.get(image.getImageableLink());
-			return new SimpleSubstance(sub);
+			Substance sub = client.get(image.getImageableLink());
+			return new SimpleSubstance(client, sub);
 		} else {
 			return null;
 		}
@@ -39,6 +39,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 public class SimpleLog {
 
 	Log log;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new simple log.
@@ -47,6 +48,19 @@ public class SimpleLog {
 	 *            the new log
 	 */
 	public SimpleLog(Log newLog) {
+		this(ChemcasterClient.getDefaultClient(), newLog);
+	}
+
+	/**
+	 * Instantiates a new simple log.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newLog
+	 *            the new log
+	 */
+	public SimpleLog(ChemcasterClient newClient, Log newLog) {
+		client = newClient;
 		log = newLog;
 	}
 
@@ -65,10 +79,31 @@ public class SimpleLog {
 	 */
 	public SimpleLog(String logURI, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), logURI, username, password);
+	}
+
+	/**
+	 * Instantiates a new simple log.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param logURI
+	 *            the log URI
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleLog(ChemcasterClient newClient, String logURI, String username,
+			String password) throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link logLink = Link.create(Log.LOG_MEDIA_TYPE, logURI, cred);
-		log = ClientHttp.get(logLink);
+		log = client.get(logLink);
 	}
 
 	/**
@@ -107,8 +142,8 @@ public class SimpleLog {
 	 *             the client exception
 	 */
 	public SimpleRegistry getSimpleRegistry() throws ClientException {
-		Registry r = ClientHttp.get(log.getRegistryLink());
-		return new SimpleRegistry(r);
+		Registry r = client.get(log.getRegistryLink());
+		return new SimpleRegistry(client, r);
 	}
 
 	/**
@@ -120,7 +155,7 @@ public class SimpleLog {
 	 *             the client exception
 	 */
 	public NameURI getLogs() throws ClientException {
-		Index logsIndex = ClientHttp.get(log.getLogsLink());
+		Index logsIndex = client.get(log.getLogsLink());
 		return logsIndex.getItemNameURI();
 	}
 
@@ -138,8 +173,8 @@ public class SimpleLog {
 	public SimpleLog getSimpleLogWithURI(String logURI) throws ClientException {
 		Link logLink = Link.create(Log.LOG_MEDIA_TYPE, logURI, log
 				.getLinkToSelf().getAuthentication());
-		Log log = ClientHttp.get(logLink);
-		return new SimpleLog(log);
+		Log log = client.get(logLink);
+		return new SimpleLog(client, log);
 	}
 
 	/**
@@ -240,7 +275,7 @@ public class SimpleLog {
 	 *             the client exception
 	 */
 	public Archive getArchive(Event event) throws ClientException {
-		return ClientHttp.get(event.getResource());
+		return client.get(event.getResource());
 	}
 
 	private ArrayList<Event> getEventsOfType(String mediaType) {
@@ -265,7 +300,7 @@ public class SimpleLog {
 			throws ClientException {
 		Link aLink = event.getResource();
 		if (aLink.getMediaTypeString().equals(mediaTypeString)) {
-			return ClientHttp.get(event.getResource());
+			return client.get(event.getResource());
 		} else {
 			throw new ClientException("Event media type ("
 					+ aLink.getMediaTypeString()
@@ -26,6 +26,8 @@
 
 package com.chemcaster.client;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.http.auth.UsernamePasswordCredentials;
 
 /**
@@ -36,6 +38,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 public class SimpleQuery {
 
 	Query query;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new SimpleQuery based on an existing Query instance.
@@ -44,6 +47,19 @@ public class SimpleQuery {
 	 *            the new query
 	 */
 	public SimpleQuery(Query newQuery) {
+		this(ChemcasterClient.getDefaultClient(), newQuery);
+	}
+
+	/**
+	 * Instantiates a new SimpleQuery based on an existing Query instance.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newQuery
+	 *            the new query
+	 */
+	public SimpleQuery(ChemcasterClient newClient, Query newQuery) {
+		client = newClient;
 		query = newQuery;
 	}
 
@@ -62,14 +78,37 @@ public class SimpleQuery {
 	 */
 	public SimpleQuery(String queryURL, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), queryURL, username, password);
+	}
+
+	/**
+	 * Instantiates a new SimpleQuery of an existing query.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param queryURL
+	 *            the existing query's url
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleQuery(ChemcasterClient newClient, String queryURL,
+			String username, String password) throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link qLink = Link.create(Query.QUERY_MEDIA_TYPE, queryURL, cred);
-		query = ClientHttp.get(qLink);
+		query = client.get(qLink);
 	}
 
 	/**
-	 * Create a new query and instantiates a new SimpleQuery for it.
+	 * Create a new query and instantiates a new SimpleQuery for it. With the
+	 * client's query cache on, a query created earlier for the same registry,
+	 * mode and serialization is reused instead.
 	 * 
 	 * @param mode
 	 *            the mode (type) of the new query
@@ -83,13 +122,8 @@ public class SimpleQuery {
 	 */
 	public SimpleQuery(SimpleRegistry sr, String mode, String serialization)
 			throws ClientException {
-		AttributeHash newQueryAttribs = new AttributeHash();
-		newQueryAttribs.put("mode", mode);
-		newQueryAttribs.put("serialization", serialization);
-
-		Registry r = sr.getRegistry();
-		Index qIndex = ClientHttp.get(r.getQueriesLink());
-		query = ClientHttp.post(qIndex.create(), newQueryAttribs);
+		client = sr.client;
+		query = client.createQuery(sr.getRegistry(), mode, serialization);
 	}
 
 	/**
@@ -137,7 +171,7 @@ public class SimpleQuery {
 	 */
 
 	public void deleteQuery() throws ClientException {
-		Query delReg = ClientHttp.delete(query.destroy());
+		Query delReg = client.delete(query.destroy());
 		query = delReg;
 	}
 
@@ -150,8 +184,8 @@ public class SimpleQuery {
 	 *             the client exception
 	 */
 	public SimpleRegistry getSimpleRegistry() throws ClientException {
-		Registry r = ClientHttp.get(query.getRegistryLink());
-		return new SimpleRegistry(r);
+		Registry r = client.get(query.getRegistryLink());
+		return new SimpleRegistry(client, r);
 	}
 
 	/**
@@ -163,7 +197,7 @@ public class SimpleQuery {
 	 *             the client exception
 	 */
 	public NameURI getExecutions() throws ClientException {
-		Index executionsIndex = ClientHttp.get(query.getExecutionsLink());
+		Index executionsIndex = client.get(query.getExecutionsLink());
 		return executionsIndex.getItemNameURI();
 	}
 
@@ -182,8 +216,24 @@ public class SimpleQuery {
 			throws ClientException {
 		Link eLink = Link.create(Execution.EXECUTION_MEDIA_TYPE, executionURI,
 				query.getLinkToSelf().getAuthentication());
-		Execution e = ClientHttp.get(eLink);
-		return new SimpleExecution(e);
+		Execution e = client.get(eLink);
+		return new SimpleExecution(client, e);
+	}
+
+	/**
+	 * Asynchronously gets the SimpleExecution named by executionURI.
+	 * 
+	 * @param executionURI
+	 *            the execution URI
+	 * 
+	 * @return a future for the SimpleExecution
+	 */
+	public CompletableFuture<SimpleExecution> getSimpleExecutionWithURIAsync(
+			String executionURI) {
+		Link eLink = Link.create(Execution.EXECUTION_MEDIA_TYPE, executionURI,
+				query.getLinkToSelf().getAuthentication());
+		return client.<Execution> getAsync(eLink).thenApply(
+				e -> new SimpleExecution(client, e));
 	}
 
 	/**
@@ -199,12 +249,62 @@ public class SimpleQuery {
 	 */
 	public SimpleExecution getSimpleExecution(Number maximumResults)
 			throws ClientException {
-		Index executionsIndex = ClientHttp.get(query.getExecutionsLink());
-		AttributeHash executionAttribs = new AttributeHash();
-		executionAttribs.put("maximum_results", maximumResults);
-		Execution e = ClientHttp.post(executionsIndex.create(),
-				executionAttribs);
-		return new SimpleExecution(e);
+		Execution e = client.executeQuery(query.getExecutionsLink(), null,
+				null, maximumResults);
+		return new SimpleExecution(client, e);
+	}
+
+	/**
+	 * Asynchronously executes the query.
+	 * 
+	 * @param maximumResults
+	 *            the maximum results
+	 * 
+	 * @return a future for the SimpleExecution
+	 */
+	public CompletableFuture<SimpleExecution> getSimpleExecutionAsync(
+			Number maximumResults) {
+		try {
+			return client.executeQueryAsync(query.getExecutionsLink(), null,
+					null, maximumResults).thenApply(
+					e -> new SimpleExecution(client, e));
+		} catch (ClientException ce) {
+			return CompletableFuture.<SimpleExecution> failedFuture(ce);
+		}
+	}
+
+	/**
+	 * Executes the query and gets every hit, following next_cursor through
+	 * all pages of the execution.
+	 * 
+	 * @param maximumResults
+	 *            the maximum results per page
+	 * 
+	 * @return the substance links of all pages
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public ExecutionResults getResults(Number maximumResults)
+			throws ClientException {
+		return getSimpleExecution(maximumResults).getResults();
+	}
+
+	/**
+	 * Gets every hit of the query like getResults, committing progress to a
+	 * checkpoint so an interrupted scan resumes from its last consumed page.
+	 * 
+	 * @param maximumResults
+	 *            the maximum results per page
+	 * @param checkpoint
+	 *            the checkpoint to resume from and commit to
+	 * 
+	 * @return the substance links of all pages not yet consumed
+	 */
+	public ResumableScan getResumableScan(Number maximumResults,
+			ScanCheckpoint checkpoint) {
+		return new ResumableScan(client, query, maximumResults, checkpoint,
+				client.getConfiguration().getPageReadAhead());
 	}
 
 	/**
@@ -225,7 +325,8 @@ public class SimpleQuery {
 	 */
 	public SimpleImage getQuerySimpleImage(Integer width, Integer height,
 			String format) throws ClientException {
-		return new SimpleImage(query.getImagesLink(), width, height, format);
+		return new SimpleImage(client, query.getImagesLink(), width,
+				height, format);
 	}
 	
 	/**
@@ -237,7 +338,7 @@ public class SimpleQuery {
 	 *             the client exception
 	 */
 	public NameURI getQueries() throws ClientException {
-		Index queriesIndex = ClientHttp.get(query.getIndexLink());
+		Index queriesIndex = client.get(query.getIndexLink());
 		return queriesIndex.getItemNameURI();
 	}
 
@@ -256,8 +357,8 @@ public class SimpleQuery {
 			throws ClientException {
 		Link qLink = Link.create(Query.QUERY_MEDIA_TYPE, queryURI, query
 				.getLinkToSelf().getAuthentication());
-		Query q = ClientHttp.get(qLink);
-		return new SimpleQuery(q);
+		Query q = client.get(qLink);
+		return new SimpleQuery(client, q);
 	}
 
 }
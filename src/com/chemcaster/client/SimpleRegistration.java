@@ -38,6 +38,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
  */
 public class SimpleRegistration {
 	Registration registration;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new simple registration.
@@ -55,11 +56,12 @@ public class SimpleRegistration {
 	 */
 	public SimpleRegistration(SimpleRegistry sr, String serialization,
 			Number multiplier) throws ClientException {
+		client = sr.client;
 		AttributeHash finalAttribs = regAttributes(serialization, multiplier);
 
 		Registry r = sr.getRegistry();
-		Index regIndex = ClientHttp.get(r.getRegistrationsLink());
-		registration = ClientHttp.post(regIndex.create(), finalAttribs);
+		registration = client.post(client.getCreateLink(r
+				.getRegistrationsLink()), finalAttribs);
 	}
 
 	/**
@@ -77,11 +79,34 @@ public class SimpleRegistration {
 	 */
 	public SimpleRegistration(String registrationURI, String username,
 			String password) throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), registrationURI, username,
+				password);
+	}
+
+	/**
+	 * Instantiates a new simple registration from a URI
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param registrationURI
+	 *            the registration URI
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleRegistration(ChemcasterClient newClient,
+			String registrationURI, String username, String password)
+			throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link rLink = Link.create(Registration.REGISTRATION_MEDIA_TYPE,
 				registrationURI, cred);
-		registration = ClientHttp.get(rLink);
+		registration = client.get(rLink);
 	}
 
 	/**
@@ -91,6 +116,19 @@ public class SimpleRegistration {
 	 *            the Registration instance
 	 */
 	public SimpleRegistration(Registration r) {
+		this(ChemcasterClient.getDefaultClient(), r);
+	}
+
+	/**
+	 * Instantiates a new simple registration from a Registration instance.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param r
+	 *            the Registration instance
+	 */
+	public SimpleRegistration(ChemcasterClient newClient, Registration r) {
+		client = newClient;
 		registration = r;
 	}
 
@@ -122,8 +160,8 @@ public class SimpleRegistration {
 	 *             the client exception
 	 */
 	public SimpleRegistry getSimpleRegistry() throws ClientException {
-		Registry r = ClientHttp.get(registration.getRegistryLink());
-		return new SimpleRegistry(r);
+		Registry r = client.get(registration.getRegistryLink());
+		return new SimpleRegistry(client, r);
 	}
 
 	/**
@@ -157,7 +195,7 @@ public class SimpleRegistration {
 	 *             the client exception
 	 */
 	public void deleteRegistration() throws ClientException {
-		Registration delReg = ClientHttp.delete(registration.destroy());
+		Registration delReg = client.delete(registration.destroy());
 		registration = delReg;
 	}
 
@@ -175,7 +213,7 @@ public class SimpleRegistration {
 	public void updateRegistration(String serialization, Number multiplier)
 			throws ClientException {
 		AttributeHash updateAttribs = regAttributes(serialization, multiplier);
-		registration = ClientHttp.put(registration.update(), updateAttribs);
+		registration = client.put(registration.update(), updateAttribs);
 	}
 
 	/**
@@ -187,11 +225,11 @@ public class SimpleRegistration {
 	 *             the client exception
 	 */
 	public Substance getSubstance() throws ClientException {
-		return ClientHttp.get(registration.getSubstanceLink());
+		return client.get(registration.getSubstanceLink());
 	}
 	
 	public NameURI getRegistrations() throws ClientException {
-		Index registrationsIndex = ClientHttp.get(registration.getIndexLink());
+		Index registrationsIndex = client.get(registration.getIndexLink());
 		return registrationsIndex.getItemNameURI();
 	}
 	
@@ -210,8 +248,8 @@ public class SimpleRegistration {
 			throws ClientException {
 		Link rLink = Link.create(Registration.REGISTRATION_MEDIA_TYPE, registrationURI,
 				registration.getLinkToSelf().getAuthentication());
-		Registration r = ClientHttp.get(rLink);
-		return new SimpleRegistration(r);
+		Registration r = client.get(rLink);
+		return new SimpleRegistration(client, r);
 	}
 
 	/**
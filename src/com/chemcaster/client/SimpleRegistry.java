@@ -26,6 +26,8 @@
 
 package com.chemcaster.client;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.http.auth.UsernamePasswordCredentials;
 
 /**
@@ -35,6 +37,8 @@ import org.apache.http.auth.UsernamePasswordCredentials;
  */
 public class SimpleRegistry {
 	Registry registry;
+	ChemcasterClient client;
+	private final RegistryDirectory registries = new RegistryDirectory();
 
 	/**
 	 * Instantiates a new SimpleRegistry based on an existing Registry instance.
@@ -43,6 +47,19 @@ public class SimpleRegistry {
 	 *            the new registry
 	 */
 	public SimpleRegistry(Registry newRegistry) {
+		this(ChemcasterClient.getDefaultClient(), newRegistry);
+	}
+
+	/**
+	 * Instantiates a new SimpleRegistry based on an existing Registry instance.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newRegistry
+	 *            the new registry
+	 */
+	public SimpleRegistry(ChemcasterClient newClient, Registry newRegistry) {
+		client = newClient;
 		registry = newRegistry;
 	}
 
@@ -61,11 +78,33 @@ public class SimpleRegistry {
 	 */
 	public SimpleRegistry(String registryURI, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), registryURI, username,
+				password);
+	}
+
+	/**
+	 * Instantiates a new SimpleRegistry of an existing registry.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param registryURI
+	 *            the existing registry's uri
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleRegistry(ChemcasterClient newClient, String registryURI,
+			String username, String password) throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link rLink = Link.create(Registry.REGISTRY_MEDIA_TYPE, registryURI,
 				cred);
-		registry = ClientHttp.get(rLink);
+		registry = client.get(rLink);
 	}
 
 	/**
@@ -83,13 +122,14 @@ public class SimpleRegistry {
 	 */
 	public SimpleRegistry(SimpleService simpleService, String name,
 			Boolean deletable) throws ClientException {
+		client = simpleService.client;
 		AttributeHash newRegAttribs = new AttributeHash();
 		newRegAttribs.put("name", name);
 		newRegAttribs.put("deletable", deletable);
 
 		Service s = simpleService.getService();
-		Index regIndex = ClientHttp.get(s.getRegistriesLink());
-		registry = ClientHttp.post(regIndex.create(), newRegAttribs);
+		registry = client.post(client.getCreateLink(s.getRegistriesLink()),
+				newRegAttribs);
 	}
 
 	/**
@@ -171,7 +211,8 @@ public class SimpleRegistry {
 		AttributeHash updatedAttribs = new AttributeHash();
 		updatedAttribs.put("name", name);
 		updatedAttribs.put("deletable", deletable);
-		registry = ClientHttp.put(registry.update(), updatedAttribs);
+		registry = client.put(registry.update(), updatedAttribs);
+		registries.clear();
 	}
 
 	/**
@@ -182,8 +223,9 @@ public class SimpleRegistry {
 
 	public void deleteRegistry() throws ClientException {
 		setDeletable(true);
-		Registry delReg = ClientHttp.delete(registry.destroy());
+		Registry delReg = client.delete(registry.destroy());
 		registry = delReg;
+		registries.clear();
 	}
 
 	/**
@@ -195,12 +237,13 @@ public class SimpleRegistry {
 	 *             the client exception
 	 */
 	public SimpleService getSimpleService() throws ClientException {
-		Service s = ClientHttp.get(registry.getServiceLink());
-		return new SimpleService(s);
+		Service s = client.get(registry.getServiceLink());
+		return new SimpleService(client, s);
 	}
 
 	/**
-	 * Gets the names and URIs of the queries.
+	 * Gets the names and URIs of the first page of queries. Use
+	 * getQueriesPages for all of them.
 	 * 
 	 * @return the NameURI instance
 	 * 
@@ -208,10 +251,22 @@ public class SimpleRegistry {
 	 *             the client exception
 	 */
 	public NameURI getQueries() throws ClientException {
-		Index queriesIndex = ClientHttp.get(registry.getQueriesLink());
+		Index queriesIndex = client.get(registry.getQueriesLink());
 		return queriesIndex.getItemNameURI();
 	}
 
+	/**
+	 * Gets the links of all the queries, fetching index pages lazily.
+	 * 
+	 * @return the item links of every page
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public IndexPages getQueriesPages() throws ClientException {
+		return client.getPages(registry.getQueriesLink());
+	}
+
 	/**
 	 * Gets the query identified by queryURI.
 	 * 
@@ -227,12 +282,29 @@ public class SimpleRegistry {
 			throws ClientException {
 		Link qLink = Link.create(Query.QUERY_MEDIA_TYPE, queryURI, registry
 				.getLinkToSelf().getAuthentication());
-		Query q = ClientHttp.get(qLink);
-		return new SimpleQuery(q);
+		Query q = client.get(qLink);
+		return new SimpleQuery(client, q);
+	}
+
+	/**
+	 * Asynchronously gets the query identified by queryURI.
+	 * 
+	 * @param queryURI
+	 *            the query URI
+	 * 
+	 * @return a future for the SimpleQuery
+	 */
+	public CompletableFuture<SimpleQuery> getSimpleQueryWithURIAsync(
+			String queryURI) {
+		Link qLink = Link.create(Query.QUERY_MEDIA_TYPE, queryURI, registry
+				.getLinkToSelf().getAuthentication());
+		return client.<Query> getAsync(qLink).thenApply(
+				q -> new SimpleQuery(client, q));
 	}
 
 	/**
-	 * Gets the names and URIs of the structures.
+	 * Gets the names and URIs of the first page of structures. Use
+	 * getStructuresPages for all of them.
 	 * 
 	 * @return the NameURI instance
 	 * 
@@ -240,10 +312,22 @@ public class SimpleRegistry {
 	 *             the client exception
 	 */
 	public NameURI getStructures() throws ClientException {
-		Index structuresIndex = ClientHttp.get(registry.getStructuresLink());
+		Index structuresIndex = client.get(registry.getStructuresLink());
 		return structuresIndex.getItemNameURI();
 	}
 
+	/**
+	 * Gets the links of all the structures, fetching index pages lazily.
+	 * 
+	 * @return the item links of every page
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public IndexPages getStructuresPages() throws ClientException {
+		return client.getPages(registry.getStructuresLink());
+	}
+
 	/**
 	 * Gets the structure identified by structureURI
 	 * 
@@ -259,12 +343,29 @@ public class SimpleRegistry {
 			throws ClientException {
 		Link sLink = Link.create(Structure.STRUCTURE_MEDIA_TYPE, structureURI,
 				registry.getLinkToSelf().getAuthentication());
-		Structure s = ClientHttp.get(sLink);
-		return new SimpleStructure(s);
+		Structure s = client.get(sLink);
+		return new SimpleStructure(client, s);
+	}
+
+	/**
+	 * Asynchronously gets the structure identified by structureURI
+	 * 
+	 * @param structureURI
+	 *            the structure URI
+	 * 
+	 * @return a future for the SimpleStructure
+	 */
+	public CompletableFuture<SimpleStructure> getSimpleStructureWithURIAsync(
+			String structureURI) {
+		Link sLink = Link.create(Structure.STRUCTURE_MEDIA_TYPE, structureURI,
+				registry.getLinkToSelf().getAuthentication());
+		return client.<Structure> getAsync(sLink).thenApply(
+				s -> new SimpleStructure(client, s));
 	}
 
 	/**
-	 * Gets the names and URIs of the substances.
+	 * Gets the names and URIs of the first page of substances. Use
+	 * getSubstancesPages for all of them.
 	 * 
 	 * @return the NameURI instance
 	 * 
@@ -272,10 +373,22 @@ public class SimpleRegistry {
 	 *             the client exception
 	 */
 	public NameURI getSubstances() throws ClientException {
-		Index substancesIndex = ClientHttp.get(registry.getSubstancesLink());
+		Index substancesIndex = client.get(registry.getSubstancesLink());
 		return substancesIndex.getItemNameURI();
 	}
 
+	/**
+	 * Gets the links of all the substances, fetching index pages lazily.
+	 * 
+	 * @return the item links of every page
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public IndexPages getSubstancesPages() throws ClientException {
+		return client.getPages(registry.getSubstancesLink());
+	}
+
 	/**
 	 * Gets the SimpleSubstance identified by substanceURI.
 	 * 
@@ -291,12 +404,29 @@ public class SimpleRegistry {
 			throws ClientException {
 		Link sLink = Link.create(Substance.SUBSTANCE_MEDIA_TYPE, substanceURI,
 				registry.getLinkToSelf().getAuthentication());
-		Substance s = ClientHttp.get(sLink);
-		return new SimpleSubstance(s);
+		Substance s = client.get(sLink);
+		return new SimpleSubstance(client, s);
 	}
 
 	/**
-	 * Gets the names and URIs of the registrations.
+	 * Asynchronously gets the SimpleSubstance identified by substanceURI.
+	 * 
+	 * @param substanceURI
+	 *            the substance URI
+	 * 
+	 * @return a future for the SimpleSubstance
+	 */
+	public CompletableFuture<SimpleSubstance> getSimpleSubstanceWithURIAsync(
+			String substanceURI) {
+		Link sLink = Link.create(Substance.SUBSTANCE_MEDIA_TYPE, substanceURI,
+				registry.getLinkToSelf().getAuthentication());
+		return client.<Substance> getAsync(sLink).thenApply(
+				s -> new SimpleSubstance(client, s));
+	}
+
+	/**
+	 * Gets the names and URIs of the first page of registrations. Use
+	 * getRegistrationsPages for all of them.
 	 * 
 	 * @return the NameURI instance
 	 * 
@@ -304,11 +434,23 @@ public class SimpleRegistry {
 	 *             the client exception
 	 */
 	public NameURI getRegistrations() throws ClientException {
-		Index registrationsIndex = ClientHttp.get(registry
+		Index registrationsIndex = client.get(registry
 				.getRegistrationsLink());
 		return registrationsIndex.getItemNameURI();
 	}
 
+	/**
+	 * Gets the links of all the registrations, fetching index pages lazily.
+	 * 
+	 * @return the item links of every page
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public IndexPages getRegistrationsPages() throws ClientException {
+		return client.getPages(registry.getRegistrationsLink());
+	}
+
 	/**
 	 * Gets the SimpleRegistration identified by registration URI
 	 * 
@@ -324,8 +466,25 @@ public class SimpleRegistry {
 			String registrationURI) throws ClientException {
 		Link rLink = Link.create(Registration.REGISTRATION_MEDIA_TYPE,
 				registrationURI, registry.getLinkToSelf().getAuthentication());
-		Registration r = ClientHttp.get(rLink);
-		return new SimpleRegistration(r);
+		Registration r = client.get(rLink);
+		return new SimpleRegistration(client, r);
+	}
+
+	/**
+	 * Asynchronously gets the SimpleRegistration identified by registration
+	 * URI
+	 * 
+	 * @param registrationURI
+	 *            the registration URI
+	 * 
+	 * @return a future for the SimpleRegistration
+	 */
+	public CompletableFuture<SimpleRegistration> getSimpleRegistrationWithURIAsync(
+			String registrationURI) {
+		Link rLink = Link.create(Registration.REGISTRATION_MEDIA_TYPE,
+				registrationURI, registry.getLinkToSelf().getAuthentication());
+		return client.<Registration> getAsync(rLink).thenApply(
+				r -> new SimpleRegistration(client, r));
 	}
 
 	/**
@@ -337,7 +496,7 @@ public class SimpleRegistry {
 	 *             the client exception
 	 */
 	public NameURI getRegistries() throws ClientException {
-		Index registriesIndex = ClientHttp.get(registry.getIndexLink());
+		Index registriesIndex = client.get(registry.getIndexLink());
 		return registriesIndex.getItemNameURI();
 	}
 
@@ -354,13 +513,14 @@ public class SimpleRegistry {
 	 */
 	public SimpleRegistry getSimpleRegistryWithName(String registryName)
 			throws ClientException {
-		Index registriesIndex = ClientHttp.get(registry.getIndexLink());
-		Registry r = ClientHttp.get(registriesIndex.getItemNamed(registryName));
-		return new SimpleRegistry(r);
+		Registry r = registries.getRegistryNamed(client, registry
+				.getIndexLink(), registryName);
+		return new SimpleRegistry(client, r);
 	}
 
 	/**
-	 * Gets the names and URIs of the logs.
+	 * Gets the names and URIs of the first page of logs. Use
+	 * getLogsPages for all of them.
 	 * 
 	 * @return the NameURI instance
 	 * 
@@ -368,10 +528,22 @@ public class SimpleRegistry {
 	 *             the client exception
 	 */
 	public NameURI getLogs() throws ClientException {
-		Index logsIndex = ClientHttp.get(registry.getLogsLink());
+		Index logsIndex = client.get(registry.getLogsLink());
 		return logsIndex.getItemNameURI();
 	}
 
+	/**
+	 * Gets the links of all the logs, fetching index pages lazily.
+	 * 
+	 * @return the item links of every page
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public IndexPages getLogsPages() throws ClientException {
+		return client.getPages(registry.getLogsLink());
+	}
+
 	/**
 	 * Gets the SimpleLog with the URI logURI
 	 * 
@@ -386,8 +558,23 @@ public class SimpleRegistry {
 	public SimpleLog getSimpleLogWithURI(String logURI) throws ClientException {
 		Link logLink = Link.create(Log.LOG_MEDIA_TYPE, logURI, registry
 				.getLinkToSelf().getAuthentication());
-		Log aLog = ClientHttp.get(logLink);
-		return new SimpleLog(aLog);
+		Log aLog = client.get(logLink);
+		return new SimpleLog(client, aLog);
+	}
+
+	/**
+	 * Asynchronously gets the SimpleLog with the URI logURI
+	 * 
+	 * @param logURI
+	 *            the log URI
+	 * 
+	 * @return a future for the SimpleLog
+	 */
+	public CompletableFuture<SimpleLog> getSimpleLogWithURIAsync(String logURI) {
+		Link logLink = Link.create(Log.LOG_MEDIA_TYPE, logURI, registry
+				.getLinkToSelf().getAuthentication());
+		return client.<Log> getAsync(logLink).thenApply(
+				l -> new SimpleLog(client, l));
 	}
 	
 	/**
@@ -398,10 +585,9 @@ public class SimpleRegistry {
 	 * @throws ClientException
 	 */
 	public SimpleArchive getSimpleArchive() throws ClientException {
-		Index archiveIndex = ClientHttp.get(registry.getArchivesLink());
-		Archive arc = ClientHttp.post(archiveIndex.create(),
-				new AttributeHash());
-		return new SimpleArchive(arc);
+		Archive arc = client.post(client.getCreateLink(registry
+				.getArchivesLink()), new AttributeHash());
+		return new SimpleArchive(client, arc);
 	}
 
 }
@@ -26,6 +26,8 @@
 
 package com.chemcaster.client;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.http.auth.UsernamePasswordCredentials;
 
 /**
@@ -36,6 +38,8 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 public class SimpleService {
 
 	Service service;
+	ChemcasterClient client;
+	private final RegistryDirectory registries = new RegistryDirectory();
 
 	/**
 	 * Instantiates a new SimpleService with the default url.
@@ -50,6 +54,25 @@ public class SimpleService {
 	 */
 	public SimpleService(String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), username, password);
+	}
+
+	/**
+	 * Instantiates a new SimpleService with the default url.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleService(ChemcasterClient newClient, String username,
+			String password) throws ClientException {
+		client = newClient;
 		service = createService(Service.DEFAULT_URI, username, password);
 	}
 
@@ -68,6 +91,27 @@ public class SimpleService {
 	 */
 	public SimpleService(String userURI, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), userURI, username, password);
+	}
+
+	/**
+	 * Instantiates a new SimpleService with a user supplied url
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param userURI
+	 *            the user uri
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleService(ChemcasterClient newClient, String userURI,
+			String username, String password) throws ClientException {
+		client = newClient;
 		service = createService(userURI, username, password);
 	}
 
@@ -88,7 +132,7 @@ public class SimpleService {
 			String password) throws ClientException {
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
-		return ClientHttp.get(Service.getServiceLink(userURI, cred));
+		return client.get(Service.getServiceLink(userURI, cred));
 
 	}
 
@@ -99,6 +143,19 @@ public class SimpleService {
 	 *            the user supplied service instance
 	 */
 	public SimpleService(Service newService) {
+		this(ChemcasterClient.getDefaultClient(), newService);
+	}
+
+	/**
+	 * Instantiates a new SimpleService with a user supplied Service instance
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newService
+	 *            the user supplied service instance
+	 */
+	public SimpleService(ChemcasterClient newClient, Service newService) {
+		client = newClient;
 		service = newService;
 	}
 
@@ -129,7 +186,7 @@ public class SimpleService {
 	 *             the client exception
 	 */
 	public NameURI getRegistries() throws ClientException {
-		Index registriesIndex = ClientHttp.get(service.getRegistriesLink());
+		Index registriesIndex = client.get(service.getRegistriesLink());
 		return registriesIndex.getItemNameURI();
 	}
 
@@ -145,9 +202,37 @@ public class SimpleService {
 	 *             the client exception
 	 */
 	public SimpleRegistry getSimpleRegistryWithName(String registryName) throws ClientException {
-		Index registriesIndex = ClientHttp.get(service.getRegistriesLink());
-		Registry r = ClientHttp.get(registriesIndex.getItemNamed(registryName));
-		return new SimpleRegistry(r);
+		Registry r = registries.getRegistryNamed(client, service
+				.getRegistriesLink(), registryName);
+		return new SimpleRegistry(client, r);
+	}
+
+	/**
+	 * Asynchronously gets the registry named by registryName. The index and
+	 * registry requests are chained without blocking the caller.
+	 * 
+	 * @param registryName
+	 *            the registry name
+	 * 
+	 * @return a future for the SimpleRegistry
+	 */
+	public CompletableFuture<SimpleRegistry> getSimpleRegistryWithNameAsync(
+			String registryName) {
+		Link registriesLink;
+		try {
+			registriesLink = service.getRegistriesLink();
+		} catch (ClientException ce) {
+			return CompletableFuture.<SimpleRegistry> failedFuture(ce);
+		}
+		return client.<Index> getAsync(registriesLink)
+				.thenCompose(registriesIndex -> {
+					try {
+						return client.<Registry> getAsync(registriesIndex
+								.getItemNamed(registryName));
+					} catch (ClientException ce) {
+						return CompletableFuture.<Registry> failedFuture(ce);
+					}
+				}).thenApply(r -> new SimpleRegistry(client, r));
 	}
 	
 	/**
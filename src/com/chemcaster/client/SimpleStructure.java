@@ -36,6 +36,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 public class SimpleStructure {
 
 	Structure structure;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new SimpleStructure.
@@ -44,6 +45,19 @@ public class SimpleStructure {
 	 *            the Structure
 	 */
 	public SimpleStructure(Structure s) {
+		this(ChemcasterClient.getDefaultClient(), s);
+	}
+
+	/**
+	 * Instantiates a new SimpleStructure.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param s
+	 *            the Structure
+	 */
+	public SimpleStructure(ChemcasterClient newClient, Structure s) {
+		client = newClient;
 		structure = s;
 	}
 
@@ -62,11 +76,33 @@ public class SimpleStructure {
 	 */
 	public SimpleStructure(String structureURI, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), structureURI, username,
+				password);
+	}
+
+	/**
+	 * Instantiates a new SimpleStructure.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param structureURI
+	 *            the structure uri
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleStructure(ChemcasterClient newClient, String structureURI,
+			String username, String password) throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link sLink = Link.create(Structure.STRUCTURE_MEDIA_TYPE, structureURI,
 				cred);
-		structure = ClientHttp.get(sLink);
+		structure = client.get(sLink);
 	}
 
 	/**
@@ -114,7 +150,8 @@ public class SimpleStructure {
 	 */
 	public SimpleImage getSimpleImage(Integer width, Integer height,
 			String format) throws ClientException {
-		return new SimpleImage(structure.getImagesLink(), width, height, format);
+		return new SimpleImage(client, structure.getImagesLink(), width,
+				height, format);
 	}
 
 	/**
@@ -126,7 +163,7 @@ public class SimpleStructure {
 	 *             the client exception
 	 */
 	public NameURI getComponents() throws ClientException {
-		Index structuresIndex = ClientHttp.get(structure.getComponentsLink());
+		Index structuresIndex = client.get(structure.getComponentsLink());
 		return structuresIndex.getItemNameURI();
 	}
 
@@ -145,8 +182,8 @@ public class SimpleStructure {
 			throws ClientException {
 		Link cLink = Link.create(Component.COMPONENT_MEDIA_TYPE, componentURI,
 				structure.getLinkToSelf().getAuthentication());
-		Component component = ClientHttp.get(cLink);
-		return new SimpleComponent(component);
+		Component component = client.get(cLink);
+		return new SimpleComponent(client, component);
 	}
 
 	/**
@@ -158,8 +195,8 @@ public class SimpleStructure {
 	 *             the client exception
 	 */
 	public SimpleRegistry getSimpleRegistry() throws ClientException {
-		Registry r = ClientHttp.get(structure.getRegistryLink());
-		return new SimpleRegistry(r);
+		Registry r = client.get(structure.getRegistryLink());
+		return new SimpleRegistry(client, r);
 	}
 
 }
@@ -36,6 +36,7 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 public class SimpleSubstance {
 
 	Substance substance;
+	ChemcasterClient client;
 
 	/**
 	 * Instantiates a new SimpleSubstance.
@@ -44,6 +45,19 @@ public class SimpleSubstance {
 	 *            the new substance
 	 */
 	public SimpleSubstance(Substance newSubstance) {
+		this(ChemcasterClient.getDefaultClient(), newSubstance);
+	}
+
+	/**
+	 * Instantiates a new SimpleSubstance.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param newSubstance
+	 *            the new substance
+	 */
+	public SimpleSubstance(ChemcasterClient newClient, Substance newSubstance) {
+		client = newClient;
 		substance = newSubstance;
 	}
 
@@ -62,11 +76,33 @@ public class SimpleSubstance {
 	 */
 	public SimpleSubstance(String substanceURI, String username, String password)
 			throws ClientException {
+		this(ChemcasterClient.getDefaultClient(), substanceURI, username,
+				password);
+	}
+
+	/**
+	 * Instantiates a new SimpleSubstance from a URI.
+	 * 
+	 * @param newClient
+	 *            the client that makes the requests
+	 * @param substanceURI
+	 *            the substance uri
+	 * @param username
+	 *            the username
+	 * @param password
+	 *            the password
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public SimpleSubstance(ChemcasterClient newClient, String substanceURI,
+			String username, String password) throws ClientException {
+		client = newClient;
 		UsernamePasswordCredentials cred = new UsernamePasswordCredentials(
 				username, password);
 		Link subLink = Link.create(Substance.SUBSTANCE_MEDIA_TYPE,
 				substanceURI, cred);
-		substance = ClientHttp.get(subLink);
+		substance = client.get(subLink);
 	}
 
 	/**
@@ -114,7 +150,8 @@ public class SimpleSubstance {
 	 */
 	public SimpleImage getSimpleImage(Integer width, Integer height,
 			String format) throws ClientException {
-		return new SimpleImage(substance.getImagesLink(), width, height, format);
+		return new SimpleImage(client, substance.getImagesLink(), width,
+				height, format);
 	}
 
 	/**
@@ -126,8 +163,8 @@ public class SimpleSubstance {
 	 *             the client exception
 	 */
 	public SimpleRegistration getSimpleRegistration() throws ClientException {
-		Registration r = ClientHttp.get(substance.getRegistrationLink());
-		return new SimpleRegistration(r);
+		Registration r = client.get(substance.getRegistrationLink());
+		return new SimpleRegistration(client, r);
 	}
 
 	/**
@@ -139,7 +176,7 @@ public class SimpleSubstance {
 	 *             the client exception
 	 */
 	public NameURI getComponents() throws ClientException {
-		Index componentsIndex = ClientHttp.get(substance.getComponentsLink());
+		Index componentsIndex = client.get(substance.getComponentsLink());
 		return componentsIndex.getItemNameURI();
 	}
 
@@ -158,8 +195,8 @@ public class SimpleSubstance {
 			throws ClientException {
 		Link cLink = Link.create(Component.COMPONENT_MEDIA_TYPE, componentURI,
 				substance.getLinkToSelf().getAuthentication());
-		Component c = ClientHttp.get(cLink);
-		return new SimpleComponent(c);
+		Component c = client.get(cLink);
+		return new SimpleComponent(client, c);
 	}
 	
 	/**
@@ -171,7 +208,7 @@ public class SimpleSubstance {
 	 *             the client exception
 	 */
 	public SimpleRegistry getSimpleRegistry() throws ClientException {
-		Registry r = ClientHttp.get(substance.getRegistryLink());
-		return new SimpleRegistry(r);
+		Registry r = client.get(substance.getRegistryLink());
+		return new SimpleRegistry(client, r);
 	}
 }
@@ -43,16 +43,18 @@ public class Structure extends Item {
 	private static final String REGISTRY_TAG = "registry";
 	private static final String SERIALIZATION_TAG = "serialization";
 
-	private String[] NEW_ATTRIBUTES = { SERIALIZATION_TAG, INCHI_TAG };
-	private String[] NEW_RESOURCES = { IMAGES_TAG, REGISTRY_TAG, COMPONENTS_TAG };
+	private static final String[] NEW_ATTRIBUTES = { SERIALIZATION_TAG, INCHI_TAG };
+	private static final String[] NEW_RESOURCES = { IMAGES_TAG, REGISTRY_TAG, COMPONENTS_TAG };
+
+	private static final Schema SCHEMA = Item.itemSchema(Structure.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
 
 	/**
 	 * Instantiates a new structure.
 	 */
 	public Structure() {
-		super();
-		addNewAttributeList(NEW_ATTRIBUTES);
-		addNewResourceList(NEW_RESOURCES);
+		super(SCHEMA);
 	}
 
 	/**
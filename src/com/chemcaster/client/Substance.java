@@ -44,17 +44,19 @@ public class Substance extends Item {
 	private static final String REGISTRY_TAG = "registry";
 	private static final String SERIALIZATION_TAG = "serialization";
 
-	private final String[] myAttributes = { SERIALIZATION_TAG, INCHI_TAG };
-	private final String[] myResources = { COMPONENTS_TAG, IMAGES_TAG,
+	private static final String[] NEW_ATTRIBUTES = { SERIALIZATION_TAG, INCHI_TAG };
+	private static final String[] NEW_RESOURCES = { COMPONENTS_TAG, IMAGES_TAG,
 			INDEX_TAG, REGISTRATION_TAG, REGISTRY_TAG };
 
+	private static final Schema SCHEMA = Item.itemSchema(Substance.class)
+			.withAttributes(NEW_ATTRIBUTES)
+			.withResources(NEW_RESOURCES);
+
 	/**
 	 * Instantiates a new substance.
 	 */
 	public Substance() {
-		super();
-		addNewAttributeList(myAttributes);
-		addNewResourceList(myResources);
+		super(SCHEMA);
 	}
 
 	/**
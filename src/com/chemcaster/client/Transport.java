@@ -0,0 +1,60 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.IOException;
+
+/**
+ * The Transport interface. A transport carries the HTTP exchanges of a
+ * ChemcasterClient; the client builds each request and interprets each
+ * response, so a transport only has to move bytes. HttpClient4Transport is
+ * the default; JdkHttpTransport multiplexes requests over HTTP/2.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public interface Transport {
+
+	/**
+	 * Execute a request. The caller releases the returned response once it
+	 * has read the content.
+	 * 
+	 * @param request
+	 *            the request
+	 * 
+	 * @return the response
+	 * 
+	 * @throws IOException
+	 *             if the exchange failed
+	 */
+	TransportResponse execute(TransportRequest request) throws IOException;
+
+	/**
+	 * Release the connections and threads held by this transport.
+	 */
+	void shutdown();
+
+}
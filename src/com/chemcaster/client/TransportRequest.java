@@ -0,0 +1,262 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/**
+ * The Class TransportRequest. One HTTP request for a Transport to execute:
+ * the verb, the URI, the media type for the Accept and Content-Type headers,
+ * an optional JSON body, the credentials of the link and any extra headers,
+ * such as the validators of a conditional GET.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class TransportRequest {
+
+	public static final String GET = "GET";
+	public static final String PUT = "PUT";
+	public static final String POST = "POST";
+	public static final String DELETE = "DELETE";
+
+	private final String method;
+	private final String uri;
+	private final String host;
+	private final String mediaType;
+	private final String body;
+	private final UsernamePasswordCredentials credentials;
+	private final boolean preemptive;
+	private int timeoutMillis = ClientConfiguration.NO_TIMEOUT;
+	private volatile Runnable abortAction;
+	private volatile boolean aborted;
+	private final LinkedHashMap<String, String> headers = new LinkedHashMap<String, String>();
+
+	/**
+	 * Instantiates a new transport request.
+	 * 
+	 * @param newMethod
+	 *            the HTTP verb
+	 * @param aLink
+	 *            the link supplying the URI, media type and credentials
+	 * @param newBody
+	 *            the JSON body, or null
+	 * @param sendPreemptively
+	 *            true to send the credentials without waiting for a challenge
+	 */
+	public TransportRequest(String newMethod, Link aLink, String newBody,
+			boolean sendPreemptively) {
+		method = newMethod;
+		uri = aLink.getURI();
+		host = aLink.getURIHost();
+		mediaType = aLink.getMediaTypeString();
+		credentials = aLink.getAuthentication();
+		body = newBody;
+		preemptive = sendPreemptively;
+	}
+
+	/**
+	 * Instantiates a copy of a request, for sending it again alongside the
+	 * original, as a hedge. The copy has its own abort action.
+	 * 
+	 * @param original
+	 *            the request to copy
+	 */
+	public TransportRequest(TransportRequest original) {
+		method = original.method;
+		uri = original.uri;
+		host = original.host;
+		mediaType = original.mediaType;
+		credentials = original.credentials;
+		body = original.body;
+		preemptive = original.preemptive;
+		timeoutMillis = original.timeoutMillis;
+		headers.putAll(original.headers);
+	}
+
+	/**
+	 * Gets the HTTP verb.
+	 * 
+	 * @return the method
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * Gets the URI.
+	 * 
+	 * @return the uri
+	 */
+	public String getURI() {
+		return uri;
+	}
+
+	/**
+	 * Gets the host of the URI.
+	 * 
+	 * @return the host
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * Gets the media type sent in the Accept and Content-Type headers.
+	 * 
+	 * @return the media type
+	 */
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * Gets the JSON body.
+	 * 
+	 * @return the body, or null
+	 */
+	public String getBody() {
+		return body;
+	}
+
+	/**
+	 * Checks if the request sends content, that is, if it is a PUT or a POST.
+	 * 
+	 * @return true, if the request sends content
+	 */
+	public boolean hasContent() {
+		return method.equals(PUT) || method.equals(POST);
+	}
+
+	/**
+	 * Gets the credentials.
+	 * 
+	 * @return the credentials
+	 */
+	public UsernamePasswordCredentials getCredentials() {
+		return credentials;
+	}
+
+	/**
+	 * Set an extra header, replacing any earlier value.
+	 * 
+	 * @param name
+	 *            the header name
+	 * @param value
+	 *            the header value
+	 */
+	public void setHeader(String name, String value) {
+		headers.put(name, value);
+	}
+
+	/**
+	 * Gets the extra headers, in the order they were set.
+	 * 
+	 * @return the headers by name
+	 */
+	public Map<String, String> getHeaders() {
+		return Collections.unmodifiableMap(headers);
+	}
+
+	/**
+	 * Gets the time this request may take in total, including reading the
+	 * response.
+	 * 
+	 * @return the timeout in milliseconds, or ClientConfiguration.NO_TIMEOUT
+	 */
+	public int getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Sets the time this request may take in total.
+	 * 
+	 * @param millis
+	 *            the timeout in milliseconds, or ClientConfiguration.NO_TIMEOUT
+	 */
+	public void setTimeoutMillis(int millis) {
+		timeoutMillis = millis;
+	}
+
+	/**
+	 * The shorter of a configured timeout and the total timeout of this
+	 * request, NO_TIMEOUT being the longest.
+	 * 
+	 * @param configuredMillis
+	 *            a timeout in milliseconds, or ClientConfiguration.NO_TIMEOUT
+	 * 
+	 * @return the effective timeout in milliseconds, or NO_TIMEOUT
+	 */
+	public int effectiveTimeout(int configuredMillis) {
+		if (timeoutMillis == ClientConfiguration.NO_TIMEOUT) {
+			return configuredMillis;
+		}
+		if (configuredMillis == ClientConfiguration.NO_TIMEOUT) {
+			return timeoutMillis;
+		}
+		return Math.min(configuredMillis, timeoutMillis);
+	}
+
+	/**
+	 * Set how a transport aborts this request while it is in flight. A
+	 * request aborted before the action is set is aborted at once.
+	 * 
+	 * @param action
+	 *            the abort action
+	 */
+	public void setAbortAction(Runnable action) {
+		abortAction = action;
+		if (aborted) {
+			action.run();
+		}
+	}
+
+	/**
+	 * Abort this request, if its transport supports it, for example when a
+	 * hedge has already answered.
+	 */
+	public void abort() {
+		aborted = true;
+		Runnable action = abortAction;
+		if (action != null) {
+			action.run();
+		}
+	}
+
+	/**
+	 * Checks if the credentials are sent preemptively.
+	 * 
+	 * @return true, if preemptive
+	 */
+	public boolean isPreemptive() {
+		return preemptive;
+	}
+
+}
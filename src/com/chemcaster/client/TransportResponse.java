@@ -0,0 +1,94 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+package com.chemcaster.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The TransportResponse interface. The status, headers and content of a
+ * response returned by a Transport.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public interface TransportResponse {
+
+	/**
+	 * Gets the HTTP status code.
+	 * 
+	 * @return the status code
+	 */
+	int getStatusCode();
+
+	/**
+	 * Gets the status line, for messages.
+	 * 
+	 * @return the status line
+	 */
+	String getStatusLine();
+
+	/**
+	 * Gets the first value of a header.
+	 * 
+	 * @param name
+	 *            the header name
+	 * 
+	 * @return the header value, or null if the header is absent
+	 */
+	String getHeader(String name);
+
+	/**
+	 * Gets the charset named by the Content-Type header.
+	 * 
+	 * @return the charset, or null if none was given
+	 */
+	String getContentCharset();
+
+	/**
+	 * Gets the response content.
+	 * 
+	 * @return the content stream, or null if the response has no content
+	 * 
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	InputStream getContent() throws IOException;
+
+	/**
+	 * Checks if the server challenged the request for Basic credentials, and
+	 * the transport answered the challenge.
+	 * 
+	 * @return true, if challenged for Basic credentials
+	 */
+	boolean isBasicChallenged();
+
+	/**
+	 * Release the response, returning its connection to the transport.
+	 */
+	void release();
+
+}
@@ -46,7 +46,7 @@ import java.util.Date;
  * @author John Jaeger <jj4395722_at_yahoo_dot_com>
  */
 public class Zip extends Representation {
-	private static final int READ_BYTE_BUFFER_SIZE = 1024;
+	private static final int READ_BYTE_BUFFER_SIZE = 8192;
 	private static final String ARCHIVE_FILE_PREFIX = "CCArch";
 	private static final String CANNOT_REOPEN_TEMP_FILE = "Cannot reopen temporary file created earlier: ";
 	private static final String NO_DATA_FOUND = "No data found either internally or in a generated temp file.";
@@ -57,14 +57,16 @@ public class Zip extends Representation {
 
 	private static final String DATA_TAG = "data";
 
+	private static final Schema SCHEMA = Schema.of(Zip.class)
+			.withResources(DATA_TAG);
+
 	private String storedFileName;
 
 	/**
 	 * Instantiates a new zip.
 	 */
 	public Zip() {
-		super();
-		addNewResource(DATA_TAG);
+		super(SCHEMA);
 	}
 
 	/**
@@ -87,19 +89,22 @@ public class Zip extends Representation {
 			FileOutputStream outStream = new FileOutputStream(bufferFile,
 					true);
 
-			int bytesRead = 0;
-			byte[] byteBuffer = new byte[READ_BYTE_BUFFER_SIZE];
+			try {
+				int bytesRead = 0;
+				byte[] byteBuffer = new byte[READ_BYTE_BUFFER_SIZE];
 
-			bytesRead = dataStream.read(byteBuffer);
-			while (bytesRead > 0) {
-				outStream.write(byteBuffer, 0, bytesRead);
 				bytesRead = dataStream.read(byteBuffer);
+				while (bytesRead >= 0) {
+					outStream.write(byteBuffer, 0, bytesRead);
+					bytesRead = dataStream.read(byteBuffer);
+				}
+
+				outStream.flush();
+			} finally {
+				outStream.close();
 			}
 
 			storedFileName = bufferFile.getCanonicalPath();
-
-			outStream.flush();
-			outStream.close();
 		} catch (FileNotFoundException e) {
 			throw new ClientException(UNABLE_TO_OPEN_FILE + e.getMessage());
 		} catch (IOException e) {
@@ -108,6 +113,17 @@ public class Zip extends Representation {
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.chemcaster.client.Representation#copy()
+	 */
+	Representation copy() {
+		Zip copy = new Zip();
+		copy.storedFileName = storedFileName;
+		return copy;
+	}
+
 	/**
 	 * Gets the data as an InputStream
 	 * 
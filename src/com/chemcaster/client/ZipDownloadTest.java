@@ -0,0 +1,125 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+
+
+package com.chemcaster.client;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.http.auth.UsernamePasswordCredentials;
+
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+
+public class ZipDownloadTest extends TestCase {
+
+	private static final String ZIP_TYPE = "application/zip";
+	private static final String ZIPFILE_URI = "https://chemcaster.com/archives/1/zipfile";
+	private static final String ENTRY = "substances.sdf";
+	private static final String ENTRY_CONTENT = "benzene\n$$$$\n";
+
+	private Transport transport;
+	private ChemcasterClient client;
+
+	private void respondWith(InputStream content) throws IOException {
+		TransportResponse response = mock(TransportResponse.class);
+		when(response.getStatusCode()).thenReturn(200);
+		when(response.getStatusLine()).thenReturn("HTTP/1.1 200 OK");
+		when(response.getContent()).thenReturn(content);
+		transport = mock(Transport.class);
+		when(transport.execute(any(TransportRequest.class))).thenReturn(
+				response);
+		client = new ChemcasterClient(new ClientConfiguration(), transport);
+	}
+
+	@Override
+	protected void tearDown() {
+		if (client != null) {
+			client.shutdown();
+		}
+	}
+
+	private static byte[] zipBytes() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ZipOutputStream zip = new ZipOutputStream(bytes);
+		zip.putNextEntry(new ZipEntry(ENTRY));
+		zip.write(ENTRY_CONTENT.getBytes("US-ASCII"));
+		zip.closeEntry();
+		zip.close();
+		return bytes.toByteArray();
+	}
+
+	private Link zipfileLink() {
+		return Link.create(ZIP_TYPE, ZIPFILE_URI,
+				new UsernamePasswordCredentials("alice", "a"));
+	}
+
+	public void testStreamsArchive() throws Exception {
+		respondWith(new ByteArrayInputStream(zipBytes()));
+		Zip zip = client.get(zipfileLink());
+		verify(transport, times(1)).execute(any(TransportRequest.class));
+
+		ZipInputStream entries = new ZipInputStream(zip.getDataStream());
+		try {
+			ZipEntry entry = entries.getNextEntry();
+			assertEquals(ENTRY, entry.getName());
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[256];
+			for (int read; (read = entries.read(buffer)) >= 0;) {
+				content.write(buffer, 0, read);
+			}
+			assertEquals(ENTRY_CONTENT, content.toString("US-ASCII"));
+			assertNull(entries.getNextEntry());
+		} finally {
+			entries.close();
+		}
+	}
+
+	public void testNoBody() throws Exception {
+		respondWith(null);
+		Zip zip = client.get(zipfileLink());
+		try {
+			zip.getDataStream();
+			fail("expected a ClientException");
+		} catch (ClientException ce) {
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.chemcaster.client.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.chemcaster.client.ChemcasterClient;
+import com.chemcaster.client.ClientConfiguration;
+import com.chemcaster.client.ClientException;
+import com.chemcaster.client.JdkHttpTransport;
+import com.chemcaster.client.NameURI;
+import com.chemcaster.client.SimpleRegistry;
+import com.chemcaster.client.SimpleSubstance;
+
+public class TransportBenchmark {
+
+	public static void main(String[] args) {
+		// time concurrent substance GETs over each transport
+		String registryURI = "";
+		String username = "";
+		String password = "";
+		ClientConfiguration configuration = new ClientConfiguration();
+		try {
+			ChemcasterClient pooled = new ChemcasterClient(configuration);
+			ChemcasterClient multiplexed = new ChemcasterClient(configuration,
+					new JdkHttpTransport(configuration));
+			System.out.println("HttpClient 4: "
+					+ fetchSubstances(pooled, registryURI, username, password)
+					+ " ms");
+			System.out.println("HTTP/2: "
+					+ fetchSubstances(multiplexed, registryURI, username,
+							password) + " ms");
+			pooled.shutdown();
+			multiplexed.shutdown();
+		} catch (ClientException ce) {
+			System.err.println("Substance retrieval failed.");
+			System.err.println(ce);
+			System.exit(42);
+		}
+	}
+
+	private static long fetchSubstances(ChemcasterClient client,
+			String registryURI, String username, String password)
+			throws ClientException {
+		SimpleRegistry registry = client.newSimpleRegistry(registryURI,
+				username, password);
+		NameURI substances = registry.getSubstances();
+		long start = System.currentTimeMillis();
+		List<CompletableFuture<SimpleSubstance>> fetches = new ArrayList<CompletableFuture<SimpleSubstance>>();
+		for (int i = 0; i < substances.size(); i++) {
+			fetches.add(registry.getSimpleSubstanceWithURIAsync(substances
+					.getURI(i)));
+		}
+		CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]))
+				.join();
+		return System.currentTimeMillis() - start;
+	}
+}
@@ -0,0 +1,117 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+package com.chemcaster.client.test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+import junit.framework.TestCase;
+
+import com.chemcaster.client.ChemcasterClient;
+import com.chemcaster.client.ClientException;
+import com.chemcaster.client.ClientRuntimeException;
+import com.chemcaster.client.Execution;
+import com.chemcaster.client.ExecutionResults;
+import com.chemcaster.client.Link;
+
+public class MockExecutionResultsTest extends TestCase {
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+	private ChemcasterClient client;
+	private Link indexLink;
+	private MockPages pages;
+	private Execution firstPage;
+
+	@Override
+	protected void setUp() throws ClientException {
+		client = mock(ChemcasterClient.class);
+		indexLink = mock(Link.class);
+		pages = new MockPages(client, indexLink, "hit", 3, 2);
+		firstPage = pages.getPage(0);
+	}
+
+	public void testFollowsEveryCursor() {
+		for (int readAhead = 0; readAhead < 4; readAhead++) {
+			ExecutionResults results = new ExecutionResults(client, firstPage,
+					readAhead);
+			assertEquals(6, results.stream().count());
+		}
+	}
+
+	public void testNameURI() {
+		ExecutionResults results = new ExecutionResults(client, firstPage, 1);
+		assertEquals("hit00", results.toNameURI().getName(0));
+		assertEquals("https://a.org/hit/substances/21", results
+				.toNameURI().getURI(5));
+	}
+
+	public void testLazyWithoutReadAhead() {
+		ExecutionResults results = new ExecutionResults(client, firstPage, 0);
+		Iterator<Link> hits = results.iterator();
+		hits.next();
+		hits.next();
+		verify(client, never()).executeQueryAsync(eq(indexLink),
+				any(String.class), any(Boolean.class), any(Number.class));
+		hits.next();
+		assertEquals(1, pages.getExecutedCursors().size());
+		// the next page is asked for with the parameters of the last
+		verify(client).executeQueryAsync(indexLink, "c1", Boolean.FALSE, 2);
+	}
+
+	public void testReadAhead() {
+		ExecutionResults results = new ExecutionResults(client, firstPage, 2);
+		Iterator<Link> hits = results.iterator();
+		hits.next();
+		assertEquals("[c1, c2]", pages.getExecutedCursors().toString());
+	}
+
+	public void testFailedPage() {
+		CompletableFuture<Execution> failed = new CompletableFuture<Execution>();
+		failed.completeExceptionally(new ClientException("Unexpected status"));
+		when(
+				client.executeQueryAsync(eq(indexLink), any(String.class),
+						any(Boolean.class), any(Number.class))).thenReturn(
+				failed);
+		Iterator<Link> hits = new ExecutionResults(client, firstPage, 0)
+				.iterator();
+		hits.next();
+		hits.next();
+		try {
+			hits.next();
+			fail("expected a ClientRuntimeException");
+		} catch (ClientRuntimeException cre) {
+			assertTrue(cre.getMessage().contains("Unexpected status"));
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+package com.chemcaster.client.test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+import junit.framework.TestCase;
+
+import com.chemcaster.client.ChemcasterClient;
+import com.chemcaster.client.ClientException;
+import com.chemcaster.client.Index;
+import com.chemcaster.client.IndexPages;
+import com.chemcaster.client.Link;
+
+public class MockIndexPagesTest extends TestCase {
+/* 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+	private ChemcasterClient client;
+	private Link[] pageLinks;
+
+	@Override
+	protected void setUp() throws ClientException {
+		client = mock(ChemcasterClient.class);
+		pageLinks = new Link[3];
+		for (int i = 0; i < pageLinks.length; i++) {
+			pageLinks[i] = mock(Link.class);
+		}
+		for (int i = 0; i < pageLinks.length; i++) {
+			Index page = mock(Index.class);
+			ArrayList<Link> items = new ArrayList<Link>();
+			for (int j = 0; j < 2; j++) {
+				Link item = mock(Link.class);
+				when(item.getName()).thenReturn("item" + i + j);
+				when(item.getURI()).thenReturn("https://a.org/items/" + i + j);
+				items.add(item);
+			}
+			when(page.getItemLinksList()).thenReturn(items);
+			when(page.getNextPage()).thenReturn(
+					i + 1 < pageLinks.length ? pageLinks[i + 1] : null);
+			when(client.<Index> getAsync(pageLinks[i])).thenReturn(
+					CompletableFuture.completedFuture(page));
+		}
+	}
+
+	public void testFollowsEveryPage() {
+		for (int readAhead = 0; readAhead < 4; readAhead++) {
+			IndexPages pages = new IndexPages(client, pageLinks[0], readAhead);
+			assertEquals(6, pages.stream().count());
+		}
+	}
+
+	public void testNameURI() {
+		IndexPages pages = new IndexPages(client, pageLinks[0], 1);
+		assertEquals("item00", pages.toNameURI().getName(0));
+		assertEquals("https://a.org/items/21", pages.toNameURI().getURI(5));
+	}
+
+	public void testLazyWithoutReadAhead() {
+		IndexPages pages = new IndexPages(client, pageLinks[0], 0);
+		Iterator<Link> items = pages.iterator();
+		items.next();
+		verify(client, never()).getAsync(pageLinks[1]);
+	}
+
+	public void testReadAhead() {
+		IndexPages pages = new IndexPages(client, pageLinks[0], 2);
+		Iterator<Link> items = pages.iterator();
+		items.next();
+		verify(client).getAsync(pageLinks[1]);
+		verify(client).getAsync(pageLinks[2]);
+	}
+
+	public void testItemNamed() {
+		IndexPages pages = new IndexPages(client, pageLinks[0], 1);
+		assertEquals("https://a.org/items/20", pages.getItemNamed("item20").getURI());
+		assertEquals("https://a.org/items/01", pages.getItemNamed("item01").getURI());
+		assertNull(pages.getItemNamed("item30"));
+		verify(client).getAsync(pageLinks[2]);
+	}
+}
@@ -98,4 +98,25 @@ public class MockIndexTest extends TestCase {
 		}
 		
 	}
+
+	public void testItemNamed() {
+		JSONObject first = mock(JSONObject.class);
+		m.hasAndReturnsString(first, "name", "first");
+		m.hasAndReturnsString(first, "uri", "https://a.org/b/1");
+		m.hasAndReturnsString(first, "media_type", "x");
+		JSONObject second = mock(JSONObject.class);
+		m.hasAndReturnsString(second, "name", "second");
+		m.hasAndReturnsString(second, "uri", "https://a.org/b/2");
+		m.hasAndReturnsString(second, "media_type", "x");
+		try {
+			when(itemsJSON.getJSONObject(0)).thenReturn(first);
+			when(itemsJSON.getJSONObject(1)).thenReturn(second);
+			when(itemsJSON.length()).thenReturn(2);
+			assertEquals("https://a.org/b/2", index.getItemNamed("second").getURI());
+			assertEquals("https://a.org/b/1", index.getItemNamed("first").getURI());
+			assertNull(index.getItemNamed("third"));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
 }
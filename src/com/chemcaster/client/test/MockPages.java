@@ -0,0 +1,162 @@
+/*
+* ChemcasterClient - a Java interface to the REST services of 
+* http://www.chemcaster.com. Based on chemcaster-ruby
+* (Copyright (c) 2009 Metamolecular LLC - http://www.metamolecular.com).
+*
+* Copyright (c) 2009 John Jaeger  <jj4395722_at_yahoo_dot_com>
+*
+* Permission is hereby granted, free of charge, to any person obtaining a copy
+* of this software and associated documentation files (the "Software"), to deal
+* in the Software without restriction, including without limitation the rights
+* to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+* copies of the Software, and to permit persons to whom the Software is
+* furnished to do so, subject to the following conditions:
+*
+* The above copyright notice and this permission notice shall be included in
+* all copies or substantial portions of the Software.
+*
+* THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+* IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+* FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+* AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+* LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+* OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+* THE SOFTWARE.
+*/
+package com.chemcaster.client.test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.chemcaster.client.ChemcasterClient;
+import com.chemcaster.client.ClientException;
+import com.chemcaster.client.Execution;
+import com.chemcaster.client.Link;
+
+/**
+ * The Class MockPages. The mocked pages of one query execution, for tests
+ * that page through results. Each hit is in a group of its own and is named
+ * after the pages, its page and its place on the page, so "a10" is the first
+ * hit of the second page of "a". Page i is reached with the cursor "c" + i,
+ * and the first page also with no cursor. The client answers
+ * executeQueryAsync for the executions link with the page of the cursor
+ * asked for.
+ * 
+ * @author John Jaeger <jj4395722_at_yahoo_dot_com>
+ */
+public class MockPages {
+
+	private static final String CURSOR_PREFIX = "c";
+
+	private final Execution[] pages;
+	private final HashMap<String, Execution> pagesByCursor = new HashMap<String, Execution>();
+	private final List<String> executedCursors = Collections
+			.synchronizedList(new ArrayList<String>());
+	private volatile CompletableFuture<?> firstPageArrival = CompletableFuture
+			.completedFuture(null);
+
+	/**
+	 * Mock the pages, and the client that executes them.
+	 * 
+	 * @param client
+	 *            the mocked client
+	 * @param executionsLink
+	 *            the executions link of the query
+	 * @param name
+	 *            the name the hits start with
+	 * @param pageCount
+	 *            the number of pages
+	 * @param hitsPerPage
+	 *            the number of hits on each page, and its maximum results
+	 * 
+	 * @throws ClientException
+	 *             the client exception
+	 */
+	public MockPages(ChemcasterClient client, Link executionsLink,
+			String name, int pageCount, int hitsPerPage) throws ClientException {
+		pages = new Execution[pageCount];
+		for (int i = 0; i < pageCount; i++) {
+			Execution page = mock(Execution.class);
+			ArrayList<ArrayList<Link>> groups = new ArrayList<ArrayList<Link>>();
+			for (int j = 0; j < hitsPerPage; j++) {
+				Link hit = mock(Link.class);
+				when(hit.getName()).thenReturn(name + i + j);
+				when(hit.getURI()).thenReturn(
+						"https://a.org/" + name + "/substances/" + i + j);
+				ArrayList<Link> group = new ArrayList<Link>();
+				group.add(hit);
+				groups.add(group);
+			}
+			when(page.getSubstancesLinks()).thenReturn(groups);
+			when(page.getIndexLink()).thenReturn(executionsLink);
+			when(page.getMaximumResults()).thenReturn(hitsPerPage);
+			when(page.isReverse()).thenReturn(false);
+			when(page.getNextCursor()).thenReturn(
+					i + 1 < pageCount ? CURSOR_PREFIX + (i + 1) : null);
+			pages[i] = page;
+			pagesByCursor.put(CURSOR_PREFIX + i, page);
+		}
+		if (pageCount > 0) {
+			pagesByCursor.put(null, pages[0]);
+		}
+
+		when(
+				client.executeQueryAsync(eq(executionsLink), any(String.class),
+						any(Boolean.class), any(Number.class))).thenAnswer(
+				new Answer<CompletableFuture<Execution>>() {
+					public CompletableFuture<Execution> answer(
+							InvocationOnMock invocation) {
+						String cursor = (String) invocation.getArguments()[1];
+						executedCursors.add(cursor);
+						Execution page = pagesByCursor.get(cursor);
+						if (cursor == null) {
+							return firstPageArrival.thenApply(ignored -> page);
+						}
+						return CompletableFuture.completedFuture(page);
+					}
+				});
+	}
+
+	/**
+	 * Gets a page.
+	 * 
+	 * @param i
+	 *            the index of the page
+	 * 
+	 * @return the page
+	 */
+	public Execution getPage(int i) {
+		return pages[i];
+	}
+
+	/**
+	 * Gets the cursors executed so far, in order.
+	 * 
+	 * @return the cursors
+	 */
+	public List<String> getExecutedCursors() {
+		return executedCursors;
+	}
+
+	/**
+	 * Hold back the first page, executed with no cursor, until a future
+	 * completes.
+	 * 
+	 * @param arrival
+	 *            the future
+	 */
+	public void holdFirstPage(CompletableFuture<?> arrival) {
+		firstPageArrival = arrival;
+	}
+}